@@ -0,0 +1,68 @@
+package org.mvel3.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.ClassManager;
+import org.mvel3.CompilerBackend;
+import org.mvel3.MVELBatchCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link MVELBatchCompiler#compile(ClassLoader)} of 1k and 10k distinct expressions, as a single javac call or split
+ * evenly into one shard per available processor with {@link MVELBatchCompiler#parallel(int, int)}. The expressions
+ * are transpiled and added before each invocation, so only the javac calls and the define are measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class BatchCompileBenchmark {
+
+    @Param({"1000", "10000"})
+    public int expressions;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    public String mode;
+
+    private String[] sources;
+
+    private MVELBatchCompiler batch;
+
+    private ClassLoader classLoader;
+
+    @Setup
+    public void setup() {
+        sources = Fixtures.expressions(expressions);
+        classLoader = getClass().getClassLoader();
+    }
+
+    @Setup(Level.Invocation)
+    public void addExpressions() {
+        batch = new MVELBatchCompiler(new ClassManager());
+        if ("PARALLEL".equals(mode)) {
+            batch.parallel(0, Runtime.getRuntime().availableProcessors());
+        }
+        for (String expression : sources) {
+            batch.add(Fixtures.map(expression, CompilerBackend.JAVAC));
+        }
+    }
+
+    @Benchmark
+    public ClassManager compile() {
+        batch.compile(classLoader);
+        return batch.getClassManager();
+    }
+}
@@ -0,0 +1,53 @@
+package org.mvel3.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.javaparser.ast.CompilationUnit;
+import org.mvel3.ClassFilter;
+import org.mvel3.ClassFilterValidator;
+import org.mvel3.MVELCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ClassFilterValidator} alone, over an already transpiled evaluator unit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class ClassFilterBenchmark {
+
+    @Param({"MAP", "POJO"})
+    public String context;
+
+    private CompilationUnit unit;
+
+    private ClassFilter filter;
+
+    private ClassLoader classLoader;
+
+    @Setup
+    public void setup() {
+        unit = new MVELCompiler().transpileToCompilationUnit(Fixtures.parameters(context, Fixtures.EXPRESSION));
+        filter = ClassFilter.blocklist(Runtime.class, ProcessBuilder.class);
+        classLoader = getClass().getClassLoader();
+    }
+
+    @Benchmark
+    public CompilationUnit validate() {
+        ClassFilterValidator.validate(unit, filter, classLoader);
+        return unit;
+    }
+}
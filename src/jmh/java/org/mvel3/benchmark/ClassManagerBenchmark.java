@@ -0,0 +1,87 @@
+package org.mvel3.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.ClassManager;
+import org.mvel3.javacompiler.KieMemoryCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 32 threads sharing one {@link ClassManager}: 4 define evaluator classes, most of them already defined under the
+ * same or another name, while 28 resolve them by name, as concurrent compilations and evaluations of a rule base do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Group)
+public class ClassManagerBenchmark {
+
+    @Param({"64"})
+    public int classes;
+
+    private List<Map<String, byte[]>> byteCode;
+
+    private String[] names;
+
+    private ClassManager classManager;
+
+    @Setup(Level.Trial)
+    public void compile() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < classes; i++) {
+            // the Alias classes have the eval method of the Bench class with the same number
+            for (String prefix : new String[] {"Bench", "Alias"}) {
+                sources.put("org.mvel3." + prefix + i,
+                            "package org.mvel3; public class " + prefix + i + " { public Object eval(Object o) { return \"" + i + "\"; } }");
+            }
+        }
+        byteCode = new ArrayList<>();
+        KieMemoryCompiler.compileNoLoad(sources, getClass().getClassLoader(), null)
+                         .forEach((name, bytes) -> byteCode.add(Map.of(name, bytes)));
+        names = sources.keySet().toArray(new String[0]);
+    }
+
+    @Setup(Level.Iteration)
+    public void newClassManager() {
+        classManager = new ClassManager();
+        // half the classes are defined up front, so resolving always finds something
+        for (int i = 0; i < byteCode.size(); i += 2) {
+            classManager.define(byteCode.get(i));
+        }
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(4)
+    public ClassManager define() {
+        classManager.define(byteCode.get(ThreadLocalRandom.current().nextInt(byteCode.size())));
+        return classManager;
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(28)
+    public Class<?> resolve() {
+        return classManager.getClass(names[ThreadLocalRandom.current().nextInt(names.length)]);
+    }
+}
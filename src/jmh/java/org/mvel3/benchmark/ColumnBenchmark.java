@@ -0,0 +1,107 @@
+package org.mvel3.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.ClassManager;
+import org.mvel3.ColumnEvaluator;
+import org.mvel3.ColumnLayout;
+import org.mvel3.Columns;
+import org.mvel3.Evaluator;
+import org.mvel3.MVEL;
+import org.mvel3.transpiler.context.Declaration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scores the same arithmetic expression over every row of a table, held as columns for the COLUMNS context, with the
+ * loop generated into the evaluator or row by row through <code>eval</code>, and as one reused map per row for the
+ * MAP context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {Fixtures.JVM_ARGS, "-Xmx2g"})
+@State(Scope.Thread)
+public class ColumnBenchmark {
+
+    private static final String EXPRESSION = "a * x + 0.5";
+
+    @Param({"10000000"})
+    public int rows;
+
+    private ColumnEvaluator<Void, Double> columnEvaluator;
+
+    private Evaluator<Map<String, Object>, Void, Double> mapEvaluator;
+
+    private Columns columns;
+
+    private int[] a;
+
+    private double[] x;
+
+    private double[] output;
+
+    @Setup
+    public void setup() {
+        Declaration<?>[] declarations = {Declaration.of("a", int.class), Declaration.of("x", double.class)};
+
+        columnEvaluator = MVEL.columns(declarations)
+                              .<Double>out(Double.class)
+                              .expression(EXPRESSION)
+                              .classManager(new ClassManager())
+                              .compileColumns();
+
+        mapEvaluator = MVEL.map(declarations)
+                           .<Double>out(Double.class)
+                           .expression(EXPRESSION)
+                           .classManager(new ClassManager())
+                           .compile();
+
+        columns = ColumnLayout.of(declarations).newColumns(rows);
+        a = columns.get(0);
+        x = columns.get(1);
+        for (int i = 0; i < rows; i++) {
+            a[i] = i % 1000;
+            x[i] = i * 0.001;
+        }
+        output = new double[rows];
+    }
+
+    @Benchmark
+    public double[] columns() {
+        columnEvaluator.evalColumns(columns, 0, rows, output);
+        return output;
+    }
+
+    @Benchmark
+    public double[] columnsRowByRow() {
+        for (int i = 0; i < rows; i++) {
+            columns.row = i;
+            output[i] = columnEvaluator.eval(columns);
+        }
+        return output;
+    }
+
+    @Benchmark
+    public double[] map() {
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < rows; i++) {
+            variables.put("a", a[i]);
+            variables.put("x", x[i]);
+            output[i] = mapEvaluator.eval(variables);
+        }
+        return output;
+    }
+}
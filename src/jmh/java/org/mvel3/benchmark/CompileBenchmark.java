@@ -0,0 +1,80 @@
+package org.mvel3.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.ClassManager;
+import org.mvel3.CompilerBackend;
+import org.mvel3.CompilerParameters;
+import org.mvel3.MVELCompiler;
+import org.mvel3.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The whole pipeline, from expression to first result: compiling with each backend, and the tiered mode, whose
+ * first evaluation is interpreted and does not wait for a compilation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class CompileBenchmark {
+
+    @Param({"JAVAC", "BYTECODE"})
+    public CompilerBackend backend;
+
+    private CompilerParameters<Map<String, Object>, Void, Object> mapInfo;
+
+    private CompilerParameters<Person, Void, Object> pojoInfo;
+
+    private MVELCompiler compiler;
+
+    private Map<String, Object> variables;
+
+    private Person person;
+
+    @Setup
+    public void setup() {
+        mapInfo = Fixtures.map(Fixtures.EXPRESSION, backend);
+        pojoInfo = Fixtures.pojo(Fixtures.EXPRESSION, backend);
+        compiler = new MVELCompiler();
+        variables = Fixtures.variables();
+        person = Fixtures.person();
+    }
+
+    @Benchmark
+    public Object compileMap() {
+        return compiler.compile(withNewClassManager(mapInfo)).eval(variables);
+    }
+
+    @Benchmark
+    public Object compilePojo() {
+        return compiler.compile(withNewClassManager(pojoInfo)).eval(person);
+    }
+
+    @Benchmark
+    public Object compileTieredMap() {
+        return compiler.compileTiered(withNewClassManager(mapInfo)).eval(variables);
+    }
+
+    private static <C, W, O> CompilerParameters<C, W, O> withNewClassManager(CompilerParameters<C, W, O> info) {
+        return new CompilerParameters<>(info.contextType(), info.classLoader(), new ClassManager(),
+                                        info.imports(), info.staticImports(),
+                                        info.outType(), info.contextDeclaration(), info.variableDeclarations(),
+                                        info.withDeclaration(), info.contentType(), info.expression(),
+                                        info.generatedClassName(), info.generatedMethodName(), info.generatedSuperName(),
+                                        info.classFilter(), info.options());
+    }
+}
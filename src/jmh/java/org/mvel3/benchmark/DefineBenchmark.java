@@ -0,0 +1,50 @@
+package org.mvel3.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.ClassManager;
+import org.mvel3.MVELCompiler;
+import org.mvel3.MVELCompiler.TranspiledSource;
+import org.mvel3.javacompiler.KieMemoryCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ClassManager#define(Map)} alone: defining the bytecode of one evaluator as a hidden class in a new
+ * <code>ClassManager</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class DefineBenchmark {
+
+    private Map<String, byte[]> byteCode;
+
+    private String fqn;
+
+    @Setup
+    public void setup() {
+        TranspiledSource source = new MVELCompiler().transpileToSource(Fixtures.parameters("POJO", Fixtures.EXPRESSION));
+        fqn = source.fqn();
+        byteCode = KieMemoryCompiler.compileNoLoad(Map.of(fqn, source.javaSource()), getClass().getClassLoader(), null);
+    }
+
+    @Benchmark
+    public Class<?> define() {
+        ClassManager classManager = new ClassManager();
+        classManager.define(byteCode);
+        return classManager.getClass(fqn);
+    }
+}
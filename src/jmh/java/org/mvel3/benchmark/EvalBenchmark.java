@@ -0,0 +1,119 @@
+package org.mvel3.benchmark;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.CompilerBackend;
+import org.mvel3.Evaluator;
+import org.mvel3.MVEL;
+import org.mvel3.MVELCompiler;
+import org.mvel3.Person;
+import org.mvel3.transpiler.context.Declaration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Steady state <code>Evaluator.eval</code> of compiled evaluators for each context shape, a with-block and
+ * BigDecimal arithmetic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class EvalBenchmark {
+
+    @Param({"JAVAC", "BYTECODE"})
+    public CompilerBackend backend;
+
+    private Evaluator<Map<String, Object>, Void, Object> map;
+
+    private Evaluator<List<Object>, Void, Object> list;
+
+    private Evaluator<Person, Void, Object> pojo;
+
+    private Evaluator<Map<String, Object>, Void, Object> withBlock;
+
+    private Evaluator<Map<String, Object>, Void, BigDecimal> bigDecimal;
+
+    private Map<String, Object> variables;
+
+    private List<Object> values;
+
+    private Person person;
+
+    private Map<String, Object> withVariables;
+
+    private Map<String, Object> bigDecimalVariables;
+
+    @Setup
+    public void setup() {
+        MVELCompiler compiler = new MVELCompiler();
+
+        map = compiler.compile(Fixtures.map(Fixtures.EXPRESSION, backend));
+        variables = Fixtures.variables();
+
+        list = MVEL.<Object>list(Declaration.of("a", int.class), Declaration.of("b", int.class))
+                   .<Object>out(Object.class)
+                   .expression("a * b + 1")
+                   .backend(backend)
+                   .compile();
+        values = List.of(6, 7);
+
+        pojo = compiler.compile(Fixtures.pojo(Fixtures.EXPRESSION, backend));
+        person = Fixtures.person();
+
+        withBlock = MVEL.<Object>map(Declaration.of("p", Person.class))
+                        .<Object>out(Object.class)
+                        .block("with (p) { age = 30; name = \"Mario\"; }; return p.age;")
+                        .backend(backend)
+                        .compile();
+        withVariables = new HashMap<>();
+        withVariables.put("p", Fixtures.person());
+
+        bigDecimal = MVEL.<Object>map(Declaration.of("salary", BigDecimal.class), Declaration.of("rate", BigDecimal.class))
+                         .<BigDecimal>out(BigDecimal.class)
+                         .expression("salary * rate + 100B")
+                         .backend(backend)
+                         .compile();
+        bigDecimalVariables = Map.of("salary", new BigDecimal("52000.50"), "rate", new BigDecimal("1.035"));
+    }
+
+    @Benchmark
+    public Object evalMap() {
+        return map.eval(variables);
+    }
+
+    @Benchmark
+    public Object evalList() {
+        return list.eval(values);
+    }
+
+    @Benchmark
+    public Object evalPojo() {
+        return pojo.eval(person);
+    }
+
+    @Benchmark
+    public Object evalWithBlock() {
+        return withBlock.eval(withVariables);
+    }
+
+    @Benchmark
+    public BigDecimal evalBigDecimal() {
+        return bigDecimal.eval(bigDecimalVariables);
+    }
+}
@@ -0,0 +1,76 @@
+package org.mvel3.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.mvel3.ClassManager;
+import org.mvel3.CompilerBackend;
+import org.mvel3.CompilerParameters;
+import org.mvel3.MVEL;
+import org.mvel3.Person;
+import org.mvel3.transpiler.context.Declaration;
+
+/**
+ * Parameters shared by the benchmarks: MAP and POJO contexts over the same variables, with a fresh
+ * <code>ClassManager</code> so compilations never hit the classes of a previous invocation.
+ */
+final class Fixtures {
+
+    static final String JVM_ARGS = "-Dmvel3.compiler.lambda.persistence=false";
+
+    static final String EXPRESSION = "age > 18 && name != null && salary.compareTo(java.math.BigDecimal.TEN) < 0";
+
+    private Fixtures() {
+    }
+
+    static Declaration<?>[] declarations() {
+        return new Declaration<?>[] {Declaration.of("age", int.class),
+                                     Declaration.of("name", String.class),
+                                     Declaration.of("salary", BigDecimal.class)};
+    }
+
+    static CompilerParameters<Map<String, Object>, Void, Object> map(String expression, CompilerBackend backend) {
+        return MVEL.<Object>map(declarations())
+                   .<Object>out(Object.class)
+                   .expression(expression)
+                   .classManager(new ClassManager())
+                   .backend(backend)
+                   .build();
+    }
+
+    static CompilerParameters<Person, Void, Object> pojo(String expression, CompilerBackend backend) {
+        Declaration<?>[] declarations = declarations();
+        return MVEL.<Person>pojo(Person.class, declarations[0], declarations[1], declarations[2])
+                   .<Object>out(Object.class)
+                   .expression(expression)
+                   .classManager(new ClassManager())
+                   .backend(backend)
+                   .build();
+    }
+
+    static CompilerParameters<?, ?, ?> parameters(String context, String expression) {
+        return "POJO".equals(context) ? pojo(expression, CompilerBackend.JAVAC) : map(expression, CompilerBackend.JAVAC);
+    }
+
+    /**
+     * Distinct expressions against the same fact type, so that only type resolution can be shared between them.
+     */
+    static String[] expressions(int count) {
+        String[] expressions = new String[count];
+        for (int i = 0; i < count; i++) {
+            expressions[i] = "age > " + i + " && name != null && salary.compareTo(java.math.BigDecimal.TEN) < " + (i % 3);
+        }
+        return expressions;
+    }
+
+    static Person person() {
+        Person person = new Person("Luca");
+        person.setAge(35);
+        person.setSalary(new BigDecimal(500));
+        return person;
+    }
+
+    static Map<String, Object> variables() {
+        return Map.of("age", 35, "name", "Luca", "salary", new BigDecimal(500));
+    }
+}
@@ -0,0 +1,61 @@
+package org.mvel3.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.MVELCompiler;
+import org.mvel3.MVELCompiler.TranspiledSource;
+import org.mvel3.javacompiler.JavaCompilerSession;
+import org.mvel3.javacompiler.KieMemoryCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link KieMemoryCompiler} alone, compiling the printed source of one evaluator to bytecode, either on the warm
+ * shared {@link JavaCompilerSession} of the class loader or on a new session per compilation, as before sessions
+ * were kept.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class JavacBenchmark {
+
+    @Param({"MAP", "POJO"})
+    public String context;
+
+    @Param({"true", "false"})
+    public boolean warmSession;
+
+    private Map<String, String> sources;
+
+    private ClassLoader classLoader;
+
+    @Setup
+    public void setup() {
+        TranspiledSource source = new MVELCompiler().transpileToSource(Fixtures.parameters(context, Fixtures.EXPRESSION));
+        sources = Map.of(source.fqn(), source.javaSource());
+        classLoader = getClass().getClassLoader();
+    }
+
+    @Benchmark
+    public Map<String, byte[]> compile() {
+        if (warmSession) {
+            return KieMemoryCompiler.compileNoLoad(sources, JavaCompilerSession.forClassLoader(classLoader), null);
+        }
+        try (JavaCompilerSession session = new JavaCompilerSession(classLoader)) {
+            return KieMemoryCompiler.compileNoLoad(sources, session, null);
+        }
+    }
+}
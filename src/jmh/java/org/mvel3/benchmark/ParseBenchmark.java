@@ -0,0 +1,52 @@
+package org.mvel3.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import org.mvel3.parser.antlr4.Antlr4MvelParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Antlr4MvelParser} alone: ANTLR parsing plus the conversion of the parse tree to the JavaParser AST.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+    @Param({"a + b * c",
+            "person.address.city == \"Rome\" && person.age > 18",
+            "salary * 1.10B + bonus"})
+    public String expression;
+
+    private Antlr4MvelParser parser;
+
+    @Setup
+    public void setup() {
+        parser = new Antlr4MvelParser();
+    }
+
+    @Benchmark
+    public Expression parseExpression() {
+        return parser.<Expression>parseExpression(expression).getResult().get();
+    }
+
+    @Benchmark
+    public BlockStmt parseBlock() {
+        return parser.parseBlock("{ int x = a + b; if (x > 10) { return x * c; } return 0; }").getResult().get();
+    }
+}
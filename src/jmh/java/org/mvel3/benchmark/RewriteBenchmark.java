@@ -0,0 +1,64 @@
+package org.mvel3.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.CompilerParameters;
+import org.mvel3.MVELCompiler;
+import org.mvel3.transpiler.MVELTranspiler;
+import org.mvel3.transpiler.TranspiledResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of <code>MVELToJavaRewriter</code>: the rewriter needs the context, unit and symbol resolver set up by
+ * the transpiler, so it is measured as the difference between transpiling with and without
+ * {@link MVELTranspiler#ENABLE_REWRITE}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class RewriteBenchmark {
+
+    @Param({"MAP", "POJO"})
+    public String context;
+
+    @Param({"true", "false"})
+    public boolean rewrite;
+
+    private CompilerParameters<?, ?, ?> info;
+
+    private MVELCompiler compiler;
+
+    private boolean enableRewrite;
+
+    @Setup
+    public void setup() {
+        info = Fixtures.parameters(context, Fixtures.EXPRESSION);
+        compiler = new MVELCompiler();
+        enableRewrite = MVELTranspiler.ENABLE_REWRITE;
+        MVELTranspiler.ENABLE_REWRITE = rewrite;
+    }
+
+    @TearDown
+    public void tearDown() {
+        MVELTranspiler.ENABLE_REWRITE = enableRewrite;
+    }
+
+    @Benchmark
+    public TranspiledResult transpile() {
+        return compiler.transpile(info);
+    }
+}
@@ -0,0 +1,66 @@
+package org.mvel3.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mvel3.CompilerParameters;
+import org.mvel3.MVELCompiler;
+import org.mvel3.transpiler.context.ResolutionCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <code>MVELTranspiler.transpile</code> for 1k distinct expressions against the same fact types, with the
+ * per-ClassLoader {@link ResolutionCache} shared between them or dropped before each expression.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = Fixtures.JVM_ARGS)
+@State(Scope.Thread)
+public class TranspileBenchmark {
+
+    private static final int EXPRESSIONS = 1000;
+
+    @Param({"MAP", "POJO"})
+    public String context;
+
+    @Param({"true", "false"})
+    public boolean sharedResolution;
+
+    private CompilerParameters<?, ?, ?>[] parameters;
+
+    private MVELCompiler compiler;
+
+    @Setup
+    public void setup() {
+        String[] expressions = Fixtures.expressions(EXPRESSIONS);
+        parameters = new CompilerParameters<?, ?, ?>[EXPRESSIONS];
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            parameters[i] = Fixtures.parameters(context, expressions[i]);
+        }
+        compiler = new MVELCompiler();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EXPRESSIONS)
+    public void transpile(Blackhole blackhole) {
+        for (CompilerParameters<?, ?, ?> info : parameters) {
+            if (!sharedResolution) {
+                ResolutionCache.invalidateAll();
+            }
+            blackhole.consume(compiler.transpile(info));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.mvel3.lambdaextractor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving and loading the lambda registry with {@link LambdaRegistryStore}, in the binary format and in the format
+ * version 2 Properties file it replaces, and looking up one entry through {@link LambdaRegistryStore#open()}, which
+ * includes checking the checksum of the whole file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LambdaRegistryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int entries;
+
+    private Path directory;
+
+    private LambdaPersistenceSnapshot snapshot;
+
+    private LambdaRegistryStore binary;
+
+    private LambdaRegistryStore properties;
+
+    private Path propertiesFile;
+
+    private int physicalId;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("lambda-registry");
+        List<CatalogEntry> catalog = new ArrayList<>(entries);
+        Map<Integer, ArtifactRef> artifacts = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+            // a handful of signatures shared by many bodies, as with the evaluators of a rule base
+            catalog.add(new CatalogEntry(i, "public java.lang.Object eval(java.util.Map m" + i % 8 + ")",
+                                         "{ return m.get(\"v" + i + "\") != null && (int) m.get(\"v" + i + "\") > " + i + "; }"));
+            artifacts.put(i, new ArtifactRef("org.mvel3.Gen" + i, directory.resolve("org/mvel3/Gen" + i + ".class")));
+        }
+        snapshot = new LambdaPersistenceSnapshot(new CatalogSnapshot(entries, entries, catalog), artifacts);
+        physicalId = entries / 2;
+
+        binary = new LambdaRegistryStore(directory.resolve("lambda-registry.dat"));
+        binary.save(snapshot);
+        propertiesFile = directory.resolve("lambda-registry.properties");
+        properties = new LambdaRegistryStore(propertiesFile);
+        saveVersion2(snapshot, propertiesFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void saveBinary() throws IOException {
+        binary.save(snapshot);
+    }
+
+    @Benchmark
+    public LambdaPersistenceSnapshot loadBinary() throws IOException {
+        return binary.load();
+    }
+
+    @Benchmark
+    public ArtifactRef openAndLookup() throws IOException {
+        LambdaRegistryStore.Index index = binary.open();
+        return index.artifact(index.indexOf(physicalId));
+    }
+
+    @Benchmark
+    public void saveProperties() throws IOException {
+        saveVersion2(snapshot, propertiesFile);
+    }
+
+    @Benchmark
+    public LambdaPersistenceSnapshot loadProperties() throws IOException {
+        return properties.load();
+    }
+
+    // the format version 2 writer of LambdaRegistryStore, before the binary format
+    private static void saveVersion2(LambdaPersistenceSnapshot snapshot, Path file) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("format.version", "2");
+        props.setProperty("catalog.nextPhysicalId", String.valueOf(snapshot.catalog().nextPhysicalId()));
+        props.setProperty("catalog.nextLogicalId", String.valueOf(snapshot.catalog().nextLogicalId()));
+        int i = 0;
+        for (CatalogEntry entry : snapshot.catalog().entries()) {
+            props.setProperty("catalog.entry." + i + ".physicalId", String.valueOf(entry.physicalId()));
+            props.setProperty("catalog.entry." + i + ".methodSignature", entry.methodSignature());
+            props.setProperty("catalog.entry." + i + ".normalizedBody", entry.normalizedBody());
+            i++;
+        }
+        i = 0;
+        for (Map.Entry<Integer, ArtifactRef> artifact : new TreeMap<>(snapshot.artifacts()).entrySet()) {
+            props.setProperty("artifact." + i + ".physicalId", String.valueOf(artifact.getKey()));
+            props.setProperty("artifact." + i + ".fqn", artifact.getValue().fqn());
+            props.setProperty("artifact." + i + ".classFile", artifact.getValue().classFile().toString());
+            i++;
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            props.store(out, "MVEL3 lambda registry");
+        }
+    }
+}
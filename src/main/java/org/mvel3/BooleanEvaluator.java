@@ -0,0 +1,71 @@
+package org.mvel3;
+
+import java.util.List;
+
+/**
+ * An {@link Evaluator} of a boolean expression, e.g. a constraint, whose result is returned without boxing by
+ * {@link #test(Object)}. Compiled by {@link MVELBuilder#compileBoolean()} for an out type of {@code Boolean};
+ * {@link #eval(Object)} boxes the result. A null result of the expression fails with a
+ * {@link NullPointerException}.
+ *
+ * @param <C> the context type (Map, List, or POJO)
+ * @param <W> the "with" root context type (Void if not used)
+ */
+public interface BooleanEvaluator<C, W> extends Evaluator<C, W, Boolean> {
+
+    /**
+     * Evaluates the compiled expression with the given context, see {@link Evaluator#eval(Object)}.
+     *
+     * @param c the context object containing input variables
+     * @return the result of evaluating the expression
+     */
+    boolean test(C c);
+
+    @Override
+    default Boolean eval(C c) {
+        return test(c);
+    }
+
+    /**
+     * Tests {@code length} contexts of the list, starting at {@code offset}, setting bit {@code i} of the bitset,
+     * i.e. bit {@code i % 64} of {@code bits[i / 64]}, when the context at {@code offset + i} matches. Every word
+     * holding one of the {@code length} bits is overwritten, so the bits past {@code length} in the last word are
+     * cleared. See {@link Evaluator#evalBatch(List, int, int, Object[])}.
+     *
+     * @param cs the context objects
+     * @param offset the index of the first context to test
+     * @param length the number of contexts to test
+     * @param bits the bitset receiving the results, at least {@code (length + 63) / 64} words long
+     */
+    default void testBatch(List<? extends C> cs, int offset, int length, long[] bits) {
+        for (int word = 0; word << 6 < length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, length - base);
+            long matches = 0;
+            for (int bit = 0; bit < end; bit++) {
+                if (test(cs.get(offset + base + bit))) {
+                    matches |= 1L << bit;
+                }
+            }
+            bits[word] = matches;
+        }
+    }
+
+    /**
+     * Tests {@code length} contexts of the array, starting at {@code offset}, see
+     * {@link #testBatch(List, int, int, long[])}.
+     */
+    default void testBatch(C[] cs, int offset, int length, long[] bits) {
+        for (int word = 0; word << 6 < length; word++) {
+            int base = word << 6;
+            int end = Math.min(64, length - base);
+            long matches = 0;
+            for (int bit = 0; bit < end; bit++) {
+                if (test(cs[offset + base + bit])) {
+                    matches |= 1L << bit;
+                }
+            }
+            bits[word] = matches;
+        }
+    }
+}
@@ -1,89 +1,294 @@
 package org.mvel3;
 
 import org.mvel3.methodutils.MethodByteCodeExtractor;
-import org.mvel3.methodutils.Murmur3F;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
  * This defines the classes. It ensures only one class exists for an equal set of blocks.
+ * <p>
+ * A ClassManager may be shared by concurrent compilations. Classes are looked up without locking; definitions lock
+ * one of {@link #STRIPES} stripes, chosen by the {@link ClassEntry} hash, so unrelated classes are defined in
+ * parallel while equal entries are defined at most once. A class whose entry equals one defined earlier under
+ * another name resolves to the earlier class under both names.
+ * <p>
+ * By default every class is kept for the lifetime of the manager. A manager created with a budget, see
+ * {@link #ClassManager(int, long)}, evicts the least recently defined or resolved classes once it holds more classes
+ * or bytecode than the budget allows. Eviction only drops the manager's references: the hidden class is unloaded
+ * when no evaluator instance refers to it any more, and {@link #getClass(String)} returns null for its names, so
+ * callers compile it again.
  */
 public class ClassManager {
-    private Map<String, Class<?>> classes;
 
-    private Map<ClassEntry, ClassEntry> entries;
+    static final int STRIPES = 64;
 
-    private Supplier<MethodHandles.Lookup> lookupSupplier;
+    /**
+     * The number of live classes, the class file bytes retained for them and the number of classes evicted since
+     * the manager was created.
+     */
+    public record Stats(int liveClasses, long retainedByteCodeBytes, long evictions) {}
+
+    private static final class Definition {
+
+        private final ClassEntry entry;
+
+        private final Class<?> definedClass;
+
+        // guarded by the entry's stripe
+        private final List<String> names = new ArrayList<>(1);
+
+        // racy on purpose, only ordering evictions
+        private long lastUsed;
+
+        private Definition(ClassEntry entry, Class<?> definedClass) {
+            this.entry = entry;
+            this.definedClass = definedClass;
+        }
+    }
+
+    private record Candidate(long lastUsed, Definition definition) {}
+
+    private final Map<String, Class<?>> classes;
+
+    private final Map<ClassEntry, Definition> entries;
+
+    private final Map<Class<?>, Definition> definitions;
+
+    private final Object[] locks;
+
+    private final Supplier<MethodHandles.Lookup> lookupSupplier;
+
+    private final int maximumClasses;
+
+    private final long maximumByteCodeBytes;
+
+    private final boolean bounded;
+
+    private final AtomicLong retainedByteCodeBytes = new AtomicLong();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final Object evictionLock = new Object();
 
     public ClassManager() {
         this(() -> MethodHandles.lookup());
     }
 
     public ClassManager(Supplier<MethodHandles.Lookup> lookupSupplier) {
+        this(lookupSupplier, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a manager evicting the least recently used classes once it holds more than {@code maximumClasses}
+     * classes or more than {@code maximumByteCodeBytes} of class files. Eviction then continues down to 7/8 of the
+     * budget, so the manager does not evict on every definition once it is full.
+     */
+    public ClassManager(int maximumClasses, long maximumByteCodeBytes) {
+        this(() -> MethodHandles.lookup(), maximumClasses, maximumByteCodeBytes);
+    }
+
+    public ClassManager(Supplier<MethodHandles.Lookup> lookupSupplier, int maximumClasses, long maximumByteCodeBytes) {
+        if (maximumClasses < 1) {
+            throw new IllegalArgumentException("maximumClasses must be at least 1: " + maximumClasses);
+        }
+        if (maximumByteCodeBytes < 1) {
+            throw new IllegalArgumentException("maximumByteCodeBytes must be at least 1: " + maximumByteCodeBytes);
+        }
         this.lookupSupplier = lookupSupplier;
-        this.classes = new HashMap<>();
-        this.entries = new HashMap<>();
+        this.maximumClasses = maximumClasses;
+        this.maximumByteCodeBytes = maximumByteCodeBytes;
+        this.bounded = maximumClasses != Integer.MAX_VALUE || maximumByteCodeBytes != Long.MAX_VALUE;
+        this.classes = new ConcurrentHashMap<>();
+        this.entries = new ConcurrentHashMap<>();
+        this.definitions = new ConcurrentHashMap<>();
+        this.locks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
     }
 
     public <T> Class<T> getClass(String name) {
-        return (Class<T>) classes.get(name);
+        Class<?> c = classes.get(name);
+        if (bounded && c != null) {
+            Definition definition = definitions.get(c);
+            if (definition != null) {
+                definition.lastUsed = System.nanoTime();
+            }
+        }
+        return (Class<T>) c;
     }
 
+    /**
+     * A read-only view of the defined classes by name.
+     */
     public Map<String, Class<?>> getClasses() {
-        return classes;
+        return Collections.unmodifiableMap(classes);
     }
 
     public Supplier<Lookup> getLookupSupplier() {
         return lookupSupplier;
     }
 
-    public  void define(Map<String, byte[]> byteCode) {
+    public Stats stats() {
+        return new Stats(entries.size(), retainedByteCodeBytes.get(), evictions.sum());
+    }
+
+    public void define(Map<String, byte[]> byteCode) {
+        define(byteCode, true);
+    }
+
+    /**
+     * Defines classes the caller knows to be unique, e.g. lambdas the {@code LambdaCatalog} registered for the first
+     * time, without digesting their eval method for deduplication. Later classes are not deduplicated against them.
+     */
+    public void defineUnique(Map<String, byte[]> byteCode) {
+        define(byteCode, false);
+    }
+
+    private void define(Map<String, byte[]> byteCode, boolean deduplicate) {
+        boolean added = false;
         for (Map.Entry<String, byte[]> entry : byteCode.entrySet()) {
-            try {
-                ClassEntry newEntry = new ClassEntry(entry.getKey(), entry.getValue());
-                ClassEntry existingEntry = entries.get(newEntry);
-                if (existingEntry == null) {
-                    entries.put(newEntry, newEntry);
+            // digesting the eval method to compare is the costly part, keep it out of the lock
+            ClassEntry newEntry = new ClassEntry(entry.getKey(), entry.getValue(), deduplicate);
+            added |= define(entry.getKey(), newEntry);
+        }
+        if (added && bounded) {
+            evictOverBudget();
+        }
+    }
 
+    /**
+     * Evicts the class defined under the name, and its other names, e.g. when the rule it belongs to is removed.
+     * Returns false when no class is defined under the name.
+     */
+    public boolean evict(String name) {
+        Class<?> c = classes.get(name);
+        Definition definition = c != null ? definitions.get(c) : null;
+        return definition != null && evict(definition);
+    }
+
+    // returns true when the entry was new
+    private boolean define(String name, ClassEntry entry) {
+        synchronized (stripe(entry)) {
+            Definition definition = entries.get(entry);
+            boolean added = definition == null;
+            if (added) {
+                Class<?> c;
+                try {
                     MethodHandles.Lookup lookup = lookupSupplier.get();
-                    Class<?> c = lookup.defineHiddenClass(entry.getValue(), true).lookupClass();
+                    c = lookup.defineHiddenClass(entry.getBytes(), true).lookupClass();
+                } catch (Exception e) {
+                    throw new RuntimeException("Unable to instantiate Lambda", e);
+                }
+                definition = new Definition(entry, c);
+                entries.put(entry, definition);
+                definitions.put(c, definition);
+                retainedByteCodeBytes.addAndGet(entry.getBytes().length);
+            }
+            if (!definition.names.contains(name)) {
+                definition.names.add(name);
+            }
+            definition.lastUsed = System.nanoTime();
+            classes.put(name, definition.definedClass);
+            return added;
+        }
+    }
 
-                    classes.put(entry.getKey(), c);
+    private void evictOverBudget() {
+        synchronized (evictionLock) {
+            if (entries.size() <= maximumClasses && retainedByteCodeBytes.get() <= maximumByteCodeBytes) {
+                return;
+            }
+            int classesTarget = maximumClasses - maximumClasses / 8;
+            long bytesTarget = maximumByteCodeBytes - maximumByteCodeBytes / 8;
+
+            // snapshot the access times, lookups keep updating them while sorting
+            List<Candidate> leastRecentlyUsed = new ArrayList<>(entries.size());
+            for (Definition definition : entries.values()) {
+                leastRecentlyUsed.add(new Candidate(definition.lastUsed, definition));
+            }
+            leastRecentlyUsed.sort(Comparator.comparingLong(Candidate::lastUsed));
+            for (Candidate candidate : leastRecentlyUsed) {
+                if (entries.size() <= classesTarget && retainedByteCodeBytes.get() <= bytesTarget) {
+                    break;
                 }
-            } catch (Exception e) {
-                throw new RuntimeException("Unable to instantiate Lambda", e);
+                evict(candidate.definition());
+            }
+        }
+    }
+
+    private boolean evict(Definition definition) {
+        synchronized (stripe(definition.entry)) {
+            if (!entries.remove(definition.entry, definition)) {
+                return false; // evicted concurrently
             }
+            definitions.remove(definition.definedClass);
+            for (String name : definition.names) {
+                // the name may have been redefined as another class since
+                classes.remove(name, definition.definedClass);
+            }
+            retainedByteCodeBytes.addAndGet(-definition.entry.getBytes().length);
+            evictions.increment();
+            return true;
         }
     }
 
+    private Object stripe(ClassEntry entry) {
+        int hash = entry.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
     public static class ClassEntry {
-        private String name;
-        private byte[] bytes;
+        // the methods an evaluator implements, the primitive evaluators implement one of test and the applyAs methods
+        // instead of eval, batch evaluators also override the batch methods and column evaluators evalColumns. The
+        // getters of the property sets and masks and of the effects return literals, the static initializer holds any
+        // constants, and the constructor of a memoising evaluator sizes its cache.
+        private static final Set<String> EVALUATOR_METHODS = Set.of("eval", "evalWith", "test", "applyAsInt",
+                                                                    "applyAsLong", "applyAsDouble", "evalBatch",
+                                                                    "testBatch", "applyAsIntBatch", "applyAsLongBatch",
+                                                                    "applyAsDoubleBatch", "evalColumns", "<clinit>",
+                                                                    "getReadProperties", "getWriteProperties",
+                                                                    "getReadMask", "getWriteMask",
+                                                                    "isPure", "writesContext", "callsExternalMethods",
+                                                                    "<init>");
 
-        private String byteCode;
+        private final String name;
+        private final byte[] bytes;
 
-        private byte[] hash;
+        // digest of the evaluator methods, null for the entries that are not deduplicated
+        private final byte[] hash;
 
-        private int hashCode;
+        private final int hashCode;
 
         public ClassEntry(String name, byte[] bytes) {
+            this(name, bytes, true);
+        }
+
+        /**
+         * @param deduplicate false when the caller knows the class is unique, so its evaluator methods are not digested
+         *                    and the entry only equals itself. Classes without evaluator methods are never
+         *                    deduplicated.
+         */
+        public ClassEntry(String name, byte[] bytes, boolean deduplicate) {
             this.name = name;
             this.bytes = bytes;
 
             // TODO in the future this should use JavaParser AST, to avoid the compilation steps.
-            this.byteCode = MethodByteCodeExtractor.extract("eval", bytes);
-
-            Murmur3F murmur = new Murmur3F();
-            murmur.update(byteCode.getBytes());
-
-            // This murmur hash provides better hashcodes and earlier exit of equals testing
-            hash = murmur.getValueBytesBigEndian();
-            hashCode = Arrays.hashCode(hash);
+            // The Murmur3 digest provides good hashcodes and an early exit of equals testing.
+            this.hash = deduplicate ? MethodByteCodeExtractor.digest(EVALUATOR_METHODS, bytes) : null;
+            this.hashCode = hash != null ? Arrays.hashCode(hash) : System.identityHashCode(this);
         }
 
         public String getName() {
@@ -110,11 +315,13 @@ public class ClassManager {
 
             ClassEntry that = (ClassEntry) o;
 
-            // Murmur hash comparison has high chance of uniqueness and should provide early exit if not equal
-            if (!Arrays.equals(hash, that.hash)) {
+            if (hash == null || that.hash == null || !Arrays.equals(hash, that.hash)) {
                 return false;
             }
-            return byteCode.equals(that.byteCode);
+            // Equal digests are almost certainly equal methods: confirm on the encoding, which is not kept but
+            // extracted again from the class bytes, as it is only needed here.
+            return Arrays.equals(MethodByteCodeExtractor.canonical(EVALUATOR_METHODS, bytes),
+                                 MethodByteCodeExtractor.canonical(EVALUATOR_METHODS, that.bytes));
         }
 
         @Override
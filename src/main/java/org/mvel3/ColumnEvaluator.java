@@ -0,0 +1,49 @@
+package org.mvel3;
+
+/**
+ * An evaluator of a {@link ContextType#COLUMNS} context, which also evaluates a range of rows at once, writing the
+ * result of each row to the same row of an output column. Evaluators compiled with {@link MVELBuilder#compileColumns()}
+ * override the variant of the output column matching their out type, e.g. {@code double[]} for a {@code Double} out
+ * type and {@code O[]} for a non primitive one, with a loop over plain arrays that the JIT can unroll, and vectorise
+ * for arithmetic expressions. The default methods set {@link Columns#row} and call {@link #eval(Object)} per row.
+ */
+public interface ColumnEvaluator<W, O> extends Evaluator<Columns, W, O> {
+
+    /**
+     * Evaluates the rows from {@code from}, inclusive, to {@code to}, exclusive, into {@code output[row]}.
+     */
+    default void evalColumns(Columns columns, int from, int to, O[] output) {
+        for (int row = from; row < to; row++) {
+            columns.row = row;
+            output[row] = eval(columns);
+        }
+    }
+
+    default void evalColumns(Columns columns, int from, int to, int[] output) {
+        for (int row = from; row < to; row++) {
+            columns.row = row;
+            output[row] = ((Number) eval(columns)).intValue();
+        }
+    }
+
+    default void evalColumns(Columns columns, int from, int to, long[] output) {
+        for (int row = from; row < to; row++) {
+            columns.row = row;
+            output[row] = ((Number) eval(columns)).longValue();
+        }
+    }
+
+    default void evalColumns(Columns columns, int from, int to, double[] output) {
+        for (int row = from; row < to; row++) {
+            columns.row = row;
+            output[row] = ((Number) eval(columns)).doubleValue();
+        }
+    }
+
+    default void evalColumns(Columns columns, int from, int to, boolean[] output) {
+        for (int row = from; row < to; row++) {
+            columns.row = row;
+            output[row] = (Boolean) eval(columns);
+        }
+    }
+}
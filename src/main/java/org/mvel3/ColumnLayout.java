@@ -0,0 +1,94 @@
+package org.mvel3;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mvel3.transpiler.context.Declaration;
+
+/**
+ * Binds each declared variable of a {@link ContextType#COLUMNS} evaluator to a column of {@link Columns}. Columns are
+ * numbered in declaration order, so the evaluator compiled from the declarations and the caller filling the columns
+ * agree without sharing anything but the declarations.
+ * <pre>
+ * ColumnLayout layout = ColumnLayout.of(Declaration.of("a", int.class), Declaration.of("x", double.class));
+ * Columns columns = layout.newColumns(rows);
+ * int[] a = columns.get(layout.column("a"));
+ * </pre>
+ */
+public final class ColumnLayout {
+
+    /**
+     * The local holding the row in the generated code, the loop variable of {@link ColumnEvaluator#evalColumns}.
+     */
+    public static final String ROW_VARIABLE = "___row";
+
+    private record Binding(int column, Class<?> columnType) {}
+
+    private final Map<String, Binding> bindings = new HashMap<>();
+
+    private final Class<?>[] columnTypes;
+
+    private ColumnLayout(List<Declaration> declarations) {
+        for (Declaration<?> declaration : declarations) {
+            bindings.putIfAbsent(declaration.name(), new Binding(bindings.size(), columnType(declaration.type().getClazz())));
+        }
+        columnTypes = new Class<?>[bindings.size()];
+        bindings.values().forEach(binding -> columnTypes[binding.column()] = binding.columnType());
+    }
+
+    public static ColumnLayout of(Declaration... declarations) {
+        return new ColumnLayout(Arrays.asList(declarations));
+    }
+
+    public static ColumnLayout of(List<Declaration> declarations) {
+        return new ColumnLayout(declarations);
+    }
+
+    /**
+     * The array type of the column holding variables of the given type.
+     */
+    public static Class<?> columnType(Class<?> type) {
+        return type.isPrimitive() && type != void.class ? type.arrayType() : Object[].class;
+    }
+
+    /**
+     * The local the generated code holds a column in, loaded once per evaluation rather than once per row.
+     */
+    public static String columnVariable(int column) {
+        return "___column" + column;
+    }
+
+    public int column(String name) {
+        return binding(name).column();
+    }
+
+    public Class<?> columnType(String name) {
+        return binding(name).columnType();
+    }
+
+    public boolean contains(String name) {
+        return bindings.containsKey(name);
+    }
+
+    /**
+     * Allocates every column with the given number of rows.
+     */
+    public Columns newColumns(int rows) {
+        Object[] columns = new Object[columnTypes.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Array.newInstance(columnTypes[i].getComponentType(), rows);
+        }
+        return new Columns(columns);
+    }
+
+    private Binding binding(String name) {
+        Binding binding = bindings.get(name);
+        if (binding == null) {
+            throw new IllegalArgumentException("No column for variable: " + name);
+        }
+        return binding;
+    }
+}
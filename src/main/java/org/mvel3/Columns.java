@@ -0,0 +1,31 @@
+package org.mvel3;
+
+/**
+ * The context of {@link ContextType#COLUMNS} evaluators: each declared variable is a column, an array holding the
+ * variable for every row, at the index a {@link ColumnLayout} gives it. Primitive variables are held in an array of
+ * their type, e.g. {@code int[]} for an {@code int} variable, and every other variable in an {@code Object[]}.
+ * <p>
+ * {@link Evaluator#eval(Object)} evaluates the current {@link #row}. {@link ColumnEvaluator#evalColumns} evaluates a
+ * range of rows, reading the columns directly, without materialising a map or pojo per row. Columns are not thread
+ * safe when evaluated row by row; use one instance per thread.
+ */
+public final class Columns {
+
+    public final Object[] columns;
+
+    public int row;
+
+    public Columns(Object... columns) {
+        this.columns = columns;
+    }
+
+    public Columns set(int column, Object values) {
+        columns[column] = values;
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <A> A get(int column) {
+        return (A) columns[column];
+    }
+}
@@ -0,0 +1,17 @@
+package org.mvel3;
+
+/**
+ * Selects how the rewritten evaluator is turned into bytecode.
+ */
+public enum CompilerBackend {
+    /**
+     * Prints the evaluator source and compiles it with javac.
+     */
+    JAVAC,
+
+    /**
+     * Emits the evaluator bytecode directly from the rewritten AST, falling back to {@link #JAVAC}
+     * for the constructs the direct emitter does not support.
+     */
+    BYTECODE;
+}
@@ -0,0 +1,99 @@
+package org.mvel3;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+/**
+ * Listener for where compilation time goes. {@link MVELCompiler} reports the wall time and the bytes allocated by
+ * the compiling thread for each {@link Phase}, and counts the compilations it avoided by reusing a lambda of the
+ * catalog or a persisted class. Set it with {@link MVELBuilder#metrics(CompilerMetrics)} or
+ * {@link MVELCompiler#MVELCompiler(JavaCompilerSession, EvaluatorCache, CompilerMetrics)};
+ * {@link InMemoryCompilerMetrics} aggregates the reports into histograms.
+ * <p>
+ * Implementations are called from every thread compiling with them and must be thread-safe.
+ */
+public interface CompilerMetrics {
+
+    enum Phase {
+        /** Parsing the expression or block into the MVEL AST. */
+        PARSE,
+        /** Finding the variables the content uses, see {@code VariableAnalyser}. */
+        VARIABLE_ANALYSIS,
+        /** Declaring the used variables from the context, see {@code EvalPre}. */
+        EVAL_PRE,
+        /** Rewriting MVEL constructs into Java, see {@code MVELToJavaRewriter}. */
+        REWRITE,
+        /** Checking the referenced classes against the {@link ClassFilter}. */
+        CLASS_FILTER,
+        /** Printing the compilation unit to Java source for javac. */
+        PRINT,
+        /** Compiling the Java source to bytecode. */
+        JAVAC,
+        /** Emitting the bytecode directly with {@link CompilerBackend#BYTECODE}. */
+        BYTECODE,
+        /** Defining the classes in the {@link ClassManager}. */
+        DEFINE,
+        /** Reading and defining a class persisted by an earlier run. */
+        LOAD_PERSISTED
+    }
+
+    /** Reports nothing; {@link #time(Phase, Supplier)} only runs the work. */
+    CompilerMetrics NONE = new CompilerMetrics() {
+        @Override
+        public void phase(Phase phase, long nanos, long allocatedBytes) {
+        }
+
+        @Override
+        public <T> T time(Phase phase, Supplier<T> work) {
+            return work.get();
+        }
+    };
+
+    /**
+     * Reports a completed phase. {@code allocatedBytes} is -1 when the JVM does not measure thread allocation.
+     */
+    void phase(Phase phase, long nanos, long allocatedBytes);
+
+    /** A new evaluator class was compiled, by javac or the bytecode emitter. */
+    default void evaluatorCompiled() {
+    }
+
+    /** The lambda catalog matched the evaluator to an already registered lambda. */
+    default void catalogHit() {
+    }
+
+    /** The evaluator class was loaded from a persisted artifact instead of being compiled. */
+    default void persistedArtifactReused() {
+    }
+
+    /**
+     * Runs the work and reports it as the phase, also when it fails.
+     */
+    default <T> T time(Phase phase, Supplier<T> work) {
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            long nanos = System.nanoTime() - start;
+            phase(phase, nanos, allocated < 0 ? -1 : allocatedBytes() - allocated);
+        }
+    }
+
+    default void time(Phase phase, Runnable work) {
+        time(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean allocation &&
+            allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled()) {
+            return allocation.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
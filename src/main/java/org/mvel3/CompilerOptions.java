@@ -0,0 +1,70 @@
+package org.mvel3;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The optional settings of a compilation, which {@link MVELBuilder} builds and {@link CompilerParameters#options()}
+ * carries. {@link #DEFAULTS} compiles with javac an evaluator that only implements {@link Evaluator}, without batch
+ * methods, property masks nor memoisation, analysing its effects with {@link PureMethods#defaults()}.
+ *
+ * @param backend       how the evaluator class is produced, see {@link MVELBuilder#backend(CompilerBackend)}
+ * @param primitive     whether the evaluator implements the primitive interface of its boxed out type, see
+ *                      {@link MVELBuilder#compileBoolean()}
+ * @param batch         whether the generated class overrides the batch methods, see {@link MVELBuilder#batch()}
+ * @param propertyIndex the properties numbered for the read and write masks, see
+ *                      {@link MVELBuilder#propertyIndex(List)}
+ * @param pureMethods   the methods trusted to have no side effects, see {@link MVELBuilder#pureMethods(PureMethods)}
+ * @param memoSize      the most results memoised, or 0 when the evaluator does not memoise, see
+ *                      {@link MVELBuilder#memoise(int)}
+ */
+public record CompilerOptions(CompilerBackend backend,
+                              boolean primitive,
+                              boolean batch,
+                              List<String> propertyIndex,
+                              PureMethods pureMethods,
+                              int memoSize) {
+
+    public static final CompilerOptions DEFAULTS = new CompilerOptions(CompilerBackend.JAVAC, false, false, List.of(),
+                                                                       PureMethods.defaults(), 0);
+
+    public CompilerOptions {
+        Objects.requireNonNull(backend, "backend");
+        Objects.requireNonNull(pureMethods, "pureMethods");
+        propertyIndex = List.copyOf(propertyIndex);
+        if (memoSize < 0) {
+            throw new IllegalArgumentException("memoSize must not be negative: " + memoSize);
+        }
+    }
+
+    public CompilerOptions withBackend(CompilerBackend backend) {
+        return new CompilerOptions(backend, primitive, batch, propertyIndex, pureMethods, memoSize);
+    }
+
+    public CompilerOptions withPrimitive(boolean primitive) {
+        return new CompilerOptions(backend, primitive, batch, propertyIndex, pureMethods, memoSize);
+    }
+
+    public CompilerOptions withBatch(boolean batch) {
+        return new CompilerOptions(backend, primitive, batch, propertyIndex, pureMethods, memoSize);
+    }
+
+    public CompilerOptions withPropertyIndex(List<String> propertyIndex) {
+        return new CompilerOptions(backend, primitive, batch, propertyIndex, pureMethods, memoSize);
+    }
+
+    public CompilerOptions withPureMethods(PureMethods pureMethods) {
+        return new CompilerOptions(backend, primitive, batch, propertyIndex, pureMethods, memoSize);
+    }
+
+    public CompilerOptions withMemoSize(int memoSize) {
+        return new CompilerOptions(backend, primitive, batch, propertyIndex, pureMethods, memoSize);
+    }
+
+    /**
+     * Whether the evaluator memoises its results, see {@link MVELBuilder#memoise(int)}.
+     */
+    public boolean memoise() {
+        return memoSize > 0;
+    }
+}
@@ -23,7 +23,31 @@ public record CompilerParameters<T, K, R>(ContextType contextType,
                                           String generatedClassName,
                                           String generatedMethodName,
                                           String generatedSuperName,
-                                          ClassFilter classFilter) {
+                                          ClassFilter classFilter,
+                                          CompilerOptions options) {
+
+    /**
+     * Parameters with the {@link CompilerOptions#DEFAULTS default options}, compiled by {@link CompilerBackend#JAVAC}.
+     */
+    public CompilerParameters(ContextType contextType, ClassLoader classLoader, ClassManager classManager,
+                              Set<String> imports, Set<String> staticImports, Type<R> outType,
+                              Declaration<T> contextDeclaration, List<Declaration> variableDeclarations,
+                              Declaration<K> withDeclaration, ContentType contentType, String expression,
+                              String generatedClassName, String generatedMethodName, String generatedSuperName,
+                              ClassFilter classFilter) {
+        this(contextType, classLoader, classManager, imports, staticImports, outType, contextDeclaration,
+             variableDeclarations, withDeclaration, contentType, expression, generatedClassName, generatedMethodName,
+             generatedSuperName, classFilter, CompilerOptions.DEFAULTS);
+    }
+
+    /**
+     * These parameters with other options, e.g. {@code info.withOptions(info.options().withBatch(true))}.
+     */
+    public CompilerParameters<T, K, R> withOptions(CompilerOptions options) {
+        return new CompilerParameters<>(contextType, classLoader, classManager, imports, staticImports, outType,
+                                        contextDeclaration, variableDeclarations, withDeclaration, contentType, expression,
+                                        generatedClassName, generatedMethodName, generatedSuperName, classFilter, options);
+    }
 
     public Map<String, Declaration> allVars() {
         if (variableDeclarations.isEmpty()) {
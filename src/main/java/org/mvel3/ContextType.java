@@ -1,5 +1,5 @@
 package org.mvel3;
 
 public enum ContextType {
-    POJO, MAP, LIST, NONE;
+    POJO, MAP, LIST, FRAME, COLUMNS, NONE;
 }
@@ -0,0 +1,49 @@
+package org.mvel3;
+
+import java.util.List;
+
+/**
+ * An {@link Evaluator} of a double expression, whose result is returned without boxing by
+ * {@link #applyAsDouble(Object)}. Compiled by {@link MVELBuilder#compileDouble()} for an out type of
+ * {@code Double}; {@link #eval(Object)} boxes the result. A null result of the expression fails with a
+ * {@link NullPointerException}.
+ *
+ * @param <C> the context type (Map, List, or POJO)
+ * @param <W> the "with" root context type (Void if not used)
+ */
+public interface DoubleEvaluator<C, W> extends Evaluator<C, W, Double> {
+
+    /**
+     * Evaluates the compiled expression with the given context, see {@link Evaluator#eval(Object)}.
+     *
+     * @param c the context object containing input variables
+     * @return the result of evaluating the expression
+     */
+    double applyAsDouble(C c);
+
+    @Override
+    default Double eval(C c) {
+        return applyAsDouble(c);
+    }
+
+    /**
+     * Evaluates {@code length} contexts of the list, starting at {@code offset}, writing the result of the context at
+     * {@code offset + i} to {@code results[i]} without boxing, see
+     * {@link Evaluator#evalBatch(List, int, int, Object[])}.
+     */
+    default void applyAsDoubleBatch(List<? extends C> cs, int offset, int length, double[] results) {
+        for (int i = 0; i < length; i++) {
+            results[i] = applyAsDouble(cs.get(offset + i));
+        }
+    }
+
+    /**
+     * Evaluates {@code length} contexts of the array, starting at {@code offset}, see
+     * {@link #applyAsDoubleBatch(List, int, int, double[])}.
+     */
+    default void applyAsDoubleBatch(C[] cs, int offset, int length, double[] results) {
+        for (int i = 0; i < length; i++) {
+            results[i] = applyAsDouble(cs[offset + i]);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.mvel3;
 
+import java.util.List;
+
 /**
  * Interface for compiled MVEL expression evaluators.
  * <p>
@@ -23,6 +25,10 @@ package org.mvel3;
  *   <li>POJO context ({@code MVEL.pojo(...)}): Use {@link #eval(Object) eval(C c)} where C is the POJO class</li>
  *   <li>With root context: Use {@link #eval(Object, Object) eval(C c, W w)} when a "with" object is configured</li>
  * </ul>
+ * <p>
+ * <b>Property sets:</b> {@link #getReadProperties()}, {@link #getWriteProperties()}, {@link #getReadMask()} and
+ * {@link #getWriteMask()} return a new array on each call, so a caller may modify it without changing what the
+ * evaluator reports to others. Callers that test the masks often should keep the arrays rather than call again.
  *
  * @param <C> the context type (Map, List, or POJO)
  * @param <W> the "with" root context type (Void if not used)
@@ -78,17 +84,117 @@ public interface Evaluator<C, W, O> {
         throw new RuntimeException("Not Implemented");
     }
 
+    /**
+     * Evaluates the compiled expression for {@code length} contexts of the list, starting at {@code offset}, writing
+     * the result of the context at {@code offset + i} to {@code results[i]}.
+     * <p>
+     * Evaluators compiled with {@link MVELBuilder#batch()} override this method with the same loop inside the
+     * generated class, so the JIT sees a single receiver for the {@link #eval(Object)} call and can inline it.
+     * The default implementation calls {@code eval} through the interface.
+     *
+     * @param cs the context objects
+     * @param offset the index of the first context to evaluate
+     * @param length the number of contexts to evaluate
+     * @param results the array receiving the results, from index 0
+     */
+    default void evalBatch(List<? extends C> cs, int offset, int length, O[] results) {
+        for (int i = 0; i < length; i++) {
+            results[i] = eval(cs.get(offset + i));
+        }
+    }
+
+    /**
+     * Evaluates the compiled expression for {@code length} contexts of the array, starting at {@code offset}, see
+     * {@link #evalBatch(List, int, int, Object[])}.
+     */
+    default void evalBatch(C[] cs, int offset, int length, O[] results) {
+        for (int i = 0; i < length; i++) {
+            results[i] = eval(cs[offset + i]);
+        }
+    }
+
     /**
      * Returns the names of properties that the compiled expression reads from
-     * its context. Populated only for POJO-context evaluators; empty otherwise.
+     * its context.
      * <p>
      * The returned names are <em>candidates</em> derived from AST analysis — bare
      * identifiers and no-arg getter calls. Consumers are expected to filter
-     * against the actual settable-property set of the context type.
+     * against the actual settable-property set of the context type, or to
+     * compile with {@link MVELBuilder#propertyIndex(List)} and use
+     * {@link #getReadMask()}.
      *
      * @return property names referenced by the expression, or an empty array
      */
     default String[] getReadProperties() {
         return new String[0];
     }
+
+    /**
+     * Returns the names of properties that the compiled expression writes: variables assigned, incremented or
+     * decremented, and so written back to the context, properties assigned in {@code with} and {@code modify}
+     * blocks, setter calls and {@code put} calls with a literal key, along with the variable at the root of a target
+     * such as {@code person.address.city}. Like {@link #getReadProperties()} these are candidates.
+     *
+     * @return property names written by the expression, or an empty array
+     */
+    default String[] getWriteProperties() {
+        return new String[0];
+    }
+
+    /**
+     * Returns {@link #getReadProperties()} as a bitmask over the property index given to
+     * {@link MVELBuilder#propertyIndex(List)}: bit {@code i % 64} of word {@code i / 64} is set when the property at
+     * index {@code i} is read. Names missing from the index are left out, so deciding whether a change of some
+     * properties affects the expression takes an AND of the masks.
+     *
+     * @return the mask of the properties read, or an empty array when compiled without a property index
+     */
+    default long[] getReadMask() {
+        return new long[0];
+    }
+
+    /**
+     * Returns {@link #getWriteProperties()} as a bitmask over the property index, see {@link #getReadMask()}.
+     *
+     * @return the mask of the properties written, or an empty array when compiled without a property index
+     */
+    default long[] getWriteMask() {
+        return new long[0];
+    }
+
+    /**
+     * Returns whether the result of the compiled expression depends only on what it reads from its context, so
+     * evaluating it again with the same values gives the same result and changes nothing: it neither
+     * {@link #writesContext() writes its context} nor {@link #callsExternalMethods() calls external methods}.
+     * Callers may then cache, reorder or skip evaluations. The analysis is conservative: {@code false} means the
+     * expression may have effects.
+     *
+     * @return true when the expression is known to be free of side effects
+     */
+    default boolean isPure() {
+        return !writesContext() && !callsExternalMethods();
+    }
+
+    /**
+     * Returns whether the compiled expression may change its context or its {@code with} object: assignments written
+     * back to variables or properties, {@code modify} blocks, setter calls and the mutators of {@code java.util}
+     * collections. The default, for evaluators that were not analysed, is {@code true}.
+     *
+     * @return false when the expression is known not to write its context
+     */
+    default boolean writesContext() {
+        return true;
+    }
+
+    /**
+     * Returns whether the compiled expression calls a method or constructor not trusted to be free of side effects:
+     * the trusted ones are bean getters and the methods of the {@link PureMethods} given to
+     * {@link MVELBuilder#pureMethods(PureMethods)}. The default, for evaluators that were not analysed, is
+     * {@code true}.
+     *
+     * @return false when every call of the expression is trusted
+     */
+    default boolean callsExternalMethods() {
+        return true;
+    }
 }
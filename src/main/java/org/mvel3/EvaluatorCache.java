@@ -0,0 +1,143 @@
+package org.mvel3;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of compiled evaluator classes, keyed by the content of their {@link CompilerParameters}: the
+ * expression, declarations, imports, context/with/out types, class filter and the other options that shape the
+ * generated class. A hit instantiates the cached class without parsing, transpiling or compiling.
+ * <p>
+ * The {@link ClassManager} is not part of the key: a hit returns an instance of the class defined by the
+ * compilation that populated the entry, which is not added to the caller's <code>ClassManager</code>.
+ * Class filters and class loaders are compared by identity.
+ * <p>
+ * Entries are evicted in least recently used order once either bound is exceeded: the number of entries, or
+ * their total weight, the length of their expressions, which approximates the size of the generated classes.
+ * Compilations run outside the cache lock, so concurrent misses on the same key may compile it more than once;
+ * use {@link MVELCompiler#compileAsync(CompilerParameters)} to share in-flight compilations.
+ */
+public final class EvaluatorCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 1024 * 1024;
+
+    private static final EvaluatorCache SHARED = new EvaluatorCache(DEFAULT_MAXIMUM_SIZE, DEFAULT_MAXIMUM_WEIGHT);
+
+    /**
+     * Hit, miss and eviction counts since the cache was created, and its current size and weight.
+     */
+    public record Stats(long hits, long misses, long evictions, int size, long weight) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+    }
+
+    private record Entry(Class<?> evaluatorClass, int weight) {}
+
+    private final int maximumSize;
+
+    private final long maximumWeight;
+
+    // access ordered, guarded by this
+    private final LinkedHashMap<CompilerParameters<?, ?, ?>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    public EvaluatorCache(int maximumSize, long maximumWeight) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1: " + maximumSize);
+        }
+        if (maximumWeight < 1) {
+            throw new IllegalArgumentException("maximumWeight must be at least 1: " + maximumWeight);
+        }
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * The process-wide cache, bounded by {@link #DEFAULT_MAXIMUM_SIZE} and {@link #DEFAULT_MAXIMUM_WEIGHT}.
+     */
+    public static EvaluatorCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns a new instance of the cached evaluator class for the parameters, compiling and caching it on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public <T, K, R> Evaluator<T, K, R> get(CompilerParameters<T, K, R> info, Function<CompilerParameters<T, K, R>, Evaluator<T, K, R>> compiler) {
+        CompilerParameters<?, ?, ?> key = keyOf(info);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (entry != null) {
+            return (Evaluator<T, K, R>) newInstance(entry.evaluatorClass());
+        }
+
+        Evaluator<T, K, R> evaluator = compiler.apply(info);
+        put(key, new Entry(evaluator.getClass(), Math.max(1, info.expression().length())));
+        return evaluator;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), weight);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private synchronized void put(CompilerParameters<?, ?, ?> key, Entry entry) {
+        Entry previous = entries.putIfAbsent(key, entry);
+        if (previous != null) {
+            return; // a concurrent miss on the same key won
+        }
+        weight += entry.weight();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > maximumSize || weight > maximumWeight) && entries.size() > 1) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // the parameters without the ClassManager, with the collections copied so later changes cannot alter the key
+    private static CompilerParameters<?, ?, ?> keyOf(CompilerParameters<?, ?, ?> info) {
+        return new CompilerParameters<>(info.contextType(), info.classLoader(), null,
+                                        Set.copyOf(info.imports()), Set.copyOf(info.staticImports()),
+                                        info.outType(), info.contextDeclaration(), List.copyOf(info.variableDeclarations()),
+                                        info.withDeclaration(), info.contentType(), info.expression(),
+                                        info.generatedClassName(), info.generatedMethodName(), info.generatedSuperName(),
+                                        info.classFilter(), info.options());
+    }
+
+    private static Object newInstance(Class<?> evaluatorClass) {
+        try {
+            return evaluatorClass.getConstructor().newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+            throw new RuntimeException("Failed to instantiate evaluator: " + evaluatorClass.getName(), e);
+        }
+    }
+}
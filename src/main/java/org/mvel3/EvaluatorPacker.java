@@ -0,0 +1,266 @@
+package org.mvel3;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.SuperExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import org.mvel3.parser.printer.PrintUtil;
+
+/**
+ * Packs the evaluators of a batch into a few host classes, see {@link MVELBatchCompiler#packed(int)}. The methods of
+ * each evaluator are moved into the host as private static methods suffixed with the evaluator index, and the host
+ * implements {@link Evaluator} with a switch on the index held by each instance, e.g.
+ * <pre>
+ * public Object eval(Object ___packed) {
+ *     switch (id) {
+ *         case 0: return eval0((java.util.Map&lt;String, Object&gt;) ___packed);
+ *         ...
+ * </pre>
+ * The private static final constants of each evaluator, if any, are moved along, suffixed the
+ * same way. An evaluator is only packed when it is made of such constants and of {@link Evaluator} methods that do
+ * not use {@code this} or {@code super}; hosts only group evaluators of the same package and imports, so the moved
+ * bodies resolve the same names.
+ */
+final class EvaluatorPacker {
+
+    record Slot(String hostFqn, int index) {}
+
+    static final String HOST_CLASS_PREFIX = "PackedEvaluators_";
+
+    private static final String PARAMETER = "___packed";
+
+    // hosts of every batch share the ClassManager name space
+    private static final AtomicLong HOST_IDS = new AtomicLong();
+
+    private final int evaluatorsPerClass;
+
+    private final Map<String, Host> openHosts = new HashMap<>(); // package and imports -> host being filled
+
+    private final List<Host> hosts = new ArrayList<>();
+
+    private final Map<String, Slot> slots = new HashMap<>(); // evaluator fqn -> host method index
+
+    EvaluatorPacker(int evaluatorsPerClass) {
+        this.evaluatorsPerClass = evaluatorsPerClass;
+    }
+
+    /**
+     * Moves the evaluator methods of the unit into a host, returning false, and leaving the unit untouched, when the
+     * evaluator cannot be packed.
+     */
+    boolean add(String fqn, CompilationUnit unit) {
+        if (unit.getTypes().size() != 1 || !unit.getType(0).isClassOrInterfaceDeclaration()) {
+            return false;
+        }
+        ClassOrInterfaceDeclaration evaluator = unit.getType(0).asClassOrInterfaceDeclaration();
+        if (!isPackable(evaluator)) {
+            return false;
+        }
+
+        String key = key(unit);
+        Host host = openHosts.get(key);
+        if (host == null || host.size == evaluatorsPerClass) {
+            host = new Host(unit);
+            openHosts.put(key, host);
+            hosts.add(host);
+        }
+        slots.put(fqn, new Slot(host.fqn, host.add(evaluator)));
+        return true;
+    }
+
+    /**
+     * The source of each host, by fqn.
+     */
+    Map<String, String> hostSources() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (Host host : hosts) {
+            sources.put(host.fqn, PrintUtil.printNode(host.complete()));
+        }
+        return sources;
+    }
+
+    Map<String, Slot> slots() {
+        return slots;
+    }
+
+    static <T> T instantiate(ClassManager classManager, Slot slot) {
+        Class<T> clazz = classManager.getClass(slot.hostFqn());
+        try {
+            return clazz.getConstructor(int.class).newInstance(slot.index());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to instantiate packed evaluator " + slot.index() + " of " + slot.hostFqn(), e);
+        }
+    }
+
+    private static boolean isPackable(ClassOrInterfaceDeclaration evaluator) {
+        // the host only implements Evaluator
+        if (!evaluator.getExtendedTypes().isEmpty() || !evaluator.getTypeParameters().isEmpty() ||
+            evaluator.getImplementedTypes().size() != 1) {
+            return false;
+        }
+        for (BodyDeclaration<?> member : evaluator.getMembers()) {
+            if (isConstant(member)) {
+                continue;
+            }
+            if (!member.isMethodDeclaration()) {
+                return false;
+            }
+            MethodDeclaration method = member.asMethodDeclaration();
+            if (dispatch(method) == null || method.getBody().isEmpty() || !method.getTypeParameters().isEmpty() ||
+                method.findFirst(ThisExpr.class).isPresent() || method.findFirst(SuperExpr.class).isPresent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConstant(BodyDeclaration<?> member) {
+        if (!member.isFieldDeclaration()) {
+            return false;
+        }
+        FieldDeclaration field = member.asFieldDeclaration();
+        return field.getVariables().size() == 1 && field.isPrivate() && field.isStatic() && field.isFinal();
+    }
+
+    /**
+     * The signature of the host method dispatching to the method, or null when it is not an {@link Evaluator} method.
+     */
+    private static String dispatch(MethodDeclaration method) {
+        String name = method.getNameAsString();
+        int parameters = method.getParameters().size();
+        if (parameters == 1 && (name.equals("eval") || name.equals("evalWith"))) {
+            return "public Object " + name + "(Object " + PARAMETER + ")";
+        }
+        if (parameters == 0 && (name.equals("getReadProperties") || name.equals("getWriteProperties"))) {
+            return "public String[] " + name + "()";
+        }
+        if (parameters == 0 && (name.equals("getReadMask") || name.equals("getWriteMask"))) {
+            return "public long[] " + name + "()";
+        }
+        if (parameters == 0 && (name.equals("isPure") || name.equals("writesContext") || name.equals("callsExternalMethods"))) {
+            return "public boolean " + name + "()";
+        }
+        return null;
+    }
+
+    private static String key(CompilationUnit unit) {
+        StringBuilder key = new StringBuilder();
+        unit.getPackageDeclaration().ifPresent(p -> key.append(p.getNameAsString()));
+        for (ImportDeclaration importDeclaration : unit.getImports()) {
+            key.append(';').append(importDeclaration.isStatic() ? "static " : "")
+               .append(importDeclaration.getNameAsString()).append(importDeclaration.isAsterisk() ? ".*" : "");
+        }
+        return key.toString();
+    }
+
+    private static final class Host {
+
+        private final CompilationUnit unit;
+
+        private final ClassOrInterfaceDeclaration type;
+
+        private final String fqn;
+
+        // dispatching method signature -> switch cases
+        private final Map<String, StringBuilder> cases = new LinkedHashMap<>();
+
+        private int size;
+
+        private Host(CompilationUnit evaluatorUnit) {
+            unit = new CompilationUnit();
+            evaluatorUnit.getPackageDeclaration().ifPresent(p -> unit.setPackageDeclaration(p.getNameAsString()));
+            evaluatorUnit.getImports().forEach(i -> unit.addImport(i.clone()));
+
+            String name = HOST_CLASS_PREFIX + HOST_IDS.incrementAndGet();
+            type = unit.addClass(name, Modifier.Keyword.PUBLIC, Modifier.Keyword.FINAL);
+            type.addImplementedType(Evaluator.class.getCanonicalName() + "<Object, Object, Object>");
+            fqn = unit.getPackageDeclaration().map(p -> p.getNameAsString() + ".").orElse("") + name;
+
+            type.addMember(StaticJavaParser.parseBodyDeclaration("private final int id;"));
+            type.addMember(StaticJavaParser.parseBodyDeclaration("public " + name + "(int id) { this.id = id; }"));
+        }
+
+        private int add(ClassOrInterfaceDeclaration evaluator) {
+            int index = size++;
+            Set<String> constants = new HashSet<>();
+            for (FieldDeclaration field : new ArrayList<>(evaluator.getFields())) {
+                VariableDeclarator constant = field.getVariable(0);
+                constants.add(constant.getNameAsString());
+                renameConstants(constant, constants, index);
+                constant.setName(constant.getNameAsString() + index);
+                field.remove();
+                type.addMember(field);
+            }
+            for (MethodDeclaration method : new ArrayList<>(evaluator.getMethods())) {
+                renameConstants(method, constants, index);
+                String signature = dispatch(method);
+                String target = method.getNameAsString() + index;
+                String call;
+                if (method.getParameters().isEmpty()) {
+                    call = target + "()";
+                } else {
+                    call = target + "((" + PrintUtil.printNode(method.getParameter(0).getType()) + ") " + PARAMETER + ")";
+                }
+                StringBuilder switchCases = cases.computeIfAbsent(signature, s -> new StringBuilder());
+                switchCases.append("case ").append(index).append(": ");
+                if (method.getType().isVoidType()) {
+                    switchCases.append(call).append("; return null;\n");
+                } else {
+                    switchCases.append("return ").append(call).append(";\n");
+                }
+
+                method.remove();
+                method.getAnnotationByName("Override").ifPresent(Node::remove);
+                method.setName(target);
+                method.setModifiers(Modifier.Keyword.PRIVATE, Modifier.Keyword.STATIC);
+                type.addMember(method);
+            }
+            return index;
+        }
+
+        // the constants are only read by simple name, the evaluator has no other fields to shadow them
+        private static void renameConstants(Node node, Set<String> constants, int index) {
+            node.findAll(NameExpr.class, n -> constants.contains(n.getNameAsString()))
+                .forEach(n -> n.setName(n.getNameAsString() + index));
+        }
+
+        private CompilationUnit complete() {
+            cases.forEach((signature, switchCases) -> {
+                String fallback;
+                if (signature.startsWith("public String[] ")) {
+                    fallback = "return new String[0];";
+                } else if (signature.startsWith("public long[] ")) {
+                    fallback = "return new long[0];";
+                } else if (signature.startsWith("public boolean ")) {
+                    // as the Evaluator defaults: not analysed, so possibly with effects
+                    fallback = signature.equals("public boolean isPure()") ? "return false;" : "return true;";
+                } else {
+                    fallback = "throw new RuntimeException(\"Not Implemented\");";
+                }
+                type.addMember(StaticJavaParser.parseBodyDeclaration(
+                        "@Override " + signature + " {\n" +
+                        "switch (id) {\n" + switchCases + "default: " + fallback + "\n}\n}"));
+            });
+            cases.clear();
+            return unit;
+        }
+    }
+}
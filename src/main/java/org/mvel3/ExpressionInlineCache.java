@@ -0,0 +1,183 @@
+package org.mvel3;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The polymorphic inline cache behind {@link MVEL#executeExpression}, which types the variables by the runtime
+ * classes of their values. Each call site, i.e. expression with its imports, out type, variable names, class
+ * manager and class loader, remembers the evaluators compiled for the first {@link #MAX_SHAPES} shapes (the vector
+ * of variable types) it sees. A call with a known shape reuses its evaluator without parsing or compiling.
+ * <p>
+ * Once a site has seen more shapes it becomes megamorphic: it compiles a generic variant declaring every variable
+ * as <code>Object</code> and uses it for all new shapes. When the generic variant does not compile, e.g. because the
+ * expression needs the variable types, the site compiles each new shape and keeps the evaluators of the last
+ * {@link #MAX_OVERFLOW_SHAPES} of them in LRU order.
+ * <p>
+ * The sites are kept per class loader and then per class manager, both held weakly as {@code JavaCompilerSession}
+ * holds its class loaders, so the process-wide cache of {@link MVEL} keeps neither alive. The sites of a class
+ * loader are only softly referenced, as <code>ResolutionCache</code> does, since their evaluators may pin the loader.
+ * Each pair keeps its last {@link #MAX_SITES} sites in LRU order.
+ */
+final class ExpressionInlineCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpressionInlineCache.class);
+
+    static final int MAX_SHAPES = 4;
+
+    static final int MAX_OVERFLOW_SHAPES = 64;
+
+    static final int MAX_SITES = 1024;
+
+    private record SiteKey(String expression, Set<String> imports, Type<?> outType, List<String> names) {}
+
+    private record Shape(Type<?>[] types, Evaluator<Map<String, Object>, Void, ?> evaluator) {}
+
+    private static final class Site {
+
+        private final String[] names;
+
+        // copy on write, at most MAX_SHAPES
+        private volatile Shape[] shapes = new Shape[0];
+
+        private volatile Evaluator<Map<String, Object>, Void, ?> megamorphic;
+
+        private volatile boolean megamorphicFailed;
+
+        // the shapes past MAX_SHAPES when there is no generic variant, access ordered, guarded by itself
+        private final Map<List<Type<?>>, Evaluator<Map<String, Object>, Void, ?>> overflow = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Type<?>>, Evaluator<Map<String, Object>, Void, ?>> eldest) {
+                return size() > MAX_OVERFLOW_SHAPES;
+            }
+        };
+
+        private Site(List<String> names) {
+            this.names = names.toArray(new String[0]);
+        }
+
+        private Type<?>[] shapeOf(Map<String, Type<?>> types) {
+            Type<?>[] shape = new Type<?>[names.length];
+            for (int i = 0; i < names.length; i++) {
+                shape[i] = types.get(names[i]);
+            }
+            return shape;
+        }
+
+        private Evaluator<Map<String, Object>, Void, ?> lookup(Type<?>[] shape) {
+            for (Shape candidate : shapes) {
+                if (Arrays.equals(candidate.types(), shape)) {
+                    return candidate.evaluator();
+                }
+            }
+            return null;
+        }
+
+        private synchronized boolean add(Type<?>[] shape, Evaluator<Map<String, Object>, Void, ?> evaluator) {
+            Shape[] current = shapes;
+            if (current.length >= MAX_SHAPES) {
+                return false;
+            }
+            Shape[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = new Shape(shape, evaluator);
+            shapes = extended;
+            return true;
+        }
+    }
+
+    // per class loader, then per class manager, guarded by itself
+    private final Map<ClassLoader, SoftReference<Map<ClassManager, Map<SiteKey, Site>>>> sites = new WeakHashMap<>();
+
+    // access ordered
+    private static Map<SiteKey, Site> newSites() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SiteKey, Site> eldest) {
+                return size() > MAX_SITES;
+            }
+        };
+    }
+
+    /**
+     * Returns the evaluator of the expression for the given variable types, compiling it with the compiler on a
+     * cache miss.
+     */
+    @SuppressWarnings("unchecked")
+    <R> Evaluator<Map<String, Object>, Void, R> evaluator(String expression, Set<String> imports, Map<String, Type<?>> types,
+                                                           Type<?> outType, ClassManager classManager, ClassLoader classLoader,
+                                                           Function<Map<String, Type<?>>, Evaluator<Map<String, Object>, Void, R>> compiler) {
+        List<String> names = new ArrayList<>(types.keySet());
+        names.sort(null);
+        SiteKey key = new SiteKey(expression, imports != null ? Set.copyOf(imports) : Set.of(), outType, names);
+        Site site;
+        synchronized (sites) {
+            SoftReference<Map<ClassManager, Map<SiteKey, Site>>> reference = sites.get(classLoader);
+            Map<ClassManager, Map<SiteKey, Site>> loaderSites = reference != null ? reference.get() : null;
+            if (loaderSites == null) {
+                loaderSites = new WeakHashMap<>();
+                sites.put(classLoader, new SoftReference<>(loaderSites));
+            }
+            site = loaderSites.computeIfAbsent(classManager, m -> newSites())
+                              .computeIfAbsent(key, k -> new Site(k.names()));
+        }
+
+        Type<?>[] shape = site.shapeOf(types);
+        Evaluator<Map<String, Object>, Void, ?> evaluator = site.lookup(shape);
+        if (evaluator != null) {
+            return (Evaluator<Map<String, Object>, Void, R>) evaluator;
+        }
+
+        if (site.shapes.length < MAX_SHAPES) {
+            Evaluator<Map<String, Object>, Void, R> compiled = compiler.apply(types);
+            if (site.add(shape, compiled)) {
+                return compiled;
+            }
+        }
+        return megamorphic(site, types, compiler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> Evaluator<Map<String, Object>, Void, R> megamorphic(Site site, Map<String, Type<?>> types,
+                                                                    Function<Map<String, Type<?>>, Evaluator<Map<String, Object>, Void, R>> compiler) {
+        Evaluator<Map<String, Object>, Void, ?> generic = site.megamorphic;
+        if (generic == null && !site.megamorphicFailed) {
+            Map<String, Type<?>> objectTypes = new LinkedHashMap<>();
+            for (String name : site.names) {
+                objectTypes.put(name, Type.OBJECT);
+            }
+            try {
+                generic = compiler.apply(objectTypes);
+                site.megamorphic = generic;
+            } catch (RuntimeException e) {
+                log.debug("No generic variant for a megamorphic expression, caching each new shape: {}", e.getMessage());
+                site.megamorphicFailed = true;
+            }
+        }
+        if (generic != null) {
+            return (Evaluator<Map<String, Object>, Void, R>) generic;
+        }
+
+        List<Type<?>> shape = Arrays.asList(site.shapeOf(types));
+        Evaluator<Map<String, Object>, Void, ?> evaluator;
+        synchronized (site.overflow) {
+            evaluator = site.overflow.get(shape);
+        }
+        if (evaluator == null) {
+            evaluator = compiler.apply(types);
+            synchronized (site.overflow) {
+                site.overflow.putIfAbsent(shape, evaluator);
+            }
+        }
+        return (Evaluator<Map<String, Object>, Void, R>) evaluator;
+    }
+}
@@ -0,0 +1,92 @@
+package org.mvel3;
+
+/**
+ * The context of {@link ContextType#FRAME} evaluators: the variables are stored in fixed slots of three typed arrays,
+ * laid out by a {@link FrameLayout}. Integral, char and boolean values are stored in {@link #longs}, booleans as 1 or 0,
+ * float and double values in {@link #doubles}, and every other value, boxed primitives included, in {@link #objects}.
+ * <p>
+ * The evaluator reads and writes the slots directly, so a frame can be filled and evaluated repeatedly without any
+ * allocation. A frame is not thread safe; use one frame per thread.
+ */
+public final class Frame {
+
+    public final long[] longs;
+
+    public final double[] doubles;
+
+    public final Object[] objects;
+
+    public Frame(int longs, int doubles, int objects) {
+        this.longs = new long[longs];
+        this.doubles = new double[doubles];
+        this.objects = new Object[objects];
+    }
+
+    // each set returns the value, so the evaluator can write back an assignment used as an expression
+
+    public boolean set(int slot, boolean value) {
+        longs[slot] = value ? 1 : 0;
+        return value;
+    }
+
+    public byte set(int slot, byte value) {
+        longs[slot] = value;
+        return value;
+    }
+
+    public short set(int slot, short value) {
+        longs[slot] = value;
+        return value;
+    }
+
+    public char set(int slot, char value) {
+        longs[slot] = value;
+        return value;
+    }
+
+    public int set(int slot, int value) {
+        longs[slot] = value;
+        return value;
+    }
+
+    public long set(int slot, long value) {
+        longs[slot] = value;
+        return value;
+    }
+
+    public float set(int slot, float value) {
+        doubles[slot] = value;
+        return value;
+    }
+
+    public double set(int slot, double value) {
+        doubles[slot] = value;
+        return value;
+    }
+
+    public <T> T set(int slot, T value) {
+        objects[slot] = value;
+        return value;
+    }
+
+    public boolean getBoolean(int slot) {
+        return longs[slot] != 0;
+    }
+
+    public int getInt(int slot) {
+        return (int) longs[slot];
+    }
+
+    public long getLong(int slot) {
+        return longs[slot];
+    }
+
+    public double getDouble(int slot) {
+        return doubles[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(int slot) {
+        return (T) objects[slot];
+    }
+}
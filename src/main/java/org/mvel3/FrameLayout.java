@@ -0,0 +1,93 @@
+package org.mvel3;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mvel3.transpiler.context.Declaration;
+
+/**
+ * Binds each declared variable of a {@link ContextType#FRAME} evaluator to a slot of a {@link Frame}. Slots are
+ * numbered per storage array, in declaration order, so the layout of the same declarations is always the same: the
+ * evaluator compiled from them and the caller filling the frame agree without sharing anything but the declarations.
+ * <pre>
+ * FrameLayout layout = FrameLayout.of(Declaration.of("a", int.class), Declaration.of("x", double.class));
+ * Frame frame = layout.newFrame();
+ * frame.set(layout.slot("a"), 5);
+ * frame.set(layout.slot("x"), 2.5);
+ * </pre>
+ */
+public final class FrameLayout {
+
+    public enum Storage {
+        LONG("longs"), DOUBLE("doubles"), OBJECT("objects");
+
+        private final String field;
+
+        Storage(String field) {
+            this.field = field;
+        }
+
+        public String field() {
+            return field;
+        }
+
+        public static Storage of(Class<?> type) {
+            if (type == double.class || type == float.class) {
+                return DOUBLE;
+            }
+            if (type.isPrimitive() && type != void.class) {
+                return LONG;
+            }
+            return OBJECT;
+        }
+    }
+
+    private record Binding(Storage storage, int slot) {}
+
+    private final Map<String, Binding> bindings = new HashMap<>();
+
+    private final int[] sizes = new int[Storage.values().length];
+
+    private FrameLayout(List<Declaration> declarations) {
+        for (Declaration<?> declaration : declarations) {
+            Storage storage = Storage.of(declaration.type().getClazz());
+            if (bindings.putIfAbsent(declaration.name(), new Binding(storage, sizes[storage.ordinal()])) == null) {
+                sizes[storage.ordinal()]++;
+            }
+        }
+    }
+
+    public static FrameLayout of(Declaration... declarations) {
+        return new FrameLayout(Arrays.asList(declarations));
+    }
+
+    public static FrameLayout of(List<Declaration> declarations) {
+        return new FrameLayout(declarations);
+    }
+
+    public int slot(String name) {
+        return binding(name).slot();
+    }
+
+    public Storage storage(String name) {
+        return binding(name).storage();
+    }
+
+    public boolean contains(String name) {
+        return bindings.containsKey(name);
+    }
+
+    public Frame newFrame() {
+        return new Frame(sizes[Storage.LONG.ordinal()], sizes[Storage.DOUBLE.ordinal()], sizes[Storage.OBJECT.ordinal()]);
+    }
+
+    private Binding binding(String name) {
+        Binding binding = bindings.get(name);
+        if (binding == null) {
+            throw new IllegalArgumentException("No frame slot for variable: " + name);
+        }
+        return binding;
+    }
+}
@@ -0,0 +1,175 @@
+package org.mvel3;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link CompilerMetrics} aggregating each phase into a histogram with power of two buckets, so a long running
+ * process, e.g. one deploying rules, can report where compilation time went without keeping every sample.
+ * Percentiles are the upper bound of the bucket they fall in, i.e. accurate within a factor of two.
+ */
+public final class InMemoryCompilerMetrics implements CompilerMetrics {
+
+    /**
+     * The aggregate of a phase. {@code allocatedBytes} only sums the reports that measured allocation.
+     */
+    public record PhaseStats(long count, long totalNanos, long maxNanos, long p50Nanos, long p99Nanos, long allocatedBytes) {
+
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+    }
+
+    private final Map<Phase, Histogram> histograms = new EnumMap<>(Phase.class);
+
+    private final LongAdder compilations = new LongAdder();
+
+    private final LongAdder catalogHits = new LongAdder();
+
+    private final LongAdder persistedArtifactReuses = new LongAdder();
+
+    public InMemoryCompilerMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new Histogram());
+        }
+    }
+
+    @Override
+    public void phase(Phase phase, long nanos, long allocatedBytes) {
+        histograms.get(phase).record(nanos, allocatedBytes);
+    }
+
+    @Override
+    public void evaluatorCompiled() {
+        compilations.increment();
+    }
+
+    @Override
+    public void catalogHit() {
+        catalogHits.increment();
+    }
+
+    @Override
+    public void persistedArtifactReused() {
+        persistedArtifactReuses.increment();
+    }
+
+    public PhaseStats stats(Phase phase) {
+        return histograms.get(phase).stats();
+    }
+
+    /**
+     * The stats of every phase, in pipeline order.
+     */
+    public Map<Phase, PhaseStats> snapshot() {
+        Map<Phase, PhaseStats> snapshot = new EnumMap<>(Phase.class);
+        histograms.forEach((phase, histogram) -> snapshot.put(phase, histogram.stats()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public long compilations() {
+        return compilations.sum();
+    }
+
+    public long catalogHits() {
+        return catalogHits.sum();
+    }
+
+    public long persistedArtifactReuses() {
+        return persistedArtifactReuses.sum();
+    }
+
+    /**
+     * Clears all stats. Reports made concurrently may be partially kept.
+     */
+    public void reset() {
+        histograms.values().forEach(Histogram::reset);
+        compilations.reset();
+        catalogHits.reset();
+        persistedArtifactReuses.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("InMemoryCompilerMetrics{compilations=").append(compilations())
+                .append(", catalogHits=").append(catalogHits())
+                .append(", persistedArtifactReuses=").append(persistedArtifactReuses());
+        snapshot().forEach((phase, stats) -> {
+            if (stats.count() > 0) {
+                builder.append(", ").append(phase).append('=').append(stats);
+            }
+        });
+        return builder.append('}').toString();
+    }
+
+    private static final class Histogram {
+
+        // bucket i counts the durations in [2^i, 2^(i+1)) nanos, bucket 0 also counts 0
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private void record(long nanos, long allocated) {
+            nanos = Math.max(nanos, 0);
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (allocated > 0) {
+                allocatedBytes.add(allocated);
+            }
+        }
+
+        private static int bucket(long nanos) {
+            return nanos == 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        }
+
+        private PhaseStats stats() {
+            long[] counts = new long[buckets.length()];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            long max = maxNanos.get();
+            return new PhaseStats(count.sum(), totalNanos.sum(), max,
+                                  percentile(counts, total, 0.50, max), percentile(counts, total, 0.99, max),
+                                  allocatedBytes.sum());
+        }
+
+        private static long percentile(long[] counts, long total, double quantile, long max) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min((1L << (i + 1)) - 1, max);
+                }
+            }
+            return max;
+        }
+
+        private void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            allocatedBytes.reset();
+        }
+    }
+}
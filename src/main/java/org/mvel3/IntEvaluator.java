@@ -0,0 +1,49 @@
+package org.mvel3;
+
+import java.util.List;
+
+/**
+ * An {@link Evaluator} of an int expression, whose result is returned without boxing by
+ * {@link #applyAsInt(Object)}. Compiled by {@link MVELBuilder#compileInt()} for an out type of {@code Integer};
+ * {@link #eval(Object)} boxes the result. A null result of the expression fails with a
+ * {@link NullPointerException}.
+ *
+ * @param <C> the context type (Map, List, or POJO)
+ * @param <W> the "with" root context type (Void if not used)
+ */
+public interface IntEvaluator<C, W> extends Evaluator<C, W, Integer> {
+
+    /**
+     * Evaluates the compiled expression with the given context, see {@link Evaluator#eval(Object)}.
+     *
+     * @param c the context object containing input variables
+     * @return the result of evaluating the expression
+     */
+    int applyAsInt(C c);
+
+    @Override
+    default Integer eval(C c) {
+        return applyAsInt(c);
+    }
+
+    /**
+     * Evaluates {@code length} contexts of the list, starting at {@code offset}, writing the result of the context at
+     * {@code offset + i} to {@code results[i]} without boxing, see
+     * {@link Evaluator#evalBatch(List, int, int, Object[])}.
+     */
+    default void applyAsIntBatch(List<? extends C> cs, int offset, int length, int[] results) {
+        for (int i = 0; i < length; i++) {
+            results[i] = applyAsInt(cs.get(offset + i));
+        }
+    }
+
+    /**
+     * Evaluates {@code length} contexts of the array, starting at {@code offset}, see
+     * {@link #applyAsIntBatch(List, int, int, int[])}.
+     */
+    default void applyAsIntBatch(C[] cs, int offset, int length, int[] results) {
+        for (int i = 0; i < length; i++) {
+            results[i] = applyAsInt(cs[offset + i]);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.mvel3;
+
+import java.util.List;
+
+/**
+ * An {@link Evaluator} of a long expression, whose result is returned without boxing by
+ * {@link #applyAsLong(Object)}. Compiled by {@link MVELBuilder#compileLong()} for an out type of {@code Long};
+ * {@link #eval(Object)} boxes the result. A null result of the expression fails with a
+ * {@link NullPointerException}.
+ *
+ * @param <C> the context type (Map, List, or POJO)
+ * @param <W> the "with" root context type (Void if not used)
+ */
+public interface LongEvaluator<C, W> extends Evaluator<C, W, Long> {
+
+    /**
+     * Evaluates the compiled expression with the given context, see {@link Evaluator#eval(Object)}.
+     *
+     * @param c the context object containing input variables
+     * @return the result of evaluating the expression
+     */
+    long applyAsLong(C c);
+
+    @Override
+    default Long eval(C c) {
+        return applyAsLong(c);
+    }
+
+    /**
+     * Evaluates {@code length} contexts of the list, starting at {@code offset}, writing the result of the context at
+     * {@code offset + i} to {@code results[i]} without boxing, see
+     * {@link Evaluator#evalBatch(List, int, int, Object[])}.
+     */
+    default void applyAsLongBatch(List<? extends C> cs, int offset, int length, long[] results) {
+        for (int i = 0; i < length; i++) {
+            results[i] = applyAsLong(cs.get(offset + i));
+        }
+    }
+
+    /**
+     * Evaluates {@code length} contexts of the array, starting at {@code offset}, see
+     * {@link #applyAsLongBatch(List, int, int, long[])}.
+     */
+    default void applyAsLongBatch(C[] cs, int offset, int length, long[] results) {
+        for (int i = 0; i < length; i++) {
+            results[i] = applyAsLong(cs[offset + i]);
+        }
+    }
+}
@@ -40,6 +40,8 @@ public class MVEL {
 
     private static MVEL instance;
 
+    private static final ExpressionInlineCache INLINE_CACHE = new ExpressionInlineCache();
+
     public static MVEL get() {
         if (instance == null) {
             instance = new MVEL();
@@ -77,6 +79,30 @@ public class MVEL {
         return new MVELBuilder.WithBuilder<>(ContextType.LIST, Declaration.of(MVELBuilder.CONTEXT_NAME, Type.LIST), types);
     }
 
+    public static MVELBuilder.WithBuilder<Frame> frame(TypesBuilderCollector types) {
+        return frame(types.toArray());
+    }
+
+    /**
+     * Variables are bound to the slots of a {@link Frame}, laid out by {@link FrameLayout#of(Declaration...)} over
+     * the same declarations, and read and written by direct array access.
+     */
+    public static MVELBuilder.WithBuilder<Frame> frame(Declaration<?>... types) {
+        return new MVELBuilder.WithBuilder<>(ContextType.FRAME, Declaration.of(MVELBuilder.CONTEXT_NAME, Type.type(Frame.class)), types);
+    }
+
+    public static MVELBuilder.WithBuilder<Columns> columns(TypesBuilderCollector types) {
+        return columns(types.toArray());
+    }
+
+    /**
+     * Variables are bound to the columns of {@link Columns}, laid out by {@link ColumnLayout#of(Declaration...)} over
+     * the same declarations. Compile with {@link MVELBuilder#compileColumns()} to evaluate ranges of rows.
+     */
+    public static MVELBuilder.WithBuilder<Columns> columns(Declaration<?>... types) {
+        return new MVELBuilder.WithBuilder<>(ContextType.COLUMNS, Declaration.of(MVELBuilder.CONTEXT_NAME, Type.type(Columns.class)), types);
+    }
+
     public static <C> MVELBuilder.WithBuilder<C> pojo(Class cls) {
         return new MVELBuilder.WithBuilder<>(ContextType.POJO, Declaration.of(MVELBuilder.CONTEXT_NAME, Type.type(cls)), null);
     }
@@ -201,9 +227,15 @@ public class MVEL {
                                    final Map<String, Type<?>> types,
                                    Type<R> outType,
                                    final Map<String, Object> vars) {
-        return executeExpression(expr, imports, types, outType, vars, new ClassManager(), ClassLoader.getSystemClassLoader());
+        // no ClassManager: every compilation of the inline cache defines its evaluator in a new one
+        return executeExpression(expr, imports, types, outType, vars, null, ClassLoader.getSystemClassLoader());
     }
 
+    /**
+     * Evaluates the expression with the variable types taken from the runtime classes of the values in
+     * <code>vars</code>. The evaluators are kept in a polymorphic inline cache per expression, see
+     * {@link ExpressionInlineCache}, so repeated calls with the same variable classes compile only once.
+     */
     public <R> R executeExpression(final String expr, Set<String> imports,
                                    final Map<String, Type<?>> types,
                                    Type outType,
@@ -216,6 +248,14 @@ public class MVEL {
             }
         }
 
+        Evaluator<Map<String, Object>, Void, R> evaluator = INLINE_CACHE.evaluator(expr, imports, types, outType, clsManager, classLoader,
+                                                                                  shape -> compileMapEvaluator(expr, imports, shape, outType, clsManager, classLoader));
+
+        return evaluator.eval(vars);
+    }
+
+    private <R> Evaluator<Map<String, Object>, Void, R> compileMapEvaluator(String expr, Set<String> imports, Map<String, Type<?>> types, Type outType,
+                                                                            ClassManager clsManager, ClassLoader classLoader) {
         ContentBuilder<Map<String, Object>, Void, R> contentBuilder = MVEL.map(Declaration.from(types)).<R>out(outType);
 
         MVELBuilder<Map<String, Object>, Void, R> mvelBuilder;
@@ -225,12 +265,10 @@ public class MVEL {
             mvelBuilder = contentBuilder.expression(expr);
         }
 
-        Evaluator<Map<String, Object>, Void, R> evaluator = mvelBuilder.imports(imports)
-                   .classManager(clsManager)
-                   .classLoader(classLoader)
-                   .compile();
-
-        return evaluator.eval(vars);
+        return mvelBuilder.imports(imports)
+                          .classManager(clsManager)
+                          .classLoader(classLoader)
+                          .compile();
     }
 
     public static Map<String, Type<?>> getTypeMap(Map<String, ?> vars) {
@@ -6,12 +6,23 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.github.javaparser.ast.CompilationUnit;
+import org.mvel3.javacompiler.JavaCompilerSession;
 import org.mvel3.javacompiler.KieMemoryCompiler;
+import org.mvel3.jfr.DefineEvent;
+import org.mvel3.jfr.JavacEvent;
 import org.mvel3.lambdaextractor.ArtifactRef;
 import org.mvel3.lambdaextractor.LambdaArtifactLoader;
 import org.mvel3.lambdaextractor.LambdaCatalog;
@@ -27,6 +38,9 @@ import org.slf4j.LoggerFactory;
  * persisted artifacts are reused. When constructed without one (no-persist
  * mode), dedup uses a batch-local {@link LambdaCatalog} and no global state
  * is read or mutated.
+ * <p>
+ * Large batches can be compiled in parallel shards, see {@link #parallel(int, int)}, and, without persistence, packed
+ * into a few host classes, see {@link #packed(int)}.
  */
 public class MVELBatchCompiler {
 
@@ -38,21 +52,47 @@ public class MVELBatchCompiler {
     // renaming still work without touching the global LambdaRuntime catalog.
     // Null when persistenceDir != null.
     private final LambdaCatalog localCatalog;
+    // null = use the shared JavaCompilerSession of the ClassLoader passed to compile()
+    private final JavaCompilerSession compilerSession;
 
     // Accumulated state
     private final Map<String, String> pendingSources = new LinkedHashMap<>(); // fqn -> source
     private final Map<Integer, String> physicalIdToFqn = new HashMap<>();    // dedup within batch
     private final List<LambdaHandle> handles = new ArrayList<>();
+    // classes that cannot be a duplicate of a defined one, see ClassManager.defineUnique()
+    private final Set<String> uniqueFqns = new HashSet<>();
     private boolean compiled = false;
 
+    // Sharding, see parallel(). By default everything is compiled as a single shard.
+    private int shardSize = Integer.MAX_VALUE;
+    private int parallelism = 1;
+    private Executor executor = ForkJoinPool.commonPool();
+
+    // Packing, see packed(). 0 = one class per lambda.
+    private int evaluatorsPerClass;
+    private final Map<String, CompilationUnit> pendingUnits = new LinkedHashMap<>(); // fqn -> unit, packed at compile()
+    private Map<String, EvaluatorPacker.Slot> packedSlots = Collections.emptyMap();
+
+    // Batch evaluation methods, see batchEvaluation().
+    private boolean batchEvaluation;
+
     public MVELBatchCompiler(ClassManager classManager) {
         this(classManager, null);
     }
 
     public MVELBatchCompiler(ClassManager classManager, Path persistenceDir) {
+        this(classManager, persistenceDir, null);
+    }
+
+    /**
+     * @param compilerSession warm javac session used by {@link #compile(ClassLoader)}; when null the shared
+     *                        session of the compile() ClassLoader is used
+     */
+    public MVELBatchCompiler(ClassManager classManager, Path persistenceDir, JavaCompilerSession compilerSession) {
         this.classManager = classManager;
         this.persistenceDir = persistenceDir;
         this.localCatalog = persistenceDir == null ? new LambdaCatalog() : null;
+        this.compilerSession = compilerSession;
     }
 
     public ClassManager getClassManager() {
@@ -63,6 +103,9 @@ public class MVELBatchCompiler {
      * Accumulate a lambda for batch compilation. Returns a handle for later resolution.
      */
     public <T, K, R> LambdaHandle add(CompilerParameters<T, K, R> info) {
+        if (batchEvaluation && !info.options().batch() && "eval".equals(info.generatedMethodName()) && !info.outType().isVoid()) {
+            info = info.withOptions(info.options().withBatch(true));
+        }
         MVELCompiler compiler = new MVELCompiler();
         CompilationUnit unit = compiler.transpileToCompilationUnit(info);
         String fqn = MVELCompiler.evaluatorFullQualifiedName(unit);
@@ -80,7 +123,11 @@ public class MVELBatchCompiler {
                 newFqn = physicalIdToFqn.get(physicalId);
                 state = HandleState.DEDUP;
             } else {
-                pendingSources.put(newFqn, PrintUtil.printNode(unit));
+                if (evaluatorsPerClass > 0) {
+                    pendingUnits.put(newFqn, unit);
+                } else {
+                    pendingSources.put(newFqn, PrintUtil.printNode(unit));
+                }
                 physicalIdToFqn.put(physicalId, newFqn);
                 state = HandleState.NEW;
             }
@@ -106,6 +153,9 @@ public class MVELBatchCompiler {
             String source = PrintUtil.printNode(unit);
             pendingSources.put(newFqn, source);
             physicalIdToFqn.put(physicalId, newFqn);
+            if (!reg.reused()) {
+                uniqueFqns.add(newFqn);
+            }
             state = HandleState.NEW;
         }
 
@@ -115,15 +165,89 @@ public class MVELBatchCompiler {
     }
 
     /**
-     * Compile all accumulated unique lambdas in a single javac call.
+     * Enables sharded compilation: the pending sources are split into shards of at most {@code shardSize}
+     * sources, which are compiled by up to {@code parallelism} javac sessions on the common ForkJoinPool.
+     * A {@code shardSize} of 0 splits the sources evenly across {@code parallelism} shards.
+     */
+    public MVELBatchCompiler parallel(int shardSize, int parallelism) {
+        return parallel(shardSize, parallelism, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Enables sharded compilation on the given executor. See {@link #parallel(int, int)}.
+     */
+    public MVELBatchCompiler parallel(int shardSize, int parallelism, Executor executor) {
+        if (shardSize < 0) {
+            throw new IllegalArgumentException("shardSize must not be negative: " + shardSize);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.shardSize = shardSize;
+        this.parallelism = parallelism;
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Enables packing: rather than one class per lambda, the unique lambdas are compiled into host classes of up to
+     * {@code evaluatorsPerClass} static methods each, and each handle resolves to an instance of its host bound to
+     * one of them. This cuts the number of classes, and so the metaspace and class loading, of large batches.
+     * Lambdas that cannot be moved into a shared class, e.g. those with helper methods or a generated super class,
+     * are still compiled to their own class. Must be called before {@link #add(CompilerParameters)}.
+     *
+     * @throws IllegalStateException with a persistence directory, as lambdas are persisted one class file each
+     */
+    public MVELBatchCompiler packed(int evaluatorsPerClass) {
+        if (evaluatorsPerClass < 1) {
+            throw new IllegalArgumentException("evaluatorsPerClass must be at least 1: " + evaluatorsPerClass);
+        }
+        if (persistenceDir != null) {
+            throw new IllegalStateException("Packing is not supported with a persistence directory");
+        }
+        if (!handles.isEmpty()) {
+            throw new IllegalStateException("packed() must be called before add()");
+        }
+        this.evaluatorsPerClass = evaluatorsPerClass;
+        return this;
+    }
+
+    /**
+     * Overrides the batch methods, e.g. {@link Evaluator#evalBatch(List, int, int, Object[])}, in the class of every
+     * lambda added afterwards that evaluates {@code eval} to a value, as {@link MVELBuilder#batch()} does for a single
+     * lambda. As the batch methods are not dispatched by a shared class, such lambdas are not packed, see
+     * {@link #packed(int)}.
+     */
+    public MVELBatchCompiler batchEvaluation() {
+        this.batchEvaluation = true;
+        return this;
+    }
+
+    /**
+     * Compile all accumulated unique lambdas. By default this is a single javac call; when {@link #parallel(int, int)}
+     * is enabled the sources are compiled in shards, and the bytecode of all the shards is merged before being defined.
      */
     public void compile(ClassLoader classLoader) {
+        if (!pendingUnits.isEmpty()) {
+            pack();
+        }
+
         if (!pendingSources.isEmpty()) {
+            List<Map<String, String>> shards = shard();
+            if (persistenceDir != null) {
+                LOG.info("Batch-compiling and persisting {} lambda sources in {} shard(s)", pendingSources.size(), shards.size());
+            } else {
+                LOG.info("Batch-compiling {} lambda sources in {} shard(s)", pendingSources.size(), shards.size());
+            }
+
+            Map<String, byte[]> byteCode = new HashMap<>();
+            compileShards(shards, classLoader).forEach(byteCode::putAll);
+            MVELCompiler.bumpCompileInvocationCount();
+
             if (persistenceDir != null) {
-                LOG.info("Batch-compiling and persisting {} lambda sources", pendingSources.size());
-                List<Path> persistedFiles = KieMemoryCompiler.compileAndPersist(
-                        classManager, pendingSources, classLoader, null, persistenceDir);
-                MVELCompiler.bumpCompileInvocationCount();
+                List<Path> persistedFiles = KieMemoryCompiler.persistByteCode(byteCode, persistenceDir);
+                define(byteCode);
+
                 // Register physical paths with the persistence manager
                 Map<String, Path> fqnToPath = new HashMap<>();
                 for (Path persistedFile : persistedFiles) {
@@ -131,19 +255,22 @@ public class MVELBatchCompiler {
                     String fileFqn = relativePath.replace('/', '.').replace(".class", "");
                     fqnToPath.put(fileFqn, persistedFile);
                 }
-                for (LambdaHandle h : handles) {
-                    if (h.state == HandleState.NEW) {
-                        Path path = fqnToPath.get(h.fqn);
+                Map<String, Integer> fqnToPhysicalId = new HashMap<>();
+                physicalIdToFqn.forEach((physicalId, fqn) -> fqnToPhysicalId.put(fqn, physicalId));
+
+                // One registry save per shard, rather than one per lambda
+                for (Map<String, String> shard : shards) {
+                    Map<Integer, ArtifactRef> artifacts = new LinkedHashMap<>();
+                    for (String fqn : shard.keySet()) {
+                        Path path = fqnToPath.get(fqn);
                         if (path != null) {
-                            LambdaRuntime.getInstance().persistenceManager()
-                                    .attachArtifact(h.physicalId, new ArtifactRef(h.fqn, path));
+                            artifacts.put(fqnToPhysicalId.get(fqn), new ArtifactRef(fqn, path));
                         }
                     }
+                    LambdaRuntime.getInstance().persistenceManager().attachArtifacts(artifacts);
                 }
             } else {
-                LOG.info("Batch-compiling {} lambda sources", pendingSources.size());
-                KieMemoryCompiler.compile(classManager, pendingSources, classLoader);
-                MVELCompiler.bumpCompileInvocationCount();
+                define(byteCode);
             }
         }
 
@@ -155,7 +282,7 @@ public class MVELBatchCompiler {
                             .artifactFor(h.physicalId)
                             .orElseThrow(() -> new IllegalStateException("No artifact for handle " + h));
                     try {
-                        LambdaArtifactLoader.loadOrDefinePersistedClass(classManager, ref);
+                        LambdaArtifactLoader.loadOrDefinePersistedClass(classManager, ref, h.physicalId);
                     } catch (Exception e) {
                         throw new RuntimeException("Failed to load persisted lambda class from " + ref.classFile(), e);
                     }
@@ -166,6 +293,133 @@ public class MVELBatchCompiler {
         compiled = true;
     }
 
+    private void pack() {
+        EvaluatorPacker packer = new EvaluatorPacker(evaluatorsPerClass);
+        for (Map.Entry<String, CompilationUnit> entry : pendingUnits.entrySet()) {
+            if (!packer.add(entry.getKey(), entry.getValue())) {
+                pendingSources.put(entry.getKey(), PrintUtil.printNode(entry.getValue()));
+            }
+        }
+        Map<String, String> hostSources = packer.hostSources();
+        LOG.info("Packed {} lambdas into {} host classes", packer.slots().size(), hostSources.size());
+        pendingSources.putAll(hostSources);
+        uniqueFqns.addAll(hostSources.keySet()); // host names are never reused
+        packedSlots = packer.slots();
+        pendingUnits.clear();
+    }
+
+    private List<Map<String, String>> shard() {
+        int size = shardSize > 0 ? shardSize : (pendingSources.size() + parallelism - 1) / parallelism;
+        List<Map<String, String>> shards = new ArrayList<>();
+        Map<String, String> shard = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : pendingSources.entrySet()) {
+            shard.put(entry.getKey(), entry.getValue());
+            if (shard.size() == size) {
+                shards.add(shard);
+                shard = new LinkedHashMap<>();
+            }
+        }
+        if (!shard.isEmpty()) {
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    private static Map<String, byte[]> compileShard(Map<String, String> shard, JavaCompilerSession session) {
+        JavacEvent event = new JavacEvent();
+        event.begin();
+        Map<String, byte[]> byteCode = KieMemoryCompiler.compileNoLoad(shard, session, null);
+        event.end();
+        if (event.shouldCommit()) {
+            if (shard.size() == 1) {
+                event.evaluatorClass = shard.keySet().iterator().next();
+            }
+            event.classes = byteCode.size();
+            for (String source : shard.values()) {
+                event.sourceBytes += source.length();
+            }
+            event.byteCodeBytes = MVELCompiler.byteCodeBytes(byteCode);
+            event.commit();
+        }
+        return byteCode;
+    }
+
+    private void define(Map<String, byte[]> byteCode) {
+        DefineEvent event = new DefineEvent();
+        event.begin();
+        Map<String, byte[]> unique = new HashMap<>();
+        Map<String, byte[]> others = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : byteCode.entrySet()) {
+            String name = entry.getKey();
+            int nested = name.indexOf('$');
+            if (uniqueFqns.contains(nested < 0 ? name : name.substring(0, nested))) {
+                unique.put(name, entry.getValue());
+            } else {
+                others.put(name, entry.getValue());
+            }
+        }
+        classManager.defineUnique(unique);
+        classManager.define(others);
+        event.end();
+        if (event.shouldCommit()) {
+            if (byteCode.size() == 1) {
+                event.evaluatorClass = byteCode.keySet().iterator().next();
+            }
+            event.classes = byteCode.size();
+            event.byteCodeBytes = MVELCompiler.byteCodeBytes(byteCode);
+            event.commit();
+        }
+    }
+
+    private List<Map<String, byte[]>> compileShards(List<Map<String, String>> shards, ClassLoader classLoader) {
+        JavaCompilerSession session = compilerSession != null ? compilerSession : JavaCompilerSession.forClassLoader(classLoader);
+        int workers = Math.min(parallelism, shards.size());
+        if (workers == 1) {
+            List<Map<String, byte[]>> compiled = new ArrayList<>();
+            for (Map<String, String> shard : shards) {
+                compiled.add(compileShard(shard, session));
+            }
+            return compiled;
+        }
+
+        // Each worker owns one javac session (sessions serialise their compilations) and pulls shards from a shared counter.
+        // The first worker reuses the warm session, the others borrow idle sessions of the class loader and hand them
+        // back, so the next parallel compilation finds them warm too.
+        AtomicInteger nextShard = new AtomicInteger();
+        AtomicReferenceArray<Map<String, byte[]>> compiled = new AtomicReferenceArray<>(shards.size());
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            boolean reuseWarmSession = w == 0;
+            futures[w] = CompletableFuture.runAsync(() -> {
+                JavaCompilerSession workerSession = reuseWarmSession ? session : JavaCompilerSession.borrow(classLoader);
+                try {
+                    for (int i = nextShard.getAndIncrement(); i < shards.size(); i = nextShard.getAndIncrement()) {
+                        compiled.set(i, compileShard(shards.get(i), workerSession));
+                    }
+                } finally {
+                    if (!reuseWarmSession) {
+                        JavaCompilerSession.release(workerSession);
+                    }
+                }
+            }, executor);
+        }
+
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        List<Map<String, byte[]>> result = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            result.add(compiled.get(i));
+        }
+        return result;
+    }
+
     /**
      * Resolve a handle to an evaluator instance. Must be called after compile().
      */
@@ -174,6 +428,10 @@ public class MVELBatchCompiler {
         if (!compiled) {
             throw new IllegalStateException("compile() not called yet");
         }
+        EvaluatorPacker.Slot slot = packedSlots.get(handle.fqn);
+        if (slot != null) {
+            return EvaluatorPacker.instantiate(classManager, slot);
+        }
         return MVELCompiler.resolveEvaluator(classManager, handle.fqn);
     }
 
@@ -8,6 +8,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public class MVELBuilder<C, W, O> {
 
@@ -195,6 +197,12 @@ public class MVELBuilder<C, W, O> {
 
     private ClassFilter classFilter;
 
+    private CompilerOptions options = CompilerOptions.DEFAULTS;
+
+    private EvaluatorCache evaluatorCache;
+
+    private CompilerMetrics metrics;
+
     public static <C, W, O> MVELBuilder<C, W, O> create() {
         MVELBuilder builder = new MVELBuilder<>();
         builder.outType = Type.type(Void.class); // default no return
@@ -212,6 +220,9 @@ public class MVELBuilder<C, W, O> {
         builder.generatedClassName = template.generatedClassName;
         builder.generatedMethodName = template.generatedMethodName;
         builder.classFilter = template.classFilter;
+        builder.options = template.options;
+        builder.evaluatorCache = template.evaluatorCache;
+        builder.metrics = template.metrics;
 
         return builder;
     }
@@ -340,16 +351,165 @@ public class MVELBuilder<C, W, O> {
         return this;
     }
 
+    /**
+     * Selects how the evaluator class is produced. Defaults to {@link CompilerBackend#JAVAC}; with
+     * {@link CompilerBackend#BYTECODE} the class is emitted directly, falling back to javac when the
+     * expression uses a construct the direct emitter does not support.
+     */
+    public MVELBuilder<C, W, O> backend(CompilerBackend backend) {
+        this.options = options.withBackend(backend);
+        return this;
+    }
+
+    /**
+     * Overrides the batch methods, e.g. {@link Evaluator#evalBatch(List, int, int, Object[])} or
+     * {@link BooleanEvaluator#testBatch(List, int, int, long[])}, in the generated class, so the loop over the
+     * contexts calls the evaluator method of that single class. Only supported for evaluators of {@code eval} with a
+     * non-void out type.
+     */
+    public MVELBuilder<C, W, O> batch() {
+        this.options = options.withBatch(true);
+        return this;
+    }
+
+    /**
+     * Numbers the properties of the context type for the masks of {@link Evaluator#getReadMask()} and
+     * {@link Evaluator#getWriteMask()}: the property at index {@code i} is bit {@code i} of the masks, which are
+     * computed when the expression is compiled. Defaults to no index, and so empty masks.
+     */
+    public MVELBuilder<C, W, O> propertyIndex(List<String> properties) {
+        this.options = options.withPropertyIndex(properties);
+        return this;
+    }
+
+    /**
+     * The methods trusted to have no side effects when deciding {@link Evaluator#isPure()}. Defaults to
+     * {@link PureMethods#defaults()}; use {@code PureMethods.defaults().with("com.acme.Rates#lookup")} to trust
+     * more.
+     */
+    public MVELBuilder<C, W, O> pureMethods(PureMethods pureMethods) {
+        this.options = options.withPureMethods(pureMethods);
+        return this;
+    }
+
+    /**
+     * Memoises the results of the evaluator: the generated {@code eval} reads the variables of the expression from
+     * the context, looks their values up in a {@link MemoCache} of the evaluator holding at most {@code maximumSize}
+     * results, and only evaluates the expression on a miss. Only supported for {@code eval} with a non-void out type,
+     * not for primitive evaluators nor {@link ContextType#COLUMNS} contexts. Compiling fails unless the expression
+     * {@link Evaluator#isPure() is pure} and its variables are of immutable value types, such as primitives,
+     * {@code String} or {@code BigDecimal}, so that equal variables mean an equal result.
+     */
+    public MVELBuilder<C, W, O> memoise(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1: " + maximumSize);
+        }
+        this.options = options.withMemoSize(maximumSize);
+        return this;
+    }
+
+    /**
+     * Looks the evaluator up in the given cache, e.g. {@link EvaluatorCache#shared()}, before compiling it, so
+     * compiling equal parameters again skips parsing and javac. Defaults to no cache.
+     */
+    public MVELBuilder<C, W, O> evaluatorCache(EvaluatorCache evaluatorCache) {
+        this.evaluatorCache = evaluatorCache;
+        return this;
+    }
+
+    /**
+     * Reports the time and allocation of each compilation phase to the given metrics, e.g. an
+     * {@link InMemoryCompilerMetrics} shared by all builders of a deployment. Defaults to no metrics.
+     */
+    public MVELBuilder<C, W, O> metrics(CompilerMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
     public Evaluator<C, W, O>  compile() {
         return compile(build());
     }
 
     public Evaluator<C, W, O>  compile(CompilerParameters<C, W, O> parameters) {
-        MVELCompiler compiler = new MVELCompiler();
+        MVELCompiler compiler = new MVELCompiler(null, evaluatorCache, metrics);
         return compiler.compile(parameters);
     }
 
+    /**
+     * Returns an evaluator that is interpreted until it has been evaluated {@code compileThreshold} times, and
+     * compiled on the common ForkJoinPool afterwards. See {@link MVELCompiler#compileTiered(CompilerParameters, int, Executor)}.
+     */
+    public Evaluator<C, W, O> compileTiered(int compileThreshold) {
+        return new MVELCompiler(null, null, metrics).compileTiered(build(), compileThreshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compiles an evaluator of a {@code Boolean} out type that also implements {@link BooleanEvaluator}, so
+     * constraints are tested without boxing.
+     */
+    public BooleanEvaluator<C, W> compileBoolean() {
+        return (BooleanEvaluator<C, W>) compilePrimitive(Boolean.class);
+    }
+
+    /**
+     * Compiles an evaluator of an {@code Integer} out type that also implements {@link IntEvaluator}.
+     */
+    public IntEvaluator<C, W> compileInt() {
+        return (IntEvaluator<C, W>) compilePrimitive(Integer.class);
+    }
+
+    /**
+     * Compiles an evaluator of a {@code Long} out type that also implements {@link LongEvaluator}.
+     */
+    public LongEvaluator<C, W> compileLong() {
+        return (LongEvaluator<C, W>) compilePrimitive(Long.class);
+    }
+
+    /**
+     * Compiles an evaluator of a {@code Double} out type that also implements {@link DoubleEvaluator}.
+     */
+    public DoubleEvaluator<C, W> compileDouble() {
+        return (DoubleEvaluator<C, W>) compilePrimitive(Double.class);
+    }
+
+    /**
+     * Compiles an evaluator of a {@link ContextType#COLUMNS} context, see {@link MVEL#columns(Declaration...)}, whose
+     * {@link ColumnEvaluator#evalColumns} loops over the rows in the generated class.
+     */
+    @SuppressWarnings("unchecked")
+    public ColumnEvaluator<W, O> compileColumns() {
+        if (contextType != ContextType.COLUMNS) {
+            throw new IllegalStateException("Column evaluation requires a COLUMNS context, not " + contextType);
+        }
+        return (ColumnEvaluator<W, O>) compile();
+    }
+
+    /**
+     * Compiles an evaluator memoising its results, see {@link #memoise(int)}.
+     */
+    @SuppressWarnings("unchecked")
+    public MemoisingEvaluator<C, W, O> compileMemoised() {
+        if (!options.memoise()) {
+            throw new IllegalStateException("Memoised evaluation requires memoise(maximumSize)");
+        }
+        return (MemoisingEvaluator<C, W, O>) compile();
+    }
+
+    private Evaluator<C, W, O> compilePrimitive(Class<?> outClass) {
+        if (outType.getClazz() != outClass) {
+            throw new IllegalStateException("Expected an out type of " + outClass.getName() + " but was " + outType);
+        }
+        if (!"eval".equals(generatedMethodName)) {
+            throw new IllegalStateException("Primitive evaluators implement eval, not " + generatedMethodName);
+        }
+        return compile(build(true));
+    }
+
     public CompilerParameters<C, W, O> build() {
+        return build(false);
+    }
+
+    private CompilerParameters<C, W, O> build(boolean primitive) {
         // Either the root and context vars are the same, and no context variables.
         // Or the root variable must be a
         if ( variableDeclarations.isEmpty() && contextDeclaration == null) {
@@ -364,13 +524,25 @@ public class MVELBuilder<C, W, O> {
                                             + withDeclaration + " context " + variableDeclarations);
         }
 
+        if (options.batch() && (!"eval".equals(generatedMethodName) || outType.isVoid())) {
+            throw new IllegalStateException("Batch evaluation requires an eval method with an out type, not " +
+                                            generatedMethodName + " returning " + outType);
+        }
+
+        if (options.memoise() && (!"eval".equals(generatedMethodName) || outType.isVoid() || primitive ||
+                             contextType == ContextType.COLUMNS)) {
+            throw new IllegalStateException("Memoised evaluation requires a non-primitive eval method with an out type, " +
+                                            "not " + generatedMethodName + " returning " + outType + " of a " + contextType + " context");
+        }
+
         if (classManager == null) {
             classManager = new ClassManager();
         }
 
         CompilerParameters<C, W, O> info = new CompilerParameters<>(contextType, classLoader, classManager, imports, staticImports, outType,
                                                                     contextDeclaration, variableDeclarations, withDeclaration, contentType, content,
-                                                                    generatedClassName, generatedMethodName, generatedSuperName, classFilter);
+                                                                    generatedClassName, generatedMethodName, generatedSuperName, classFilter,
+                                                                    options.withPrimitive(primitive));
 
         return info;
     }
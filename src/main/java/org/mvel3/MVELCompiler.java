@@ -17,12 +17,18 @@
 package org.mvel3;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
 import com.github.javaparser.ast.expr.IntegerLiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.Name;
@@ -30,19 +36,28 @@ import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.expr.VariableDeclarationExpr;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.PrimitiveType;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.resolution.MethodUsage;
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
 import com.github.javaparser.resolution.types.ResolvedType;
+import org.mvel3.bytecode.EvaluatorByteCodeGenerator;
+import org.mvel3.bytecode.EvaluatorInterpreter;
+import org.mvel3.bytecode.UnsupportedByteCodeException;
+import org.mvel3.javacompiler.JavaCompilerSession;
+import org.mvel3.jfr.DefineEvent;
+import org.mvel3.jfr.EvaluatorSampling;
+import org.mvel3.jfr.JavacEvent;
 import org.mvel3.javacompiler.KieMemoryCompiler;
 import org.mvel3.lambdaextractor.LambdaCatalog;
 import org.mvel3.lambdaextractor.LambdaKey;
 import org.mvel3.lambdaextractor.ArtifactRef;
 import org.mvel3.lambdaextractor.LambdaArtifactLoader;
 import org.mvel3.lambdaextractor.LambdaRuntime;
+import org.mvel3.lambdaextractor.RegistrationResult;
 import org.mvel3.lambdaextractor.LambdaUtils;
-import org.mvel3.transpiler.MVELToJavaRewriter;
 import org.mvel3.parser.printer.PrintUtil;
 import org.mvel3.transpiler.EvalPre;
 import org.mvel3.transpiler.MVELTranspiler;
@@ -52,6 +67,8 @@ import org.mvel3.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
@@ -59,6 +76,10 @@ import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.mvel3.transpiler.MVELTranspiler.handleParserResult;
 
@@ -67,29 +88,202 @@ public class MVELCompiler {
     private static final Logger log = LoggerFactory.getLogger(MVELCompiler.class);
 
     /**
-     * Process-wide counter of actual MVEL compile invocations (i.e. paths that
-     * called {@code KieMemoryCompiler.compile} or {@code compileAndPersist} for
-     * a NEW lambda, not reuse-from-disk).
+     * Process-wide count of the evaluator classes compiled for a NEW lambda, i.e. not reused from disk, by any
+     * compiler. Reported to in addition to each compiler's own {@link CompilerMetrics}.
      * <p>
-     * Test-only instrumentation. NOT part of the long-term public compiler API.
+     * Test-only instrumentation, use {@link InMemoryCompilerMetrics#compilations()} instead.
      */
-    private static final java.util.concurrent.atomic.AtomicInteger COMPILE_INVOCATIONS =
-            new java.util.concurrent.atomic.AtomicInteger();
+    private static final InMemoryCompilerMetrics PROCESS_METRICS = new InMemoryCompilerMetrics();
 
-    public static int compileInvocationCount() { return COMPILE_INVOCATIONS.get(); }
-    public static void resetCompileInvocationCountForTests() { COMPILE_INVOCATIONS.set(0); }
+    public static int compileInvocationCount() { return (int) PROCESS_METRICS.compilations(); }
+    public static void resetCompileInvocationCountForTests() { PROCESS_METRICS.reset(); }
     /** Package-private: used by {@link MVELBatchCompiler} when its bulk compile runs. */
-    static void bumpCompileInvocationCount() { COMPILE_INVOCATIONS.incrementAndGet(); }
+    static void bumpCompileInvocationCount() { PROCESS_METRICS.evaluatorCompiled(); }
 
     public record TranspiledSource(String fqn, String javaSource) {}
 
+    /**
+     * Identifies compilations whose evaluators are interchangeable: the normalised eval method, plus what else
+     * affects the generated class and where it is defined.
+     */
+    private record CompileKey(LambdaKey lambdaKey, List<String> imports, String superclass, ClassManager classManager,
+                              ClassLoader classLoader, CompilerBackend backend) {}
+
+    // compilations started by compileAsync and not yet completed, shared by concurrent requests for the same lambda
+    private static final Map<CompileKey, CompletableFuture<Evaluator<?, ?, ?>>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    // the lambda catalog and the persisted registry are not thread-safe
+    private static final Object PERSISTENCE_LOCK = new Object();
+
+    /** Evaluations served by the interpreter before {@link #compileTiered(CompilerParameters)} compiles. */
+    public static final int DEFAULT_COMPILE_THRESHOLD = 1000;
+
+    // null = use the shared JavaCompilerSession of the CompilerParameters' ClassLoader
+    private final JavaCompilerSession compilerSession;
+
+    // null = every compile() runs the whole pipeline
+    private final EvaluatorCache evaluatorCache;
+
+    private final CompilerMetrics metrics;
+
+    public MVELCompiler() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a compiler that runs javac on the given warm session, instead of the shared
+     * session of each {@link CompilerParameters#classLoader()}.
+     */
+    public MVELCompiler(JavaCompilerSession compilerSession) {
+        this(compilerSession, null);
+    }
+
+    /**
+     * Creates a compiler whose {@link #compile(CompilerParameters)} looks the evaluator up in the given cache,
+     * e.g. {@link EvaluatorCache#shared()}, before transpiling. A null session or cache disables them.
+     */
+    public MVELCompiler(JavaCompilerSession compilerSession, EvaluatorCache evaluatorCache) {
+        this(compilerSession, evaluatorCache, null);
+    }
+
+    /**
+     * Creates a compiler reporting the time and allocation of each compilation phase to the given metrics. A null
+     * metrics reports nothing.
+     */
+    public MVELCompiler(JavaCompilerSession compilerSession, EvaluatorCache evaluatorCache, CompilerMetrics metrics) {
+        this.compilerSession = compilerSession;
+        this.evaluatorCache = evaluatorCache;
+        this.metrics = metrics != null ? metrics : CompilerMetrics.NONE;
+    }
+
+    public CompilerMetrics metrics() {
+        return metrics;
+    }
+
+    private JavaCompilerSession compilerSession(ClassLoader classLoader) {
+        return compilerSession != null ? compilerSession : JavaCompilerSession.forClassLoader(classLoader);
+    }
+
     public <T, K, R> Evaluator<T, K, R> compile(CompilerParameters<T, K, R> info) {
+        Evaluator<T, K, R> evaluator = evaluatorCache != null ? evaluatorCache.get(info, this::compileUncached) : compileUncached(info);
+        return sampled(evaluator);
+    }
+
+    // samples the evaluations into JFR events when enabled, see EvaluatorSampling
+    private static <T, K, R> Evaluator<T, K, R> sampled(Evaluator<T, K, R> evaluator) {
+        return EvaluatorSampling.sampled(evaluator, evaluator.getClass().getName());
+    }
+
+    private <T, K, R> Evaluator<T, K, R> compileUncached(CompilerParameters<T, K, R> info) {
         CompilationUnit unit = compileNoLoad(info);
         Evaluator<T, K, R> evaluator = compileEvaluator(unit, info);
 
         return evaluator;
     }
 
+    /**
+     * Compiles the evaluator on the common ForkJoinPool. See {@link #compileAsync(CompilerParameters, Executor)}.
+     */
+    public <T, K, R> CompletableFuture<Evaluator<T, K, R>> compileAsync(CompilerParameters<T, K, R> info) {
+        return compileAsync(info, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Transpiles and compiles the evaluator on the executor. Concurrent requests whose transpiled eval methods
+     * normalise to the same {@link LambdaKey}, for the same class manager and class loader, share a single
+     * compilation and complete with the same evaluator instance.
+     * <p>
+     * The executor bounds how many transpilations and compilations run at once; on Java 21 and later a
+     * virtual thread per task executor may be passed as well.
+     */
+    public <T, K, R> CompletableFuture<Evaluator<T, K, R>> compileAsync(CompilerParameters<T, K, R> info, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> compileNoLoad(info), executor)
+                                .thenCompose(unit -> compileShared(unit, info, executor))
+                                .thenApply(MVELCompiler::sampled);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, K, R> CompletableFuture<Evaluator<T, K, R>> compileShared(CompilationUnit unit, CompilerParameters<T, K, R> info, Executor executor) {
+        CompileKey key = compileKey(unit, info);
+        if (key == null) {
+            return CompletableFuture.supplyAsync(() -> compileEvaluator(unit, info), executor);
+        }
+
+        CompletableFuture<Evaluator<?, ?, ?>> compilation = new CompletableFuture<>();
+        CompletableFuture<Evaluator<?, ?, ?>> inFlight = IN_FLIGHT.putIfAbsent(key, compilation);
+        if (inFlight != null) {
+            log.debug("Joining the in-flight compilation of {}", evaluatorFullQualifiedName(unit));
+            return inFlight.thenApply(evaluator -> (Evaluator<T, K, R>) evaluator);
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    compilation.complete(compileEvaluator(unit, info));
+                } catch (Throwable t) {
+                    compilation.completeExceptionally(t);
+                } finally {
+                    IN_FLIGHT.remove(key, compilation);
+                }
+            });
+        } catch (RuntimeException e) {
+            // e.g. the executor rejected the task
+            IN_FLIGHT.remove(key, compilation);
+            compilation.completeExceptionally(e);
+        }
+        return compilation.thenApply(evaluator -> (Evaluator<T, K, R>) evaluator);
+    }
+
+    /**
+     * Returns the key of the unit's compilation, or null when its eval method cannot be keyed, e.g. because a
+     * parameter type is not visible to {@link LambdaUtils}.
+     */
+    private static CompileKey compileKey(CompilationUnit unit, CompilerParameters<?, ?, ?> info) {
+        LambdaKey lambdaKey;
+        try {
+            lambdaKey = lambdaKey(unit);
+        } catch (RuntimeException e) {
+            log.debug("Compiling {} without sharing: {}", evaluatorFullQualifiedName(unit), e.getMessage());
+            return null;
+        }
+        List<String> imports = unit.getImports().stream().map(ImportDeclaration::toString).toList();
+        return new CompileKey(lambdaKey, imports, info.generatedSuperName(), info.classManager(), info.classLoader(), info.options().backend());
+    }
+
+    /**
+     * Returns an evaluator that is interpreted until it has been evaluated {@link #DEFAULT_COMPILE_THRESHOLD}
+     * times, then compiled on the common ForkJoinPool. See {@link #compileTiered(CompilerParameters, int, Executor)}.
+     */
+    public <T, K, R> Evaluator<T, K, R> compileTiered(CompilerParameters<T, K, R> info) {
+        return compileTiered(info, DEFAULT_COMPILE_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a {@link TieredEvaluator} that interprets the transpiled unit until it has been evaluated
+     * {@code compileThreshold} times, then compiles it on the executor and switches to the compiled evaluator.
+     * This saves the javac latency for evaluators that are rarely evaluated.
+     * <p>
+     * The unit is compiled eagerly, as {@link #compile(CompilerParameters)} does, when the interpreter does not
+     * support it or when lambda persistence is enabled.
+     */
+    public <T, K, R> Evaluator<T, K, R> compileTiered(CompilerParameters<T, K, R> info, int compileThreshold, Executor executor) {
+        CompilationUnit unit = compileNoLoad(info);
+        if (LambdaRuntime.isPersistenceEnabled()) {
+            // the lambda catalog must not be updated from a background compilation
+            return sampled(compileEvaluator(unit, info));
+        }
+
+        Evaluator<T, K, R> interpreted;
+        try {
+            interpreted = new EvaluatorInterpreter(info.classLoader()).interpret(unit);
+        } catch (UnsupportedByteCodeException e) {
+            log.debug("Compiling {} eagerly: {}", evaluatorFullQualifiedName(unit), e.getMessage());
+            return sampled(compileEvaluator(unit, info));
+        }
+        return EvaluatorSampling.sampled(new TieredEvaluator<>(interpreted, () -> compileEvaluator(unit, info), compileThreshold, executor),
+                                         evaluatorFullQualifiedName(unit));
+    }
+
     public <T, K, R> TranspiledSource transpileToSource(CompilerParameters<T, K, R> info) {
         CompilationUnit unit = compileNoLoad(info);
         String fqn = evaluatorFullQualifiedName(unit);
@@ -116,7 +310,7 @@ public class MVELCompiler {
         if ( info.contextDeclaration().type().isVoid()) {
             evalPre = (evalInfo, context, statements) -> statements;
         } else {
-            switch (info.contextDeclaration().type().getClazz().getSimpleName()) {
+            switch (contextKind(info.contextDeclaration().type().getClazz())) {
                 case "Map":
                     evalPre = (evalInfo, context, statements) -> {
                         NodeList tempStmts = new NodeList<Statement>();
@@ -166,6 +360,77 @@ public class MVELCompiler {
                         return tempStmts;
                     };
                     break;
+                case "Frame":
+                    evalPre = (evalInfo, context, statements) -> {
+                        NodeList tempStmts = new NodeList<Statement>();
+                        FrameLayout layout = FrameLayout.of(evalInfo.variableDeclarations());
+                        context.getInputs().stream().forEach(var -> {
+                            Declaration declr = evalInfo.allVars().get(var);
+                            Class<?> clazz = declr.type().getClazz();
+
+                            // __context.longs[0], the slot the layout binds the variable to
+                            Expression load = new ArrayAccessExpr(new FieldAccessExpr(new NameExpr(evalInfo.contextDeclaration().name()),
+                                                                                      layout.storage(declr.name()).field()),
+                                                                  new IntegerLiteralExpr(layout.slot(declr.name())));
+                            Type targetType = handleParserResult(context.getParser().parseType(declr.type().getCanonicalGenericsName()));
+                            if (clazz == boolean.class) {
+                                load = new BinaryExpr(load, new IntegerLiteralExpr(0), BinaryExpr.Operator.NOT_EQUALS);
+                            } else if (clazz != long.class && clazz != double.class) {
+                                load = new CastExpr(targetType.clone(), load);
+                            }
+
+                            VariableDeclarator varDeclr = new VariableDeclarator(targetType, declr.name());
+                            varDeclr.setInitializer(load);
+                            VariableDeclarationExpr varDeclExpr = new VariableDeclarationExpr(varDeclr);
+
+                            tempStmts.add(new ExpressionStmt(varDeclExpr));
+                        });
+
+                        tempStmts.addAll(statements);
+
+                        return tempStmts;
+                    };
+                    break;
+                case "Columns":
+                    evalPre = (evalInfo, context, statements) -> {
+                        NodeList tempStmts = new NodeList<Statement>();
+                        NodeList values = new NodeList<Statement>();
+                        ColumnLayout layout = ColumnLayout.of(evalInfo.variableDeclarations());
+                        context.getInputs().stream().forEach(var -> {
+                            Declaration declr = evalInfo.allVars().get(var);
+                            int column = layout.column(declr.name());
+                            String columnVariable = ColumnLayout.columnVariable(column);
+
+                            // int[] ___column0 = (int[]) __context.columns[0];
+                            Type columnType = handleParserResult(context.getParser().parseType(layout.columnType(declr.name()).getCanonicalName()));
+                            Expression columnLoad = new CastExpr(columnType.clone(),
+                                                                 new ArrayAccessExpr(new FieldAccessExpr(new NameExpr(evalInfo.contextDeclaration().name()), "columns"),
+                                                                                     new IntegerLiteralExpr(column)));
+                            VariableDeclarator columnDeclr = new VariableDeclarator(columnType, columnVariable);
+                            columnDeclr.setInitializer(columnLoad);
+                            tempStmts.add(new ExpressionStmt(new VariableDeclarationExpr(columnDeclr)));
+
+                            // int a = ___column0[___row];
+                            Type targetType = handleParserResult(context.getParser().parseType(declr.type().getCanonicalGenericsName()));
+                            Expression load = new ArrayAccessExpr(new NameExpr(columnVariable), new NameExpr(ColumnLayout.ROW_VARIABLE));
+                            if (!declr.type().getClazz().isPrimitive()) {
+                                load = new CastExpr(targetType.clone(), load);
+                            }
+                            VariableDeclarator varDeclr = new VariableDeclarator(targetType, declr.name());
+                            varDeclr.setInitializer(load);
+                            values.add(new ExpressionStmt(new VariableDeclarationExpr(varDeclr)));
+                        });
+
+                        // the columns are loaded before the row, so evalColumns can hoist them out of its loop over the rows
+                        VariableDeclarator rowDeclr = new VariableDeclarator(PrimitiveType.intType(), ColumnLayout.ROW_VARIABLE);
+                        rowDeclr.setInitializer(new FieldAccessExpr(new NameExpr(evalInfo.contextDeclaration().name()), "row"));
+                        tempStmts.add(new ExpressionStmt(new VariableDeclarationExpr(rowDeclr)));
+                        tempStmts.addAll(values);
+                        tempStmts.addAll(statements);
+
+                        return tempStmts;
+                    };
+                    break;
                 default: // pojo
                     evalPre = (evalInfo, context, statements) -> {
                         NodeList tempStmts = new NodeList<Statement>();
@@ -175,7 +440,7 @@ public class MVELCompiler {
                             ResolvedType                     resolvedType = context.getFacade().getSymbolSolver().classToResolvedType(info.contextDeclaration().type().getClazz());
                             ResolvedReferenceTypeDeclaration d            = resolvedType.asReferenceType().getTypeDeclaration().get();
 
-                            MethodUsage method = MVELToJavaRewriter.findGetterSetter("get", declr.name(), 0, d);
+                            MethodUsage method = context.getResolutionCache().findGetterSetter("get", declr.name(), 0, d);
 
                             MethodCallExpr methodCallExpr = new MethodCallExpr(new NameExpr(info.contextDeclaration().name()), method.getName());
 
@@ -195,17 +460,26 @@ public class MVELCompiler {
             }
         }
 
-        TranspiledResult input = MVELTranspiler.transpile(info, evalPre);
+        TranspiledResult input = MVELTranspiler.transpile(info, evalPre, metrics);
 
         return input;
     }
 
+    // the simple name of the context class, where only org.mvel3.Frame and org.mvel3.Columns are a frame and columns,
+    // so a pojo named Frame or Columns is still a pojo
+    private static String contextKind(Class<?> contextClass) {
+        String name = contextClass.getSimpleName();
+        boolean impostor = (name.equals("Frame") && contextClass != Frame.class) ||
+                           (name.equals("Columns") && contextClass != Columns.class);
+        return impostor ? "" : name;
+    }
+
     private <T, K, R> CompilationUnit compileNoLoad(CompilerParameters<T, K, R> info) {
         TranspiledResult input = transpile(info);
 
         CompilationUnit unit = new CompilationUnitGenerator(input.getTranspilerContext().getParser()).createCompilationUnit(input, info);
 
-        ClassFilterValidator.validate(unit, info.classFilter(), info.classLoader());
+        metrics.time(CompilerMetrics.Phase.CLASS_FILTER, () -> ClassFilterValidator.validate(unit, info.classFilter(), info.classLoader()));
 
         return unit;
     }
@@ -219,9 +493,11 @@ public class MVELCompiler {
 
         if (LambdaRuntime.isPersistenceEnabled()) {
             // return the new class name
-            javaFQN = compileEvaluatorClassWithPersistence(clsManager, info.classLoader(), unit, javaFQN);
+            synchronized (PERSISTENCE_LOCK) {
+                javaFQN = compileEvaluatorClassWithPersistence(clsManager, info, unit, javaFQN);
+            }
         } else {
-            compileEvaluatorClass(clsManager, info.classLoader(), unit, javaFQN);
+            compileEvaluatorClass(clsManager, info, unit, javaFQN);
         }
 
         Class<Evaluator<C, W, O>> evaluatorDefinition = clsManager.getClass(javaFQN);
@@ -250,22 +526,60 @@ public class MVELCompiler {
     }
 
 
-    record LambdaRegistration(int physicalId, String newFqn) {}
+    /**
+     * {@code reused} is true when the catalog matched the unit to an already registered lambda.
+     */
+    record LambdaRegistration(int physicalId, String newFqn, boolean reused) {}
 
     static LambdaRegistration registerAndRename(CompilationUnit unit, String currentFqn) {
         return registerAndRename(unit, currentFqn, LambdaRuntime.getInstance().catalog());
     }
 
     static LambdaRegistration registerAndRename(CompilationUnit unit, String currentFqn, LambdaCatalog catalog) {
-        MethodDeclaration methodDeclaration = unit.findFirst(MethodDeclaration.class).orElseThrow();
-        LambdaKey lambdaKey = LambdaUtils.createLambdaKeyFromMethodDeclaration(methodDeclaration);
-        int physicalId = catalog.register(lambdaKey).physicalId();
+        RegistrationResult registration = catalog.register(lambdaKey(unit));
+        int physicalId = registration.physicalId();
         String oldClassName = currentFqn.substring(currentFqn.lastIndexOf('.') + 1);
         String newClassName = oldClassName + "_" + physicalId;
         ClassOrInterfaceDeclaration classOrInterfaceDeclaration = unit.findFirst(ClassOrInterfaceDeclaration.class).orElseThrow();
         classOrInterfaceDeclaration.setName(newClassName);
         String newFqn = currentFqn.substring(0, currentFqn.lastIndexOf('.') + 1) + newClassName;
-        return new LambdaRegistration(physicalId, newFqn);
+        return new LambdaRegistration(physicalId, newFqn, registration.reused());
+    }
+
+    /**
+     * The key of the unit's eval method, with the {@link #lambdaVariant(CompilationUnit) variant} of the rest of the
+     * class, so units differing only in their generated members never share a class.
+     */
+    private static LambdaKey lambdaKey(CompilationUnit unit) {
+        LambdaKey lambdaKey = LambdaUtils.createLambdaKeyFromMethodDeclaration(unit.findFirst(MethodDeclaration.class).orElseThrow());
+        String variant = lambdaVariant(unit);
+        return variant.isEmpty() ? lambdaKey : lambdaKey.withVariant(variant);
+    }
+
+    /**
+     * What the lambda key of the eval method does not cover: the batch methods, the property masks, the effects,
+     * which depend on the pure methods the expression was compiled with, and the size of the memoised results.
+     */
+    private static String lambdaVariant(CompilationUnit unit) {
+        StringBuilder variant = new StringBuilder();
+        if (unit.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals("evalBatch")).isPresent()) {
+            variant.append("batch");
+        }
+        for (VariableDeclarator constant : unit.findAll(VariableDeclarator.class, v -> v.getParentNode().orElse(null) instanceof FieldDeclaration)) {
+            String name = constant.getNameAsString();
+            if (name.equals(MVELTranspiler.MEMO_FIELD)) {
+                variant.append(variant.length() > 0 ? " " : "").append(name).append('=').append(constant.getInitializer().orElseThrow());
+            }
+        }
+        for (MethodDeclaration mask : unit.findAll(MethodDeclaration.class, m -> MVELTranspiler.MASK_METHODS.contains(m.getNameAsString()))) {
+            mask.findFirst(ReturnStmt.class).flatMap(ReturnStmt::getExpression).ifPresent(value ->
+                    variant.append(variant.length() > 0 ? " " : "").append(mask.getNameAsString()).append('=').append(value));
+        }
+        for (MethodDeclaration effect : unit.findAll(MethodDeclaration.class, m -> MVELTranspiler.EFFECT_METHODS.contains(m.getNameAsString()))) {
+            effect.findFirst(ReturnStmt.class).flatMap(ReturnStmt::getExpression).ifPresent(value ->
+                    variant.append(variant.length() > 0 ? " " : "").append(effect.getNameAsString()).append('=').append(value));
+        }
+        return variant.toString();
     }
 
     static String evaluatorFullQualifiedName(CompilationUnit evaluatorCompilationUnit) {
@@ -289,38 +603,123 @@ public class MVELCompiler {
         return evaluator;
     }
 
-    private void compileEvaluatorClass(ClassManager classManager, ClassLoader classLoader, CompilationUnit compilationUnit, String javaFQN) {
-        Map<String, String> sources = Collections.singletonMap(
-                javaFQN,
-                PrintUtil.printNode(compilationUnit)
-        );
-        KieMemoryCompiler.compile(classManager, sources, classLoader);
-        COMPILE_INVOCATIONS.incrementAndGet();
+    /**
+     * Emits the evaluator bytecode directly when the {@link CompilerBackend#BYTECODE} backend is selected, returning
+     * null when javac must compile the unit instead.
+     */
+    private Map<String, byte[]> generateByteCode(CompilerParameters<?, ?, ?> info, CompilationUnit compilationUnit, String javaFQN) {
+        if (info.options().backend() != CompilerBackend.BYTECODE) {
+            return null;
+        }
+        try {
+            return metrics.time(CompilerMetrics.Phase.BYTECODE,
+                                () -> new EvaluatorByteCodeGenerator(info.classLoader()).generate(compilationUnit, javaFQN));
+        } catch (UnsupportedByteCodeException e) {
+            log.debug("Falling back to javac for {}: {}", javaFQN, e.getMessage());
+            return null;
+        }
     }
 
-    private String compileEvaluatorClassWithPersistence(ClassManager classManager, ClassLoader classLoader, CompilationUnit compilationUnit, String javaFQN) {
+    private void compileEvaluatorClass(ClassManager classManager, CompilerParameters<?, ?, ?> info, CompilationUnit compilationUnit, String javaFQN) {
+        Map<String, byte[]> byteCode = generateByteCode(info, compilationUnit, javaFQN);
+        if (byteCode == null) {
+            byteCode = javac(info, compilationUnit, javaFQN, -1);
+        }
+        define(classManager, byteCode, javaFQN, -1, false);
+        compiled();
+    }
+
+    private String compileEvaluatorClassWithPersistence(ClassManager classManager, CompilerParameters<?, ?, ?> info, CompilationUnit compilationUnit, String javaFQN) {
         LambdaRegistration reg = registerAndRename(compilationUnit, javaFQN);
         int physicalId = reg.physicalId();
         String newJavaFQN = reg.newFqn();
+        if (reg.reused()) {
+            metrics.catalogHit();
+        }
 
         LambdaRuntime rt = LambdaRuntime.getInstance();
         if (rt.persistenceManager().artifactExists(physicalId)) {
             ArtifactRef ref = rt.persistenceManager().artifactFor(physicalId).orElseThrow();
             log.info("Reading the persisted lambda class {}", newJavaFQN);
             try {
-                LambdaArtifactLoader.loadOrDefinePersistedClass(classManager, ref);
+                metrics.time(CompilerMetrics.Phase.LOAD_PERSISTED, () -> {
+                    try {
+                        return LambdaArtifactLoader.loadOrDefinePersistedClass(classManager, ref, physicalId);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
             } catch (Exception e) {
                 throw new RuntimeException("Failed to load persisted lambda class from " + ref.classFile(), e);
             }
+            metrics.persistedArtifactReused();
         } else {
-            String newSource = PrintUtil.printNode(compilationUnit);
-            Map<String, String> sources = Collections.singletonMap(newJavaFQN, newSource);
             log.info("Persisting lambda class {}", newJavaFQN);
-            List<Path> persistedFiles = KieMemoryCompiler.compileAndPersist(classManager, sources, classLoader, null, rt.config().persistenceRoot());
-            COMPILE_INVOCATIONS.incrementAndGet();
+            Map<String, byte[]> byteCode = generateByteCode(info, compilationUnit, newJavaFQN);
+            if (byteCode == null) {
+                byteCode = javac(info, compilationUnit, newJavaFQN, physicalId);
+            }
+            List<Path> persistedFiles = KieMemoryCompiler.persistByteCode(byteCode, rt.config().persistenceRoot());
+            // a lambda the catalog registered for the first time cannot be a duplicate of a defined one
+            define(classManager, byteCode, newJavaFQN, physicalId, !reg.reused());
+            compiled();
             rt.persistenceManager().attachArtifact(physicalId, new ArtifactRef(newJavaFQN, persistedFiles.get(0)));
         }
 
         return newJavaFQN;
     }
+
+    // physicalId is -1 when the lambda is not persisted
+    private Map<String, byte[]> javac(CompilerParameters<?, ?, ?> info, CompilationUnit compilationUnit, String javaFQN, int physicalId) {
+        String source = metrics.time(CompilerMetrics.Phase.PRINT, () -> PrintUtil.printNode(compilationUnit));
+        Map<String, String> sources = Collections.singletonMap(javaFQN, source);
+
+        JavacEvent event = new JavacEvent();
+        event.begin();
+        Map<String, byte[]> byteCode = metrics.time(CompilerMetrics.Phase.JAVAC,
+                                                    () -> KieMemoryCompiler.compileNoLoad(sources, compilerSession(info.classLoader()), null));
+        event.end();
+        if (event.shouldCommit()) {
+            event.evaluatorClass = javaFQN;
+            event.physicalId = physicalId;
+            event.classes = byteCode.size();
+            event.sourceBytes = source.length();
+            event.byteCodeBytes = byteCodeBytes(byteCode);
+            event.commit();
+        }
+        return byteCode;
+    }
+
+    private void define(ClassManager classManager, Map<String, byte[]> byteCode, String javaFQN, int physicalId, boolean unique) {
+        DefineEvent event = new DefineEvent();
+        event.begin();
+        metrics.time(CompilerMetrics.Phase.DEFINE, () -> {
+            if (unique) {
+                classManager.defineUnique(byteCode);
+            } else {
+                classManager.define(byteCode);
+            }
+        });
+        event.end();
+        if (event.shouldCommit()) {
+            event.evaluatorClass = javaFQN;
+            event.physicalId = physicalId;
+            event.classes = byteCode.size();
+            event.byteCodeBytes = byteCodeBytes(byteCode);
+            event.commit();
+        }
+    }
+
+    static long byteCodeBytes(Map<String, byte[]> byteCode) {
+        long bytes = 0;
+        for (byte[] classBytes : byteCode.values()) {
+            bytes += classBytes.length;
+        }
+        return bytes;
+    }
+
+    private void compiled() {
+        PROCESS_METRICS.evaluatorCompiled();
+        metrics.evaluatorCompiled();
+    }
 }
@@ -0,0 +1,134 @@
+package org.mvel3;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of a {@link MemoisingEvaluator}, keyed by the values of the variables the expression read. Lookups and
+ * inserts never lock, so evaluations on many threads share the cache. Once the cache holds more than its maximum size,
+ * each insert evicts an arbitrary entry rather than the least recently used one, which would need a lock or a
+ * shared access order. A null result is not memoised, the expression is evaluated again instead.
+ *
+ * @param <O> the output/return type
+ */
+public final class MemoCache<O> {
+
+    /**
+     * Hit, miss and eviction counts since the cache was created or {@link #invalidateAll() invalidated}, and its
+     * current size. Counts are updated without locking, so they are only consistent with each other when the
+     * evaluator is not evaluating.
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+    }
+
+    // the key of a single null value, which ConcurrentHashMap does not accept
+    private static final Object NULL = new Object();
+
+    private final int maximumSize;
+
+    private final ConcurrentHashMap<Object, O> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public MemoCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maximumSize, 1024));
+    }
+
+    /**
+     * The key of an expression reading a single variable: the value itself.
+     */
+    public static Object key(Object value) {
+        return value != null ? value : NULL;
+    }
+
+    /**
+     * The key of an expression reading several variables, or none, with the values in declaration order.
+     */
+    public static Object key(Object... values) {
+        return new Key(values);
+    }
+
+    /**
+     * Returns the memoised result for the key, or null on a miss.
+     */
+    public O get(Object key) {
+        O value = entries.get(key);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    /**
+     * Memoises the result for the key, returning the result.
+     */
+    public O put(Object key, O value) {
+        if (value == null || entries.put(key, value) != null) {
+            return value;
+        }
+        if (entries.size() > maximumSize) {
+            Iterator<Object> keys = entries.keySet().iterator();
+            while (keys.hasNext() && entries.size() > maximumSize) {
+                Object evicted = keys.next();
+                if (!evicted.equals(key)) {
+                    keys.remove();
+                    evictions.increment();
+                }
+            }
+        }
+        return value;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * Removes every memoised result and resets the counts, e.g. once a static input of the expression changed.
+     */
+    public void invalidateAll() {
+        entries.clear();
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    private static final class Key {
+
+        private final Object[] values;
+
+        private final int hashCode;
+
+        private Key(Object[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && hashCode == other.hashCode && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.mvel3;
+
+/**
+ * An evaluator memoising its results, compiled with {@link MVELBuilder#compileMemoised()}. The generated
+ * {@link #eval(Object)} reads the variables of the expression from the context, as any evaluator does, builds a key
+ * of their values with {@link MemoCache#key(Object...)} and only evaluates the expression when the
+ * {@link #memoCache()} misses it.
+ */
+public interface MemoisingEvaluator<C, W, O> extends Evaluator<C, W, O> {
+
+    /**
+     * The results memoised by this evaluator, whose {@link MemoCache#stats()} give the hit rate.
+     */
+    MemoCache<O> memoCache();
+}
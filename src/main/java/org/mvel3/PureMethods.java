@@ -0,0 +1,176 @@
+package org.mvel3;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * The methods the effect analysis trusts to have no side effects, see {@link Evaluator#isPure()}. An entry is either
+ * a class, {@code com.acme.Rates}, trusting all its methods and constructors, or one method of a class,
+ * {@code java.util.Map#get}, matching all its overloads. An entry only matches the type that declares the resolved
+ * method, so {@code java.util.Map#get} does not trust {@code LinkedHashMap.get}, which reorders an access-ordered map.
+ * The one exception is an interface redeclaring the method of another, so {@code java.util.Collection#size} trusts
+ * {@code List.size}. A call through a trusted interface method trusts whatever implementation it reaches at runtime.
+ * <p>
+ * Bean getters are always trusted, as they are how properties are read: a public, non-static, no-arg {@code getX} or
+ * {@code isX} method of a class with an {@code x} field. Other methods named like getters, such as
+ * {@code AtomicInteger.getAndIncrement}, need an entry.
+ */
+public final class PureMethods {
+
+    // every method of Math and StrictMath but random, which is not deterministic
+    private static final List<String> MATH_METHODS = List.of(
+            "abs", "absExact", "max", "min", "signum", "copySign", "sqrt", "cbrt", "pow", "exp", "expm1", "log",
+            "log10", "log1p", "hypot", "floor", "ceil", "round", "rint", "sin", "cos", "tan", "asin", "acos", "atan",
+            "atan2", "sinh", "cosh", "tanh", "toRadians", "toDegrees", "floorDiv", "floorMod", "addExact",
+            "subtractExact", "multiplyExact", "negateExact", "incrementExact", "decrementExact", "toIntExact",
+            "multiplyHigh", "multiplyFull", "fma", "ulp", "nextUp", "nextDown", "nextAfter", "scalb", "getExponent",
+            "IEEEremainder");
+
+    // the methods every boxed number declares
+    private static final List<String> NUMBER_METHODS = List.of(
+            "<init>", "valueOf", "decode", "compare", "compareTo", "equals", "hashCode", "toString", "byteValue",
+            "shortValue", "intValue", "longValue", "floatValue", "doubleValue");
+
+    // the bit twiddling of Integer and Long
+    private static final List<String> INTEGRAL_METHODS = List.of(
+            "sum", "max", "min", "signum", "bitCount", "reverse", "reverseBytes", "rotateLeft", "rotateRight",
+            "highestOneBit", "lowestOneBit", "numberOfLeadingZeros", "numberOfTrailingZeros", "toBinaryString",
+            "toHexString", "toOctalString", "toUnsignedString", "compareUnsigned", "divideUnsigned",
+            "remainderUnsigned");
+
+    // listed one by one, leaving out Integer.getInteger, Long.getLong and Boolean.getBoolean, which read system
+    // properties, and the String methods of the default locale
+    private static final PureMethods DEFAULTS = new PureMethods(Set.of())
+            .with(methods("java.lang.String", List.of(
+                    "<init>", "valueOf", "copyValueOf", "join", "length", "isEmpty", "isBlank", "charAt",
+                    "codePointAt", "codePointBefore", "codePointCount", "compareTo", "compareToIgnoreCase", "contains",
+                    "contentEquals", "endsWith", "equals", "equalsIgnoreCase", "hashCode", "indexOf", "lastIndexOf",
+                    "matches", "regionMatches", "replace", "replaceAll", "replaceFirst", "split", "startsWith",
+                    "strip", "stripLeading", "stripTrailing", "substring", "subSequence", "toCharArray", "toString",
+                    "trim", "repeat", "concat")))
+            .with(methods("java.lang.Character", List.of(
+                    "<init>", "valueOf", "charValue", "compare", "compareTo", "equals", "hashCode", "toString",
+                    "isDigit", "isLetter", "isLetterOrDigit", "isAlphabetic", "isWhitespace", "isSpaceChar",
+                    "isUpperCase", "isLowerCase", "isTitleCase", "toUpperCase", "toLowerCase", "toTitleCase", "digit",
+                    "forDigit", "getNumericValue", "getType", "toChars", "charCount", "toCodePoint", "isSurrogate",
+                    "isHighSurrogate", "isLowSurrogate", "isValidCodePoint", "isBmpCodePoint",
+                    "isSupplementaryCodePoint", "reverseBytes")))
+            .with(methods("java.lang.Boolean", List.of(
+                    "<init>", "valueOf", "parseBoolean", "booleanValue", "compare", "compareTo", "equals", "hashCode",
+                    "toString", "logicalAnd", "logicalOr", "logicalXor")))
+            .with(methods("java.lang.Byte", NUMBER_METHODS, List.of("parseByte", "toUnsignedInt", "toUnsignedLong",
+                                                                     "compareUnsigned")))
+            .with(methods("java.lang.Short", NUMBER_METHODS, List.of("parseShort", "toUnsignedInt", "toUnsignedLong",
+                                                                      "compareUnsigned", "reverseBytes")))
+            .with(methods("java.lang.Integer", NUMBER_METHODS, INTEGRAL_METHODS, List.of("parseInt", "parseUnsignedInt",
+                                                                                          "toUnsignedLong")))
+            .with(methods("java.lang.Long", NUMBER_METHODS, INTEGRAL_METHODS, List.of("parseLong", "parseUnsignedLong")))
+            .with(methods("java.lang.Float", NUMBER_METHODS, List.of(
+                    "parseFloat", "sum", "max", "min", "isNaN", "isInfinite", "isFinite", "toHexString",
+                    "floatToIntBits", "floatToRawIntBits", "intBitsToFloat")))
+            .with(methods("java.lang.Double", NUMBER_METHODS, List.of(
+                    "parseDouble", "sum", "max", "min", "isNaN", "isInfinite", "isFinite", "toHexString",
+                    "doubleToLongBits", "doubleToRawLongBits", "longBitsToDouble")))
+            .with(methods("java.math.BigDecimal", List.of(
+                    "<init>", "valueOf", "add", "subtract", "multiply", "divide", "divideToIntegralValue",
+                    "divideAndRemainder", "remainder", "pow", "sqrt", "abs", "negate", "plus", "round", "signum",
+                    "scale", "precision", "unscaledValue", "setScale", "movePointLeft", "movePointRight",
+                    "scaleByPowerOfTen", "stripTrailingZeros", "compareTo", "equals", "hashCode", "min", "max", "ulp",
+                    "toString", "toEngineeringString", "toPlainString", "toBigInteger", "toBigIntegerExact",
+                    "intValue", "intValueExact", "longValue", "longValueExact", "shortValueExact", "byteValueExact",
+                    "floatValue", "doubleValue")))
+            // not the constructors, one of which draws from a Random
+            .with(methods("java.math.BigInteger", List.of(
+                    "valueOf", "add", "subtract", "multiply", "divide", "remainder", "divideAndRemainder", "mod",
+                    "modPow", "modInverse", "pow", "sqrt", "gcd", "abs", "negate", "signum", "and", "or", "xor", "not",
+                    "andNot", "shiftLeft", "shiftRight", "testBit", "setBit", "clearBit", "flipBit",
+                    "getLowestSetBit", "bitLength", "bitCount", "compareTo", "equals", "hashCode", "min", "max",
+                    "toString", "toByteArray", "intValue", "intValueExact", "longValue", "longValueExact",
+                    "shortValueExact", "byteValueExact", "floatValue", "doubleValue")))
+            .with(methods("java.math.MathContext", List.of(
+                    "<init>", "getPrecision", "getRoundingMode", "equals", "hashCode", "toString")))
+            .with(methods("java.util.Objects", List.of(
+                    "equals", "deepEquals", "hash", "hashCode", "toString", "isNull", "nonNull")))
+            .with(methods("java.time.Duration", List.of(
+                    "of", "ofDays", "ofHours", "ofMinutes", "ofSeconds", "ofMillis", "ofNanos", "between", "parse",
+                    "plus", "plusDays", "plusHours", "plusMinutes", "plusSeconds", "plusMillis", "plusNanos", "minus",
+                    "minusDays", "minusHours", "minusMinutes", "minusSeconds", "minusMillis", "minusNanos",
+                    "multipliedBy", "dividedBy", "negated", "abs", "isZero", "isNegative", "getSeconds", "getNano",
+                    "toDays", "toHours", "toMinutes", "toSeconds", "toMillis", "toNanos", "compareTo", "equals",
+                    "hashCode", "toString")))
+            .with("java.util.Arrays#asList", "java.util.Collections#emptyList", "java.util.Collections#emptyMap",
+                  "java.util.List#of", "java.util.Map#of",
+                  "java.util.Map#get", "java.util.Map#containsKey", "java.util.Map#size", "java.util.Map#isEmpty",
+                  "java.util.List#get", "java.util.List#indexOf",
+                  "java.util.Collection#size", "java.util.Collection#isEmpty", "java.util.Collection#contains")
+            .with(methods("java.lang.Math", MATH_METHODS))
+            .with(methods("java.lang.StrictMath", MATH_METHODS));
+
+    private static final PureMethods NONE = new PureMethods(Set.of());
+
+    private final Set<String> entries;
+
+    private PureMethods(Set<String> entries) {
+        this.entries = Set.copyOf(entries);
+    }
+
+    /**
+     * The deterministic methods of the JDK value types, {@code String}, the boxed primitives, {@code BigDecimal},
+     * {@code BigInteger} and {@code Duration}, the methods of {@code Math} but {@code random}, and the read methods of
+     * the {@code Map}, {@code List} and {@code Collection} interfaces.
+     */
+    public static PureMethods defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Only bean getters.
+     */
+    public static PureMethods none() {
+        return NONE;
+    }
+
+    public static PureMethods of(String... entries) {
+        return new PureMethods(Set.of(entries));
+    }
+
+    /**
+     * These methods and the given entries.
+     */
+    public PureMethods with(String... entries) {
+        Set<String> union = new TreeSet<>(this.entries);
+        union.addAll(Arrays.asList(entries));
+        return new PureMethods(union);
+    }
+
+    @SafeVarargs
+    private static String[] methods(String className, List<String>... names) {
+        return Stream.of(names).flatMap(List::stream).map(name -> className + "#" + name).toArray(String[]::new);
+    }
+
+    public boolean isPure(String className, String methodName) {
+        return entries.contains(className) || entries.contains(className + "#" + methodName);
+    }
+
+    public Set<String> entries() {
+        return entries;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PureMethods other && entries.equals(other.entries);
+    }
+
+    @Override
+    public int hashCode() {
+        return entries.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new TreeSet<>(entries).toString();
+    }
+}
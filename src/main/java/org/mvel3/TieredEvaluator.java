@@ -0,0 +1,137 @@
+package org.mvel3;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An evaluator that starts interpreted and swaps itself to the compiled evaluator once it has been invoked
+ * {@code compileThreshold} times. The compilation runs on the given executor, so neither the first evaluations nor
+ * the one crossing the threshold wait for javac. Evaluations keep using the interpreter until the compiled
+ * evaluator is available, and for good if the compilation fails.
+ * <p>
+ * Created by {@link MVELCompiler#compileTiered(CompilerParameters, int, Executor)}.
+ *
+ * @param <C> the context type (Map, List, or POJO)
+ * @param <W> the "with" root context type (Void if not used)
+ * @param <O> the output/return type
+ */
+public class TieredEvaluator<C, W, O> implements Evaluator<C, W, O> {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredEvaluator.class);
+
+    private final Evaluator<C, W, O> interpreted;
+
+    private final Supplier<Evaluator<C, W, O>> compiler;
+
+    private final int compileThreshold;
+
+    private final Executor executor;
+
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    private volatile Evaluator<C, W, O> delegate;
+
+    /**
+     * @param interpreted      the evaluator serving the evaluations until the compiled one is available
+     * @param compiler         compiles the evaluator, invoked at most once on the executor
+     * @param compileThreshold the number of evaluations triggering the compilation, 0 or less to compile immediately
+     * @param executor         runs the compilation
+     */
+    public TieredEvaluator(Evaluator<C, W, O> interpreted, Supplier<Evaluator<C, W, O>> compiler,
+                           int compileThreshold, Executor executor) {
+        this.interpreted = interpreted;
+        this.compiler = compiler;
+        this.compileThreshold = compileThreshold;
+        this.executor = executor;
+        this.delegate = interpreted;
+        if (compileThreshold <= 0) {
+            compile();
+        }
+    }
+
+    /**
+     * Returns true once evaluations are served by the compiled evaluator.
+     */
+    public boolean isCompiled() {
+        return delegate != interpreted;
+    }
+
+    @Override
+    public O eval(C c) {
+        return target().eval(c);
+    }
+
+    @Override
+    public O eval(C c, W w) {
+        return target().eval(c, w);
+    }
+
+    @Override
+    public O evalWith(W w) {
+        return target().evalWith(w);
+    }
+
+    @Override
+    public String[] getReadProperties() {
+        return delegate.getReadProperties();
+    }
+
+    @Override
+    public String[] getWriteProperties() {
+        return delegate.getWriteProperties();
+    }
+
+    @Override
+    public long[] getReadMask() {
+        return delegate.getReadMask();
+    }
+
+    @Override
+    public long[] getWriteMask() {
+        return delegate.getWriteMask();
+    }
+
+    @Override
+    public boolean isPure() {
+        return delegate.isPure();
+    }
+
+    @Override
+    public boolean writesContext() {
+        return delegate.writesContext();
+    }
+
+    @Override
+    public boolean callsExternalMethods() {
+        return delegate.callsExternalMethods();
+    }
+
+    private Evaluator<C, W, O> target() {
+        Evaluator<C, W, O> current = delegate;
+        // only the evaluation reaching the threshold schedules the compilation
+        if (current == interpreted && invocations.incrementAndGet() == compileThreshold) {
+            compile();
+        }
+        return current;
+    }
+
+    private void compile() {
+        try {
+            CompletableFuture.supplyAsync(compiler, executor).whenComplete((compiled, failure) -> {
+                if (failure != null) {
+                    log.warn("Unable to compile the evaluator, it stays interpreted", failure);
+                } else {
+                    delegate = compiled;
+                }
+            });
+        } catch (RuntimeException e) {
+            // e.g. the executor rejected the task
+            log.warn("Unable to schedule the compilation of the evaluator, it stays interpreted", e);
+        }
+    }
+}
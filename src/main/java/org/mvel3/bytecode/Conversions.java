@@ -0,0 +1,264 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.util.Map;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * The JLS conversion rules (boxing, unboxing, primitive widening and narrowing, numeric promotion) that the
+ * bytecode generator needs, on plain <code>Class</code> types.
+ */
+final class Conversions {
+
+    /**
+     * The static type of the <code>null</code> literal.
+     */
+    static final Class<?> NULL = Null.class;
+
+    private static final class Null { }
+
+    private static final Map<Class<?>, Class<?>> BOXES = Map.of(boolean.class, Boolean.class,
+                                                                byte.class, Byte.class,
+                                                                short.class, Short.class,
+                                                                char.class, Character.class,
+                                                                int.class, Integer.class,
+                                                                long.class, Long.class,
+                                                                float.class, Float.class,
+                                                                double.class, Double.class);
+
+    private static final Map<Class<?>, Class<?>> PRIMITIVES = Map.of(Boolean.class, boolean.class,
+                                                                     Byte.class, byte.class,
+                                                                     Short.class, short.class,
+                                                                     Character.class, char.class,
+                                                                     Integer.class, int.class,
+                                                                     Long.class, long.class,
+                                                                     Float.class, float.class,
+                                                                     Double.class, double.class);
+
+    private Conversions() { }
+
+    static Class<?> box(Class<?> primitive) {
+        return BOXES.get(primitive);
+    }
+
+    /**
+     * Returns the primitive type of a primitive or box type, or null for any other type (including void).
+     */
+    static Class<?> unboxed(Class<?> type) {
+        if (type.isPrimitive()) {
+            return type == void.class ? null : type;
+        }
+        return PRIMITIVES.get(type);
+    }
+
+    static boolean isNumeric(Class<?> primitive) {
+        return primitive != null && primitive != boolean.class;
+    }
+
+    static boolean isIntegral(Class<?> primitive) {
+        return primitive == int.class || primitive == long.class || primitive == short.class ||
+               primitive == byte.class || primitive == char.class;
+    }
+
+    static Class<?> unaryPromotion(Class<?> primitive) {
+        return primitive == byte.class || primitive == short.class || primitive == char.class ? int.class : primitive;
+    }
+
+    static Class<?> binaryPromotion(Class<?> left, Class<?> right) {
+        if (left == double.class || right == double.class) {
+            return double.class;
+        }
+        if (left == float.class || right == float.class) {
+            return float.class;
+        }
+        if (left == long.class || right == long.class) {
+            return long.class;
+        }
+        return int.class;
+    }
+
+    static boolean isWidening(Class<?> from, Class<?> to) {
+        if (from == to) {
+            return true;
+        }
+        if (from == byte.class) {
+            return to == short.class || to == int.class || to == long.class || to == float.class || to == double.class;
+        }
+        if (from == short.class || from == char.class) {
+            return to == int.class || to == long.class || to == float.class || to == double.class;
+        }
+        if (from == int.class) {
+            return to == long.class || to == float.class || to == double.class;
+        }
+        if (from == long.class) {
+            return to == float.class || to == double.class;
+        }
+        return from == float.class && to == double.class;
+    }
+
+    /**
+     * Assignment without boxing or unboxing, used for the first phase of overload resolution.
+     */
+    static boolean isStrictlyAssignable(Class<?> from, Class<?> to) {
+        if (from == NULL) {
+            return !to.isPrimitive();
+        }
+        if (from.isPrimitive() != to.isPrimitive()) {
+            return false;
+        }
+        return from.isPrimitive() ? isWidening(from, to) : to.isAssignableFrom(from);
+    }
+
+    /**
+     * Assignment with boxing and unboxing, as allowed in assignment and method invocation contexts.
+     */
+    static boolean isAssignable(Class<?> from, Class<?> to) {
+        if (from == void.class || to == void.class) {
+            return false;
+        }
+        if (from == NULL) {
+            return !to.isPrimitive();
+        }
+        if (from.isPrimitive() && to.isPrimitive()) {
+            return isWidening(from, to);
+        }
+        if (from.isPrimitive()) {
+            return to.isAssignableFrom(box(from));
+        }
+        if (to.isPrimitive()) {
+            Class<?> primitive = unboxed(from);
+            return primitive != null && isWidening(primitive, to);
+        }
+        return to.isAssignableFrom(from);
+    }
+
+    static boolean isCastable(Class<?> from, Class<?> to) {
+        if (from == void.class || to == void.class) {
+            return false;
+        }
+        if (from == NULL) {
+            return !to.isPrimitive();
+        }
+        if (from.isPrimitive() && to.isPrimitive()) {
+            return from == to || (isNumeric(from) && isNumeric(to));
+        }
+        if (from.isPrimitive()) {
+            return to.isAssignableFrom(box(from));
+        }
+        if (to.isPrimitive()) {
+            Class<?> primitive = unboxed(from);
+            return primitive != null ? isWidening(primitive, to) : from.isAssignableFrom(box(to));
+        }
+        return to.isAssignableFrom(from) || from.isAssignableFrom(to) ||
+               (to.isInterface() && !from.isArray()) || (from.isInterface() && !to.isArray());
+    }
+
+    /**
+     * Emits the conversion of the value on top of the stack from one type to another. The conversion must be
+     * valid as a cast, see {@link #isCastable(Class, Class)}.
+     */
+    static void convert(MethodVisitor mv, Class<?> from, Class<?> to) {
+        if (from == to || from == NULL) {
+            return;
+        }
+        if (from.isPrimitive() && to.isPrimitive()) {
+            convertPrimitive(mv, from, to);
+        } else if (from.isPrimitive()) {
+            box(mv, from);
+        } else if (to.isPrimitive()) {
+            Class<?> primitive = unboxed(from);
+            if (primitive == null) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(box(to)));
+                primitive = to;
+            }
+            unbox(mv, primitive);
+            convertPrimitive(mv, primitive, to);
+        } else if (!to.isAssignableFrom(from)) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(to));
+        }
+    }
+
+    static void box(MethodVisitor mv, Class<?> primitive) {
+        Class<?> box = box(primitive);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(box), "valueOf",
+                           Type.getMethodDescriptor(Type.getType(box), Type.getType(primitive)), false);
+    }
+
+    static void unbox(MethodVisitor mv, Class<?> primitive) {
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(box(primitive)), primitive.getName() + "Value",
+                           Type.getMethodDescriptor(Type.getType(primitive)), false);
+    }
+
+    private static void convertPrimitive(MethodVisitor mv, Class<?> from, Class<?> to) {
+        if (from == to) {
+            return;
+        }
+        Class<?> computational = unaryPromotion(from);
+        if (computational == int.class) {
+            if (to == long.class) {
+                mv.visitInsn(Opcodes.I2L);
+            } else if (to == float.class) {
+                mv.visitInsn(Opcodes.I2F);
+            } else if (to == double.class) {
+                mv.visitInsn(Opcodes.I2D);
+            } else {
+                narrowInt(mv, to);
+            }
+        } else if (computational == long.class) {
+            if (to == float.class) {
+                mv.visitInsn(Opcodes.L2F);
+            } else if (to == double.class) {
+                mv.visitInsn(Opcodes.L2D);
+            } else {
+                mv.visitInsn(Opcodes.L2I);
+                narrowInt(mv, to);
+            }
+        } else if (computational == float.class) {
+            if (to == long.class) {
+                mv.visitInsn(Opcodes.F2L);
+            } else if (to == double.class) {
+                mv.visitInsn(Opcodes.F2D);
+            } else {
+                mv.visitInsn(Opcodes.F2I);
+                narrowInt(mv, to);
+            }
+        } else {
+            if (to == long.class) {
+                mv.visitInsn(Opcodes.D2L);
+            } else if (to == float.class) {
+                mv.visitInsn(Opcodes.D2F);
+            } else {
+                mv.visitInsn(Opcodes.D2I);
+                narrowInt(mv, to);
+            }
+        }
+    }
+
+    private static void narrowInt(MethodVisitor mv, Class<?> to) {
+        if (to == byte.class) {
+            mv.visitInsn(Opcodes.I2B);
+        } else if (to == short.class) {
+            mv.visitInsn(Opcodes.I2S);
+        } else if (to == char.class) {
+            mv.visitInsn(Opcodes.I2C);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.mvel3.Evaluator;
+import org.mvel3.bytecode.EvaluatorDeclaration.Constant;
+import org.mvel3.bytecode.EvaluatorDeclaration.EvaluatorMethod;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates the class file of a transpiled evaluator directly from its rewritten compilation unit, without
+ * printing the source and running javac.
+ * <p>
+ * Only the shape produced by the transpiler is accepted: one class implementing {@link Evaluator}, whose fields are
+ * private static final constants and whose methods override the <code>Evaluator</code> methods, with bodies and
+ * initializers made of the statements and expressions that {@link MethodBodyGenerator} supports. Anything else raises {@link UnsupportedByteCodeException}, leaving it to the
+ * caller to fall back to javac. The generated methods take the erased <code>Evaluator</code> descriptors directly,
+ * so no bridge methods are needed.
+ */
+public class EvaluatorByteCodeGenerator {
+
+    private static final String EVALUATOR = Type.getInternalName(Evaluator.class);
+
+    private final ClassLoader classLoader;
+
+    public EvaluatorByteCodeGenerator(ClassLoader classLoader) {
+        this.classLoader = classLoader != null ? classLoader : EvaluatorByteCodeGenerator.class.getClassLoader();
+    }
+
+    /**
+     * Generates the evaluator class, keyed by its fully qualified name as <code>KieMemoryCompiler</code> does.
+     *
+     * @throws UnsupportedByteCodeException if the unit uses a construct the generator does not support
+     */
+    public Map<String, byte[]> generate(CompilationUnit unit, String javaFQN) {
+        TypeNames typeNames = new TypeNames(unit, classLoader);
+        List<EvaluatorMethod> methods = EvaluatorDeclaration.methods(unit, typeNames);
+        List<Constant> constants = EvaluatorDeclaration.constants(unit, typeNames);
+
+        String internalName = javaFQN.replace('.', '/');
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected ClassLoader getClassLoader() {
+                return classLoader;
+            }
+        };
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null,
+                 "java/lang/Object", new String[] {EVALUATOR});
+        generateConstructor(cw);
+        if (!constants.isEmpty()) {
+            generateConstants(cw, typeNames, internalName, constants);
+        }
+        for (EvaluatorMethod method : methods) {
+            generateMethod(cw, typeNames, internalName, constants, method);
+        }
+        cw.visitEnd();
+
+        try {
+            return Collections.singletonMap(javaFQN, cw.toByteArray());
+        } catch (RuntimeException | LinkageError e) {
+            // frame computation loads the classes it merges, which may fail in ways javac would have reported
+            throw new UnsupportedByteCodeException("Unable to compute the frames of " + javaFQN, e);
+        }
+    }
+
+    private static void generateConstructor(ClassWriter cw) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void generateConstants(ClassWriter cw, TypeNames typeNames, String internalName, List<Constant> constants) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        mv.visitCode();
+        MethodBodyGenerator body = new MethodBodyGenerator(mv, typeNames, void.class);
+        for (Constant constant : constants) {
+            cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, constant.name(),
+                          Type.getDescriptor(constant.type()), null, null).visitEnd();
+            // as javac does, an initializer may read the constants declared before it
+            body.declareConstant(internalName, constant.name(), constant.type());
+            body.initializeConstant(constant.name(), constant.initializer());
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void generateMethod(ClassWriter cw, TypeNames typeNames, String internalName, List<Constant> constants,
+                                       EvaluatorMethod method) {
+        MethodDeclaration declaration = method.declaration();
+        Method overridden = method.overridden();
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, overridden.getName(), Type.getMethodDescriptor(overridden), null, null);
+        mv.visitCode();
+        MethodBodyGenerator body = new MethodBodyGenerator(mv, typeNames, method.returnType());
+        for (Constant constant : constants) {
+            body.declareConstant(internalName, constant.name(), constant.type());
+        }
+        Class<?>[] erasedTypes = overridden.getParameterTypes();
+        for (int i = 0; i < erasedTypes.length; i++) {
+            body.declareParameter(declaration.getParameter(i).getNameAsString(), method.parameterTypes()[i], erasedTypes[i]);
+        }
+        body.generate(declaration.getBody().get());
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+}
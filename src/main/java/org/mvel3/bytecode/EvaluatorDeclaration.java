@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.Expression;
+import org.mvel3.Evaluator;
+
+/**
+ * Checks that a compilation unit has the shape the transpiler produces, one class implementing {@link Evaluator}
+ * whose methods override <code>Evaluator</code> methods, besides the private static final constants they return, and
+ * resolves the types of those methods and constants.
+ */
+final class EvaluatorDeclaration {
+
+    record EvaluatorMethod(MethodDeclaration declaration, Method overridden, Class<?> returnType, Class<?>[] parameterTypes) { }
+
+    record Constant(String name, Class<?> type, Expression initializer) { }
+
+    private EvaluatorDeclaration() { }
+
+    static List<EvaluatorMethod> methods(CompilationUnit unit, TypeNames typeNames) {
+        List<EvaluatorMethod> methods = new ArrayList<>();
+        for (BodyDeclaration<?> member : evaluatorClass(unit, typeNames).getMembers()) {
+            if (isConstant(member)) {
+                continue;
+            }
+            if (!member.isMethodDeclaration()) {
+                throw new UnsupportedByteCodeException("Unsupported evaluator member " + member.getClass().getSimpleName());
+            }
+            methods.add(method(member.asMethodDeclaration(), typeNames));
+        }
+        return methods;
+    }
+
+    /**
+     * Returns the private static final fields of the evaluator, in declaration order, which is the order they must be
+     * initialized in.
+     */
+    static List<Constant> constants(CompilationUnit unit, TypeNames typeNames) {
+        List<Constant> constants = new ArrayList<>();
+        for (BodyDeclaration<?> member : evaluatorClass(unit, typeNames).getMembers()) {
+            if (isConstant(member)) {
+                VariableDeclarator variable = member.asFieldDeclaration().getVariable(0);
+                Expression initializer = variable.getInitializer()
+                                                 .orElseThrow(() -> new UnsupportedByteCodeException("Constant without initializer " + variable.getNameAsString()));
+                if (initializer.isArrayInitializerExpr()) {
+                    throw new UnsupportedByteCodeException("Unsupported array initializer " + initializer);
+                }
+                constants.add(new Constant(variable.getNameAsString(), typeNames.resolve(variable.getType()), initializer));
+            }
+        }
+        return constants;
+    }
+
+    private static boolean isConstant(BodyDeclaration<?> member) {
+        if (!member.isFieldDeclaration()) {
+            return false;
+        }
+        FieldDeclaration field = member.asFieldDeclaration();
+        return field.getVariables().size() == 1 && field.getAnnotations().isEmpty() &&
+               field.getModifiers().size() == 3 && field.isPrivate() && field.isStatic() && field.isFinal();
+    }
+
+    private static ClassOrInterfaceDeclaration evaluatorClass(CompilationUnit unit, TypeNames typeNames) {
+        List<ClassOrInterfaceDeclaration> classes = unit.findAll(ClassOrInterfaceDeclaration.class);
+        if (classes.size() != 1) {
+            throw new UnsupportedByteCodeException("Expected exactly one evaluator class");
+        }
+        ClassOrInterfaceDeclaration declaration = classes.get(0);
+        if (declaration.isInterface() || !declaration.getExtendedTypes().isEmpty() ||
+            !declaration.getTypeParameters().isEmpty() || declaration.getImplementedTypes().size() != 1) {
+            throw new UnsupportedByteCodeException("Unsupported evaluator class declaration " + declaration.getNameAsString());
+        }
+        if (typeNames.resolve(declaration.getImplementedTypes().get(0)) != Evaluator.class) {
+            throw new UnsupportedByteCodeException("Evaluator class must implement " + Evaluator.class.getName());
+        }
+        return declaration;
+    }
+
+    private static EvaluatorMethod method(MethodDeclaration method, TypeNames typeNames) {
+        String name = method.getNameAsString();
+        if (!method.isPublic() || method.isStatic() || method.getBody().isEmpty() || !method.getTypeParameters().isEmpty() ||
+            method.getModifiers().stream().anyMatch(m -> m.getKeyword() != Modifier.Keyword.PUBLIC)) {
+            throw new UnsupportedByteCodeException("Unsupported evaluator method " + name);
+        }
+        for (AnnotationExpr annotation : method.getAnnotations()) {
+            if (!annotation.getNameAsString().equals("Override")) {
+                throw new UnsupportedByteCodeException("Unsupported annotation " + annotation + " on " + name);
+            }
+        }
+
+        Method overridden = overriddenMethod(name, method.getParameters().size());
+        Class<?> returnType = typeNames.resolve(method.getType());
+        // a primitive is only returned as is, e.g. by isPure(), never boxed into an Object return type
+        if (returnType.isPrimitive() ? returnType != overridden.getReturnType()
+                                     : !overridden.getReturnType().isAssignableFrom(returnType)) {
+            throw new UnsupportedByteCodeException("Unsupported return type " + method.getType() + " of " + name);
+        }
+
+        Class<?>[] parameterTypes = new Class<?>[method.getParameters().size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Parameter parameter = method.getParameter(i);
+            if (parameter.isVarArgs()) {
+                throw new UnsupportedByteCodeException("Unsupported variable arity method " + name);
+            }
+            parameterTypes[i] = typeNames.resolve(parameter.getType());
+            if (parameterTypes[i].isPrimitive()) {
+                throw new UnsupportedByteCodeException("Primitive parameter " + parameter.getNameAsString());
+            }
+        }
+        return new EvaluatorMethod(method, overridden, returnType, parameterTypes);
+    }
+
+    private static Method overriddenMethod(String name, int parameterCount) {
+        for (Method method : Evaluator.class.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == parameterCount) {
+                return method;
+            }
+        }
+        throw new UnsupportedByteCodeException("Method " + name + " does not override an Evaluator method");
+    }
+}
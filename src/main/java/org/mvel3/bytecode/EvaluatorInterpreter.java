@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import org.mvel3.Evaluator;
+import org.mvel3.bytecode.EvaluatorDeclaration.Constant;
+import org.mvel3.bytecode.EvaluatorDeclaration.EvaluatorMethod;
+import org.mvel3.bytecode.MethodBodyInterpreter.InterpretedMethod;
+
+/**
+ * Evaluates a transpiled evaluator by interpreting its rewritten compilation unit, without generating or loading
+ * a class. Building the interpreter costs a walk of the AST, so it is used to serve the first evaluations while the
+ * unit is compiled in the background.
+ * <p>
+ * The same subset as {@link EvaluatorByteCodeGenerator} is supported; anything else raises
+ * {@link UnsupportedByteCodeException}.
+ */
+public class EvaluatorInterpreter {
+
+    private final ClassLoader classLoader;
+
+    public EvaluatorInterpreter(ClassLoader classLoader) {
+        this.classLoader = classLoader != null ? classLoader : EvaluatorInterpreter.class.getClassLoader();
+    }
+
+    /**
+     * Builds an evaluator interpreting the unit. The returned evaluator is thread safe.
+     *
+     * @throws UnsupportedByteCodeException if the unit uses a construct the interpreter does not support
+     */
+    public <C, W, O> Evaluator<C, W, O> interpret(CompilationUnit unit) {
+        TypeNames typeNames = new TypeNames(unit, classLoader);
+        List<Constant> constants = EvaluatorDeclaration.constants(unit, typeNames);
+        List<Object> values = new ArrayList<>();
+        for (Constant constant : constants) {
+            // the static initializer, run once: an initializer may read the constants declared before it
+            MethodBodyInterpreter initializer = new MethodBodyInterpreter(typeNames, constant.type());
+            declareConstants(initializer, constants, values);
+            values.add(initializer.build(new BlockStmt(NodeList.nodeList(new ReturnStmt(constant.initializer().clone()))))
+                                  .invoke());
+        }
+
+        Map<String, InterpretedMethod> methods = new HashMap<>();
+        for (EvaluatorMethod method : EvaluatorDeclaration.methods(unit, typeNames)) {
+            MethodDeclaration declaration = method.declaration();
+            MethodBodyInterpreter body = new MethodBodyInterpreter(typeNames, method.returnType());
+            declareConstants(body, constants, values);
+            for (int i = 0; i < method.parameterTypes().length; i++) {
+                body.declareParameter(declaration.getParameter(i).getNameAsString(), method.parameterTypes()[i]);
+            }
+            methods.put(method.overridden().getName() + "/" + method.parameterTypes().length,
+                        body.build(declaration.getBody().get()));
+        }
+        return new InterpretedEvaluator<>(methods.get("eval/1"), methods.get("eval/2"),
+                                          methods.get("evalWith/1"), methods.get("getReadProperties/0"),
+                                          methods.get("getWriteProperties/0"), methods.get("getReadMask/0"),
+                                          methods.get("getWriteMask/0"), methods.get("isPure/0"),
+                                          methods.get("writesContext/0"), methods.get("callsExternalMethods/0"));
+    }
+
+    private static void declareConstants(MethodBodyInterpreter body, List<Constant> constants, List<Object> values) {
+        for (int i = 0; i < values.size(); i++) {
+            body.declareConstant(constants.get(i).name(), constants.get(i).type(), values.get(i));
+        }
+    }
+
+    private static final class InterpretedEvaluator<C, W, O> implements Evaluator<C, W, O> {
+
+        private final InterpretedMethod eval;
+
+        private final InterpretedMethod evalWithContext;
+
+        private final InterpretedMethod evalWith;
+
+        private final InterpretedMethod readProperties;
+
+        private final InterpretedMethod writeProperties;
+
+        private final InterpretedMethod readMask;
+
+        private final InterpretedMethod writeMask;
+
+        private final InterpretedMethod pure;
+
+        private final InterpretedMethod writesContext;
+
+        private final InterpretedMethod callsExternalMethods;
+
+        private InterpretedEvaluator(InterpretedMethod eval, InterpretedMethod evalWithContext,
+                                     InterpretedMethod evalWith, InterpretedMethod readProperties,
+                                     InterpretedMethod writeProperties, InterpretedMethod readMask,
+                                     InterpretedMethod writeMask, InterpretedMethod pure,
+                                     InterpretedMethod writesContext, InterpretedMethod callsExternalMethods) {
+            this.eval = eval;
+            this.evalWithContext = evalWithContext;
+            this.evalWith = evalWith;
+            this.readProperties = readProperties;
+            this.writeProperties = writeProperties;
+            this.readMask = readMask;
+            this.writeMask = writeMask;
+            this.pure = pure;
+            this.writesContext = writesContext;
+            this.callsExternalMethods = callsExternalMethods;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public O eval(C c) {
+            return eval != null ? (O) eval.invoke(c) : Evaluator.super.eval(c);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public O eval(C c, W w) {
+            return evalWithContext != null ? (O) evalWithContext.invoke(c, w) : Evaluator.super.eval(c, w);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public O evalWith(W w) {
+            return evalWith != null ? (O) evalWith.invoke(w) : Evaluator.super.evalWith(w);
+        }
+
+        @Override
+        public String[] getReadProperties() {
+            return readProperties != null ? (String[]) readProperties.invoke() : Evaluator.super.getReadProperties();
+        }
+
+        @Override
+        public String[] getWriteProperties() {
+            return writeProperties != null ? (String[]) writeProperties.invoke() : Evaluator.super.getWriteProperties();
+        }
+
+        @Override
+        public long[] getReadMask() {
+            return readMask != null ? (long[]) readMask.invoke() : Evaluator.super.getReadMask();
+        }
+
+        @Override
+        public long[] getWriteMask() {
+            return writeMask != null ? (long[]) writeMask.invoke() : Evaluator.super.getWriteMask();
+        }
+
+        @Override
+        public boolean isPure() {
+            return pure != null ? (Boolean) pure.invoke() : Evaluator.super.isPure();
+        }
+
+        @Override
+        public boolean writesContext() {
+            return writesContext != null ? (Boolean) writesContext.invoke() : Evaluator.super.writesContext();
+        }
+
+        @Override
+        public boolean callsExternalMethods() {
+            return callsExternalMethods != null ? (Boolean) callsExternalMethods.invoke() : Evaluator.super.callsExternalMethods();
+        }
+    }
+}
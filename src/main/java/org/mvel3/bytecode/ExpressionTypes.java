@@ -0,0 +1,756 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.ArrayCreationExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+import static org.mvel3.bytecode.Conversions.NULL;
+
+/**
+ * The static typing of the rewritten method bodies, shared by {@link MethodBodyGenerator} and
+ * {@link MethodBodyInterpreter}.
+ * <p>
+ * Expressions are typed with plain (erased) <code>Class</code> types, members are looked up through reflection. A
+ * value read through a generic type variable keeps its erased type, unless it is assigned to a narrower type: the
+ * symbol resolver then provides the generic type, recorded as the refined type of the expression. Every construct
+ * outside the supported subset, or whose meaning could depend on generic type information, raises
+ * {@link UnsupportedByteCodeException}.
+ * <p>
+ * Local variables are scoped as the statements are visited, so an expression must be typed while the locals it
+ * refers to are in scope; types are cached per expression node.
+ */
+final class ExpressionTypes {
+
+    record Local(int slot, Class<?> type, boolean erased) { }
+
+    private final TypeNames typeNames;
+
+    private final Deque<Map<String, Local>> scopes = new ArrayDeque<>();
+
+    private int nextSlot;
+
+    // the static final fields of the evaluator, read by name
+    private final Map<String, Class<?>> constants = new HashMap<>();
+
+    private final Map<Expression, Class<?>> types = new IdentityHashMap<>();
+
+    private final Map<Expression, Method> methods = new IdentityHashMap<>();
+
+    private final Map<Expression, Constructor<?>> constructors = new IdentityHashMap<>();
+
+    private final Map<Expression, Field> fields = new IdentityHashMap<>();
+
+    // expressions whose erased type is wider than their source type, because it comes from a type variable
+    private final Set<Expression> erased = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // the resolved types of erased expressions that had to be narrowed
+    private final Map<Expression, Class<?>> refined = new IdentityHashMap<>();
+
+    ExpressionTypes(TypeNames typeNames, int firstSlot) {
+        this.typeNames = typeNames;
+        this.nextSlot = firstSlot;
+        this.scopes.push(new HashMap<>());
+    }
+
+    TypeNames typeNames() {
+        return typeNames;
+    }
+
+    Method method(MethodCallExpr call) {
+        return methods.get(call);
+    }
+
+    Constructor<?> constructor(ObjectCreationExpr creation) {
+        return constructors.get(creation);
+    }
+
+    /**
+     * Returns the field read or written by the access, or null for the length of an array.
+     */
+    Field field(FieldAccessExpr access) {
+        return fields.get(access);
+    }
+
+    /**
+     * Returns the type an erased value must be checkcast to before its conversion, or null.
+     */
+    Class<?> refined(Expression expression) {
+        return refined.get(expression);
+    }
+
+    /**
+     * Returns the type of a declared local variable, inferring it from the initializer for <code>var</code>. The
+     * variable is not in scope yet, see {@link #declare(String, Class, boolean)}.
+     */
+    Class<?> variableType(VariableDeclarator variable) {
+        Expression initializer = variable.getInitializer().orElse(null);
+        if (initializer != null && initializer.isArrayInitializerExpr()) {
+            throw new UnsupportedByteCodeException("Unsupported array initializer " + initializer);
+        }
+
+        Class<?> type;
+        if (variable.getType().isVarType()) {
+            if (initializer == null) {
+                throw new UnsupportedByteCodeException("var without initializer");
+            }
+            type = typeOf(initializer);
+            if (type == NULL || type == void.class) {
+                throw new UnsupportedByteCodeException("Unable to infer the type of " + variable);
+            }
+        } else {
+            type = typeNames.resolve(variable.getType());
+        }
+        if (initializer != null) {
+            requireAssignable(initializer, type, "initializer of " + variable.getNameAsString());
+        }
+        return type;
+    }
+
+    boolean isErased(Expression expression) {
+        return erased.contains(expression);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // locals
+    // ---------------------------------------------------------------------------------------------------------
+
+    void pushScope() {
+        scopes.push(new HashMap<>());
+    }
+
+    void popScope() {
+        scopes.pop();
+    }
+
+    Local declare(String name, Class<?> type, boolean isErased) {
+        if (local(name) != null) {
+            throw new UnsupportedByteCodeException("Duplicate local variable " + name);
+        }
+        Local local = new Local(nextSlot, type, isErased);
+        nextSlot += type == long.class || type == double.class ? 2 : 1;
+        scopes.peek().put(name, local);
+        return local;
+    }
+
+    void declareConstant(String name, Class<?> type) {
+        constants.put(name, type);
+    }
+
+    /**
+     * Returns the type of a constant that is not shadowed by a local, or null.
+     */
+    Class<?> constant(String name) {
+        return local(name) == null ? constants.get(name) : null;
+    }
+
+    Local local(String name) {
+        for (Map<String, Local> scope : scopes) {
+            Local local = scope.get(name);
+            if (local != null) {
+                return local;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of local slots used so far.
+     */
+    int slots() {
+        return nextSlot;
+    }
+
+    /**
+     * Checks that a class referenced by the evaluator is accessible from any package.
+     */
+    static void requireAccessible(Class<?> type) {
+        Class<?> element = type;
+        while (element.isArray()) {
+            element = element.getComponentType();
+        }
+        if (element.isPrimitive()) {
+            return;
+        }
+        if (!element.getModule().isExported(element.getPackageName())) {
+            throw new UnsupportedByteCodeException("Class " + element.getName() + " is not exported");
+        }
+        for (Class<?> c = element; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                throw new UnsupportedByteCodeException("Class " + element.getName() + " is not public");
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // typing
+    // ---------------------------------------------------------------------------------------------------------
+
+    Class<?> typeOf(Expression expression) {
+        Class<?> type = types.get(expression);
+        if (type == null) {
+            type = computeType(expression);
+            types.put(expression, type);
+        }
+        return type;
+    }
+
+    private Class<?> computeType(Expression expression) {
+        if (expression.isEnclosedExpr()) {
+            Expression inner = expression.asEnclosedExpr().getInner();
+            Class<?> type = typeOf(inner);
+            if (erased.contains(inner)) {
+                erased.add(expression);
+            }
+            return type;
+        }
+        if (expression.isIntegerLiteralExpr()) {
+            if (!(expression.asIntegerLiteralExpr().asNumber() instanceof Integer)) {
+                throw new UnsupportedByteCodeException("Unsupported int literal " + expression);
+            }
+            return int.class;
+        }
+        if (expression.isLongLiteralExpr()) {
+            if (!(expression.asLongLiteralExpr().asNumber() instanceof Long)) {
+                throw new UnsupportedByteCodeException("Unsupported long literal " + expression);
+            }
+            return long.class;
+        }
+        if (expression.isDoubleLiteralExpr()) {
+            return isFloatLiteral(expression) ? float.class : double.class;
+        }
+        if (expression.isCharLiteralExpr()) {
+            return char.class;
+        }
+        if (expression.isBooleanLiteralExpr()) {
+            return boolean.class;
+        }
+        if (expression.isStringLiteralExpr()) {
+            return String.class;
+        }
+        if (expression.isNullLiteralExpr()) {
+            return NULL;
+        }
+        if (expression.isClassExpr()) {
+            typeNames.resolve(expression.asClassExpr().getType());
+            return Class.class;
+        }
+        if (expression.isNameExpr()) {
+            Local local = local(expression.asNameExpr().getNameAsString());
+            if (local == null) {
+                Class<?> constant = constants.get(expression.asNameExpr().getNameAsString());
+                if (constant == null) {
+                    throw new UnsupportedByteCodeException("Unsupported name " + expression);
+                }
+                return constant;
+            }
+            if (local.erased()) {
+                erased.add(expression);
+            }
+            return local.type();
+        }
+        if (expression.isCastExpr()) {
+            Class<?> target = typeNames.resolve(expression.asCastExpr().getType());
+            Class<?> source = typeOf(expression.asCastExpr().getExpression());
+            if (!Conversions.isCastable(source, target)) {
+                throw new UnsupportedByteCodeException("Unsupported cast " + expression);
+            }
+            return target;
+        }
+        if (expression.isUnaryExpr()) {
+            return unaryType(expression.asUnaryExpr());
+        }
+        if (expression.isBinaryExpr()) {
+            BinaryExpr binary = expression.asBinaryExpr();
+            return binaryType(binary.getOperator(), typeOf(binary.getLeft()), typeOf(binary.getRight()));
+        }
+        if (expression.isConditionalExpr()) {
+            return conditionalType(expression.asConditionalExpr());
+        }
+        if (expression.isMethodCallExpr()) {
+            return methodCallType(expression.asMethodCallExpr());
+        }
+        if (expression.isFieldAccessExpr()) {
+            return fieldAccessType(expression.asFieldAccessExpr());
+        }
+        if (expression.isObjectCreationExpr()) {
+            return objectCreationType(expression.asObjectCreationExpr());
+        }
+        if (expression.isAssignExpr()) {
+            return assignType(expression.asAssignExpr());
+        }
+        if (expression.isArrayAccessExpr()) {
+            ArrayAccessExpr access = expression.asArrayAccessExpr();
+            Class<?> array = typeOf(access.getName());
+            if (!array.isArray()) {
+                throw new UnsupportedByteCodeException("Unsupported array access " + expression);
+            }
+            requireIndex(access.getIndex());
+            return array.getComponentType();
+        }
+        if (expression.isArrayCreationExpr()) {
+            return arrayCreationType(expression.asArrayCreationExpr());
+        }
+        if (expression.isInstanceOfExpr()) {
+            if (expression.asInstanceOfExpr().getPattern().isPresent()) {
+                throw new UnsupportedByteCodeException("Unsupported pattern matching " + expression);
+            }
+            Class<?> source = typeOf(expression.asInstanceOfExpr().getExpression());
+            Class<?> target = typeNames.resolve(expression.asInstanceOfExpr().getType());
+            if (source.isPrimitive() || target.isPrimitive()) {
+                throw new UnsupportedByteCodeException("Unsupported instanceof " + expression);
+            }
+            return boolean.class;
+        }
+        throw new UnsupportedByteCodeException("Unsupported expression " + expression.getClass().getSimpleName() + ": " + expression);
+    }
+
+    private Class<?> unaryType(UnaryExpr unary) {
+        Class<?> operand = typeOf(unary.getExpression());
+        switch (unary.getOperator()) {
+            case LOGICAL_COMPLEMENT:
+                requireBoolean(unary.getExpression());
+                return boolean.class;
+            case PLUS:
+            case MINUS:
+                return Conversions.unaryPromotion(numeric(operand));
+            case BITWISE_COMPLEMENT:
+                return Conversions.unaryPromotion(integral(operand));
+            default:
+                Local local = incrementedLocal(unary);
+                if (local.type() != int.class && local.type() != long.class &&
+                    local.type() != float.class && local.type() != double.class) {
+                    throw new UnsupportedByteCodeException("Unsupported increment " + unary);
+                }
+                return local.type();
+        }
+    }
+
+    static Class<?> binaryType(BinaryExpr.Operator operator, Class<?> left, Class<?> right) {
+        switch (operator) {
+            case OR:
+            case AND:
+                if (Conversions.unboxed(left) != boolean.class || Conversions.unboxed(right) != boolean.class) {
+                    throw new UnsupportedByteCodeException("Operator " + operator + " requires boolean operands");
+                }
+                return boolean.class;
+            case PLUS:
+                if (left == String.class || right == String.class) {
+                    if (left == void.class || right == void.class) {
+                        throw new UnsupportedByteCodeException("void operand of a string concatenation");
+                    }
+                    return String.class;
+                }
+                return Conversions.binaryPromotion(numeric(left), numeric(right));
+            case MINUS:
+            case MULTIPLY:
+            case DIVIDE:
+            case REMAINDER:
+                return Conversions.binaryPromotion(numeric(left), numeric(right));
+            case BINARY_AND:
+            case BINARY_OR:
+            case XOR:
+                if (Conversions.unboxed(left) == boolean.class && Conversions.unboxed(right) == boolean.class) {
+                    return boolean.class;
+                }
+                return Conversions.binaryPromotion(integral(left), integral(right));
+            case LEFT_SHIFT:
+            case SIGNED_RIGHT_SHIFT:
+            case UNSIGNED_RIGHT_SHIFT:
+                integral(right);
+                return Conversions.unaryPromotion(integral(left));
+            case LESS:
+            case GREATER:
+            case LESS_EQUALS:
+            case GREATER_EQUALS:
+                numeric(left);
+                numeric(right);
+                return boolean.class;
+            case EQUALS:
+            case NOT_EQUALS:
+                equalityType(left, right);
+                return boolean.class;
+            default:
+                throw new UnsupportedByteCodeException("Unsupported operator " + operator);
+        }
+    }
+
+    /**
+     * Returns the type both operands of == and != are compared as: a primitive type, or Object for references.
+     */
+    static Class<?> equalityType(Class<?> left, Class<?> right) {
+        if (left.isPrimitive() || right.isPrimitive()) {
+            Class<?> unboxedLeft = Conversions.unboxed(left);
+            Class<?> unboxedRight = Conversions.unboxed(right);
+            if (unboxedLeft == boolean.class && unboxedRight == boolean.class) {
+                return boolean.class;
+            }
+            if (Conversions.isNumeric(unboxedLeft) && Conversions.isNumeric(unboxedRight)) {
+                return Conversions.binaryPromotion(unboxedLeft, unboxedRight);
+            }
+            throw new UnsupportedByteCodeException("Incomparable types " + left.getName() + " and " + right.getName());
+        }
+        return Object.class;
+    }
+
+    private Class<?> conditionalType(ConditionalExpr conditional) {
+        requireBoolean(conditional.getCondition());
+        Class<?> thenType = typeOf(conditional.getThenExpr());
+        Class<?> elseType = typeOf(conditional.getElseExpr());
+        if (erased.contains(conditional.getThenExpr()) || erased.contains(conditional.getElseExpr())) {
+            erased.add(conditional);
+        }
+        if (thenType == void.class || elseType == void.class) {
+            throw new UnsupportedByteCodeException("void operand of " + conditional);
+        }
+        if (thenType == elseType) {
+            return thenType == NULL ? Object.class : thenType;
+        }
+        if (thenType == NULL) {
+            return elseType.isPrimitive() ? Conversions.box(elseType) : elseType;
+        }
+        if (elseType == NULL) {
+            return thenType.isPrimitive() ? Conversions.box(thenType) : thenType;
+        }
+        if (thenType.isPrimitive() || elseType.isPrimitive()) {
+            Class<?> unboxedThen = Conversions.unboxed(thenType);
+            Class<?> unboxedElse = Conversions.unboxed(elseType);
+            if (unboxedThen != null && unboxedThen == unboxedElse) {
+                return unboxedThen;
+            }
+            // byte, short and char operands follow constant dependent rules, leave them to javac
+            if (isIntOrWider(unboxedThen) && isIntOrWider(unboxedElse)) {
+                return Conversions.binaryPromotion(unboxedThen, unboxedElse);
+            }
+            throw new UnsupportedByteCodeException("Unsupported conditional operand types " + conditional);
+        }
+        if (thenType.isAssignableFrom(elseType)) {
+            return thenType;
+        }
+        if (elseType.isAssignableFrom(thenType)) {
+            return elseType;
+        }
+        throw new UnsupportedByteCodeException("Unsupported conditional operand types " + conditional);
+    }
+
+    private Class<?> methodCallType(MethodCallExpr call) {
+        Expression scope = call.getScope()
+                               .orElseThrow(() -> new UnsupportedByteCodeException("Unsupported unqualified call " + call));
+        Class<?> owner = typeName(scope);
+        boolean isStatic = owner != null;
+        if (!isStatic) {
+            owner = typeOf(scope);
+            if (owner.isPrimitive() || owner.isArray() || owner == NULL) {
+                throw new UnsupportedByteCodeException("Unsupported method receiver " + scope);
+            }
+        }
+
+        List<Class<?>> argumentTypes = argumentTypes(call.getArguments());
+        Method method = Members.findMethod(owner, call.getNameAsString(), argumentTypes, isStatic);
+        if (method == null) {
+            throw new UnsupportedByteCodeException("Unable to resolve method " + call);
+        }
+        if (hasErasedArgument(call.getArguments()) &&
+            Members.isOverloaded(owner, call.getNameAsString(), argumentTypes.size(), isStatic)) {
+            throw new UnsupportedByteCodeException("Overload resolution depends on generic types " + call);
+        }
+        methods.put(call, method);
+        if (isTypeVariable(method.getGenericReturnType())) {
+            erased.add(call);
+        }
+        return method.getReturnType();
+    }
+
+    private Class<?> fieldAccessType(FieldAccessExpr access) {
+        Class<?> owner = typeName(access.getScope());
+        String name = access.getNameAsString();
+        Field field;
+        if (owner != null) {
+            field = Members.findField(owner, name, true);
+        } else {
+            owner = typeOf(access.getScope());
+            if (owner.isArray() && name.equals("length")) {
+                return int.class;
+            }
+            field = owner.isPrimitive() || owner == NULL ? null : Members.findField(owner, name, false);
+        }
+        if (field == null) {
+            throw new UnsupportedByteCodeException("Unable to resolve field " + access);
+        }
+        fields.put(access, field);
+        if (isTypeVariable(field.getGenericType())) {
+            erased.add(access);
+        }
+        return field.getType();
+    }
+
+    private Class<?> objectCreationType(ObjectCreationExpr creation) {
+        if (creation.getAnonymousClassBody().isPresent() || creation.getScope().isPresent()) {
+            throw new UnsupportedByteCodeException("Unsupported object creation " + creation);
+        }
+        Class<?> type = typeNames.resolve(creation.getType());
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) ||
+            (type.getEnclosingClass() != null && !Modifier.isStatic(type.getModifiers()))) {
+            throw new UnsupportedByteCodeException("Unsupported object creation " + creation);
+        }
+        List<Class<?>> argumentTypes = argumentTypes(creation.getArguments());
+        Constructor<?> constructor = Members.findConstructor(type, argumentTypes);
+        if (constructor == null) {
+            throw new UnsupportedByteCodeException("Unable to resolve constructor " + creation);
+        }
+        if (hasErasedArgument(creation.getArguments()) && Members.isOverloaded(constructor)) {
+            throw new UnsupportedByteCodeException("Overload resolution depends on generic types " + creation);
+        }
+        constructors.put(creation, constructor);
+        return type;
+    }
+
+    private Class<?> assignType(AssignExpr assign) {
+        Expression target = assign.getTarget();
+        Class<?> targetType;
+        if (target.isNameExpr()) {
+            Local local = local(target.asNameExpr().getNameAsString());
+            if (local == null) {
+                throw new UnsupportedByteCodeException("Unsupported assignment target " + target);
+            }
+            targetType = local.type();
+        } else if (target.isFieldAccessExpr() && assign.getOperator() == AssignExpr.Operator.ASSIGN) {
+            targetType = typeOf(target);
+            Field field = fields.get(target);
+            if (field == null || Modifier.isFinal(field.getModifiers())) {
+                throw new UnsupportedByteCodeException("Unsupported assignment target " + target);
+            }
+        } else {
+            throw new UnsupportedByteCodeException("Unsupported assignment " + assign);
+        }
+
+        Class<?> valueType = typeOf(assign.getValue());
+        if (assign.getOperator() == AssignExpr.Operator.ASSIGN) {
+            requireAssignable(assign.getValue(), targetType, "assignment " + assign);
+        } else {
+            Class<?> resultType = binaryType(compoundOperator(assign), targetType, valueType);
+            if (!Conversions.isCastable(resultType, targetType)) {
+                throw new UnsupportedByteCodeException("Unsupported compound assignment " + assign);
+            }
+        }
+        return targetType;
+    }
+
+    private Class<?> arrayCreationType(ArrayCreationExpr creation) {
+        if (creation.getLevels().size() != 1) {
+            throw new UnsupportedByteCodeException("Unsupported multi-dimensional array " + creation);
+        }
+        Class<?> elementType = typeNames.resolve(creation.getElementType());
+        if (creation.getInitializer().isPresent()) {
+            if (creation.getLevels().get(0).getDimension().isPresent()) {
+                throw new UnsupportedByteCodeException("Unsupported array creation " + creation);
+            }
+            for (Expression value : creation.getInitializer().get().getValues()) {
+                if (value.isArrayInitializerExpr()) {
+                    throw new UnsupportedByteCodeException("Unsupported nested array initializer " + creation);
+                }
+                requireAssignable(value, elementType, "array element " + value);
+            }
+        } else {
+            Expression dimension = creation.getLevels().get(0).getDimension()
+                                           .orElseThrow(() -> new UnsupportedByteCodeException("Unsupported array creation " + creation));
+            requireIndex(dimension);
+        }
+        return elementType.arrayType();
+    }
+
+    private List<Class<?>> argumentTypes(NodeList<Expression> arguments) {
+        List<Class<?>> argumentTypes = new ArrayList<>(arguments.size());
+        for (Expression argument : arguments) {
+            Class<?> type = typeOf(argument);
+            if (type == void.class) {
+                throw new UnsupportedByteCodeException("void argument " + argument);
+            }
+            argumentTypes.add(type);
+        }
+        return argumentTypes;
+    }
+
+    private boolean hasErasedArgument(NodeList<Expression> arguments) {
+        for (Expression argument : arguments) {
+            if (erased.contains(argument)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the class named by a method or field scope, or null when the scope is an expression.
+     */
+    Class<?> typeName(Expression scope) {
+        String name = qualifiedName(scope);
+        if (name == null) {
+            return null;
+        }
+        int firstDot = name.indexOf('.');
+        if (local(firstDot < 0 ? name : name.substring(0, firstDot)) != null) {
+            return null;
+        }
+        return typeNames.find(name).orElse(null);
+    }
+
+    private static String qualifiedName(Expression expression) {
+        if (expression.isNameExpr()) {
+            return expression.asNameExpr().getNameAsString();
+        }
+        if (expression.isFieldAccessExpr() && expression.asFieldAccessExpr().getTypeArguments().isEmpty()) {
+            String scope = qualifiedName(expression.asFieldAccessExpr().getScope());
+            return scope == null ? null : scope + "." + expression.asFieldAccessExpr().getNameAsString();
+        }
+        return null;
+    }
+
+    void requireAssignable(Expression value, Class<?> targetType, String context) {
+        Class<?> valueType = typeOf(value);
+        if (Conversions.isAssignable(valueType, targetType)) {
+            return;
+        }
+        // a value typed by a type variable may be narrower than its erasure, ask the symbol resolver
+        if (erased.contains(value)) {
+            Class<?> refinedType = refinedType(value);
+            if (refinedType != null && Conversions.isAssignable(refinedType, targetType)) {
+                refined.put(value, refinedType);
+                return;
+            }
+        }
+        throw new UnsupportedByteCodeException("Unsupported conversion from " + valueType.getName() + " to " +
+                                               targetType.getName() + " in " + context);
+    }
+
+    /**
+     * Returns the erasure of the generic type the symbol resolver computes for the expression, or null when the
+     * unit has no symbol resolver or the type cannot be resolved.
+     */
+    private Class<?> refinedType(Expression expression) {
+        try {
+            return erasure(expression.calculateResolvedType());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Class<?> erasure(ResolvedType type) {
+        if (type.isReferenceType()) {
+            return typeNames.find(type.asReferenceType().getQualifiedName()).orElse(null);
+        }
+        if (type.isArray()) {
+            Class<?> componentType = erasure(type.asArrayType().getComponentType());
+            return componentType == null ? null : componentType.arrayType();
+        }
+        if (type.isWildcard() && type.asWildcard().isExtends()) {
+            return erasure(type.asWildcard().getBoundedType());
+        }
+        return null;
+    }
+
+    void requireBoolean(Expression condition) {
+        if (Conversions.unboxed(typeOf(condition)) != boolean.class) {
+            throw new UnsupportedByteCodeException("Expected a boolean condition " + condition);
+        }
+    }
+
+    void requireIndex(Expression index) {
+        if (Conversions.unaryPromotion(numeric(typeOf(index))) != int.class) {
+            throw new UnsupportedByteCodeException("Expected an int index " + index);
+        }
+    }
+
+    static Class<?> numeric(Class<?> type) {
+        Class<?> primitive = Conversions.unboxed(type);
+        if (!Conversions.isNumeric(primitive)) {
+            throw new UnsupportedByteCodeException("Expected a numeric type, found " + type.getName());
+        }
+        return primitive;
+    }
+
+    static Class<?> integral(Class<?> type) {
+        Class<?> primitive = Conversions.unboxed(type);
+        if (!Conversions.isIntegral(primitive)) {
+            throw new UnsupportedByteCodeException("Expected an integral type, found " + type.getName());
+        }
+        return primitive;
+    }
+
+    private static boolean isIntOrWider(Class<?> primitive) {
+        return primitive == int.class || primitive == long.class || primitive == float.class || primitive == double.class;
+    }
+
+    private static boolean isTypeVariable(java.lang.reflect.Type genericType) {
+        return genericType instanceof TypeVariable || genericType instanceof GenericArrayType;
+    }
+
+    private static boolean isFloatLiteral(Expression literal) {
+        String value = literal.asDoubleLiteralExpr().getValue();
+        return value.endsWith("f") || value.endsWith("F");
+    }
+
+    static BinaryExpr.Operator compoundOperator(AssignExpr assign) {
+        return assign.getOperator().toBinaryOperator()
+                     .orElseThrow(() -> new UnsupportedByteCodeException("Unsupported assignment " + assign));
+    }
+
+    static boolean isIncrement(Expression expression) {
+        if (!expression.isUnaryExpr()) {
+            return false;
+        }
+        UnaryExpr.Operator operator = expression.asUnaryExpr().getOperator();
+        return operator == UnaryExpr.Operator.PREFIX_INCREMENT || operator == UnaryExpr.Operator.PREFIX_DECREMENT ||
+               operator == UnaryExpr.Operator.POSTFIX_INCREMENT || operator == UnaryExpr.Operator.POSTFIX_DECREMENT;
+    }
+
+    Local incrementedLocal(UnaryExpr unary) {
+        Expression operand = unary.getExpression();
+        Local local = operand.isNameExpr() ? local(operand.asNameExpr().getNameAsString()) : null;
+        if (local == null) {
+            throw new UnsupportedByteCodeException("Unsupported increment " + unary);
+        }
+        return local;
+    }
+}
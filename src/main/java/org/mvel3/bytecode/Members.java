@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reflection based member lookup, following the JLS overload resolution phases that matter for erased types:
+ * subtyping first, then boxing and unboxing. Variable arity invocations and ambiguous calls are not resolved.
+ */
+final class Members {
+
+    private Members() { }
+
+    static Method findMethod(Class<?> owner, String name, List<Class<?>> argumentTypes, boolean isStatic) {
+        return mostSpecific(applicable(methods(owner, name, argumentTypes.size(), isStatic), argumentTypes));
+    }
+
+    static boolean isOverloaded(Class<?> owner, String name, int arity, boolean isStatic) {
+        return methods(owner, name, arity, isStatic).size() > 1;
+    }
+
+    static Constructor<?> findConstructor(Class<?> owner, List<Class<?>> argumentTypes) {
+        List<Constructor<?>> constructors = new ArrayList<>();
+        for (Constructor<?> constructor : owner.getConstructors()) {
+            if (constructor.getParameterCount() == argumentTypes.size() && !constructor.isSynthetic()) {
+                constructors.add(constructor);
+            }
+        }
+        return mostSpecific(applicable(constructors, argumentTypes));
+    }
+
+    static boolean isOverloaded(Constructor<?> constructor) {
+        int count = 0;
+        for (Constructor<?> candidate : constructor.getDeclaringClass().getConstructors()) {
+            if (candidate.getParameterCount() == constructor.getParameterCount()) {
+                count++;
+            }
+        }
+        return count > 1;
+    }
+
+    static Field findField(Class<?> owner, String name, boolean isStatic) {
+        try {
+            Field field = owner.getField(name);
+            return Modifier.isStatic(field.getModifiers()) == isStatic ? field : null;
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    private static List<Method> methods(Class<?> owner, String name, int arity, boolean isStatic) {
+        List<Method> declared = new ArrayList<>(Arrays.asList(owner.getMethods()));
+        if (owner.isInterface()) {
+            // interfaces do not list the public methods of Object, which every implementation inherits
+            declared.addAll(Arrays.asList(Object.class.getMethods()));
+        }
+
+        // the same signature can be inherited from several supertypes, keep the most specific return type
+        Map<List<Class<?>>, Method> bySignature = new LinkedHashMap<>();
+        for (Method method : declared) {
+            if (!method.getName().equals(name) || method.getParameterCount() != arity ||
+                Modifier.isStatic(method.getModifiers()) != isStatic || method.isBridge() || method.isSynthetic()) {
+                continue;
+            }
+            List<Class<?>> signature = Arrays.asList(method.getParameterTypes());
+            Method existing = bySignature.get(signature);
+            if (existing == null || (existing.getReturnType() != method.getReturnType() &&
+                                     existing.getReturnType().isAssignableFrom(method.getReturnType()))) {
+                bySignature.put(signature, method);
+            }
+        }
+        return new ArrayList<>(bySignature.values());
+    }
+
+    private static <T extends Executable> List<T> applicable(List<T> candidates, List<Class<?>> argumentTypes) {
+        List<T> strict = new ArrayList<>();
+        List<T> loose = new ArrayList<>();
+        for (T candidate : candidates) {
+            Class<?>[] parameterTypes = candidate.getParameterTypes();
+            boolean isStrict = true;
+            boolean isLoose = true;
+            for (int i = 0; i < parameterTypes.length && isLoose; i++) {
+                isStrict &= Conversions.isStrictlyAssignable(argumentTypes.get(i), parameterTypes[i]);
+                isLoose = Conversions.isAssignable(argumentTypes.get(i), parameterTypes[i]);
+            }
+            if (isStrict) {
+                strict.add(candidate);
+            } else if (isLoose) {
+                loose.add(candidate);
+            }
+        }
+        return strict.isEmpty() ? loose : strict;
+    }
+
+    private static <T extends Executable> T mostSpecific(List<T> applicable) {
+        T best = null;
+        for (T candidate : applicable) {
+            boolean isMostSpecific = true;
+            for (T other : applicable) {
+                if (other != candidate && !isMoreSpecific(candidate, other)) {
+                    isMostSpecific = false;
+                    break;
+                }
+            }
+            if (isMostSpecific) {
+                if (best != null) {
+                    return null; // ambiguous
+                }
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isMoreSpecific(Executable candidate, Executable other) {
+        Class<?>[] candidateTypes = candidate.getParameterTypes();
+        Class<?>[] otherTypes = other.getParameterTypes();
+        for (int i = 0; i < candidateTypes.length; i++) {
+            if (!Conversions.isStrictlyAssignable(candidateTypes[i], otherTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,785 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.ArrayCreationExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import static org.mvel3.bytecode.Conversions.NULL;
+
+/**
+ * Emits the bytecode of one method body from the rewritten JavaParser AST, typed by {@link ExpressionTypes}.
+ * Values narrowed from a type variable are checkcast to their refined type, as javac does.
+ */
+final class MethodBodyGenerator {
+
+    // order matches IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE; index ^ 1 negates the comparison
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int LT = 2;
+    private static final int GE = 3;
+    private static final int GT = 4;
+    private static final int LE = 5;
+
+    private final MethodVisitor mv;
+
+    private final Class<?> returnType;
+
+    private final ExpressionTypes types;
+
+    private String constantOwner;
+
+    MethodBodyGenerator(MethodVisitor mv, TypeNames typeNames, Class<?> returnType) {
+        this.mv = mv;
+        this.returnType = returnType;
+        this.types = new ExpressionTypes(typeNames, 1);
+    }
+
+    /**
+     * Declares the next method parameter, checkcasting it when the bridged signature erases it to a wider type.
+     */
+    void declareParameter(String name, Class<?> type, Class<?> erasedType) {
+        ExpressionTypes.Local local = types.declare(name, type, false);
+        if (!type.isAssignableFrom(erasedType)) {
+            mv.visitVarInsn(Opcodes.ALOAD, local.slot());
+            mv.visitTypeInsn(Opcodes.CHECKCAST, internalName(type));
+            mv.visitVarInsn(Opcodes.ASTORE, local.slot());
+        }
+    }
+
+    /**
+     * Declares a static final field of the evaluator class, which the body reads with <code>GETSTATIC</code>.
+     */
+    void declareConstant(String owner, String name, Class<?> type) {
+        types.declareConstant(name, type);
+        constantOwner = owner;
+    }
+
+    /**
+     * Emits the initialization of a declared constant, from the static initializer.
+     */
+    void initializeConstant(String name, Expression initializer) {
+        Class<?> type = types.constant(name);
+        emitAs(initializer, type, "initializer of " + name);
+        mv.visitFieldInsn(Opcodes.PUTSTATIC, constantOwner, name, Type.getDescriptor(type));
+    }
+
+    void generate(BlockStmt body) {
+        if (statement(body)) {
+            throw new UnsupportedByteCodeException("Method body can complete without returning a value");
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // statements
+    // ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Emits the statement and returns whether it can complete normally.
+     */
+    private boolean statement(Statement statement) {
+        if (statement.isBlockStmt()) {
+            types.pushScope();
+            boolean completesNormally = true;
+            for (Statement child : statement.asBlockStmt().getStatements()) {
+                if (!completesNormally) {
+                    throw new UnsupportedByteCodeException("Unreachable statement " + child);
+                }
+                completesNormally = statement(child);
+            }
+            types.popScope();
+            return completesNormally;
+        }
+        if (statement.isExpressionStmt()) {
+            Expression expression = statement.asExpressionStmt().getExpression();
+            if (expression.isVariableDeclarationExpr()) {
+                declareVariables(expression.asVariableDeclarationExpr());
+            } else {
+                emitEffect(expression);
+            }
+            return true;
+        }
+        if (statement.isReturnStmt()) {
+            returnStatement(statement.asReturnStmt());
+            return false;
+        }
+        if (statement.isIfStmt()) {
+            return ifStatement(statement.asIfStmt());
+        }
+        if (statement.isEmptyStmt()) {
+            return true;
+        }
+        throw new UnsupportedByteCodeException("Unsupported statement " + statement.getClass().getSimpleName());
+    }
+
+    private void declareVariables(VariableDeclarationExpr declaration) {
+        for (VariableDeclarator variable : declaration.getVariables()) {
+            Class<?> type = types.variableType(variable);
+            Expression initializer = variable.getInitializer().orElse(null);
+            if (initializer != null) {
+                emitAs(initializer, type, "initializer of " + variable.getNameAsString());
+            }
+            boolean isErased = variable.getType().isVarType() && types.isErased(initializer);
+            ExpressionTypes.Local local = types.declare(variable.getNameAsString(), type, isErased);
+            if (initializer != null) {
+                mv.visitVarInsn(Type.getType(type).getOpcode(Opcodes.ISTORE), local.slot());
+            }
+        }
+    }
+
+    private void returnStatement(ReturnStmt returnStmt) {
+        Expression expression = returnStmt.getExpression()
+                                          .orElseThrow(() -> new UnsupportedByteCodeException("Return without a value"));
+        emitAs(expression, returnType, "return value");
+        mv.visitInsn(Type.getType(returnType).getOpcode(Opcodes.IRETURN));
+    }
+
+    private boolean ifStatement(IfStmt ifStmt) {
+        types.requireBoolean(ifStmt.getCondition());
+        Label elseLabel = new Label();
+        branch(ifStmt.getCondition(), elseLabel, false);
+        boolean thenCompletesNormally = statement(ifStmt.getThenStmt());
+        if (ifStmt.getElseStmt().isEmpty()) {
+            mv.visitLabel(elseLabel);
+            return true;
+        }
+        Label end = new Label();
+        if (thenCompletesNormally) {
+            mv.visitJumpInsn(Opcodes.GOTO, end);
+        }
+        mv.visitLabel(elseLabel);
+        boolean elseCompletesNormally = statement(ifStmt.getElseStmt().get());
+        mv.visitLabel(end);
+        return thenCompletesNormally || elseCompletesNormally;
+    }
+
+    /**
+     * Emits an expression statement, leaving nothing on the stack.
+     */
+    private void emitEffect(Expression expression) {
+        if (expression.isAssignExpr()) {
+            emitAssign(expression.asAssignExpr(), false);
+        } else if (ExpressionTypes.isIncrement(expression)) {
+            emitIncrement(expression.asUnaryExpr(), false);
+        } else {
+            emit(expression);
+            Class<?> type = types.typeOf(expression);
+            if (type != void.class) {
+                mv.visitInsn(type == long.class || type == double.class ? Opcodes.POP2 : Opcodes.POP);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // expressions
+    // ---------------------------------------------------------------------------------------------------------
+
+    private void emitAs(Expression expression, Class<?> targetType, String context) {
+        types.requireAssignable(expression, targetType, context);
+        emit(expression);
+        Class<?> type = types.typeOf(expression);
+        Class<?> refinedType = types.refined(expression);
+        if (refinedType != null) {
+            // the checkcast javac inserts for values read through a type variable
+            mv.visitTypeInsn(Opcodes.CHECKCAST, internalName(refinedType));
+            type = refinedType;
+        }
+        Conversions.convert(mv, type, targetType);
+    }
+
+    // the conversion of an operand that the operator typing already validated
+    private void emitConverted(Expression expression, Class<?> targetType) {
+        emit(expression);
+        Conversions.convert(mv, types.typeOf(expression), targetType);
+    }
+
+    private void emit(Expression expression) {
+        Class<?> type = types.typeOf(expression);
+        if (expression.isEnclosedExpr()) {
+            emit(expression.asEnclosedExpr().getInner());
+        } else if (expression.isIntegerLiteralExpr()) {
+            pushInt(expression.asIntegerLiteralExpr().asNumber().intValue());
+        } else if (expression.isLongLiteralExpr()) {
+            long value = expression.asLongLiteralExpr().asNumber().longValue();
+            if (value == 0L || value == 1L) {
+                mv.visitInsn(Opcodes.LCONST_0 + (int) value);
+            } else {
+                mv.visitLdcInsn(value);
+            }
+        } else if (expression.isDoubleLiteralExpr()) {
+            String literal = expression.asDoubleLiteralExpr().getValue().replace("_", "");
+            if (type == float.class) {
+                mv.visitLdcInsn(Float.parseFloat(literal));
+            } else {
+                mv.visitLdcInsn(Double.parseDouble(literal));
+            }
+        } else if (expression.isCharLiteralExpr()) {
+            pushInt(expression.asCharLiteralExpr().asChar());
+        } else if (expression.isBooleanLiteralExpr()) {
+            mv.visitInsn(expression.asBooleanLiteralExpr().getValue() ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+        } else if (expression.isStringLiteralExpr()) {
+            mv.visitLdcInsn(expression.asStringLiteralExpr().asString());
+        } else if (expression.isNullLiteralExpr()) {
+            mv.visitInsn(Opcodes.ACONST_NULL);
+        } else if (expression.isClassExpr()) {
+            emitClassLiteral(types.typeNames().resolve(expression.asClassExpr().getType()));
+        } else if (expression.isNameExpr()) {
+            String name = expression.asNameExpr().getNameAsString();
+            ExpressionTypes.Local local = types.local(name);
+            if (local != null) {
+                mv.visitVarInsn(Type.getType(local.type()).getOpcode(Opcodes.ILOAD), local.slot());
+            } else {
+                mv.visitFieldInsn(Opcodes.GETSTATIC, constantOwner, name, Type.getDescriptor(types.constant(name)));
+            }
+        } else if (expression.isCastExpr()) {
+            Expression operand = expression.asCastExpr().getExpression();
+            emit(operand);
+            Class<?> operandType = types.typeOf(operand);
+            if (!type.isPrimitive() && !operandType.isPrimitive() && !type.isAssignableFrom(operandType) && operandType != NULL) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, internalName(type));
+            } else {
+                Conversions.convert(mv, operandType, type);
+            }
+        } else if (expression.isUnaryExpr()) {
+            emitUnary(expression.asUnaryExpr());
+        } else if (expression.isBinaryExpr()) {
+            emitBinary(expression.asBinaryExpr());
+        } else if (expression.isConditionalExpr()) {
+            ConditionalExpr conditional = expression.asConditionalExpr();
+            Label elseLabel = new Label();
+            Label end = new Label();
+            branch(conditional.getCondition(), elseLabel, false);
+            emitConverted(conditional.getThenExpr(), type);
+            mv.visitJumpInsn(Opcodes.GOTO, end);
+            mv.visitLabel(elseLabel);
+            emitConverted(conditional.getElseExpr(), type);
+            mv.visitLabel(end);
+        } else if (expression.isMethodCallExpr()) {
+            emitCall(expression.asMethodCallExpr());
+        } else if (expression.isFieldAccessExpr()) {
+            emitFieldAccess(expression.asFieldAccessExpr());
+        } else if (expression.isObjectCreationExpr()) {
+            ObjectCreationExpr creation = expression.asObjectCreationExpr();
+            Constructor<?> constructor = types.constructor(creation);
+            String owner = internalName(type);
+            mv.visitTypeInsn(Opcodes.NEW, owner);
+            mv.visitInsn(Opcodes.DUP);
+            emitArguments(creation.getArguments(), constructor.getParameterTypes());
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, owner, "<init>", Type.getConstructorDescriptor(constructor), false);
+        } else if (expression.isAssignExpr()) {
+            emitAssign(expression.asAssignExpr(), true);
+        } else if (expression.isArrayAccessExpr()) {
+            ArrayAccessExpr access = expression.asArrayAccessExpr();
+            emit(access.getName());
+            emitConverted(access.getIndex(), int.class);
+            mv.visitInsn(Type.getType(type).getOpcode(Opcodes.IALOAD));
+        } else if (expression.isArrayCreationExpr()) {
+            emitArrayCreation(expression.asArrayCreationExpr(), type.getComponentType());
+        } else if (expression.isInstanceOfExpr()) {
+            emit(expression.asInstanceOfExpr().getExpression());
+            mv.visitTypeInsn(Opcodes.INSTANCEOF, internalName(types.typeNames().resolve(expression.asInstanceOfExpr().getType())));
+        } else {
+            throw new UnsupportedByteCodeException("Unsupported expression " + expression);
+        }
+    }
+
+    private void emitUnary(UnaryExpr unary) {
+        Class<?> type = types.typeOf(unary);
+        switch (unary.getOperator()) {
+            case LOGICAL_COMPLEMENT:
+                emitCondition(unary);
+                break;
+            case PLUS:
+                emitConverted(unary.getExpression(), type);
+                break;
+            case MINUS:
+                emitConverted(unary.getExpression(), type);
+                mv.visitInsn(Type.getType(type).getOpcode(Opcodes.INEG));
+                break;
+            case BITWISE_COMPLEMENT:
+                emitConverted(unary.getExpression(), type);
+                if (type == long.class) {
+                    mv.visitLdcInsn(-1L);
+                } else {
+                    mv.visitInsn(Opcodes.ICONST_M1);
+                }
+                mv.visitInsn(Type.getType(type).getOpcode(Opcodes.IXOR));
+                break;
+            default:
+                emitIncrement(unary, true);
+        }
+    }
+
+    private void emitIncrement(UnaryExpr unary, boolean needsValue) {
+        ExpressionTypes.Local local = types.incrementedLocal(unary);
+        types.typeOf(unary);
+        UnaryExpr.Operator operator = unary.getOperator();
+        boolean prefix = operator == UnaryExpr.Operator.PREFIX_INCREMENT || operator == UnaryExpr.Operator.PREFIX_DECREMENT;
+        boolean increment = operator == UnaryExpr.Operator.PREFIX_INCREMENT || operator == UnaryExpr.Operator.POSTFIX_INCREMENT;
+        Type type = Type.getType(local.type());
+
+        if (local.type() == int.class) {
+            if (needsValue && !prefix) {
+                mv.visitVarInsn(Opcodes.ILOAD, local.slot());
+            }
+            mv.visitIincInsn(local.slot(), increment ? 1 : -1);
+            if (needsValue && prefix) {
+                mv.visitVarInsn(Opcodes.ILOAD, local.slot());
+            }
+            return;
+        }
+
+        mv.visitVarInsn(type.getOpcode(Opcodes.ILOAD), local.slot());
+        if (needsValue && !prefix) {
+            dup(local.type());
+        }
+        if (local.type() == long.class) {
+            mv.visitInsn(Opcodes.LCONST_1);
+        } else if (local.type() == float.class) {
+            mv.visitInsn(Opcodes.FCONST_1);
+        } else {
+            mv.visitInsn(Opcodes.DCONST_1);
+        }
+        mv.visitInsn(type.getOpcode(increment ? Opcodes.IADD : Opcodes.ISUB));
+        if (needsValue && prefix) {
+            dup(local.type());
+        }
+        mv.visitVarInsn(type.getOpcode(Opcodes.ISTORE), local.slot());
+    }
+
+    private void emitBinary(BinaryExpr binary) {
+        Class<?> type = types.typeOf(binary);
+        BinaryExpr.Operator operator = binary.getOperator();
+        switch (operator) {
+            case OR:
+            case AND:
+            case LESS:
+            case GREATER:
+            case LESS_EQUALS:
+            case GREATER_EQUALS:
+            case EQUALS:
+            case NOT_EQUALS:
+                emitCondition(binary);
+                return;
+            case PLUS:
+                if (type == String.class) {
+                    emitConcatenation(binary);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        emitConverted(binary.getLeft(), type);
+        emitOperation(operator, type, binary.getRight());
+    }
+
+    /**
+     * Emits the right operand and the arithmetic, bitwise or shift instruction; the left operand is on the stack.
+     */
+    private void emitOperation(BinaryExpr.Operator operator, Class<?> type, Expression right) {
+        int opcode;
+        switch (operator) {
+            case PLUS:                 opcode = Opcodes.IADD; break;
+            case MINUS:                opcode = Opcodes.ISUB; break;
+            case MULTIPLY:             opcode = Opcodes.IMUL; break;
+            case DIVIDE:               opcode = Opcodes.IDIV; break;
+            case REMAINDER:            opcode = Opcodes.IREM; break;
+            case BINARY_AND:           opcode = Opcodes.IAND; break;
+            case BINARY_OR:            opcode = Opcodes.IOR; break;
+            case XOR:                  opcode = Opcodes.IXOR; break;
+            case LEFT_SHIFT:           opcode = Opcodes.ISHL; break;
+            case SIGNED_RIGHT_SHIFT:   opcode = Opcodes.ISHR; break;
+            case UNSIGNED_RIGHT_SHIFT: opcode = Opcodes.IUSHR; break;
+            default: throw new UnsupportedByteCodeException("Unsupported operator " + operator);
+        }
+        if (opcode == Opcodes.ISHL || opcode == Opcodes.ISHR || opcode == Opcodes.IUSHR) {
+            // the shift distance is always an int
+            Class<?> distanceType = Conversions.unaryPromotion(ExpressionTypes.integral(types.typeOf(right)));
+            emitConverted(right, distanceType);
+            if (distanceType == long.class) {
+                mv.visitInsn(Opcodes.L2I);
+            }
+        } else {
+            emitConverted(right, type);
+        }
+        mv.visitInsn(Type.getType(type).getOpcode(opcode));
+    }
+
+    private void emitConcatenation(BinaryExpr binary) {
+        List<Expression> operands = new ArrayList<>();
+        collectConcatenation(binary, operands);
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V", false);
+        for (Expression operand : operands) {
+            emit(operand);
+            append(types.typeOf(operand));
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+    }
+
+    private void collectConcatenation(Expression expression, List<Expression> operands) {
+        if (expression.isBinaryExpr() && expression.asBinaryExpr().getOperator() == BinaryExpr.Operator.PLUS &&
+            types.typeOf(expression) == String.class) {
+            collectConcatenation(expression.asBinaryExpr().getLeft(), operands);
+            collectConcatenation(expression.asBinaryExpr().getRight(), operands);
+        } else {
+            operands.add(expression);
+        }
+    }
+
+    private void append(Class<?> type) {
+        String descriptor;
+        if (type == String.class) {
+            descriptor = "Ljava/lang/String;";
+        } else if (type == char.class || type == boolean.class || type == long.class ||
+                   type == float.class || type == double.class) {
+            descriptor = Type.getDescriptor(type);
+        } else if (type.isPrimitive()) {
+            descriptor = "I";
+        } else {
+            // arrays included, like javac's String.valueOf(Object) conversion
+            descriptor = "Ljava/lang/Object;";
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+                           "(" + descriptor + ")Ljava/lang/StringBuilder;", false);
+    }
+
+    /**
+     * Pushes 1 or 0 for a boolean expression.
+     */
+    private void emitCondition(Expression condition) {
+        Label falseLabel = new Label();
+        Label end = new Label();
+        branch(condition, falseLabel, false);
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitJumpInsn(Opcodes.GOTO, end);
+        mv.visitLabel(falseLabel);
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitLabel(end);
+    }
+
+    /**
+     * Jumps to the target when the condition evaluates to <code>jumpIf</code>, otherwise falls through.
+     */
+    private void branch(Expression condition, Label target, boolean jumpIf) {
+        types.requireBoolean(condition);
+        if (condition.isEnclosedExpr()) {
+            branch(condition.asEnclosedExpr().getInner(), target, jumpIf);
+            return;
+        }
+        if (condition.isBooleanLiteralExpr()) {
+            if (condition.asBooleanLiteralExpr().getValue() == jumpIf) {
+                mv.visitJumpInsn(Opcodes.GOTO, target);
+            }
+            return;
+        }
+        if (condition.isUnaryExpr() && condition.asUnaryExpr().getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+            branch(condition.asUnaryExpr().getExpression(), target, !jumpIf);
+            return;
+        }
+        if (condition.isBinaryExpr()) {
+            BinaryExpr binary = condition.asBinaryExpr();
+            switch (binary.getOperator()) {
+                case AND:
+                    if (jumpIf) {
+                        Label skip = new Label();
+                        branch(binary.getLeft(), skip, false);
+                        branch(binary.getRight(), target, true);
+                        mv.visitLabel(skip);
+                    } else {
+                        branch(binary.getLeft(), target, false);
+                        branch(binary.getRight(), target, false);
+                    }
+                    return;
+                case OR:
+                    if (jumpIf) {
+                        branch(binary.getLeft(), target, true);
+                        branch(binary.getRight(), target, true);
+                    } else {
+                        Label skip = new Label();
+                        branch(binary.getLeft(), skip, true);
+                        branch(binary.getRight(), target, false);
+                        mv.visitLabel(skip);
+                    }
+                    return;
+                case EQUALS:      compare(binary, EQ, target, jumpIf); return;
+                case NOT_EQUALS:  compare(binary, NE, target, jumpIf); return;
+                case LESS:        compare(binary, LT, target, jumpIf); return;
+                case GREATER_EQUALS: compare(binary, GE, target, jumpIf); return;
+                case GREATER:     compare(binary, GT, target, jumpIf); return;
+                case LESS_EQUALS: compare(binary, LE, target, jumpIf); return;
+                default:          break;
+            }
+        }
+        emitConverted(condition, boolean.class);
+        mv.visitJumpInsn(jumpIf ? Opcodes.IFNE : Opcodes.IFEQ, target);
+    }
+
+    private void compare(BinaryExpr binary, int comparison, Label target, boolean jumpIf) {
+        Expression left = binary.getLeft();
+        Expression right = binary.getRight();
+        Class<?> leftType = types.typeOf(left);
+        Class<?> rightType = types.typeOf(right);
+        int jump = jumpIf ? comparison : comparison ^ 1;
+
+        Class<?> type = comparison == EQ || comparison == NE ?
+                        ExpressionTypes.equalityType(leftType, rightType) :
+                        Conversions.binaryPromotion(ExpressionTypes.numeric(leftType), ExpressionTypes.numeric(rightType));
+
+        if (type == Object.class) {
+            if (rightType == NULL) {
+                emit(left);
+                mv.visitJumpInsn(jump == EQ ? Opcodes.IFNULL : Opcodes.IFNONNULL, target);
+            } else if (leftType == NULL) {
+                emit(right);
+                mv.visitJumpInsn(jump == EQ ? Opcodes.IFNULL : Opcodes.IFNONNULL, target);
+            } else {
+                emit(left);
+                emit(right);
+                mv.visitJumpInsn(jump == EQ ? Opcodes.IF_ACMPEQ : Opcodes.IF_ACMPNE, target);
+            }
+            return;
+        }
+
+        emitConverted(left, type);
+        emitConverted(right, type);
+        if (type == int.class || type == boolean.class) {
+            mv.visitJumpInsn(Opcodes.IF_ICMPEQ + jump, target);
+            return;
+        }
+        if (type == long.class) {
+            mv.visitInsn(Opcodes.LCMP);
+        } else {
+            // NaN must make <, <=, > and >= false: use the variant that pushes the value failing the test
+            boolean lessThan = comparison == LT || comparison == LE;
+            if (type == float.class) {
+                mv.visitInsn(lessThan ? Opcodes.FCMPG : Opcodes.FCMPL);
+            } else {
+                mv.visitInsn(lessThan ? Opcodes.DCMPG : Opcodes.DCMPL);
+            }
+        }
+        mv.visitJumpInsn(Opcodes.IFEQ + jump, target);
+    }
+
+    private void emitCall(MethodCallExpr call) {
+        Method method = types.method(call);
+        Expression scope = call.getScope().get();
+        if (Modifier.isStatic(method.getModifiers())) {
+            Class<?> owner = types.typeName(scope);
+            emitArguments(call.getArguments(), method.getParameterTypes());
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, internalName(owner), method.getName(),
+                               Type.getMethodDescriptor(method), owner.isInterface());
+            return;
+        }
+
+        Class<?> owner = types.typeOf(scope);
+        emit(scope);
+        emitArguments(call.getArguments(), method.getParameterTypes());
+        if (method.getDeclaringClass() == Object.class) {
+            owner = Object.class;
+        }
+        mv.visitMethodInsn(owner.isInterface() ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, internalName(owner),
+                           method.getName(), Type.getMethodDescriptor(method), owner.isInterface());
+    }
+
+    private void emitArguments(NodeList<Expression> arguments, Class<?>[] parameterTypes) {
+        for (int i = 0; i < parameterTypes.length; i++) {
+            emitAs(arguments.get(i), parameterTypes[i], "argument " + arguments.get(i));
+        }
+    }
+
+    private void emitFieldAccess(FieldAccessExpr access) {
+        Field field = types.field(access);
+        if (field == null) {
+            // array length
+            emit(access.getScope());
+            mv.visitInsn(Opcodes.ARRAYLENGTH);
+            return;
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            mv.visitFieldInsn(Opcodes.GETSTATIC, internalName(types.typeName(access.getScope())), field.getName(),
+                              Type.getDescriptor(field.getType()));
+        } else {
+            emit(access.getScope());
+            mv.visitFieldInsn(Opcodes.GETFIELD, internalName(types.typeOf(access.getScope())), field.getName(),
+                              Type.getDescriptor(field.getType()));
+        }
+    }
+
+    private void emitAssign(AssignExpr assign, boolean needsValue) {
+        Class<?> targetType = types.typeOf(assign);
+        Expression target = assign.getTarget();
+
+        if (target.isFieldAccessExpr()) {
+            Field field = types.field(target.asFieldAccessExpr());
+            String descriptor = Type.getDescriptor(field.getType());
+            if (Modifier.isStatic(field.getModifiers())) {
+                emitAs(assign.getValue(), targetType, "assignment " + assign);
+                if (needsValue) {
+                    dup(targetType);
+                }
+                mv.visitFieldInsn(Opcodes.PUTSTATIC, internalName(types.typeName(target.asFieldAccessExpr().getScope())),
+                                  field.getName(), descriptor);
+            } else {
+                Expression scope = target.asFieldAccessExpr().getScope();
+                emit(scope);
+                emitAs(assign.getValue(), targetType, "assignment " + assign);
+                if (needsValue) {
+                    mv.visitInsn(targetType == long.class || targetType == double.class ? Opcodes.DUP2_X1 : Opcodes.DUP_X1);
+                }
+                mv.visitFieldInsn(Opcodes.PUTFIELD, internalName(types.typeOf(scope)), field.getName(), descriptor);
+            }
+            return;
+        }
+
+        ExpressionTypes.Local local = types.local(target.asNameExpr().getNameAsString());
+        if (assign.getOperator() == AssignExpr.Operator.ASSIGN) {
+            emitAs(assign.getValue(), targetType, "assignment " + assign);
+        } else {
+            BinaryExpr.Operator operator = ExpressionTypes.compoundOperator(assign);
+            Class<?> resultType = ExpressionTypes.binaryType(operator, targetType, types.typeOf(assign.getValue()));
+            if (resultType == String.class) {
+                mv.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+                mv.visitInsn(Opcodes.DUP);
+                mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V", false);
+                mv.visitVarInsn(Type.getType(targetType).getOpcode(Opcodes.ILOAD), local.slot());
+                append(targetType);
+                emit(assign.getValue());
+                append(types.typeOf(assign.getValue()));
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+            } else {
+                mv.visitVarInsn(Type.getType(targetType).getOpcode(Opcodes.ILOAD), local.slot());
+                Conversions.convert(mv, targetType, resultType);
+                emitOperation(operator, resultType, assign.getValue());
+            }
+            // the implicit cast of compound assignments
+            Conversions.convert(mv, resultType, targetType);
+        }
+        if (needsValue) {
+            dup(targetType);
+        }
+        mv.visitVarInsn(Type.getType(targetType).getOpcode(Opcodes.ISTORE), local.slot());
+    }
+
+    private void emitArrayCreation(ArrayCreationExpr creation, Class<?> elementType) {
+        if (creation.getInitializer().isEmpty()) {
+            emitConverted(creation.getLevels().get(0).getDimension().get(), int.class);
+            newArray(elementType);
+            return;
+        }
+        NodeList<Expression> values = creation.getInitializer().get().getValues();
+        pushInt(values.size());
+        newArray(elementType);
+        int store = Type.getType(elementType).getOpcode(Opcodes.IASTORE);
+        for (int i = 0; i < values.size(); i++) {
+            mv.visitInsn(Opcodes.DUP);
+            pushInt(i);
+            emitAs(values.get(i), elementType, "array element " + values.get(i));
+            mv.visitInsn(store);
+        }
+    }
+
+    private void newArray(Class<?> elementType) {
+        if (elementType.isPrimitive()) {
+            mv.visitIntInsn(Opcodes.NEWARRAY, primitiveArrayCode(elementType));
+        } else {
+            mv.visitTypeInsn(Opcodes.ANEWARRAY, internalName(elementType));
+        }
+    }
+
+    private static int primitiveArrayCode(Class<?> elementType) {
+        if (elementType == boolean.class) {
+            return Opcodes.T_BOOLEAN;
+        } else if (elementType == char.class) {
+            return Opcodes.T_CHAR;
+        } else if (elementType == float.class) {
+            return Opcodes.T_FLOAT;
+        } else if (elementType == double.class) {
+            return Opcodes.T_DOUBLE;
+        } else if (elementType == byte.class) {
+            return Opcodes.T_BYTE;
+        } else if (elementType == short.class) {
+            return Opcodes.T_SHORT;
+        } else if (elementType == int.class) {
+            return Opcodes.T_INT;
+        }
+        return Opcodes.T_LONG;
+    }
+
+    private void emitClassLiteral(Class<?> type) {
+        if (type.isPrimitive()) {
+            Class<?> box = type == void.class ? Void.class : Conversions.box(type);
+            mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(box), "TYPE", "Ljava/lang/Class;");
+        } else {
+            internalName(type);
+            mv.visitLdcInsn(Type.getType(type));
+        }
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    private void dup(Class<?> type) {
+        mv.visitInsn(type == long.class || type == double.class ? Opcodes.DUP2 : Opcodes.DUP);
+    }
+
+    /**
+     * Returns the internal name of a class referenced by the generated code, which must be accessible from any
+     * package.
+     */
+    private static String internalName(Class<?> type) {
+        ExpressionTypes.requireAccessible(type);
+        return Type.getInternalName(type);
+    }
+}
\ No newline at end of file
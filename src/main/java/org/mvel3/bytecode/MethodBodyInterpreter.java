@@ -0,0 +1,893 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.ArrayCreationExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.Statement;
+
+import static org.mvel3.bytecode.Conversions.NULL;
+
+/**
+ * Turns one method body of the rewritten JavaParser AST into a tree of closures that evaluates it, typed by
+ * {@link ExpressionTypes} exactly like {@link MethodBodyGenerator} so both agree on overloads, conversions and
+ * operator semantics.
+ * <p>
+ * Values are kept boxed in their static type, locals live in an <code>Object[]</code> frame indexed by slot, and
+ * members are invoked through reflection. The AST is only read while building; the closures are immutable and can
+ * be evaluated by several threads at once.
+ */
+final class MethodBodyInterpreter {
+
+    /**
+     * An expression, returning its value boxed in the expression's static type.
+     */
+    private interface Code {
+        Object run(Object[] frame);
+    }
+
+    /**
+     * A statement, returning {@link #NORMAL} when it completes normally, otherwise the value it returns.
+     */
+    private interface Step {
+        Object run(Object[] frame);
+    }
+
+    private record Compiled(Step step, boolean completesNormally) { }
+
+    private static final Object NORMAL = new Object();
+
+    private static final Step EMPTY = frame -> NORMAL;
+
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int LT = 2;
+    private static final int GE = 3;
+    private static final int GT = 4;
+    private static final int LE = 5;
+
+    private final ExpressionTypes types;
+
+    private final Class<?> returnType;
+
+    private final List<Integer> parameterSlots = new ArrayList<>();
+
+    private final List<Class<?>> parameterTypes = new ArrayList<>();
+
+    private final Map<String, Object> constants = new HashMap<>();
+
+    MethodBodyInterpreter(TypeNames typeNames, Class<?> returnType) {
+        this.types = new ExpressionTypes(typeNames, 0);
+        this.returnType = returnType;
+    }
+
+    void declareParameter(String name, Class<?> type) {
+        parameterSlots.add(types.declare(name, type, false).slot());
+        parameterTypes.add(type);
+    }
+
+    /**
+     * Declares a static final field of the evaluator, with its already computed value.
+     */
+    void declareConstant(String name, Class<?> type, Object value) {
+        types.declareConstant(name, type);
+        constants.put(name, value);
+    }
+
+    InterpretedMethod build(BlockStmt body) {
+        Compiled compiled = statement(body);
+        if (compiled.completesNormally()) {
+            throw new UnsupportedByteCodeException("Method body can complete without returning a value");
+        }
+        return new InterpretedMethod(compiled.step(), types.slots(),
+                                     parameterSlots.stream().mapToInt(Integer::intValue).toArray(),
+                                     parameterTypes.toArray(new Class<?>[0]));
+    }
+
+    /**
+     * An interpreted method body, invoked with the method arguments.
+     */
+    static final class InterpretedMethod {
+
+        private final Step body;
+
+        private final int frameSize;
+
+        private final int[] parameterSlots;
+
+        private final Class<?>[] parameterTypes;
+
+        private InterpretedMethod(Step body, int frameSize, int[] parameterSlots, Class<?>[] parameterTypes) {
+            this.body = body;
+            this.frameSize = frameSize;
+            this.parameterSlots = parameterSlots;
+            this.parameterTypes = parameterTypes;
+        }
+
+        Object invoke(Object... arguments) {
+            Object[] frame = new Object[frameSize];
+            for (int i = 0; i < parameterSlots.length; i++) {
+                // the checkcast of the bridge method javac generates
+                frame[parameterSlots[i]] = parameterTypes[i].cast(arguments[i]);
+            }
+            return body.run(frame);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // statements
+    // ---------------------------------------------------------------------------------------------------------
+
+    private Compiled statement(Statement statement) {
+        if (statement.isBlockStmt()) {
+            types.pushScope();
+            List<Step> steps = new ArrayList<>();
+            boolean completesNormally = true;
+            for (Statement child : statement.asBlockStmt().getStatements()) {
+                if (!completesNormally) {
+                    throw new UnsupportedByteCodeException("Unreachable statement " + child);
+                }
+                Compiled compiled = statement(child);
+                steps.add(compiled.step());
+                completesNormally = compiled.completesNormally();
+            }
+            types.popScope();
+            return new Compiled(block(steps.toArray(new Step[0])), completesNormally);
+        }
+        if (statement.isExpressionStmt()) {
+            Expression expression = statement.asExpressionStmt().getExpression();
+            if (expression.isVariableDeclarationExpr()) {
+                List<Step> steps = new ArrayList<>();
+                for (VariableDeclarator variable : expression.asVariableDeclarationExpr().getVariables()) {
+                    steps.add(declareVariable(variable));
+                }
+                return new Compiled(block(steps.toArray(new Step[0])), true);
+            }
+            Code code = effect(expression);
+            return new Compiled(frame -> {
+                code.run(frame);
+                return NORMAL;
+            }, true);
+        }
+        if (statement.isReturnStmt()) {
+            Expression expression = statement.asReturnStmt().getExpression()
+                                             .orElseThrow(() -> new UnsupportedByteCodeException("Return without a value"));
+            Code code = as(expression, returnType, "return value");
+            return new Compiled(code::run, false);
+        }
+        if (statement.isIfStmt()) {
+            return ifStatement(statement.asIfStmt());
+        }
+        if (statement.isEmptyStmt()) {
+            return new Compiled(EMPTY, true);
+        }
+        throw new UnsupportedByteCodeException("Unsupported statement " + statement.getClass().getSimpleName());
+    }
+
+    private static Step block(Step[] steps) {
+        if (steps.length == 1) {
+            return steps[0];
+        }
+        return frame -> {
+            for (Step step : steps) {
+                Object result = step.run(frame);
+                if (result != NORMAL) {
+                    return result;
+                }
+            }
+            return NORMAL;
+        };
+    }
+
+    private Step declareVariable(VariableDeclarator variable) {
+        Class<?> type = types.variableType(variable);
+        Expression initializer = variable.getInitializer().orElse(null);
+        Code code = initializer != null ? as(initializer, type, "initializer of " + variable.getNameAsString()) : null;
+        boolean isErased = variable.getType().isVarType() && types.isErased(initializer);
+        int slot = types.declare(variable.getNameAsString(), type, isErased).slot();
+        if (code == null) {
+            return EMPTY;
+        }
+        return frame -> {
+            frame[slot] = code.run(frame);
+            return NORMAL;
+        };
+    }
+
+    private Compiled ifStatement(IfStmt ifStmt) {
+        types.requireBoolean(ifStmt.getCondition());
+        Code condition = converted(ifStmt.getCondition(), boolean.class);
+        Compiled thenStatement = statement(ifStmt.getThenStmt());
+        Step thenStep = thenStatement.step();
+        if (ifStmt.getElseStmt().isEmpty()) {
+            return new Compiled(frame -> (Boolean) condition.run(frame) ? thenStep.run(frame) : NORMAL, true);
+        }
+        Compiled elseStatement = statement(ifStmt.getElseStmt().get());
+        Step elseStep = elseStatement.step();
+        return new Compiled(frame -> (Boolean) condition.run(frame) ? thenStep.run(frame) : elseStep.run(frame),
+                            thenStatement.completesNormally() || elseStatement.completesNormally());
+    }
+
+    private Code effect(Expression expression) {
+        if (expression.isAssignExpr()) {
+            return assign(expression.asAssignExpr());
+        }
+        if (ExpressionTypes.isIncrement(expression)) {
+            return increment(expression.asUnaryExpr());
+        }
+        return expression(expression);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // expressions
+    // ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the expression converted to the target type in an assignment context.
+     */
+    private Code as(Expression expression, Class<?> targetType, String context) {
+        types.requireAssignable(expression, targetType, context);
+        Code code = expression(expression);
+        Class<?> type = types.typeOf(expression);
+        Class<?> refinedType = types.refined(expression);
+        if (refinedType != null) {
+            ExpressionTypes.requireAccessible(refinedType);
+            Code erased = code;
+            code = frame -> refinedType.cast(erased.run(frame));
+            type = refinedType;
+        }
+        return conversion(code, type, targetType);
+    }
+
+    // the conversion of an operand that the operator typing already validated
+    private Code converted(Expression expression, Class<?> targetType) {
+        return conversion(expression(expression), types.typeOf(expression), targetType);
+    }
+
+    private static Code conversion(Code code, Class<?> from, Class<?> to) {
+        if (from == to || from == NULL || (!from.isPrimitive() && !to.isPrimitive() && to.isAssignableFrom(from)) ||
+            (from.isPrimitive() && !to.isPrimitive())) {
+            // boxing is free, the value of a primitive expression is already boxed
+            return code;
+        }
+        return frame -> convert(code.run(frame), from, to);
+    }
+
+    private Code expression(Expression expression) {
+        Class<?> type = types.typeOf(expression);
+        if (expression.isEnclosedExpr()) {
+            return expression(expression.asEnclosedExpr().getInner());
+        }
+        if (expression.isIntegerLiteralExpr()) {
+            return constant(expression.asIntegerLiteralExpr().asNumber().intValue());
+        }
+        if (expression.isLongLiteralExpr()) {
+            return constant(expression.asLongLiteralExpr().asNumber().longValue());
+        }
+        if (expression.isDoubleLiteralExpr()) {
+            String literal = expression.asDoubleLiteralExpr().getValue().replace("_", "");
+            return constant(type == float.class ? (Object) Float.parseFloat(literal) : (Object) Double.parseDouble(literal));
+        }
+        if (expression.isCharLiteralExpr()) {
+            return constant(expression.asCharLiteralExpr().asChar());
+        }
+        if (expression.isBooleanLiteralExpr()) {
+            return constant(expression.asBooleanLiteralExpr().getValue());
+        }
+        if (expression.isStringLiteralExpr()) {
+            return constant(expression.asStringLiteralExpr().asString());
+        }
+        if (expression.isNullLiteralExpr()) {
+            return constant(null);
+        }
+        if (expression.isClassExpr()) {
+            Class<?> literal = types.typeNames().resolve(expression.asClassExpr().getType());
+            ExpressionTypes.requireAccessible(literal);
+            return constant(literal);
+        }
+        if (expression.isNameExpr()) {
+            String name = expression.asNameExpr().getNameAsString();
+            ExpressionTypes.Local local = types.local(name);
+            if (local == null) {
+                return constant(constants.get(name));
+            }
+            int slot = local.slot();
+            return frame -> frame[slot];
+        }
+        if (expression.isCastExpr()) {
+            return cast(expression.asCastExpr().getExpression(), type);
+        }
+        if (expression.isUnaryExpr()) {
+            return unary(expression.asUnaryExpr());
+        }
+        if (expression.isBinaryExpr()) {
+            return binary(expression.asBinaryExpr());
+        }
+        if (expression.isConditionalExpr()) {
+            ConditionalExpr conditional = expression.asConditionalExpr();
+            Code condition = converted(conditional.getCondition(), boolean.class);
+            Code thenCode = converted(conditional.getThenExpr(), type);
+            Code elseCode = converted(conditional.getElseExpr(), type);
+            return frame -> (Boolean) condition.run(frame) ? thenCode.run(frame) : elseCode.run(frame);
+        }
+        if (expression.isMethodCallExpr()) {
+            return call(expression.asMethodCallExpr());
+        }
+        if (expression.isFieldAccessExpr()) {
+            return fieldAccess(expression.asFieldAccessExpr());
+        }
+        if (expression.isObjectCreationExpr()) {
+            ObjectCreationExpr creation = expression.asObjectCreationExpr();
+            Constructor<?> constructor = types.constructor(creation);
+            ExpressionTypes.requireAccessible(type);
+            Code[] arguments = arguments(creation.getArguments(), constructor.getParameterTypes());
+            return frame -> newInstance(constructor, evaluate(arguments, frame));
+        }
+        if (expression.isAssignExpr()) {
+            return assign(expression.asAssignExpr());
+        }
+        if (expression.isArrayAccessExpr()) {
+            ArrayAccessExpr access = expression.asArrayAccessExpr();
+            Code array = expression(access.getName());
+            Code index = converted(access.getIndex(), int.class);
+            return frame -> Array.get(array.run(frame), (Integer) index.run(frame));
+        }
+        if (expression.isArrayCreationExpr()) {
+            return arrayCreation(expression.asArrayCreationExpr(), type.getComponentType());
+        }
+        if (expression.isInstanceOfExpr()) {
+            Code operand = expression(expression.asInstanceOfExpr().getExpression());
+            Class<?> target = types.typeNames().resolve(expression.asInstanceOfExpr().getType());
+            ExpressionTypes.requireAccessible(target);
+            return frame -> target.isInstance(operand.run(frame));
+        }
+        throw new UnsupportedByteCodeException("Unsupported expression " + expression);
+    }
+
+    private static Code constant(Object value) {
+        return frame -> value;
+    }
+
+    private Code cast(Expression operand, Class<?> type) {
+        Code code = expression(operand);
+        Class<?> operandType = types.typeOf(operand);
+        if (!type.isPrimitive() && !operandType.isPrimitive()) {
+            if (operandType == NULL || type.isAssignableFrom(operandType)) {
+                return code;
+            }
+            ExpressionTypes.requireAccessible(type);
+            return frame -> type.cast(code.run(frame));
+        }
+        return conversion(code, operandType, type);
+    }
+
+    private Code unary(UnaryExpr unary) {
+        Class<?> type = types.typeOf(unary);
+        switch (unary.getOperator()) {
+            case LOGICAL_COMPLEMENT: {
+                Code operand = converted(unary.getExpression(), boolean.class);
+                return frame -> !(Boolean) operand.run(frame);
+            }
+            case PLUS:
+                return converted(unary.getExpression(), type);
+            case MINUS: {
+                Code operand = converted(unary.getExpression(), type);
+                return frame -> negate(type, operand.run(frame));
+            }
+            case BITWISE_COMPLEMENT: {
+                Code operand = converted(unary.getExpression(), type);
+                if (type == long.class) {
+                    return frame -> ~(Long) operand.run(frame);
+                }
+                return frame -> ~(Integer) operand.run(frame);
+            }
+            default:
+                return increment(unary);
+        }
+    }
+
+    private Code increment(UnaryExpr unary) {
+        ExpressionTypes.Local local = types.incrementedLocal(unary);
+        types.typeOf(unary);
+        UnaryExpr.Operator operator = unary.getOperator();
+        boolean prefix = operator == UnaryExpr.Operator.PREFIX_INCREMENT || operator == UnaryExpr.Operator.PREFIX_DECREMENT;
+        Integer delta = operator == UnaryExpr.Operator.PREFIX_INCREMENT || operator == UnaryExpr.Operator.POSTFIX_INCREMENT ? 1 : -1;
+        Class<?> type = local.type();
+        int slot = local.slot();
+        return frame -> {
+            Object value = frame[slot];
+            Object result = arithmetic(BinaryExpr.Operator.PLUS, type, value, convertPrimitive(delta, type));
+            frame[slot] = result;
+            return prefix ? result : value;
+        };
+    }
+
+    private Code binary(BinaryExpr binary) {
+        Class<?> type = types.typeOf(binary);
+        BinaryExpr.Operator operator = binary.getOperator();
+        switch (operator) {
+            case AND: {
+                Code left = converted(binary.getLeft(), boolean.class);
+                Code right = converted(binary.getRight(), boolean.class);
+                return frame -> (Boolean) left.run(frame) && (Boolean) right.run(frame);
+            }
+            case OR: {
+                Code left = converted(binary.getLeft(), boolean.class);
+                Code right = converted(binary.getRight(), boolean.class);
+                return frame -> (Boolean) left.run(frame) || (Boolean) right.run(frame);
+            }
+            case EQUALS:         return comparison(binary, EQ);
+            case NOT_EQUALS:     return comparison(binary, NE);
+            case LESS:           return comparison(binary, LT);
+            case GREATER_EQUALS: return comparison(binary, GE);
+            case GREATER:        return comparison(binary, GT);
+            case LESS_EQUALS:    return comparison(binary, LE);
+            case PLUS:
+                if (type == String.class) {
+                    return concatenation(binary);
+                }
+                break;
+            default:
+                break;
+        }
+        Code left = converted(binary.getLeft(), type);
+        return operation(operator, type, left, binary.getRight());
+    }
+
+    /**
+     * Applies an arithmetic, bitwise or shift operator to a left operand already converted to the operation type.
+     */
+    private Code operation(BinaryExpr.Operator operator, Class<?> type, Code left, Expression right) {
+        if (isShift(operator)) {
+            // the shift distance is always an int
+            Class<?> distanceType = Conversions.unaryPromotion(ExpressionTypes.integral(types.typeOf(right)));
+            Code distance = converted(right, distanceType);
+            return frame -> shift(operator, type, left.run(frame), ((Number) distance.run(frame)).intValue());
+        }
+        Code rightCode = converted(right, type);
+        return frame -> arithmetic(operator, type, left.run(frame), rightCode.run(frame));
+    }
+
+    private Code concatenation(BinaryExpr binary) {
+        List<Code> operands = new ArrayList<>();
+        collectConcatenation(binary, operands);
+        Code[] codes = operands.toArray(new Code[0]);
+        return frame -> {
+            StringBuilder builder = new StringBuilder();
+            for (Code code : codes) {
+                builder.append(code.run(frame));
+            }
+            return builder.toString();
+        };
+    }
+
+    private void collectConcatenation(Expression expression, List<Code> operands) {
+        if (expression.isBinaryExpr() && expression.asBinaryExpr().getOperator() == BinaryExpr.Operator.PLUS &&
+            types.typeOf(expression) == String.class) {
+            collectConcatenation(expression.asBinaryExpr().getLeft(), operands);
+            collectConcatenation(expression.asBinaryExpr().getRight(), operands);
+        } else {
+            Class<?> type = types.typeOf(expression);
+            if (type == void.class) {
+                throw new UnsupportedByteCodeException("void operand of a string concatenation");
+            }
+            operands.add(expression(expression));
+        }
+    }
+
+    private Code comparison(BinaryExpr binary, int comparison) {
+        Expression left = binary.getLeft();
+        Expression right = binary.getRight();
+        Class<?> leftType = types.typeOf(left);
+        Class<?> rightType = types.typeOf(right);
+        Class<?> type = comparison == EQ || comparison == NE ?
+                        ExpressionTypes.equalityType(leftType, rightType) :
+                        Conversions.binaryPromotion(ExpressionTypes.numeric(leftType), ExpressionTypes.numeric(rightType));
+
+        if (type == Object.class) {
+            Code leftCode = expression(left);
+            Code rightCode = expression(right);
+            boolean equals = comparison == EQ;
+            return frame -> (leftCode.run(frame) == rightCode.run(frame)) == equals;
+        }
+        Code leftCode = converted(left, type);
+        Code rightCode = converted(right, type);
+        return frame -> compare(comparison, type, leftCode.run(frame), rightCode.run(frame));
+    }
+
+    private Code call(MethodCallExpr call) {
+        Method method = types.method(call);
+        ExpressionTypes.requireAccessible(method.getDeclaringClass());
+        Code[] arguments = arguments(call.getArguments(), method.getParameterTypes());
+        if (Modifier.isStatic(method.getModifiers())) {
+            ExpressionTypes.requireAccessible(types.typeName(call.getScope().get()));
+            return frame -> invoke(method, null, evaluate(arguments, frame));
+        }
+        Expression scope = call.getScope().get();
+        ExpressionTypes.requireAccessible(method.getDeclaringClass() == Object.class ? Object.class : types.typeOf(scope));
+        Code receiver = expression(scope);
+        return frame -> {
+            Object target = receiver.run(frame);
+            if (target == null) {
+                throw new NullPointerException("Cannot invoke \"" + method.getName() + "()\" because the receiver is null");
+            }
+            return invoke(method, target, evaluate(arguments, frame));
+        };
+    }
+
+    private Code[] arguments(NodeList<Expression> arguments, Class<?>[] parameterTypes) {
+        Code[] codes = new Code[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            codes[i] = as(arguments.get(i), parameterTypes[i], "argument " + arguments.get(i));
+        }
+        return codes;
+    }
+
+    private static Object[] evaluate(Code[] codes, Object[] frame) {
+        Object[] values = new Object[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            values[i] = codes[i].run(frame);
+        }
+        return values;
+    }
+
+    private Code fieldAccess(FieldAccessExpr access) {
+        Field field = types.field(access);
+        if (field == null) {
+            Code array = expression(access.getScope());
+            return frame -> Array.getLength(array.run(frame));
+        }
+        ExpressionTypes.requireAccessible(field.getDeclaringClass());
+        if (Modifier.isStatic(field.getModifiers())) {
+            ExpressionTypes.requireAccessible(types.typeName(access.getScope()));
+            return frame -> get(field, null);
+        }
+        ExpressionTypes.requireAccessible(types.typeOf(access.getScope()));
+        Code receiver = expression(access.getScope());
+        return frame -> get(field, requireReceiver(receiver.run(frame), field));
+    }
+
+    private Code assign(AssignExpr assign) {
+        Class<?> targetType = types.typeOf(assign);
+        Expression target = assign.getTarget();
+
+        if (target.isFieldAccessExpr()) {
+            Field field = types.field(target.asFieldAccessExpr());
+            ExpressionTypes.requireAccessible(field.getDeclaringClass());
+            Code value = as(assign.getValue(), targetType, "assignment " + assign);
+            Expression scope = target.asFieldAccessExpr().getScope();
+            if (Modifier.isStatic(field.getModifiers())) {
+                ExpressionTypes.requireAccessible(types.typeName(scope));
+                return frame -> {
+                    Object result = value.run(frame);
+                    set(field, null, result);
+                    return result;
+                };
+            }
+            ExpressionTypes.requireAccessible(types.typeOf(scope));
+            Code receiver = expression(scope);
+            return frame -> {
+                Object object = receiver.run(frame);
+                Object result = value.run(frame);
+                set(field, requireReceiver(object, field), result);
+                return result;
+            };
+        }
+
+        int slot = types.local(target.asNameExpr().getNameAsString()).slot();
+        Code value;
+        if (assign.getOperator() == AssignExpr.Operator.ASSIGN) {
+            value = as(assign.getValue(), targetType, "assignment " + assign);
+        } else {
+            BinaryExpr.Operator operator = ExpressionTypes.compoundOperator(assign);
+            Class<?> resultType = ExpressionTypes.binaryType(operator, targetType, types.typeOf(assign.getValue()));
+            Code current = conversion(frame -> frame[slot], targetType, resultType);
+            Code result;
+            if (resultType == String.class) {
+                Code right = expression(assign.getValue());
+                result = frame -> String.valueOf(current.run(frame)) + right.run(frame);
+            } else {
+                result = operation(operator, resultType, current, assign.getValue());
+            }
+            // the implicit cast of compound assignments
+            value = conversion(result, resultType, targetType);
+        }
+        return frame -> {
+            Object result = value.run(frame);
+            frame[slot] = result;
+            return result;
+        };
+    }
+
+    private Code arrayCreation(ArrayCreationExpr creation, Class<?> elementType) {
+        ExpressionTypes.requireAccessible(elementType);
+        if (creation.getInitializer().isEmpty()) {
+            Code dimension = converted(creation.getLevels().get(0).getDimension().get(), int.class);
+            return frame -> Array.newInstance(elementType, (Integer) dimension.run(frame));
+        }
+        NodeList<Expression> values = creation.getInitializer().get().getValues();
+        Code[] elements = new Code[values.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = as(values.get(i), elementType, "array element " + values.get(i));
+        }
+        return frame -> {
+            Object array = Array.newInstance(elementType, elements.length);
+            for (int i = 0; i < elements.length; i++) {
+                Array.set(array, i, elements[i].run(frame));
+            }
+            return array;
+        };
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // runtime operations on boxed values
+    // ---------------------------------------------------------------------------------------------------------
+
+    /**
+     * The runtime counterpart of {@link Conversions#convert}, on a value boxed in the <code>from</code> type.
+     */
+    static Object convert(Object value, Class<?> from, Class<?> to) {
+        if (from == to || from == NULL) {
+            return value;
+        }
+        if (from.isPrimitive() && to.isPrimitive()) {
+            return convertPrimitive(value, to);
+        }
+        if (from.isPrimitive()) {
+            return value;
+        }
+        if (to.isPrimitive()) {
+            if (Conversions.unboxed(from) == null) {
+                Conversions.box(to).cast(value);
+            }
+            if (value == null) {
+                throw new NullPointerException("Cannot unbox a null value to " + to.getName());
+            }
+            return convertPrimitive(value, to);
+        }
+        return to.isAssignableFrom(from) ? value : to.cast(value);
+    }
+
+    private static Object convertPrimitive(Object value, Class<?> to) {
+        if (to == boolean.class) {
+            return value;
+        }
+        Number number = value instanceof Character character ? (int) character.charValue() : (Number) value;
+        if (to == int.class) {
+            return number.intValue();
+        } else if (to == long.class) {
+            return number.longValue();
+        } else if (to == float.class) {
+            return number.floatValue();
+        } else if (to == double.class) {
+            return number.doubleValue();
+        } else if (to == byte.class) {
+            return (byte) number.intValue();
+        } else if (to == short.class) {
+            return (short) number.intValue();
+        }
+        return (char) number.intValue();
+    }
+
+    private static Object negate(Class<?> type, Object value) {
+        if (type == int.class) {
+            return -(Integer) value;
+        } else if (type == long.class) {
+            return -(Long) value;
+        } else if (type == float.class) {
+            return -(Float) value;
+        }
+        return -(Double) value;
+    }
+
+    private static boolean isShift(BinaryExpr.Operator operator) {
+        return operator == BinaryExpr.Operator.LEFT_SHIFT || operator == BinaryExpr.Operator.SIGNED_RIGHT_SHIFT ||
+               operator == BinaryExpr.Operator.UNSIGNED_RIGHT_SHIFT;
+    }
+
+    private static Object shift(BinaryExpr.Operator operator, Class<?> type, Object value, int distance) {
+        if (type == long.class) {
+            long l = (Long) value;
+            switch (operator) {
+                case LEFT_SHIFT:         return l << distance;
+                case SIGNED_RIGHT_SHIFT: return l >> distance;
+                default:                 return l >>> distance;
+            }
+        }
+        int i = (Integer) value;
+        switch (operator) {
+            case LEFT_SHIFT:         return i << distance;
+            case SIGNED_RIGHT_SHIFT: return i >> distance;
+            default:                 return i >>> distance;
+        }
+    }
+
+    private static Object arithmetic(BinaryExpr.Operator operator, Class<?> type, Object left, Object right) {
+        if (type == int.class) {
+            int a = (Integer) left;
+            int b = (Integer) right;
+            switch (operator) {
+                case PLUS:        return a + b;
+                case MINUS:       return a - b;
+                case MULTIPLY:    return a * b;
+                case DIVIDE:      return a / b;
+                case REMAINDER:   return a % b;
+                case BINARY_AND:  return a & b;
+                case BINARY_OR:   return a | b;
+                case XOR:         return a ^ b;
+                default:          break;
+            }
+        } else if (type == long.class) {
+            long a = (Long) left;
+            long b = (Long) right;
+            switch (operator) {
+                case PLUS:        return a + b;
+                case MINUS:       return a - b;
+                case MULTIPLY:    return a * b;
+                case DIVIDE:      return a / b;
+                case REMAINDER:   return a % b;
+                case BINARY_AND:  return a & b;
+                case BINARY_OR:   return a | b;
+                case XOR:         return a ^ b;
+                default:          break;
+            }
+        } else if (type == float.class) {
+            float a = (Float) left;
+            float b = (Float) right;
+            switch (operator) {
+                case PLUS:        return a + b;
+                case MINUS:       return a - b;
+                case MULTIPLY:    return a * b;
+                case DIVIDE:      return a / b;
+                case REMAINDER:   return a % b;
+                default:          break;
+            }
+        } else if (type == double.class) {
+            double a = (Double) left;
+            double b = (Double) right;
+            switch (operator) {
+                case PLUS:        return a + b;
+                case MINUS:       return a - b;
+                case MULTIPLY:    return a * b;
+                case DIVIDE:      return a / b;
+                case REMAINDER:   return a % b;
+                default:          break;
+            }
+        } else if (type == boolean.class) {
+            boolean a = (Boolean) left;
+            boolean b = (Boolean) right;
+            switch (operator) {
+                case BINARY_AND:  return a & b;
+                case BINARY_OR:   return a | b;
+                case XOR:         return a ^ b;
+                default:          break;
+            }
+        }
+        throw new IllegalStateException("Unexpected operator " + operator + " on " + type);
+    }
+
+    private static boolean compare(int comparison, Class<?> type, Object left, Object right) {
+        if (type == boolean.class) {
+            return ((Boolean) left).booleanValue() == (Boolean) right ? comparison == EQ : comparison == NE;
+        }
+        if (type == int.class) {
+            return compare(comparison, (int) (Integer) left, (int) (Integer) right);
+        }
+        if (type == long.class) {
+            long a = (Long) left;
+            long b = (Long) right;
+            return compare(comparison, Long.compare(a, b), 0);
+        }
+        double a = ((Number) left).doubleValue();
+        double b = ((Number) right).doubleValue();
+        switch (comparison) {
+            case EQ: return a == b;
+            case NE: return a != b;
+            case LT: return a < b;
+            case GE: return a >= b;
+            case GT: return a > b;
+            default: return a <= b;
+        }
+    }
+
+    private static boolean compare(int comparison, int a, int b) {
+        switch (comparison) {
+            case EQ: return a == b;
+            case NE: return a != b;
+            case LT: return a < b;
+            case GE: return a >= b;
+            case GT: return a > b;
+            default: return a <= b;
+        }
+    }
+
+    private static Object requireReceiver(Object receiver, Field field) {
+        if (receiver == null) {
+            throw new NullPointerException("Cannot access field \"" + field.getName() + "\" because the receiver is null");
+        }
+        return receiver;
+    }
+
+    private static Object invoke(Method method, Object target, Object[] arguments) {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            throw rethrow(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to invoke " + method, e);
+        }
+    }
+
+    private static Object newInstance(Constructor<?> constructor, Object[] arguments) {
+        try {
+            return constructor.newInstance(arguments);
+        } catch (InvocationTargetException e) {
+            throw rethrow(e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to invoke " + constructor, e);
+        }
+    }
+
+    private static Object get(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to read " + field, e);
+        }
+    }
+
+    private static void set(Field field, Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to write " + field, e);
+        }
+    }
+
+    // rethrows what the invoked member threw, checked exceptions included, as the compiled code would
+    private static RuntimeException rethrow(Throwable throwable) {
+        throw MethodBodyInterpreter.<RuntimeException>sneakyThrow(throwable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> T sneakyThrow(Throwable throwable) throws T {
+        throw (T) throwable;
+    }
+}
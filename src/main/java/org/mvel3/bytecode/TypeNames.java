@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.type.Type;
+
+/**
+ * Resolves the type names of a compilation unit the way javac does: single-type imports, then the unit's own
+ * package, then on-demand imports (including <code>java.lang</code>). Ambiguous names are reported as unsupported.
+ */
+final class TypeNames {
+
+    private final ClassLoader classLoader;
+
+    private final String packageName;
+
+    private final List<String> singleTypeImports = new ArrayList<>();
+
+    private final List<String> onDemandImports = new ArrayList<>();
+
+    private final Map<String, Optional<Class<?>>> cache = new HashMap<>();
+
+    TypeNames(CompilationUnit unit, ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        this.packageName = unit.getPackageDeclaration().map(PackageDeclaration::getNameAsString).orElse("");
+        for (ImportDeclaration importDeclaration : unit.getImports()) {
+            if (importDeclaration.isStatic()) {
+                continue; // statically imported members are not supported, only type names matter here
+            }
+            if (importDeclaration.isAsterisk()) {
+                onDemandImports.add(importDeclaration.getNameAsString());
+            } else {
+                singleTypeImports.add(importDeclaration.getNameAsString());
+            }
+        }
+        onDemandImports.add("java.lang");
+    }
+
+    Class<?> resolve(Type type) {
+        if (type.isPrimitiveType()) {
+            switch (type.asPrimitiveType().getType()) {
+                case BOOLEAN: return boolean.class;
+                case BYTE:    return byte.class;
+                case SHORT:   return short.class;
+                case CHAR:    return char.class;
+                case INT:     return int.class;
+                case LONG:    return long.class;
+                case FLOAT:   return float.class;
+                case DOUBLE:  return double.class;
+                default:      break;
+            }
+        } else if (type.isVoidType()) {
+            return void.class;
+        } else if (type.isArrayType()) {
+            return resolve(type.asArrayType().getComponentType()).arrayType();
+        } else if (type.isClassOrInterfaceType()) {
+            String name = type.asClassOrInterfaceType().getNameWithScope();
+            return find(name).orElseThrow(() -> new UnsupportedByteCodeException("Unable to resolve type " + name));
+        }
+        throw new UnsupportedByteCodeException("Unsupported type " + type);
+    }
+
+    /**
+     * Finds the class with the given, possibly qualified, source name.
+     */
+    Optional<Class<?>> find(String name) {
+        Optional<Class<?>> found = cache.get(name);
+        if (found == null) {
+            found = Optional.ofNullable(lookup(name));
+            cache.put(name, found);
+        }
+        return found;
+    }
+
+    private Class<?> lookup(String name) {
+        String[] segments = name.split("\\.");
+        // the longest prefix naming a top level type, followed by nested type names
+        for (int i = 1; i <= segments.length; i++) {
+            Class<?> outer = i == 1 ? findSimpleName(segments[0]) : load(String.join(".", List.of(segments).subList(0, i)));
+            if (outer != null) {
+                Class<?> type = outer;
+                for (int j = i; j < segments.length && type != null; j++) {
+                    type = load(type.getName() + "$" + segments[j]);
+                }
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private Class<?> findSimpleName(String simpleName) {
+        for (String singleTypeImport : singleTypeImports) {
+            if (singleTypeImport.equals(simpleName) || singleTypeImport.endsWith("." + simpleName)) {
+                return loadNested(singleTypeImport);
+            }
+        }
+
+        Class<?> type = load(packageName.isEmpty() ? simpleName : packageName + "." + simpleName);
+        if (type != null) {
+            return type;
+        }
+
+        Set<Class<?>> candidates = new LinkedHashSet<>();
+        for (String onDemandImport : onDemandImports) {
+            Class<?> candidate = loadNested(onDemandImport + "." + simpleName);
+            if (candidate != null) {
+                candidates.add(candidate);
+            }
+        }
+        if (candidates.size() > 1) {
+            throw new UnsupportedByteCodeException("Ambiguous type name " + simpleName + ": " + candidates);
+        }
+        return candidates.isEmpty() ? null : candidates.iterator().next();
+    }
+
+    // tries a.b.C.D, then a.b.C$D, then a.b$C$D
+    private Class<?> loadNested(String qualifiedName) {
+        String binaryName = qualifiedName;
+        Class<?> type = load(binaryName);
+        int lastDot;
+        while (type == null && (lastDot = binaryName.lastIndexOf('.')) > 0) {
+            binaryName = binaryName.substring(0, lastDot) + "$" + binaryName.substring(lastDot + 1);
+            type = load(binaryName);
+        }
+        return type;
+    }
+
+    private Class<?> load(String binaryName) {
+        try {
+            return Class.forName(binaryName, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.bytecode;
+
+/**
+ * Thrown by {@link EvaluatorByteCodeGenerator} when the evaluator uses a construct outside the subset it can emit;
+ * callers are expected to fall back to javac.
+ */
+public class UnsupportedByteCodeException extends RuntimeException {
+
+    public UnsupportedByteCodeException(String message) {
+        super(message);
+    }
+
+    public UnsupportedByteCodeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
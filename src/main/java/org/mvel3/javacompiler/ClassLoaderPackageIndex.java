@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.javacompiler;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.JarURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+
+import static org.mvel3.javacompiler.JavaCompiler.jarUri;
+
+/**
+ * Index from package name to the class files that a <code>ClassLoader</code> exposes through jars, used to answer
+ * javac's package listings for classes that are not on the compiler's own classpath.
+ * <p>
+ * Each jar is scanned once, the first time one of its packages is requested, and every package answer is kept,
+ * so all the compilations against the same class loader share the index. An index lives as long as its class
+ * loader, or until {@link #invalidate(ClassLoader)} is called.
+ */
+public final class ClassLoaderPackageIndex {
+
+    private static final Map<ClassLoader, ClassLoaderPackageIndex> INDEXES = new WeakHashMap<>();
+
+    private final WeakReference<ClassLoader> classLoader;
+
+    // package name -> class files found in the class loader's jars
+    private final Map<String, List<JavaFileObject>> packages = new ConcurrentHashMap<>();
+
+    // jar uri -> (package folder -> class files)
+    private final Map<String, Map<String, List<JavaFileObject>>> jars = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    ClassLoaderPackageIndex(ClassLoader classLoader) {
+        this.classLoader = new WeakReference<>(classLoader);
+    }
+
+    /**
+     * Returns the index of the given class loader, creating an empty one on first use.
+     */
+    public static ClassLoaderPackageIndex forClassLoader(ClassLoader classLoader) {
+        synchronized (INDEXES) {
+            return INDEXES.computeIfAbsent(classLoader, ClassLoaderPackageIndex::new);
+        }
+    }
+
+    /**
+     * Drops the index of the given class loader, e.g. because its jars changed.
+     */
+    public static void invalidate(ClassLoader classLoader) {
+        synchronized (INDEXES) {
+            INDEXES.remove(classLoader);
+        }
+    }
+
+    /**
+     * Eagerly indexes the given packages, so that the first compilations do not pay for the jar scanning.
+     */
+    public void preload(Collection<String> packageNames) {
+        packageNames.forEach(this::classesInPackage);
+    }
+
+    /**
+     * Returns the class files of the given package found in the class loader's jars. Directories are not
+     * indexed, as the compiler's file manager already lists them.
+     */
+    public List<JavaFileObject> classesInPackage(String packageName) {
+        List<JavaFileObject> classes = packages.get(packageName);
+        if (classes != null) {
+            hits.increment();
+            return classes;
+        }
+        misses.increment();
+        return packages.computeIfAbsent(packageName, this::findClassesInJars);
+    }
+
+    private List<JavaFileObject> findClassesInJars(String packageName) {
+        ClassLoader loader = classLoader.get();
+        if (loader == null) {
+            return Collections.emptyList();
+        }
+        String packageFolder = packageName.replace('.', '/');
+        try {
+            Enumeration<URL> urlEnumeration = loader.getResources(packageFolder);
+            List<JavaFileObject> result = new ArrayList<>();
+            while (urlEnumeration.hasMoreElements()) { // one URL for each jar on the classpath that has the given package
+                URL packageFolderURL = urlEnumeration.nextElement();
+                if (!new File(packageFolderURL.getFile()).isDirectory()) {
+                    Map<String, List<JavaFileObject>> jar = jars.computeIfAbsent(jarUri(packageFolderURL.toExternalForm()),
+                                                                                 uri -> indexJar(uri, packageFolderURL));
+                    result.addAll(jar.getOrDefault(packageFolder, Collections.emptyList()));
+                }
+            }
+            return Collections.unmodifiableList(result);
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static Map<String, List<JavaFileObject>> indexJar(String jarUri, URL packageFolderURL) {
+        Map<String, List<JavaFileObject>> folders = new HashMap<>();
+        try {
+            URLConnection urlConnection = packageFolderURL.openConnection();
+            if (!(urlConnection instanceof JarURLConnection)) {
+                return folders;
+            }
+
+            Enumeration<JarEntry> entryEnum = ((JarURLConnection) urlConnection).getJarFile().entries();
+            while (entryEnum.hasMoreElements()) {
+                String name = entryEnum.nextElement().getName();
+                int lastSlash = name.lastIndexOf('/');
+                if (lastSlash > 0 && name.endsWith(".class")) {
+                    URI uri = URI.create(jarUri + "!/" + name);
+                    String binaryName = name.substring(0, name.length() - 6).replace('/', '.');
+                    folders.computeIfAbsent(name.substring(0, lastSlash), k -> new ArrayList<>())
+                           .add(new JavaCompiler.CustomJavaFileObject(binaryName, uri));
+                }
+            }
+        } catch (IOException e) {
+            // an unreadable jar contributes no classes
+        }
+        return folders;
+    }
+
+    /**
+     * Number of package lookups answered from the index.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of package lookups that required scanning the class loader's jars.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getIndexedPackageCount() {
+        return packages.size();
+    }
+
+    public int getIndexedJarCount() {
+        return jars.size();
+    }
+}
@@ -38,19 +38,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
-import java.net.JarURLConnection;
 import java.net.URI;
-import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.jar.JarEntry;
 
 /**
  * The general compiler interface. All compilers implementing
@@ -105,51 +100,73 @@ public class JavaCompiler {
         this.javaCompilerSettings = javaCompilerSettings;
     }
 
+    public JavaCompilerSettings getJavaCompilerSettings() {
+        return javaCompilerSettings != null ? javaCompilerSettings : createDefaultSettings();
+    }
+
     public CompilationResult compile( String[] pResourcePaths,
                                       ResourceReader pReader,
                                       ResourceStore pStore,
                                       ClassLoader pClassLoader,
                                       JavaCompilerSettings pSettings) {
-        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
         javax.tools.JavaCompiler compiler = getJavaCompiler();
 
-        try (StandardJavaFileManager jFileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
-            try {
-                jFileManager.setLocation(StandardLocation.CLASS_PATH, pSettings.getClasspathLocations());
-                jFileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(new File("target/classes")));
-            } catch (IOException e) {
-                // ignore if cannot set the classpath
-            }
+        try (StandardJavaFileManager jFileManager = compiler.getStandardFileManager(null, null, null)) {
+            configureLocations(jFileManager, pSettings);
+            return compile(compiler, jFileManager, pResourcePaths, pReader, pStore, pClassLoader, pSettings);
+        } catch (IOException e) {
+            throw new RuntimeException( e );
+        }
+    }
 
-            try (MemoryFileManager fileManager = new MemoryFileManager( jFileManager, pClassLoader )) {
-                final List<JavaFileObject> units = new ArrayList<>();
-                for (final String sourcePath : pResourcePaths) {
-                    units.add( new CompilationUnit(PortablePath.of(sourcePath), pReader ));
-                }
+    /**
+     * Compiles against an already configured file manager, which is left open so that it can be
+     * reused by subsequent compilations. See {@link JavaCompilerSession}.
+     */
+    CompilationResult compile( javax.tools.JavaCompiler compiler,
+                               StandardJavaFileManager jFileManager,
+                               String[] pResourcePaths,
+                               ResourceReader pReader,
+                               ResourceStore pStore,
+                               ClassLoader pClassLoader,
+                               JavaCompilerSettings pSettings) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
 
-                Iterable<String> options = new JavaCompilerSettings( pSettings ).toOptionsList();
+        // the MemoryFileManager only forwards to jFileManager, so it is not closed here: closing it would close the delegate
+        MemoryFileManager fileManager = new MemoryFileManager( jFileManager, pClassLoader );
+        final List<JavaFileObject> units = new ArrayList<>();
+        for (final String sourcePath : pResourcePaths) {
+            units.add( new CompilationUnit(PortablePath.of(sourcePath), pReader ));
+        }
 
-                if ( compiler.getTask( null, fileManager, diagnostics, options, null, units ).call() ) {
-                    for (CompilationOutput compilationOutput : fileManager.getOutputs()) {
-                        pStore.write( compilationOutput.getBinaryName().replace( '.', '/' ) + ".class", compilationOutput.toByteArray() );
-                    }
-                    return new CompilationResult( new CompilationProblem[0] );
-                }
-            }
+        Iterable<String> options = new JavaCompilerSettings( pSettings ).toOptionsList();
 
-            List<Diagnostic<? extends JavaFileObject>> problems = diagnostics.getDiagnostics();
-            CompilationProblem[] result = new CompilationProblem[problems.size()];
-            for (int i = 0; i < problems.size(); i++) {
-                result[i] = new CompilationProblem( ( Diagnostic<JavaFileObject> ) problems.get( i ) );
+        if ( compiler.getTask( null, fileManager, diagnostics, options, null, units ).call() ) {
+            for (CompilationOutput compilationOutput : fileManager.getOutputs()) {
+                pStore.write( compilationOutput.getBinaryName().replace( '.', '/' ) + ".class", compilationOutput.toByteArray() );
             }
+            return new CompilationResult( new CompilationProblem[0] );
+        }
+
+        List<Diagnostic<? extends JavaFileObject>> problems = diagnostics.getDiagnostics();
+        CompilationProblem[] result = new CompilationProblem[problems.size()];
+        for (int i = 0; i < problems.size(); i++) {
+            result[i] = new CompilationProblem( ( Diagnostic<JavaFileObject> ) problems.get( i ) );
+        }
 
-            return new CompilationResult( result );
+        return new CompilationResult( result );
+    }
+
+    static void configureLocations(StandardJavaFileManager jFileManager, JavaCompilerSettings pSettings) {
+        try {
+            jFileManager.setLocation(StandardLocation.CLASS_PATH, pSettings.getClasspathLocations());
+            jFileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(new File("target/classes")));
         } catch (IOException e) {
-            throw new RuntimeException( e );
+            // ignore if cannot set the classpath
         }
     }
 
-    private javax.tools.JavaCompiler getJavaCompiler() {
+    static javax.tools.JavaCompiler getJavaCompiler() {
         javax.tools.JavaCompiler compiler = null;
         Throwable cause = null;
         try {
@@ -190,7 +207,7 @@ public class JavaCompiler {
         }
     }
 
-    private interface DroolsJavaFileObject extends JavaFileObject {
+    interface DroolsJavaFileObject extends JavaFileObject {
         String getBinaryName();
     }
 
@@ -247,7 +264,7 @@ public class JavaCompiler {
         }
     }
 
-    private static class CustomJavaFileObject implements DroolsJavaFileObject {
+    static class CustomJavaFileObject implements DroolsJavaFileObject {
         private final String binaryName;
         private final URI uri;
         private final String name;
@@ -377,55 +394,9 @@ public class JavaCompiler {
         // This workaround is necessary when other jars are loaded in an external class loader
         // and is an optimization of the solution suggested in the following post
         // http://atamur.blogspot.it/2009/10/using-built-in-javacompiler-with-custom.html
+        // The jar listings are indexed once per ClassLoader, and shared by all the compilations.
         private List<JavaFileObject> findClassesInExternalJars(String packageName) {
-            try {
-                Enumeration<URL> urlEnumeration = classLoader.getResources(packageName.replace('.', '/'));
-                List<JavaFileObject> result = new ArrayList<>();
-                while (urlEnumeration.hasMoreElements()) { // one URL for each jar on the classpath that has the given package
-                    URL packageFolderURL = urlEnumeration.nextElement();
-                    if (!new File(packageFolderURL.getFile()).isDirectory()) {
-                        if (result == null) {
-                            result = processJar(packageFolderURL);
-                        } else {
-                            List<JavaFileObject> classesInJar = processJar(packageFolderURL);
-                            if (classesInJar != null) {
-                                result.addAll(classesInJar);
-                            }
-                        }
-                    }
-                }
-                return result;
-            } catch (IOException e) {
-                return Collections.emptyList();
-            }
-        }
-
-        private List<JavaFileObject> processJar(URL packageFolderURL) throws IOException {
-            String jarUri = jarUri(packageFolderURL.toExternalForm());
-
-            URLConnection urlConnection = packageFolderURL.openConnection();
-            if (!(urlConnection instanceof JarURLConnection)) {
-                return null;
-            }
-
-            JarURLConnection jarConn = (JarURLConnection) urlConnection;
-            String rootEntryName = jarConn.getEntryName();
-            int rootEnd = rootEntryName.length()+1;
-
-            List<JavaFileObject> result = null;
-            Enumeration<JarEntry> entryEnum = jarConn.getJarFile().entries();
-            while (entryEnum.hasMoreElements()) {
-                String name = entryEnum.nextElement().getName();
-                if ( name.startsWith( rootEntryName ) && name.indexOf( '/', rootEnd ) == -1 && name.endsWith( ".class" ) ) {
-                    URI uri = URI.create( jarUri + "!/" + name );
-                    String binaryName = name.substring( 0, name.length() - 6 ).replace( '/', '.' );
-                    if ( result == null ) {
-                        result = new ArrayList<>();
-                    }
-                    result.add( new CustomJavaFileObject( binaryName, uri ) );
-                }
-            }
-            return result;
+            return ClassLoaderPackageIndex.forClassLoader(classLoader).classesInPackage(packageName);
         }
 
         List<CompilationOutput> getOutputs() {
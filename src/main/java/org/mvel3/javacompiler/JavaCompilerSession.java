@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.javacompiler;
+
+import javax.tools.StandardJavaFileManager;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.mvel3.javacompiler.JavaConfiguration.findJavaVersion;
+
+/**
+ * A long-lived javac session bound to a single <code>ClassLoader</code>.
+ * <p>
+ * The session keeps the system compiler, its <code>StandardJavaFileManager</code> (and so the already opened
+ * classpath archives) and the default compiler settings warm across compilations, instead of recreating them
+ * for every evaluator. javac file managers are not thread-safe, so compilations on the same session are
+ * serialised; compilations on sessions bound to different class loaders run independently.
+ * <p>
+ * Use {@link #forClassLoader(ClassLoader)} to obtain the shared session of a class loader. Callers compiling in
+ * parallel on the same class loader {@link #borrow(ClassLoader) borrow} additional sessions and
+ * {@link #release(JavaCompilerSession) release} them, so they stay warm for the next parallel compilation. Sessions
+ * only keep a weak reference to their class loader, so a discarded loader does not leak through the session cache.
+ */
+public final class JavaCompilerSession implements AutoCloseable {
+
+    private static final Map<ClassLoader, JavaCompilerSession> SESSIONS = new WeakHashMap<>();
+
+    // the idle sessions released per class loader, besides the shared one; guarded by SESSIONS
+    private static final Map<ClassLoader, Deque<JavaCompilerSession>> IDLE_SESSIONS = new WeakHashMap<>();
+
+    /** The most idle sessions kept per class loader, further released sessions are closed. */
+    static final int MAX_IDLE_SESSIONS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private final WeakReference<ClassLoader> classLoader;
+
+    private final JavaCompiler compiler;
+
+    private final javax.tools.JavaCompiler javac;
+
+    private final StandardJavaFileManager fileManager;
+
+    private final JavaCompilerSettings settings;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private boolean closed;
+
+    public JavaCompilerSession(ClassLoader classLoader) {
+        this(classLoader, createSettings());
+    }
+
+    public JavaCompilerSession(ClassLoader classLoader, JavaCompilerSettings settings) {
+        this.classLoader = new WeakReference<>(classLoader);
+        this.compiler = new JavaCompiler();
+        this.javac = JavaCompiler.getJavaCompiler();
+        this.fileManager = javac.getStandardFileManager(null, null, null);
+        this.settings = settings;
+        JavaCompiler.configureLocations(fileManager, settings);
+    }
+
+    /**
+     * Returns the shared session for the given class loader, creating it on first use.
+     */
+    public static JavaCompilerSession forClassLoader(ClassLoader classLoader) {
+        synchronized (SESSIONS) {
+            JavaCompilerSession session = SESSIONS.get(classLoader);
+            if (session == null || session.isClosed()) {
+                session = new JavaCompilerSession(classLoader);
+                SESSIONS.put(classLoader, session);
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Returns a session for the given class loader that is not used by anyone else, an idle one released earlier
+     * or a new one. Hand it back with {@link #release(JavaCompilerSession)} instead of closing it.
+     */
+    public static JavaCompilerSession borrow(ClassLoader classLoader) {
+        synchronized (SESSIONS) {
+            Deque<JavaCompilerSession> idle = IDLE_SESSIONS.get(classLoader);
+            while (idle != null && !idle.isEmpty()) {
+                JavaCompilerSession session = idle.pop();
+                if (!session.isClosed()) {
+                    return session;
+                }
+            }
+        }
+        return new JavaCompilerSession(classLoader);
+    }
+
+    /**
+     * Keeps a session obtained from {@link #borrow(ClassLoader)} warm for the next borrower, or closes it when its
+     * class loader already has {@link #MAX_IDLE_SESSIONS} idle sessions.
+     */
+    public static void release(JavaCompilerSession session) {
+        ClassLoader classLoader = session.classLoader.get();
+        if (classLoader != null && !session.isClosed()) {
+            synchronized (SESSIONS) {
+                Deque<JavaCompilerSession> idle = IDLE_SESSIONS.computeIfAbsent(classLoader, k -> new ArrayDeque<>());
+                if (idle.size() < MAX_IDLE_SESSIONS) {
+                    idle.push(session);
+                    return;
+                }
+            }
+        }
+        session.close();
+    }
+
+    /**
+     * Closes and forgets the shared session and the idle borrowed sessions of the given class loader, if any,
+     * together with its {@link ClassLoaderPackageIndex}. The next call to {@link #forClassLoader(ClassLoader)}
+     * starts a cold session.
+     */
+    public static void invalidate(ClassLoader classLoader) {
+        List<JavaCompilerSession> sessions = new ArrayList<>();
+        synchronized (SESSIONS) {
+            JavaCompilerSession session = SESSIONS.remove(classLoader);
+            if (session != null) {
+                sessions.add(session);
+            }
+            Deque<JavaCompilerSession> idle = IDLE_SESSIONS.remove(classLoader);
+            if (idle != null) {
+                sessions.addAll(idle);
+            }
+        }
+        ClassLoaderPackageIndex.invalidate(classLoader);
+        for (JavaCompilerSession session : sessions) {
+            session.close();
+        }
+    }
+
+    private static JavaCompilerSettings createSettings() {
+        JavaConfiguration javaConfiguration = new JavaConfiguration();
+        javaConfiguration.setJavaLanguageLevel(findJavaVersion());
+        return JavaCompilerFactory.loadCompiler(javaConfiguration).getJavaCompilerSettings();
+    }
+
+    public ClassLoader getClassLoader() {
+        ClassLoader loader = classLoader.get();
+        if (loader == null) {
+            throw new IllegalStateException("The ClassLoader of this JavaCompilerSession has been garbage collected");
+        }
+        return loader;
+    }
+
+    public JavaCompilerSettings getSettings() {
+        return settings;
+    }
+
+    public CompilationResult compile(String[] resourcePaths, ResourceReader reader, ResourceStore store) {
+        return compile(resourcePaths, reader, store, settings);
+    }
+
+    public CompilationResult compile(String[] resourcePaths, ResourceReader reader, ResourceStore store, JavaCompilerSettings compilerSettings) {
+        ClassLoader loader = getClassLoader();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("JavaCompilerSession is closed");
+            }
+            // only a different classpath requires touching the warm file manager, other settings are per task options
+            boolean customClasspath = compilerSettings.getClasspathLocations() != null &&
+                                      compilerSettings.getClasspathLocations() != settings.getClasspathLocations();
+            if (customClasspath) {
+                JavaCompiler.configureLocations(fileManager, compilerSettings);
+            }
+            try {
+                return compiler.compile(javac, fileManager, resourcePaths, reader, store, loader, compilerSettings);
+            } finally {
+                if (customClasspath) {
+                    JavaCompiler.configureLocations(fileManager, settings);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            fileManager.close();
+        } catch (IOException e) {
+            throw new KieMemoryCompilerException("Unable to close the javac file manager", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
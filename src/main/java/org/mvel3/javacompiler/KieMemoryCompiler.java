@@ -29,8 +29,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static org.mvel3.javacompiler.JavaConfiguration.findJavaVersion;
-
 public class KieMemoryCompiler {
 
     private KieMemoryCompiler() { }
@@ -63,19 +61,43 @@ public class KieMemoryCompiler {
         classManager.define(byteCode);
     }
 
+    /**
+     * Compile the given sources on the given warm <code>JavaCompilerSession</code>, and define them in the <code>ClassManager</code>.
+     *
+     * @param classManager
+     * @param classNameSourceMap
+     * @param session
+     */
+    public static void compile(ClassManager classManager, Map<String, String> classNameSourceMap, JavaCompilerSession session) {
+        Map<String, byte[]> byteCode = compileNoLoad(classNameSourceMap, session, null);
+        classManager.define(byteCode);
+    }
+
     /**
      * Compile and optionally persist generated bytecode to an output directory.
      */
     public static List<Path> compileAndPersist(ClassManager classManager, Map<String, String> classNameSourceMap,
                                                ClassLoader classLoader, JavaCompilerSettings compilerSettings,
                                                Path outputDirectory) {
-        Map<String, byte[]> byteCode = compileNoLoad(classNameSourceMap, classLoader, compilerSettings);
+        return compileAndPersist(classManager, classNameSourceMap, JavaCompilerSession.forClassLoader(classLoader), compilerSettings, outputDirectory);
+    }
+
+    /**
+     * Compile on the given warm <code>JavaCompilerSession</code> and persist generated bytecode to an output directory.
+     */
+    public static List<Path> compileAndPersist(ClassManager classManager, Map<String, String> classNameSourceMap,
+                                               JavaCompilerSession session, JavaCompilerSettings compilerSettings,
+                                               Path outputDirectory) {
+        Map<String, byte[]> byteCode = compileNoLoad(classNameSourceMap, session, compilerSettings);
         List<Path> persistedFiles = persistByteCode(byteCode, outputDirectory);
         classManager.define(byteCode);
         return persistedFiles;
     }
 
-    private static List<Path> persistByteCode(Map<String, byte[]> byteCode, Path outputDirectory) {
+    /**
+     * Writes the given bytecode as class files under the output directory, and returns the written files.
+     */
+    public static List<Path> persistByteCode(Map<String, byte[]> byteCode, Path outputDirectory) {
         List<Path> persistedFiles = new ArrayList<>();
         byteCode.forEach((className, bytes) -> {
             String fileName = className.replace('.', '/') + ".class";
@@ -101,6 +123,19 @@ public class KieMemoryCompiler {
      * @return
      */
     public static Map<String, byte[]> compileNoLoad(Map<String, String> classNameSourceMap, ClassLoader classLoader, JavaCompilerSettings compilerSettings) {
+        return compileNoLoad(classNameSourceMap, JavaCompilerSession.forClassLoader(classLoader), compilerSettings);
+    }
+
+    /**
+     * Compile the given sources on the given warm <code>JavaCompilerSession</code> and returns the generated byte codes.
+     * The session's own settings are used when <code>compilerSettings</code> is null.
+     *
+     * @param classNameSourceMap
+     * @param session
+     * @param compilerSettings
+     * @return
+     */
+    public static Map<String, byte[]> compileNoLoad(Map<String, String> classNameSourceMap, JavaCompilerSession session, JavaCompilerSettings compilerSettings) {
         MemoryResourceReader reader = new MemoryResourceReader();
         MemoryResourceStore store = new MemoryResourceStore();
         String[] classNames = new String[classNameSourceMap.size()];
@@ -111,12 +146,9 @@ public class KieMemoryCompiler {
             reader.add( classNames[i], entry.getValue().getBytes());
             i++;
         }
-        JavaConfiguration javaConfiguration = new JavaConfiguration();
-        javaConfiguration.setJavaLanguageLevel(findJavaVersion());
-        JavaCompiler compiler = JavaCompilerFactory.loadCompiler(javaConfiguration);
         CompilationResult res = compilerSettings == null ?
-                compiler.compile( classNames, reader, store, classLoader) :
-                compiler.compile( classNames, reader, store, classLoader, compilerSettings);
+                session.compile( classNames, reader, store) :
+                session.compile( classNames, reader, store, compilerSettings);
 
         if (res.getErrors().length > 0) {
             throw new KieMemoryCompilerException(Arrays.toString( res.getErrors() ));
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Defining compiled classes in a {@link org.mvel3.ClassManager}. The evaluator class is only set when a single
+ * class is defined, and the physical id only when the lambda is persisted.
+ */
+@Name("org.mvel3.Define")
+@Label("MVEL Define")
+@Category({"MVEL", "Compilation"})
+@Description("Defining compiled evaluator classes as hidden classes")
+public final class DefineEvent extends jdk.jfr.Event {
+
+    @Label("Evaluator Class")
+    public String evaluatorClass;
+
+    @Label("Physical Id")
+    public int physicalId = -1;
+
+    @Label("Classes")
+    public int classes;
+
+    @Label("Bytecode Size")
+    @DataAmount
+    public long byteCodeBytes;
+}
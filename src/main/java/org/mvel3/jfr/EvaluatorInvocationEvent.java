@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A sampled evaluation of a generated evaluator, see {@link EvaluatorSampling}. Each event stands for
+ * {@code sampleInterval} evaluations.
+ */
+@Name("org.mvel3.EvaluatorInvocation")
+@Label("MVEL Evaluator Invocation")
+@Category({"MVEL", "Evaluation"})
+@Description("A sampled evaluation of a compiled MVEL expression")
+public final class EvaluatorInvocationEvent extends jdk.jfr.Event {
+
+    @Label("Evaluator Class")
+    public String evaluatorClass;
+
+    @Label("Sample Interval")
+    public int sampleInterval;
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.jfr;
+
+import java.util.List;
+
+import org.mvel3.BooleanEvaluator;
+import org.mvel3.ColumnEvaluator;
+import org.mvel3.DoubleEvaluator;
+import org.mvel3.Evaluator;
+import org.mvel3.IntEvaluator;
+import org.mvel3.LongEvaluator;
+import org.mvel3.MemoisingEvaluator;
+
+/**
+ * Opt-in sampling of evaluations into {@link EvaluatorInvocationEvent}s, so Flight Recorder attributes the time
+ * spent in hot expressions to their evaluator class without a bytecode agent. Set the system property
+ * {@value #SAMPLE_INTERVAL_PROPERTY} to n to record one evaluation in n of each evaluator returned by the
+ * {@link org.mvel3.MVELCompiler}; sampling is off by default.
+ * <p>
+ * A sampled evaluator wraps the generated one and delegates every {@link Evaluator} method to it, but only those, so
+ * its class is not the generated class. These shapes are therefore returned unsampled, as the wrapper would hide what
+ * they add to {@code Evaluator}:
+ * <ul>
+ *     <li>primitive evaluators, e.g. {@link BooleanEvaluator}, and their {@code evalBoolean} methods;</li>
+ *     <li>{@link ColumnEvaluator}s, and their {@code evalColumns} loops;</li>
+ *     <li>{@link MemoisingEvaluator}s, and their {@code memoCache};</li>
+ *     <li>evaluators extending a class, see {@link org.mvel3.MVELBuilder#generatedSuperName(String)}, which callers
+ *     may test with {@code instanceof}.</li>
+ * </ul>
+ */
+public final class EvaluatorSampling {
+
+    public static final String SAMPLE_INTERVAL_PROPERTY = "mvel3.jfr.evaluator.sampleInterval";
+
+    private static final int SAMPLE_INTERVAL = Integer.getInteger(SAMPLE_INTERVAL_PROPERTY, 0);
+
+    private EvaluatorSampling() {}
+
+    public static boolean isEnabled() {
+        return SAMPLE_INTERVAL > 0;
+    }
+
+    /**
+     * Returns the evaluator sampled with the configured interval, or the evaluator itself when sampling is off.
+     */
+    public static <C, W, O> Evaluator<C, W, O> sampled(Evaluator<C, W, O> evaluator, String evaluatorClass) {
+        return sampled(evaluator, evaluatorClass, SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Returns the evaluator recording one evaluation in {@code interval}, or the evaluator itself when the
+     * interval is 0 or less.
+     */
+    public static <C, W, O> Evaluator<C, W, O> sampled(Evaluator<C, W, O> evaluator, String evaluatorClass, int interval) {
+        if (interval <= 0 || evaluator instanceof SampledEvaluator || isPrimitive(evaluator) ||
+            evaluator instanceof ColumnEvaluator || evaluator instanceof MemoisingEvaluator ||
+            evaluator.getClass().getSuperclass() != Object.class) {
+            return evaluator;
+        }
+        return new SampledEvaluator<>(evaluator, evaluatorClass, interval);
+    }
+
+    private static boolean isPrimitive(Evaluator<?, ?, ?> evaluator) {
+        return evaluator instanceof BooleanEvaluator || evaluator instanceof IntEvaluator ||
+               evaluator instanceof LongEvaluator || evaluator instanceof DoubleEvaluator;
+    }
+
+    // overrides every method of Evaluator, which JfrEventsTest checks, so none falls back to its default
+    private static final class SampledEvaluator<C, W, O> implements Evaluator<C, W, O> {
+
+        private final Evaluator<C, W, O> delegate;
+
+        private final String evaluatorClass;
+
+        private final int interval;
+
+        // racy on purpose: a lost update only shifts which evaluation is sampled
+        private int countdown;
+
+        private SampledEvaluator(Evaluator<C, W, O> delegate, String evaluatorClass, int interval) {
+            this.delegate = delegate;
+            this.evaluatorClass = evaluatorClass;
+            this.interval = interval;
+            this.countdown = interval;
+        }
+
+        @Override
+        public O eval(C c) {
+            if (--countdown > 0) {
+                return delegate.eval(c);
+            }
+            EvaluatorInvocationEvent event = begin();
+            try {
+                return delegate.eval(c);
+            } finally {
+                commit(event);
+            }
+        }
+
+        @Override
+        public O eval(C c, W w) {
+            if (--countdown > 0) {
+                return delegate.eval(c, w);
+            }
+            EvaluatorInvocationEvent event = begin();
+            try {
+                return delegate.eval(c, w);
+            } finally {
+                commit(event);
+            }
+        }
+
+        @Override
+        public O evalWith(W w) {
+            if (--countdown > 0) {
+                return delegate.evalWith(w);
+            }
+            EvaluatorInvocationEvent event = begin();
+            try {
+                return delegate.evalWith(w);
+            } finally {
+                commit(event);
+            }
+        }
+
+        // batches are not sampled, so the loop stays in the delegate, calling its own eval
+        @Override
+        public void evalBatch(List<? extends C> cs, int offset, int length, O[] results) {
+            delegate.evalBatch(cs, offset, length, results);
+        }
+
+        @Override
+        public void evalBatch(C[] cs, int offset, int length, O[] results) {
+            delegate.evalBatch(cs, offset, length, results);
+        }
+
+        @Override
+        public String[] getReadProperties() {
+            return delegate.getReadProperties();
+        }
+
+        @Override
+        public String[] getWriteProperties() {
+            return delegate.getWriteProperties();
+        }
+
+        @Override
+        public long[] getReadMask() {
+            return delegate.getReadMask();
+        }
+
+        @Override
+        public long[] getWriteMask() {
+            return delegate.getWriteMask();
+        }
+
+        @Override
+        public boolean isPure() {
+            return delegate.isPure();
+        }
+
+        @Override
+        public boolean writesContext() {
+            return delegate.writesContext();
+        }
+
+        @Override
+        public boolean callsExternalMethods() {
+            return delegate.callsExternalMethods();
+        }
+
+        private EvaluatorInvocationEvent begin() {
+            countdown = interval;
+            EvaluatorInvocationEvent event = new EvaluatorInvocationEvent();
+            event.begin();
+            return event;
+        }
+
+        private void commit(EvaluatorInvocationEvent event) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.evaluatorClass = evaluatorClass;
+                event.sampleInterval = interval;
+                event.commit();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "SampledEvaluator{" + evaluatorClass + ", 1/" + interval + "}";
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Compiling generated Java sources to bytecode with javac. The evaluator class is only set when a single class is
+ * compiled, and the physical id only when the lambda is persisted.
+ */
+@Name("org.mvel3.Javac")
+@Label("MVEL Javac")
+@Category({"MVEL", "Compilation"})
+@Description("Compiling generated evaluator sources with javac")
+public final class JavacEvent extends jdk.jfr.Event {
+
+    @Label("Evaluator Class")
+    public String evaluatorClass;
+
+    @Label("Physical Id")
+    public int physicalId = -1;
+
+    @Label("Classes")
+    public int classes;
+
+    @Label("Source Size")
+    @DataAmount
+    public long sourceBytes;
+
+    @Label("Bytecode Size")
+    @DataAmount
+    public long byteCodeBytes;
+}
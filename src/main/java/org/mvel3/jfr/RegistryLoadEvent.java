@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Reading the lambda registry file of the {@link org.mvel3.lambdaextractor.LambdaRuntime}.
+ */
+@Name("org.mvel3.RegistryLoad")
+@Label("MVEL Lambda Registry Load")
+@Category({"MVEL", "Lambda Registry"})
+@Description("Loading the persisted lambda catalog and artifacts")
+public final class RegistryLoadEvent extends jdk.jfr.Event {
+
+    @Label("Registry File")
+    public String registryFile;
+
+    @Label("Catalog Entries")
+    public int entries;
+
+    @Label("Artifacts")
+    public int artifacts;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileBytes;
+}
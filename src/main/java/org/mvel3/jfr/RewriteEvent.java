@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Rewriting the MVEL constructs of a transpiled eval method into Java.
+ */
+@Name("org.mvel3.Rewrite")
+@Label("MVEL Rewrite")
+@Category({"MVEL", "Compilation"})
+@Description("Rewriting MVEL constructs into Java, resolving the types they use")
+public final class RewriteEvent extends jdk.jfr.Event {
+
+    @Label("Evaluator Class")
+    public String evaluatorClass;
+}
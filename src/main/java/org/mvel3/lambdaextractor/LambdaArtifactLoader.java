@@ -5,6 +5,7 @@ import java.nio.file.Files;
 import java.util.Map;
 
 import org.mvel3.ClassManager;
+import org.mvel3.jfr.PersistedArtifactLoadEvent;
 
 /**
  * Stateless helper for loading a persisted lambda classfile into a {@link ClassManager}.
@@ -16,11 +17,29 @@ public final class LambdaArtifactLoader {
     private LambdaArtifactLoader() {}
 
     public static Class<?> loadOrDefinePersistedClass(ClassManager cm, ArtifactRef ref) throws IOException {
+        return loadOrDefinePersistedClass(cm, ref, -1);
+    }
+
+    /**
+     * As {@link #loadOrDefinePersistedClass(ClassManager, ArtifactRef)}, recording the lambda's physicalId in the
+     * {@link PersistedArtifactLoadEvent}.
+     */
+    public static Class<?> loadOrDefinePersistedClass(ClassManager cm, ArtifactRef ref, int physicalId) throws IOException {
         if (cm.getClasses().containsKey(ref.fqn())) {
             return cm.getClass(ref.fqn());
         }
+        PersistedArtifactLoadEvent event = new PersistedArtifactLoadEvent();
+        event.begin();
         byte[] bytes = Files.readAllBytes(ref.classFile());
         cm.define(Map.of(ref.fqn(), bytes));
+        event.end();
+        if (event.shouldCommit()) {
+            event.evaluatorClass = ref.fqn();
+            event.physicalId = physicalId;
+            event.classFile = ref.classFile().toString();
+            event.byteCodeBytes = bytes.length;
+            event.commit();
+        }
         return cm.getClass(ref.fqn());
     }
 }
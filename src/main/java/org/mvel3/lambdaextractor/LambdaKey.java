@@ -54,6 +54,18 @@ public final class LambdaKey {
         return normalisedBody.equals(other.normalisedBody) && methodSignature.equals(other.methodSignature);
     }
 
+    /**
+     * The key of the same method in a class that declares more than the method, e.g. the batch methods: it only
+     * equals the keys of the same variant, so such a class is never reused for the plain one, or the other way round.
+     */
+    public LambdaKey withVariant(String variant) {
+        MethodSignatureInfo variantInfo = methodSignatureInfo == null ? null :
+                                          new MethodSignatureInfo(methodSignatureInfo.returnType,
+                                                                  methodSignatureInfo.methodName + "#" + variant,
+                                                                  methodSignatureInfo.parameterTypes);
+        return new LambdaKey(methodSignature + " #" + variant, normalisedBody, variantInfo);
+    }
+
     // test only
     void forceHash(int newHash) {
         this.hash = newHash;
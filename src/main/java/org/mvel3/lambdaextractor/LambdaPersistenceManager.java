@@ -40,6 +40,15 @@ public final class LambdaPersistenceManager {
         runtime.persistSnapshot();
     }
 
+    /** Attaches several artifacts with a single synchronous registry-file save. */
+    public void attachArtifacts(Map<Integer, ArtifactRef> refs) {
+        if (refs.isEmpty()) {
+            return;
+        }
+        artifacts.putAll(refs);
+        runtime.persistSnapshot();
+    }
+
     /** Internal: rehydrate from a loaded snapshot. */
     void applyArtifacts(Map<Integer, ArtifactRef> loaded) {
         artifacts.clear();
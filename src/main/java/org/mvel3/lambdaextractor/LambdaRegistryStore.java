@@ -2,26 +2,50 @@ package org.mvel3.lambdaextractor;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.zip.CRC32C;
 
 /**
- * Properties-based persistence for the lambda registry. Internal to LambdaRuntime;
+ * Binary persistence for the lambda registry. Internal to LambdaRuntime;
  * compilers should not interact with this class directly.
  * <p>
- * Format: {@code format.version=2}. See the design doc for the schema.
+ * Format version 3, big-endian:
+ * <pre>
+ * header       magic "MVLR", version, nextPhysicalId, nextLogicalId, entry count, pool length (6 ints),
+ *              CRC32C of the table and the pool (long)
+ * entry table  per catalog entry, sorted by physicalId: physicalId, then offset and length in the pool of the
+ *              methodSignature, normalizedBody, artifact fqn and artifact classFile (9 ints), offset -1 when the
+ *              entry has no artifact
+ * string pool  the UTF-8 strings, each distinct string stored once
+ * </pre>
+ * Version 2, a Properties file with {@code format.version=2}, is still loaded, see {@link #isCurrentFormat()}.
+ * LambdaRuntime always {@link #load() loads} the full snapshot, see the design doc for the schema.
  */
 final class LambdaRegistryStore {
 
-    private static final String FORMAT_VERSION = "2";
+    static final int FORMAT_VERSION = 3;
+    static final int MAGIC = 0x4D564C52; // "MVLR"
+    static final int HEADER_BYTES = 32;
+    static final int ENTRY_BYTES = 36;
+
+    private static final String LEGACY_FORMAT_VERSION = "2";
     private static final String KEY_VERSION = "format.version";
     private static final String KEY_NEXT_PHYSICAL = "catalog.nextPhysicalId";
     private static final String KEY_NEXT_LOGICAL = "catalog.nextLogicalId";
@@ -32,17 +56,288 @@ final class LambdaRegistryStore {
         this.file = file;
     }
 
+    /**
+     * Returns true when the file is in the binary format, false when it is a version 2 Properties file that the
+     * next {@link #save} migrates.
+     */
+    boolean isCurrentFormat() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // read the first 4 bytes
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
     LambdaPersistenceSnapshot load() throws IOException {
+        return isCurrentFormat() ? open().toSnapshot() : loadProperties();
+    }
+
+    /**
+     * Maps the binary file and checks its header and checksum, without decoding the entries. The checksum covers
+     * the whole file, so opening still reads every page once.
+     */
+    Index open() throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return Index.of(buffer);
+    }
+
+    void save(LambdaPersistenceSnapshot snapshot) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        ByteBuffer buffer = encode(snapshot);
+
+        // written aside and moved over, so a concurrent open never maps a partial file
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static ByteBuffer encode(LambdaPersistenceSnapshot snapshot) throws InvalidLambdaRegistryException {
+        List<CatalogEntry> entries = new ArrayList<>(snapshot.catalog().entries());
+        entries.sort(Comparator.comparingInt(CatalogEntry::physicalId));
+        for (int i = 1; i < entries.size(); i++) {
+            if (entries.get(i).physicalId() == entries.get(i - 1).physicalId()) {
+                throw new InvalidLambdaRegistryException("Duplicate catalog physicalId: " + entries.get(i).physicalId());
+            }
+        }
+        Set<Integer> physicalIds = new HashSet<>();
+        entries.forEach(e -> physicalIds.add(e.physicalId()));
+        for (Integer physicalId : snapshot.artifacts().keySet()) {
+            if (!physicalIds.contains(physicalId)) {
+                throw new InvalidLambdaRegistryException(
+                        "Artifact physicalId " + physicalId + " has no matching catalog entry");
+            }
+        }
+
+        StringPool pool = new StringPool();
+        int[] table = new int[entries.size() * 9];
+        for (int i = 0; i < entries.size(); i++) {
+            CatalogEntry entry = entries.get(i);
+            ArtifactRef artifact = snapshot.artifacts().get(entry.physicalId());
+            int at = i * 9;
+            table[at] = entry.physicalId();
+            pool.add(entry.methodSignature(), table, at + 1);
+            pool.add(entry.normalizedBody(), table, at + 3);
+            pool.add(artifact != null ? artifact.fqn() : null, table, at + 5);
+            pool.add(artifact != null ? artifact.classFile().toString() : null, table, at + 7);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + table.length * 4 + pool.length());
+        buffer.putInt(MAGIC)
+              .putInt(FORMAT_VERSION)
+              .putInt(snapshot.catalog().nextPhysicalId())
+              .putInt(snapshot.catalog().nextLogicalId())
+              .putInt(entries.size())
+              .putInt(pool.length())
+              .putLong(0); // the checksum, once the rest is written
+        buffer.asIntBuffer().put(table);
+        buffer.position(HEADER_BYTES + table.length * 4);
+        pool.writeTo(buffer);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(HEADER_BYTES));
+        buffer.putLong(24, crc.getValue());
+        return buffer.flip();
+    }
+
+    /**
+     * A read-only view of a binary registry: the entries are decoded on access, and found by physicalId with a
+     * binary search of the entry table.
+     */
+    static final class Index {
+
+        private final ByteBuffer buffer;
+
+        private final int entries;
+
+        private final int poolStart;
+
+        private final int poolLength;
+
+        private Index(ByteBuffer buffer, int entries, int poolLength) {
+            this.buffer = buffer;
+            this.entries = entries;
+            this.poolStart = HEADER_BYTES + entries * ENTRY_BYTES;
+            this.poolLength = poolLength;
+        }
+
+        static Index of(ByteBuffer buffer) throws InvalidLambdaRegistryException {
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new InvalidLambdaRegistryException("Not a binary lambda registry");
+            }
+            int version = buffer.getInt(4);
+            if (version != FORMAT_VERSION) {
+                throw new InvalidLambdaRegistryException(
+                        "Unsupported lambda-registry format version: " + version + " (expected " + FORMAT_VERSION + ")");
+            }
+            int entries = buffer.getInt(16);
+            int poolLength = buffer.getInt(20);
+            if (entries < 0 || poolLength < 0 ||
+                (long) HEADER_BYTES + (long) entries * ENTRY_BYTES + poolLength != buffer.capacity()) {
+                throw new InvalidLambdaRegistryException("Truncated lambda registry: " + entries + " entries and " +
+                                                         poolLength + " pool bytes in " + buffer.capacity() + " bytes");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate().position(HEADER_BYTES));
+            if (crc.getValue() != buffer.getLong(24)) {
+                throw new InvalidLambdaRegistryException("Lambda registry checksum mismatch");
+            }
+            return new Index(buffer, entries, poolLength);
+        }
+
+        int nextPhysicalId() {
+            return buffer.getInt(8);
+        }
+
+        int nextLogicalId() {
+            return buffer.getInt(12);
+        }
+
+        int size() {
+            return entries;
+        }
+
+        int physicalId(int index) {
+            return buffer.getInt(HEADER_BYTES + index * ENTRY_BYTES);
+        }
+
+        /**
+         * The index of the entry with the physicalId, or -1.
+         */
+        int indexOf(int physicalId) {
+            int low = 0;
+            int high = entries - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int id = physicalId(mid);
+                if (id < physicalId) {
+                    low = mid + 1;
+                } else if (id > physicalId) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        CatalogEntry entry(int index) throws InvalidLambdaRegistryException {
+            return new CatalogEntry(physicalId(index), string(index, 1), string(index, 3));
+        }
+
+        /**
+         * The artifact of the entry, or null when the entry has none.
+         */
+        ArtifactRef artifact(int index) throws InvalidLambdaRegistryException {
+            String fqn = string(index, 5);
+            if (fqn == null) {
+                return null;
+            }
+            String classFile = string(index, 7);
+            try {
+                return new ArtifactRef(fqn, Path.of(classFile));
+            } catch (InvalidPathException e) {
+                throw new InvalidLambdaRegistryException(
+                        "Invalid classFile path for artifact physicalId " + physicalId(index) + ": " + classFile, e);
+            }
+        }
+
+        LambdaPersistenceSnapshot toSnapshot() throws InvalidLambdaRegistryException {
+            List<CatalogEntry> catalog = new ArrayList<>(entries);
+            Map<Integer, ArtifactRef> artifacts = new HashMap<>();
+            for (int i = 0; i < entries; i++) {
+                if (i > 0 && physicalId(i) <= physicalId(i - 1)) {
+                    throw new InvalidLambdaRegistryException("Duplicate or unsorted catalog physicalId: " + physicalId(i));
+                }
+                catalog.add(entry(i));
+                ArtifactRef artifact = artifact(i);
+                if (artifact != null) {
+                    artifacts.put(physicalId(i), artifact);
+                }
+            }
+            return new LambdaPersistenceSnapshot(new CatalogSnapshot(nextPhysicalId(), nextLogicalId(), catalog), artifacts);
+        }
+
+        // the string referenced by the int pair at the field of the entry
+        private String string(int index, int field) throws InvalidLambdaRegistryException {
+            int at = HEADER_BYTES + index * ENTRY_BYTES + field * 4;
+            int offset = buffer.getInt(at);
+            int length = buffer.getInt(at + 4);
+            if (offset == -1) {
+                return null;
+            }
+            if (offset < 0 || length < 0 || (long) offset + length > poolLength) {
+                throw new InvalidLambdaRegistryException("String out of the pool in entry " + index);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(poolStart + offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // the distinct strings of the registry, the method signatures in particular repeat
+    private static final class StringPool {
+
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        private final List<byte[]> strings = new ArrayList<>();
+
+        private int length;
+
+        private void add(String value, int[] table, int at) {
+            if (value == null) {
+                table[at] = -1;
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                offset = length;
+                offsets.put(value, offset);
+                strings.add(bytes);
+                length += bytes.length;
+            }
+            table[at] = offset;
+            table[at + 1] = bytes.length;
+        }
+
+        private int length() {
+            return length;
+        }
+
+        private void writeTo(ByteBuffer buffer) {
+            strings.forEach(buffer::put);
+        }
+    }
+
+    // format version 2, the Properties file written before the binary format
+    private LambdaPersistenceSnapshot loadProperties() throws IOException {
         Properties props = new Properties();
         try (InputStream in = Files.newInputStream(file)) {
             props.load(in);
         }
         String version = props.getProperty(KEY_VERSION);
-        if (!FORMAT_VERSION.equals(version)) {
+        if (!LEGACY_FORMAT_VERSION.equals(version)) {
             throw new InvalidLambdaRegistryException(
-                    "Unsupported lambda-registry format.version: " + version + " (expected " + FORMAT_VERSION + ")");
+                    "Unsupported lambda-registry format.version: " + version + " (expected " + LEGACY_FORMAT_VERSION +
+                    " or the binary format " + FORMAT_VERSION + ")");
         }
-
         int nextPhysical = requiredInt(props, KEY_NEXT_PHYSICAL);
         int nextLogical = requiredInt(props, KEY_NEXT_LOGICAL);
 
@@ -88,35 +383,6 @@ final class LambdaRegistryStore {
                 artifacts);
     }
 
-    void save(LambdaPersistenceSnapshot snapshot) throws IOException {
-        if (file.getParent() != null) {
-            Files.createDirectories(file.getParent());
-        }
-        Properties props = new Properties();
-        props.setProperty(KEY_VERSION, FORMAT_VERSION);
-        props.setProperty(KEY_NEXT_PHYSICAL, Integer.toString(snapshot.catalog().nextPhysicalId()));
-        props.setProperty(KEY_NEXT_LOGICAL, Integer.toString(snapshot.catalog().nextLogicalId()));
-
-        int i = 0;
-        for (CatalogEntry entry : snapshot.catalog().entries()) {
-            props.setProperty("catalog.entry." + i + ".physicalId", Integer.toString(entry.physicalId()));
-            props.setProperty("catalog.entry." + i + ".methodSignature", entry.methodSignature());
-            props.setProperty("catalog.entry." + i + ".normalizedBody", entry.normalizedBody());
-            i++;
-        }
-        int j = 0;
-        for (Map.Entry<Integer, ArtifactRef> e : new TreeMap<>(snapshot.artifacts()).entrySet()) {
-            props.setProperty("artifact." + j + ".physicalId", Integer.toString(e.getKey()));
-            props.setProperty("artifact." + j + ".fqn", e.getValue().fqn());
-            props.setProperty("artifact." + j + ".classFile", e.getValue().classFile().toString());
-            j++;
-        }
-
-        try (OutputStream out = Files.newOutputStream(file)) {
-            props.store(out, "MVEL3 lambda registry");
-        }
-    }
-
     private static int requiredInt(Properties p, String key) throws InvalidLambdaRegistryException {
         String v = p.getProperty(key);
         if (v == null) throw new InvalidLambdaRegistryException("Missing key: " + key);
@@ -5,6 +5,9 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import org.mvel3.jfr.RegistryLoadEvent;
+import org.mvel3.jfr.RegistrySaveEvent;
+
 /**
  * Composition root for MVEL3 lambda persistence. Lazy-initialised via
  * {@link #getInstance()}. Holds {@link LambdaCatalog}, {@link LambdaPersistenceManager},
@@ -65,11 +68,22 @@ public final class LambdaRuntime {
      */
     public void persistSnapshot() {
         if (!config.persistenceEnabled()) return;
+        RegistrySaveEvent event = new RegistrySaveEvent();
+        event.begin();
+        LambdaPersistenceSnapshot snapshot = new LambdaPersistenceSnapshot(catalog.toSnapshot(), persistenceManager.snapshot());
         try {
-            registryStore.save(new LambdaPersistenceSnapshot(catalog.toSnapshot(), persistenceManager.snapshot()));
+            registryStore.save(snapshot);
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to persist lambda registry", e);
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.registryFile = config.registryFile().toString();
+            event.entries = snapshot.catalog().entries().size();
+            event.artifacts = snapshot.artifacts().size();
+            event.fileBytes = fileSize(config.registryFile());
+            event.commit();
+        }
     }
 
     public void reset() {
@@ -93,13 +107,38 @@ public final class LambdaRuntime {
             return;
         }
         if (config.persistenceEnabled() && Files.exists(config.registryFile())) {
+            RegistryLoadEvent event = new RegistryLoadEvent();
+            event.begin();
+            LambdaPersistenceSnapshot snapshot;
+            boolean legacyFormat;
             try {
-                LambdaPersistenceSnapshot snapshot = registryStore.load();
+                legacyFormat = !registryStore.isCurrentFormat();
+                snapshot = registryStore.load();
                 catalog.applySnapshot(snapshot.catalog());
                 persistenceManager.applyArtifacts(snapshot.artifacts());
             } catch (IOException e) {
                 throw new UncheckedIOException("Failed to load lambda registry", e);
             }
+            event.end();
+            if (legacyFormat) {
+                // rewrites a format version 2 registry in the binary format
+                persistSnapshot();
+            }
+            if (event.shouldCommit()) {
+                event.registryFile = config.registryFile().toString();
+                event.entries = snapshot.catalog().entries().size();
+                event.artifacts = snapshot.artifacts().size();
+                event.fileBytes = fileSize(config.registryFile());
+                event.commit();
+            }
+        }
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
         }
     }
 
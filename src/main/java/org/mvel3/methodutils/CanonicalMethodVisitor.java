@@ -0,0 +1,293 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.methodutils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Encodes the instructions of a method into a compact binary form, the binary counterpart of
+ * {@link DumpMethodVisitor}: two methods with the same encoding have the same instructions. Each instruction is
+ * written as a tag and its operands; labels, i.e. jump, switch and exception handler targets, are numbered in the
+ * order they are first seen. Debug info and frames are not part of the encoding.
+ * <p>
+ * Unlike the text dump it covers every instruction, including {@code iinc}, switches, {@code invokedynamic} and the
+ * exception table. One visitor may encode several methods into the same buffer.
+ * <p>
+ * References to the class of the methods, given to {@link #owner(String)}, are encoded as a placeholder, so the same
+ * methods in two classes of different names, e.g. a static initializer storing the class's own constants, encode the
+ * same.
+ */
+public class CanonicalMethodVisitor extends MethodVisitor {
+
+    private static final byte INSN = 1;
+    private static final byte INT_INSN = 2;
+    private static final byte VAR_INSN = 3;
+    private static final byte TYPE_INSN = 4;
+    private static final byte FIELD_INSN = 5;
+    private static final byte METHOD_INSN = 6;
+    private static final byte INVOKE_DYNAMIC_INSN = 7;
+    private static final byte JUMP_INSN = 8;
+    private static final byte LABEL = 9;
+    private static final byte LDC_INSN = 10;
+    private static final byte IINC_INSN = 11;
+    private static final byte TABLE_SWITCH_INSN = 12;
+    private static final byte LOOKUP_SWITCH_INSN = 13;
+    private static final byte MULTI_ANEW_ARRAY_INSN = 14;
+    private static final byte TRY_CATCH_BLOCK = 15;
+    private static final byte METHOD = 16;
+
+    private byte[] buffer = new byte[256];
+
+    private int length;
+
+    private final Map<Label, Integer> labels = new IdentityHashMap<>();
+
+    private String owner;
+
+    private String ownerDescriptor;
+
+    public CanonicalMethodVisitor() {
+        super(Opcodes.ASM9);
+    }
+
+    /**
+     * Sets the internal name of the class whose methods are encoded.
+     */
+    public CanonicalMethodVisitor owner(String internalName) {
+        this.owner = internalName;
+        this.ownerDescriptor = "L" + internalName + ";";
+        return this;
+    }
+
+    /**
+     * Starts the encoding of a method, so methods of different descriptors never encode the same.
+     */
+    public CanonicalMethodVisitor method(String name, String descriptor) {
+        writeByte(METHOD);
+        writeString(name);
+        writeType(descriptor);
+        labels.clear();
+        return this;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+        writeByte(INSN);
+        writeByte(opcode);
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+        writeByte(INT_INSN);
+        writeByte(opcode);
+        writeInt(operand);
+    }
+
+    @Override
+    public void visitVarInsn(int opcode, int var) {
+        writeByte(VAR_INSN);
+        writeByte(opcode);
+        writeInt(var);
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+        writeByte(TYPE_INSN);
+        writeByte(opcode);
+        writeType(type);
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        writeByte(FIELD_INSN);
+        writeByte(opcode);
+        writeType(owner);
+        writeString(name);
+        writeType(descriptor);
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        writeByte(METHOD_INSN);
+        writeByte(opcode);
+        writeType(owner);
+        writeString(name);
+        writeType(descriptor);
+        writeByte(isInterface ? 1 : 0);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+        writeByte(INVOKE_DYNAMIC_INSN);
+        writeString(name);
+        writeType(descriptor);
+        writeConstant(bootstrapMethodHandle);
+        writeInt(bootstrapMethodArguments.length);
+        for (Object argument : bootstrapMethodArguments) {
+            writeConstant(argument);
+        }
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+        writeByte(JUMP_INSN);
+        writeByte(opcode);
+        writeLabel(label);
+    }
+
+    @Override
+    public void visitLabel(Label label) {
+        writeByte(LABEL);
+        writeLabel(label);
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+        writeByte(LDC_INSN);
+        writeConstant(value);
+    }
+
+    @Override
+    public void visitIincInsn(int var, int increment) {
+        writeByte(IINC_INSN);
+        writeInt(var);
+        writeInt(increment);
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... targets) {
+        writeByte(TABLE_SWITCH_INSN);
+        writeInt(min);
+        writeInt(max);
+        writeLabel(dflt);
+        for (Label target : targets) {
+            writeLabel(target);
+        }
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] targets) {
+        writeByte(LOOKUP_SWITCH_INSN);
+        writeLabel(dflt);
+        writeInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            writeInt(keys[i]);
+            writeLabel(targets[i]);
+        }
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+        writeByte(MULTI_ANEW_ARRAY_INSN);
+        writeType(descriptor);
+        writeByte(numDimensions);
+    }
+
+    @Override
+    public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+        writeByte(TRY_CATCH_BLOCK);
+        writeLabel(start);
+        writeLabel(end);
+        writeLabel(handler);
+        writeString(type == null ? "" : type);
+    }
+
+    private void writeLabel(Label label) {
+        Integer id = labels.get(label);
+        if (id == null) {
+            id = labels.size();
+            labels.put(label, id);
+        }
+        writeInt(id);
+    }
+
+    // constants are tagged with their class, so 1, 1L and "1" differ
+    private void writeConstant(Object value) {
+        writeString(value.getClass().getName());
+        if (value instanceof Handle handle) {
+            writeInt(handle.getTag());
+            writeType(handle.getOwner());
+            writeString(handle.getName());
+            writeType(handle.getDesc());
+            writeByte(handle.isInterface() ? 1 : 0);
+        } else if (value instanceof Type type) {
+            writeType(type.getDescriptor());
+        } else {
+            // String, boxed primitives and ConstantDynamic print all their content
+            writeString(value.toString());
+        }
+    }
+
+    // an internal name or a descriptor, with the owner's name replaced
+    private void writeType(String value) {
+        if (owner == null) {
+            writeString(value);
+        } else if (value.equals(owner)) {
+            writeString("");
+        } else {
+            writeString(value.replace(ownerDescriptor, "L;"));
+        }
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[length++] = (byte) (value >>> 24);
+        buffer[length++] = (byte) (value >>> 16);
+        buffer[length++] = (byte) (value >>> 8);
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (length + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+        }
+    }
+}
@@ -22,6 +22,8 @@ import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+import java.util.Set;
+
 /**
  * The purpose of this utility it to check if 2 method implementations are equivalent, by comparing the bytecode.
  * This essentual for node sharing where java semantics are involved.
@@ -42,6 +44,80 @@ public class MethodByteCodeExtractor {
         return visit.getText();
     }
 
+    /**
+     * Returns the {@link CanonicalMethodVisitor} encoding of the methods with the given name, or null when the class
+     * has none. Two classes with equal encodings have the same instructions in those methods.
+     */
+    public static byte[] canonical(final String methodName,
+                                   final byte[] bytes) {
+        return canonical(Set.of(methodName), bytes);
+    }
+
+    /**
+     * Returns the encoding of the methods with any of the given names, in class file order, or null when the class
+     * has none.
+     */
+    public static byte[] canonical(final Set<String> methodNames,
+                                   final byte[] bytes) {
+        CanonicalMethodVisitor visitor = encode(methodNames, bytes);
+        return visitor != null ? visitor.toByteArray() : null;
+    }
+
+    /**
+     * Returns a 128 bit Murmur3 digest of the {@link #canonical(String, byte[])} encoding, or null when the class has
+     * no method with the given name. Unlike {@link #extract(String, byte[])} no text is built.
+     */
+    public static byte[] digest(final String methodName,
+                                final byte[] bytes) {
+        return digest(Set.of(methodName), bytes);
+    }
+
+    /**
+     * Returns the digest of the {@link #canonical(Set, byte[])} encoding, or null when the class has no method with
+     * any of the given names.
+     */
+    public static byte[] digest(final Set<String> methodNames,
+                                final byte[] bytes) {
+        CanonicalMethodVisitor visitor = encode(methodNames, bytes);
+        if (visitor == null) {
+            return null;
+        }
+        Murmur3F murmur = new Murmur3F();
+        murmur.update(visitor.getBuffer(), 0, visitor.getLength());
+        return murmur.getValueBytesBigEndian();
+    }
+
+    private static CanonicalMethodVisitor encode(final Set<String> methodNames,
+                                                 final byte[] bytes) {
+        final CanonicalMethodVisitor encoder = new CanonicalMethodVisitor();
+        final boolean[] found = new boolean[1];
+        new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public void visit(final int version,
+                              final int access,
+                              final String name,
+                              final String signature,
+                              final String superName,
+                              final String[] interfaces) {
+                encoder.owner(name);
+            }
+
+            @Override
+            public MethodVisitor visitMethod(final int access,
+                                             final String name,
+                                             final String desc,
+                                             final String signature,
+                                             final String[] exceptions) {
+                if (!methodNames.contains(name)) {
+                    return null;
+                }
+                found[0] = true;
+                return encoder.method(name, desc);
+            }
+        }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return found[0] ? encoder : null;
+    }
+
     public static class Tracer
         extends
         ClassVisitor {
@@ -52,14 +52,19 @@ import com.github.javaparser.ast.stmt.Statement;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.type.TypeParameter;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.mvel3.parser.MvelParser;
+import org.mvel3.parser.ParseException;
 import org.mvel3.parser.Provider;
 import org.mvel3.util.ProviderUtils;
 import org.slf4j.Logger;
@@ -129,38 +134,129 @@ public class Antlr4MvelParser implements MvelParser {
         try {
             String input = ProviderUtils.readAll(provider);
             logger.trace("Parsing with input: {}", input);
-            
-            // Create ANTLR4 lexer and parser
-            CharStream charStream = CharStreams.fromString(input);
-            Mvel3Lexer lexer = new Mvel3Lexer(charStream);
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-            Mvel3Parser parser = new Mvel3Parser(tokens);
 
-            // Add error handling
-            List<String> errors = new ArrayList<>();
-            parser.addErrorListener(new BaseErrorListener() {
-                @Override
-                public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
-                                        int line, int charPositionInLine, String msg, RecognitionException e) {
-                    errors.add(String.format("line %d:%d %s", line, charPositionInLine, msg));
+            ParserState state = ParserState.acquire();
+            try {
+                ParseTree tree = state.parse(start, input);
+                logger.trace("Parse tree: {}", tree.toStringTree(state.parser));
+
+                Mvel3ToJavaParserVisitor visitor = new Mvel3ToJavaParserVisitor();
+                Node result = visitor.visit(tree);
+                logger.trace("Visitor result type: {}, value: {}", result != null ? result.getClass().getSimpleName() : "null", result);
+
+                if (!state.errors.isEmpty()) {
+                    throw new RuntimeException("Parse errors: " + String.join(", ", state.errors));
                 }
-            });
 
-            ParseTree tree = start.parse(parser);
-            logger.trace("Parse tree: {}", tree.toStringTree(parser));
+                return new ParseResult<>(result, Collections.emptyList(), new CommentsCollection());
+            } finally {
+                state.release();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Parse error: " + e.getMessage(), e);
+        }
+    }
 
-            Mvel3ToJavaParserVisitor visitor = new Mvel3ToJavaParserVisitor();
-            Node result = visitor.visit(tree);
-            logger.trace("Visitor result type: {}, value: {}", result != null ? result.getClass().getSimpleName() : "null", result);
+    /**
+     * Parses the given expressions to populate the DFA cache that ANTLR shares between all parser instances, so
+     * that the first compilations do not pay the full adaptive prediction cost. Expressions that fail to parse are
+     * ignored.
+     *
+     * @return the number of expressions parsed without errors
+     */
+    public static int warmUp(Iterable<String> expressions) {
+        return warmUp(Antlr4ParseStart.EXPRESSION, expressions);
+    }
 
-            if (!errors.isEmpty()) {
-                throw new RuntimeException("Parse errors: " + String.join(", ", errors));
+    /**
+     * Like {@link #warmUp(Iterable)}, for sources starting with the given production, e.g.
+     * {@link Antlr4ParseStart#BLOCK}.
+     */
+    public static int warmUp(Antlr4ParseStart start, Iterable<String> sources) {
+        int parsed = 0;
+        ParserState state = ParserState.acquire();
+        try {
+            for (String source : sources) {
+                try {
+                    state.parse(start, source);
+                    if (state.errors.isEmpty()) {
+                        parsed++;
+                    }
+                } catch (Exception e) {
+                    logger.debug("Unable to parse warm up source '{}': {}", source, e.getMessage());
+                }
             }
+        } finally {
+            state.release();
+        }
+        return parsed;
+    }
 
-            return new ParseResult<>(result, Collections.emptyList(), new CommentsCollection());
+    /**
+     * A lexer, token stream and parser reused by the parses on a thread. Each parse first runs in SLL prediction
+     * mode with a bail out error strategy, which is enough for nearly all inputs, and only falls back to full LL
+     * prediction, with error reporting, when SLL fails.
+     */
+    private static final class ParserState {
 
-        } catch (Exception e) {
-            throw new RuntimeException("Parse error: " + e.getMessage(), e);
+        private static final ThreadLocal<ParserState> CURRENT = ThreadLocal.withInitial(ParserState::new);
+
+        private final Mvel3Lexer lexer = new Mvel3Lexer(CharStreams.fromString(""));
+
+        private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+
+        private final Mvel3Parser parser = new Mvel3Parser(tokens);
+
+        private final BailErrorStrategy bailErrorStrategy = new BailErrorStrategy();
+
+        private final DefaultErrorStrategy defaultErrorStrategy = new DefaultErrorStrategy();
+
+        private final List<String> errors = new ArrayList<>();
+
+        private final BaseErrorListener errorListener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                    int line, int charPositionInLine, String msg, RecognitionException e) {
+                errors.add(String.format("line %d:%d %s", line, charPositionInLine, msg));
+            }
+        };
+
+        private boolean inUse;
+
+        // a parse started while another one is running on the same thread gets its own instances
+        private static ParserState acquire() {
+            ParserState state = CURRENT.get();
+            if (state.inUse) {
+                state = new ParserState();
+            }
+            state.inUse = true;
+            return state;
+        }
+
+        private void release() {
+            inUse = false;
+        }
+
+        private ParseTree parse(Antlr4ParseStart start, String input) throws ParseException {
+            errors.clear();
+            lexer.setInputStream(CharStreams.fromString(input));
+            tokens.setTokenSource(lexer);
+            parser.setTokenStream(tokens);
+
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(bailErrorStrategy);
+            parser.removeErrorListeners();
+            try {
+                return start.parse(parser);
+            } catch (ParseCancellationException e) {
+                logger.trace("SLL prediction failed, retrying with LL: {}", input);
+            }
+
+            parser.reset();
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.setErrorHandler(defaultErrorStrategy);
+            parser.addErrorListener(errorListener);
+            return start.parse(parser);
         }
     }
 
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.transpiler;
+
+import java.util.Set;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.resolution.MethodUsage;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.resolution.types.ResolvedType;
+import org.mvel3.Columns;
+import org.mvel3.Frame;
+import org.mvel3.MVEL;
+import org.mvel3.MVELBuilder;
+import org.mvel3.PureMethods;
+import org.mvel3.transpiler.context.TranspilerContext;
+import org.mvel3.util.StringUtils;
+
+/**
+ * Decides the effects of a rewritten evaluator body, returned by {@link org.mvel3.Evaluator#writesContext()} and
+ * {@link org.mvel3.Evaluator#callsExternalMethods()}. It runs on the Java the rewriter produced, where the writes back
+ * to the context are explicit: {@code put} and {@code set} calls on the context, the generated pojo setters, the
+ * column stores and the {@code update} call ending a {@code modify} block.
+ * <p>
+ * The analysis is conservative: an assignment to anything but a local variable counts as a write, and a call it
+ * cannot resolve counts as external. A method named like a getter is only trusted when it resolves to a public,
+ * non-static getter of a field, otherwise it needs a {@link PureMethods} entry.
+ */
+public class EffectAnalyser {
+
+    private static final Set<String> COLLECTION_MUTATORS = Set.of("add", "addAll", "addFirst", "addLast", "clear",
+                                                                  "compute", "computeIfAbsent", "computeIfPresent",
+                                                                  "merge", "offer", "poll", "pop", "push", "put",
+                                                                  "putAll", "putIfAbsent", "remove", "removeAll",
+                                                                  "removeFirst", "removeIf", "removeLast", "replace",
+                                                                  "replaceAll", "retainAll", "set", "sort");
+
+    private final TranspilerContext<?, ?, ?> context;
+
+    private final PureMethods pureMethods;
+
+    private boolean writesContext;
+
+    private boolean callsExternalMethods;
+
+    public EffectAnalyser(TranspilerContext<?, ?, ?> context, PureMethods pureMethods) {
+        this.context = context;
+        this.pureMethods = pureMethods;
+    }
+
+    public EffectAnalyser analyse(Node body) {
+        for (AssignExpr assign : body.findAll(AssignExpr.class)) {
+            // a local variable is only written back through the calls below
+            writesContext |= !(assign.getTarget() instanceof NameExpr);
+        }
+        for (UnaryExpr unary : body.findAll(UnaryExpr.class)) {
+            if (isIncrementOrDecrement(unary.getOperator()) && !(unary.getExpression() instanceof NameExpr)) {
+                writesContext = true;
+            }
+        }
+        body.findAll(MethodCallExpr.class).forEach(this::call);
+        for (ObjectCreationExpr creation : body.findAll(ObjectCreationExpr.class)) {
+            callsExternalMethods |= creation.getAnonymousClassBody().isPresent() || !isPure(qualifiedName(creation), "<init>", null);
+        }
+        callsExternalMethods |= body.findFirst(MethodReferenceExpr.class).isPresent();
+        return this;
+    }
+
+    public boolean writesContext() {
+        return writesContext;
+    }
+
+    public boolean callsExternalMethods() {
+        return callsExternalMethods;
+    }
+
+    public boolean isPure() {
+        return !writesContext && !callsExternalMethods;
+    }
+
+    private void call(MethodCallExpr call) {
+        String name = call.getNameAsString();
+        int arguments = call.getArguments().size();
+        if (call.getScope().isEmpty() && (name.startsWith(MVELBuilder.CONTEXT_NAME) || name.equals("update"))) {
+            // the generated pojo setter, or the end of a modify block
+            writesContext = true;
+            return;
+        }
+        if (arguments == 1 && isAccessor(name, "set")) {
+            writesContext = true;
+            return;
+        }
+        if (name.equals("get") && call.getScope().filter(s -> s.isNameExpr() &&
+                s.asNameExpr().getNameAsString().equals(context.getEvaluatorInfo().contextDeclaration().name())).isPresent()) {
+            // a variable read from a map or list context
+            return;
+        }
+
+        MethodUsage usage;
+        try {
+            usage = context.getFacade().solveMethodAsUsage(call);
+        } catch (RuntimeException e) {
+            callsExternalMethods = true;
+            return;
+        }
+        String declaringType = usage.declaringType().getQualifiedName();
+        if (arguments == 0 && isBeanGetter(name, usage.declaringType())) {
+            return;
+        }
+        if (declaringType.equals(MVEL.class.getCanonicalName()) && (name.equals("putMap") || name.equals("setList"))) {
+            writesContext = true;
+        } else if (declaringType.equals(Frame.class.getCanonicalName()) || declaringType.equals(Columns.class.getCanonicalName())) {
+            writesContext |= name.startsWith("set");
+        } else if (declaringType.startsWith("java.util.") && COLLECTION_MUTATORS.contains(name)) {
+            writesContext = true;
+        } else if (!isPure(declaringType, name, usage.declaringType())) {
+            callsExternalMethods = true;
+        }
+    }
+
+    // a public, non-static getter of a field, rather than any method named like a getter, e.g. getAndIncrement
+    private boolean isBeanGetter(String name, ResolvedReferenceTypeDeclaration declaration) {
+        String prefix = isAccessor(name, "get") ? "get" : isAccessor(name, "is") ? "is" : null;
+        if (prefix == null) {
+            return false;
+        }
+        String property = StringUtils.lcFirstForBean(name.substring(prefix.length()));
+        try {
+            MethodUsage getter = context.getResolutionCache().findGetterSetter("get", property, 0, declaration);
+            return getter != null && getter.getName().equals(name) &&
+                   declaration.getAllFields().stream().anyMatch(f -> f.getName().equals(property));
+        } catch (RuntimeException e) {
+            // unresolved fields, so not trusted
+            return false;
+        }
+    }
+
+    // an entry only matches the declaring type, but an interface redeclaring a method, e.g. List#size, matches the
+    // entry of the interface it redeclares, Collection#size. An override in a class, e.g. LinkedHashMap#get, does not.
+    private boolean isPure(String declaringType, String name, ResolvedReferenceTypeDeclaration declaration) {
+        if (declaringType == null) {
+            return false;
+        }
+        if (pureMethods.isPure(declaringType, name)) {
+            return true;
+        }
+        if (declaration != null && declaration.isInterface()) {
+            try {
+                for (ResolvedReferenceType ancestor : declaration.getAllAncestors()) {
+                    if (pureMethods.entries().contains(ancestor.getQualifiedName() + "#" + name)) {
+                        return true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                // unresolved ancestors, so not trusted
+            }
+        }
+        return false;
+    }
+
+    private String qualifiedName(ObjectCreationExpr creation) {
+        try {
+            ResolvedType type = context.getFacade().convertToUsage(creation.getType());
+            return type.isReferenceType() ? type.asReferenceType().getQualifiedName() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isAccessor(String name, String prefix) {
+        return name.length() > prefix.length() && name.startsWith(prefix) && Character.isUpperCase(name.charAt(prefix.length()));
+    }
+
+    private static boolean isIncrementOrDecrement(UnaryExpr.Operator op) {
+        return op == UnaryExpr.Operator.PREFIX_INCREMENT || op == UnaryExpr.Operator.POSTFIX_INCREMENT ||
+               op == UnaryExpr.Operator.PREFIX_DECREMENT || op == UnaryExpr.Operator.POSTFIX_DECREMENT;
+    }
+}
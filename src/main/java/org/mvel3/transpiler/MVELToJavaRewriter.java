@@ -40,7 +40,6 @@ import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.resolution.MethodUsage;
 import com.github.javaparser.resolution.Solver;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
-import com.github.javaparser.resolution.declarations.ResolvedFieldDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedTypeParameterDeclaration;
@@ -48,6 +47,10 @@ import com.github.javaparser.resolution.types.ResolvedPrimitiveType;
 import com.github.javaparser.resolution.types.ResolvedType;
 import com.github.javaparser.resolution.types.ResolvedTypeVariable;
 import com.github.javaparser.utils.Pair;
+import org.mvel3.ColumnLayout;
+import org.mvel3.Columns;
+import org.mvel3.Frame;
+import org.mvel3.FrameLayout;
 import org.mvel3.MVELBuilder;
 import org.mvel3.MVEL;
 import org.mvel3.parser.ast.expr.AbstractContextStatement;
@@ -164,10 +167,10 @@ public class MVELToJavaRewriter {
         nodeMap = new IdentityHashMap<>();
 
         ResolvedReferenceTypeDeclaration m = mapType.asReferenceType().getTypeDeclaration().get();
-        mapGetMethod = findGetterSetter("get", "", 1, m);
+        mapGetMethod = context.getResolutionCache().findGetterSetter("get", "", 1, m);
 
         ResolvedReferenceTypeDeclaration l = listType.asReferenceType().getTypeDeclaration().get();
-        listGetMethod = findGetterSetter("get", "", 1, l);
+        listGetMethod = context.getResolutionCache().findGetterSetter("get", "", 1, l);
     }
 
     private void rewriteNode(Node node) {
@@ -695,7 +698,7 @@ public class MVELToJavaRewriter {
         if ( methodCall.getScope().isPresent()) {
             scope = context.getFacade().getType(methodCall.getScope().get());
             resolvedScope = methodCall.getScope().get().calculateResolvedType();
-            methods = scope.asReferenceType().getAllMethods();
+            methods = context.getResolutionCache().getAllMethods(scope.asReferenceType());
         } else {
             // static methods
             methods = (Collection<ResolvedMethodDeclaration>) context.getResolvedStaticMethods().get(methodCall.getNameAsString());
@@ -860,13 +863,7 @@ public class MVELToJavaRewriter {
     }
 
     public boolean isPublicField(ResolvedReferenceTypeDeclaration d, String name) {
-        for (ResolvedFieldDeclaration f : d.getAllFields()) {
-            if (f.accessSpecifier() == AccessSpecifier.PUBLIC && f.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return context.getResolutionCache().isPublicField(d, name);
     }
 
     private Expression rewriteNameToScope(NameExpr scope, ResolvedType scopeType, NameExpr nameExpr, boolean rewriteAfterRewrite) {
@@ -1054,6 +1051,16 @@ public class MVELToJavaRewriter {
                         setMethod.addArgument(new IntegerLiteralExpr(context.getEvaluatorInfo().indexOf(nameExpr.getNameAsString())));
                         setMethod.addArgument(assignExpr);
                     }
+                } else if (ctxClass == Frame.class) {
+                    // Frame.set returns the value, so the same form works as a statement and inside an expression
+                    // a = 5 becomes context.set(slot, a = 5);
+                    MethodCallExpr setMethod = new MethodCallExpr(new NameExpr(new SimpleName(ctxDeclr.name())), "set");
+                    assignExpr.replace(setMethod);
+                    setMethod.setArguments(NodeList.nodeList(new IntegerLiteralExpr(frameSlot(nameExpr.getNameAsString())),
+                                                             assignExpr));
+                } else if (ctxClass == Columns.class) {
+                    // a = 5 becomes ___column0[___row] = a = 5;
+                    columnStore(nameExpr.getNameAsString(), assignExpr);
                 } else {
                     // pojo
                     // @TOOD I need to call the generated method below. But ideally only if it's part of some parent.
@@ -1114,9 +1121,29 @@ public class MVELToJavaRewriter {
                 setMethod.addArgument(new IntegerLiteralExpr(context.getEvaluatorInfo().indexOf(name)));
                 setMethod.addArgument(unaryExpr);
             }
+        } else if (ctxClass == Frame.class) {
+            MethodCallExpr setMethod = new MethodCallExpr(new NameExpr(new SimpleName(ctxDeclr.name())), "set");
+            unaryExpr.replace(setMethod);
+            setMethod.setArguments(NodeList.nodeList(new IntegerLiteralExpr(frameSlot(name)), unaryExpr));
+        } else if (ctxClass == Columns.class) {
+            columnStore(name, unaryExpr);
         }
     }
 
+    private int frameSlot(String name) {
+        return FrameLayout.of(context.getEvaluatorInfo().variableDeclarations()).slot(name);
+    }
+
+    // stores the value in the row of the column local the context pre-amble loaded, the assignment is an expression
+    private void columnStore(String name, Expression value) {
+        int column = ColumnLayout.of(context.getEvaluatorInfo().variableDeclarations()).column(name);
+        ArrayAccessExpr cell = new ArrayAccessExpr(new NameExpr(ColumnLayout.columnVariable(column)),
+                                                   new NameExpr(ColumnLayout.ROW_VARIABLE));
+        AssignExpr store = new AssignExpr(cell, new NameExpr(name), AssignExpr.Operator.ASSIGN);
+        value.replace(store);
+        store.setValue(value);
+    }
+
     private static void ensurePrefixForm(UnaryExpr unaryExpr) {
         if (unaryExpr.getOperator() == UnaryExpr.Operator.POSTFIX_INCREMENT) {
             unaryExpr.setOperator(UnaryExpr.Operator.PREFIX_INCREMENT);
@@ -1232,7 +1259,7 @@ public class MVELToJavaRewriter {
 
         ResolvedReferenceTypeDeclaration d = contextObjectType.asReferenceType().getTypeDeclaration().get();
 
-        MethodUsage methodUsage = findGetterSetter("set", nameExpr.getNameAsString(), 1, d);
+        MethodUsage methodUsage = context.getResolutionCache().findGetterSetter("set", nameExpr.getNameAsString(), 1, d);
 
         MethodCallExpr setMethod = new MethodCallExpr(new NameExpr(new SimpleName(MVELBuilder.CONTEXT_NAME)), methodUsage.getName());
         setMethod.addArgument(new NameExpr("v"));
@@ -1253,7 +1280,7 @@ public class MVELToJavaRewriter {
             if (mapPut != null) {
                 return mapPut;
             }
-            methods = mapType.asReferenceType().getTypeDeclaration().get().getAllMethods();
+            methods = context.getResolutionCache().getAllMethods(mapType.asReferenceType().getTypeDeclaration().get());
             for (MethodUsage m : methods) {
                 if (m.getName().equals("put")) {
                     putSet = m;
@@ -1265,7 +1292,7 @@ public class MVELToJavaRewriter {
             if (listSet != null) {
                 return listSet;
             }
-            methods = listType.asReferenceType().getTypeDeclaration().get().getAllMethods();
+            methods = context.getResolutionCache().getAllMethods(listType.asReferenceType().getTypeDeclaration().get());
             for (MethodUsage m : methods) {
                 if (m.getName().equals("set")) {
                     putSet = m;
@@ -1613,16 +1640,12 @@ public class MVELToJavaRewriter {
             return null;
         }
 
-        try {
-            if (d.getField(n.getName().asString()).accessSpecifier() == AccessSpecifier.PUBLIC) {
-                // do not rewrite if it allows Public access.
-                return null;
-            }
-        } catch (UnsolvedSymbolException e) {
-           // swallow
+        if (isPublicField(d, n.getName().asString())) {
+            // do not rewrite if it allows Public access.
+            return null;
         }
 
-        MethodUsage candidate = findGetterSetter(getterSetter, n.getNameAsString(), x, d);
+        MethodUsage candidate = context.getResolutionCache().findGetterSetter(getterSetter, n.getNameAsString(), x, d);
         if (candidate != null) {
             return candidate;
         }
@@ -1649,12 +1672,16 @@ public class MVELToJavaRewriter {
     }
 
     public static MethodUsage findGetterSetter(String getterSetter, String name, int x, ResolvedReferenceTypeDeclaration d) {
+        return findGetterSetter(getterSetter, name, x, d.getAllMethods());
+    }
+
+    public static MethodUsage findGetterSetter(String getterSetter, String name, int x, Collection<MethodUsage> methods) {
         String is = null;
         if (getterSetter.equals("get")) {
             is = getterSetter("is", name);
         }
         String getterTarget = getterSetter(getterSetter, name);
-        for (MethodUsage candidate : d.getAllMethods()) {
+        for (MethodUsage candidate : methods) {
             String methodName = candidate.getName();
             if (candidate.getDeclaration().accessSpecifier() == AccessSpecifier.PUBLIC &&
                 !candidate.getDeclaration().isStatic() &&
@@ -19,47 +19,106 @@ package org.mvel3.transpiler;
 import com.github.javaparser.ParseProblemException;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.utils.StringEscapeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.CastExpr;
 import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.NullLiteralExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.BreakStmt;
+import com.github.javaparser.ast.stmt.ContinueStmt;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.LabeledStmt;
+import com.github.javaparser.ast.stmt.LocalClassDeclarationStmt;
 import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.PrimitiveType;
 import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ClassLoaderTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import org.mvel3.BooleanEvaluator;
+import org.mvel3.ColumnEvaluator;
+import org.mvel3.ColumnLayout;
+import org.mvel3.Columns;
 import org.mvel3.ContentType;
+import org.mvel3.ContextType;
+import org.mvel3.CompilerMetrics;
+import org.mvel3.CompilerMetrics.Phase;
 import org.mvel3.CompilerParameters;
+import org.mvel3.DoubleEvaluator;
+import org.mvel3.IntEvaluator;
+import org.mvel3.LongEvaluator;
+import org.mvel3.MemoCache;
+import org.mvel3.MemoisingEvaluator;
+import org.mvel3.jfr.RewriteEvent;
+import org.mvel3.jfr.TranspileEvent;
 import org.mvel3.parser.MvelParser;
 import org.mvel3.parser.printer.PrintUtil;
+import org.mvel3.transpiler.context.ResolutionCache;
 import org.mvel3.transpiler.context.TranspilerContext;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
 import static com.github.javaparser.ParserConfiguration.LanguageLevel.JAVA_15;
 
 public class MVELTranspiler {
     private static final Logger logger = LoggerFactory.getLogger(MVELTranspiler.class);
 
+    // the getters of the property masks, which the lambda key of the eval method does not cover
+    public static final List<String> MASK_METHODS = List.of("getReadMask", "getWriteMask");
+
+    // the getters of the effects, which the lambda key of the eval method does not cover either
+    public static final List<String> EFFECT_METHODS = List.of("isPure", "writesContext", "callsExternalMethods");
+
+    // the results memoised by the evaluator, whose size the lambda key does not cover
+    public static final String MEMO_FIELD = "___memo";
+
     // development flag. Will be added to CompilerParameters later
     public static boolean ENABLE_REWRITE = true;
 
     private TranspilerContext context;
 
+    private final CompilerMetrics metrics;
+
     public MVELTranspiler(TranspilerContext context) {
+        this(context, CompilerMetrics.NONE);
+    }
+
+    public MVELTranspiler(TranspilerContext context, CompilerMetrics metrics) {
         this.context = context;
+        this.metrics = metrics;
     }
 
     public static <T, K, R>  TranspiledResult transpile(CompilerParameters<T, K, R> evalInfo, EvalPre evalPre) {
+        return transpile(evalInfo, evalPre, CompilerMetrics.NONE);
+    }
+
+    /**
+     * Transpiles the content, reporting the parse, variable analysis, evalPre and rewrite phases to the metrics.
+     */
+    public static <T, K, R>  TranspiledResult transpile(CompilerParameters<T, K, R> evalInfo, EvalPre evalPre, CompilerMetrics metrics) {
+        TranspileEvent event = new TranspileEvent();
+        event.begin();
 
-        TypeSolver typeSolver = buildTypeSolver(evalInfo.classLoader());
+        ResolutionCache resolutionCache = ResolutionCache.forClassLoader(evalInfo.classLoader());
+        TypeSolver typeSolver = resolutionCache.newTypeSolver();
         JavaSymbolSolver solver = new JavaSymbolSolver(typeSolver);
 
         ParserConfiguration conf = new ParserConfiguration();
@@ -68,26 +127,20 @@ public class MVELTranspiler {
 
         MvelParser parser = MvelParser.Factory.get(conf);
 
-        TranspilerContext context = new TranspilerContext(parser, typeSolver, evalInfo);
+        TranspilerContext context = new TranspilerContext(parser, typeSolver, evalInfo, resolutionCache);
 
-        MVELTranspiler mvelTranspiler = new MVELTranspiler(context);
+        MVELTranspiler mvelTranspiler = new MVELTranspiler(context, metrics);
 
         TranspiledResult transpiledResult =  mvelTranspiler.transpileContent(evalInfo, evalPre);
 
-        return transpiledResult;
-    }
-
-    /**
-     * Builds a TypeSolver that can see both the JRE classes (via reflection)
-     * and application classes visible through the caller-supplied classLoader.
-     * Falls back to the default ReflectionTypeSolver when no classLoader is
-     * configured on the CompilerParameters.
-     */
-    static TypeSolver buildTypeSolver(ClassLoader classLoader) {
-        if (classLoader == null) {
-            return new ReflectionTypeSolver(false);
+        event.end();
+        if (event.shouldCommit()) {
+            event.evaluatorClass = context.getGeneratedPackageName() + "." + evalInfo.generatedClassName();
+            event.contentBytes = evalInfo.expression().length();
+            event.commit();
         }
-        return new CombinedTypeSolver(new ReflectionTypeSolver(false), new ClassLoaderTypeSolver(classLoader));
+
+        return transpiledResult;
     }
 
     public static <T> T handleParserResult(ParseResult<T> result) {
@@ -99,26 +152,13 @@ public class MVELTranspiler {
     }
 
     public <T, K, R> TranspiledBlockResult transpileContent(CompilerParameters<T, K, R> evalInfo, EvalPre evalPre) {
-        BlockStmt blockStmt;
         String content = evalInfo.expression();
         logger.debug("transpile content: {}", content);
 
-
-        if (evalInfo.contentType() == ContentType.BLOCK) {
-            blockStmt = handleParserResult(context.getParser().parseBlock("{" + content + "}\n"));
-        } else {
-            Expression expr = handleParserResult(context.getParser().parseExpression(content));
-            if (context.getEvaluatorInfo().outType().isVoid()) {
-                ExpressionStmt exprStmt = new ExpressionStmt(expr);
-                blockStmt = new  BlockStmt(NodeList.nodeList(exprStmt));
-            } else {
-                ReturnStmt returnStmt = new ReturnStmt(expr);
-                blockStmt = new  BlockStmt(NodeList.nodeList(returnStmt));
-            }
-        }
+        BlockStmt blockStmt = metrics.time(Phase.PARSE, () -> parseContent(evalInfo.contentType(), content));
 
         VariableAnalyser analyser = new VariableAnalyser(context.getEvaluatorInfo().allVars().keySet());
-        blockStmt.accept(analyser, null);
+        metrics.time(Phase.VARIABLE_ANALYSIS, () -> blockStmt.accept(analyser, null));
 
         if (!context.getEvaluatorInfo().withDeclaration().type().isVoid() &&
             !context.getEvaluatorInfo().withDeclaration().equals(context.getEvaluatorInfo().contextDeclaration())) {
@@ -159,7 +199,7 @@ public class MVELTranspiler {
 
         method.addParameter(handleParserResult(context.getParser().parseType(evalInfo.contextDeclaration().type().getCanonicalGenericsName())), evalInfo.contextDeclaration().name());
 
-        NodeList<Statement> tempStmts = evalPre.evalPre(evalInfo, context, blockStmt.getStatements());
+        NodeList<Statement> tempStmts = metrics.time(Phase.EVAL_PRE, () -> evalPre.evalPre(evalInfo, context, blockStmt.getStatements()));
         blockStmt.setStatements(tempStmts);
 
         if (blockStmt.getStatements().size() == 1 && blockStmt.getStatement(0).isBlockStmt()) {
@@ -173,15 +213,45 @@ public class MVELTranspiler {
         context.getSymbolResolver().inject(unit);
 
         if (ENABLE_REWRITE) {
-            MVELToJavaRewriter rewriter = new MVELToJavaRewriter(context);
-            rewriter.rewriteChildren(method.getBody().get());
+            RewriteEvent event = new RewriteEvent();
+            event.begin();
+            metrics.time(Phase.REWRITE, () -> {
+                MVELToJavaRewriter rewriter = new MVELToJavaRewriter(context);
+                rewriter.rewriteChildren(method.getBody().get());
+            });
+            event.end();
+            if (event.shouldCommit()) {
+                event.evaluatorClass = context.getGeneratedPackageName() + "." + classDeclaration.getNameAsString();
+                event.commit();
+            }
+        }
+
+        // analysed before the batch and column methods copy the body
+        EffectAnalyser effects = new EffectAnalyser(context, evalInfo.options().pureMethods()).analyse(method.getBody().get());
+
+        if (evalInfo.options().memoise()) {
+            emitMemoised(classDeclaration, method, evalInfo, context.getInputs(), effects);
+        }
+
+        if (evalInfo.options().primitive()) {
+            specialise(classDeclaration, method, evalInfo);
         }
 
-        // Emit getReadProperties() override AFTER the eval method so downstream
+        if (evalInfo.options().batch()) {
+            emitBatchMethods(classDeclaration, method, evalInfo);
+        }
+
+        if (evalInfo.contextType() == ContextType.COLUMNS && evalInfo.generatedMethodName().equals("eval")) {
+            emitColumnMethod(classDeclaration, method, evalInfo);
+        }
+
+        // Emit the property getters AFTER the eval method so downstream
         // logic that calls findFirst(MethodDeclaration.class) still finds the
         // eval method. Consumers (e.g. DRLX alpha-mask construction) filter the
-        // returned names against the actual settable-property set.
-        emitGetReadPropertiesOverride(classDeclaration, analyser.getReadProperties());
+        // returned names against the actual settable-property set, or use the
+        // masks computed over the property index.
+        emitPropertySets(classDeclaration, analyser.getReadProperties(), analyser.getWriteProperties(), evalInfo.options().propertyIndex());
+        emitEffects(classDeclaration, effects);
 
 //        // Inject the "return" if one is needed and it's missing and it's a statement expression.
 //        // This will not check branchs of an if statement or for loop, those need explicit returns
@@ -204,22 +274,345 @@ public class MVELTranspiler {
         return new TranspiledBlockResult(unit, classDeclaration, method, context);
     }
 
-    private static void emitGetReadPropertiesOverride(
-            com.github.javaparser.ast.body.ClassOrInterfaceDeclaration classDeclaration,
-            java.util.Set<String> readProperties) {
-        com.github.javaparser.ast.body.MethodDeclaration m = classDeclaration.addMethod("getReadProperties");
-        m.setPublic(true);
-        m.setType("String[]");
-        m.addAnnotation("Override");
-        StringBuilder body = new StringBuilder("return new String[]{");
+    private BlockStmt parseContent(ContentType contentType, String content) {
+        if (contentType == ContentType.BLOCK) {
+            return handleParserResult(context.getParser().parseBlock("{" + content + "}\n"));
+        }
+
+        Expression expr = handleParserResult(context.getParser().parseExpression(content));
+        if (context.getEvaluatorInfo().outType().isVoid()) {
+            ExpressionStmt exprStmt = new ExpressionStmt(expr);
+            return new  BlockStmt(NodeList.nodeList(exprStmt));
+        } else {
+            ReturnStmt returnStmt = new ReturnStmt(expr);
+            return new  BlockStmt(NodeList.nodeList(returnStmt));
+        }
+    }
+
+    /**
+     * Turns the rewritten eval method into the method of the primitive evaluator interface of the out type, e.g.
+     * {@code boolean test(C c)} of {@link BooleanEvaluator}, whose default eval boxes its result. Done after
+     * rewriting, so returned values are coerced to the boxed out type as usual and only unboxed on return.
+     */
+    private static void specialise(ClassOrInterfaceDeclaration classDeclaration, MethodDeclaration method,
+                                   CompilerParameters<?, ?, ?> evalInfo) {
+        Class<?> outClass = evalInfo.outType().getClazz();
+        Class<?> evaluatorInterface;
+        if (outClass == Boolean.class) {
+            evaluatorInterface = BooleanEvaluator.class;
+            method.setName("test").setType(PrimitiveType.booleanType());
+        } else if (outClass == Integer.class) {
+            evaluatorInterface = IntEvaluator.class;
+            method.setName("applyAsInt").setType(PrimitiveType.intType());
+        } else if (outClass == Long.class) {
+            evaluatorInterface = LongEvaluator.class;
+            method.setName("applyAsLong").setType(PrimitiveType.longType());
+        } else if (outClass == Double.class) {
+            evaluatorInterface = DoubleEvaluator.class;
+            method.setName("applyAsDouble").setType(PrimitiveType.doubleType());
+        } else {
+            throw new IllegalArgumentException("No primitive evaluator for the out type " + outClass.getName());
+        }
+        classDeclaration.addImplementedType(evaluatorInterface.getCanonicalName() + "<" +
+                                            evalInfo.contextDeclaration().type().getCanonicalGenericsName() + ", " +
+                                            evalInfo.withDeclaration().type().getCanonicalGenericsName() + ">");
+    }
+
+    /**
+     * Overrides the batch methods of the evaluator interfaces, so the loop over the contexts lives in the generated
+     * class and calls its evaluator method on a single receiver class, e.g.
+     * <pre>
+     * public void evalBatch(java.util.List&lt;? extends C&gt; ___contexts, int ___offset, int ___length, O[] ___results) {
+     *     for (int ___i = 0; ___i &lt; ___length; ___i++) {
+     *         ___results[___i] = eval(___contexts.get(___offset + ___i));
+     *     }
+     * }
+     * </pre>
+     */
+    private static void emitBatchMethods(ClassOrInterfaceDeclaration classDeclaration, MethodDeclaration method,
+                                         CompilerParameters<?, ?, ?> evalInfo) {
+        String contextType = evalInfo.contextDeclaration().type().getCanonicalGenericsName();
+        String evaluatorMethod = method.getNameAsString();
+
+        emitBatchMethod(classDeclaration, "evalBatch", contextType, evalInfo.outType().getCanonicalGenericsName() + "[]", "eval");
+        if (evaluatorMethod.equals("test")) {
+            for (String contexts : batchContexts(contextType)) {
+                classDeclaration.addMember(StaticJavaParser.parseBodyDeclaration(
+                        "@Override public void testBatch(" + contexts + " ___contexts, int ___offset, int ___length, long[] ___bits) {\n" +
+                        "    for (int ___word = 0; ___word << 6 < ___length; ___word++) {\n" +
+                        "        int ___base = ___word << 6;\n" +
+                        "        int ___end = Math.min(64, ___length - ___base);\n" +
+                        "        long ___matches = 0;\n" +
+                        "        for (int ___bit = 0; ___bit < ___end; ___bit++) {\n" +
+                        "            if (test(" + batchContext(contexts, "___base + ___bit") + ")) {\n" +
+                        "                ___matches |= 1L << ___bit;\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        ___bits[___word] = ___matches;\n" +
+                        "    }\n" +
+                        "}"));
+            }
+        } else if (!evaluatorMethod.equals("eval")) {
+            // applyAsInt, applyAsLong or applyAsDouble
+            emitBatchMethod(classDeclaration, evaluatorMethod + "Batch", contextType, method.getType().asString() + "[]", evaluatorMethod);
+        }
+    }
+
+    private static void emitBatchMethod(ClassOrInterfaceDeclaration classDeclaration, String name, String contextType,
+                                        String resultsType, String evaluatorMethod) {
+        for (String contexts : batchContexts(contextType)) {
+            classDeclaration.addMember(StaticJavaParser.parseBodyDeclaration(
+                    "@Override public void " + name + "(" + contexts + " ___contexts, int ___offset, int ___length, " + resultsType + " ___results) {\n" +
+                    "    for (int ___i = 0; ___i < ___length; ___i++) {\n" +
+                    "        ___results[___i] = " + evaluatorMethod + "(" + batchContext(contexts, "___i") + ");\n" +
+                    "    }\n" +
+                    "}"));
+        }
+    }
+
+    // each batch method is overloaded for a list and an array of contexts
+    private static String[] batchContexts(String contextType) {
+        return new String[] {"java.util.List<? extends " + contextType + ">", contextType + "[]"};
+    }
+
+    private static String batchContext(String contexts, String index) {
+        return contexts.endsWith("[]") ? "___contexts[___offset + " + index + "]" : "___contexts.get(___offset + " + index + ")";
+    }
+
+    /**
+     * Implements {@link ColumnEvaluator} with the rewritten body inlined into a loop over the rows, rather than calling
+     * the evaluator method per row: the columns are loaded once, before the loop, and each return writes the output
+     * column, e.g. for {@code a * x} returning a {@code Double}
+     * <pre>
+     * public void evalColumns(org.mvel3.Columns __context, int ___from, int ___to, double[] ___output) {
+     *     int[] ___column0 = (int[]) __context.columns[0];
+     *     double[] ___column1 = (double[]) __context.columns[1];
+     *     ___rows: for (int ___row = ___from; ___row &lt; ___to; ___row++) {
+     *         int a = ___column0[___row];
+     *         double x = ___column1[___row];
+     *         { ___output[___row] = a * x; continue ___rows; }
+     *     }
+     * }
+     * </pre>
+     */
+    private static void emitColumnMethod(ClassOrInterfaceDeclaration classDeclaration, MethodDeclaration method,
+                                         CompilerParameters<?, ?, ?> evalInfo) {
+        String outType = evalInfo.outType().getCanonicalGenericsName();
+        classDeclaration.addImplementedType(ColumnEvaluator.class.getCanonicalName() + "<" +
+                                            evalInfo.withDeclaration().type().getCanonicalGenericsName() + ", " + outType + ">");
+        if (evalInfo.outType().isVoid()) {
+            return;
+        }
+
+        NodeList<Statement> statements = method.getBody().get().getStatements();
+        int rowIndex = 0;
+        while (!isRowDeclaration(statements.get(rowIndex))) {
+            rowIndex++;
+        }
+
+        Class<?> outClass = evalInfo.outType().getClazz();
+        Class<?> unboxed = outClass == Integer.class ? int.class : outClass == Long.class ? long.class :
+                           outClass == Double.class ? double.class : outClass == Boolean.class ? boolean.class : null;
+        String outputType = unboxed != null ? unboxed.getName() + "[]" : outType + "[]";
+        String context = method.getParameter(0).getNameAsString();
+        MethodDeclaration columnMethod = StaticJavaParser.parseBodyDeclaration(
+                "@Override public void evalColumns(" + Columns.class.getCanonicalName() + " " + context +
+                ", int ___from, int ___to, " + outputType + " ___output) {\n" +
+                "    ___rows: for (int " + ColumnLayout.ROW_VARIABLE + " = ___from; " + ColumnLayout.ROW_VARIABLE + " < ___to; " +
+                ColumnLayout.ROW_VARIABLE + "++) {\n" +
+                "    }\n" +
+                "}").asMethodDeclaration();
+        BlockStmt body = columnMethod.getBody().get();
+        BlockStmt rows = body.getStatement(0).asLabeledStmt().getStatement().asForStmt().getBody().asBlockStmt();
+        for (int i = 0; i < statements.size(); i++) {
+            if (i < rowIndex) {
+                body.addStatement(i, statements.get(i).clone());
+            } else if (i > rowIndex) {
+                rows.addStatement(statements.get(i).clone());
+            }
+        }
+
+        for (ReturnStmt returnStmt : rows.findAll(ReturnStmt.class)) {
+            if (returnStmt.findAncestor(LambdaExpr.class).isPresent() || returnStmt.findAncestor(ObjectCreationExpr.class).isPresent() ||
+                returnStmt.findAncestor(LocalClassDeclarationStmt.class).isPresent()) {
+                continue; // returns of nested bodies
+            }
+            Expression value = returnStmt.getExpression().get();
+            if (value.isNullLiteralExpr() && unboxed != null) {
+                // null is returned as the boxed out type, and fails on unboxing into the output column like the defaults
+                value = new CastExpr(StaticJavaParser.parseType(outType), value);
+            }
+            BlockStmt write = new BlockStmt();
+            write.addStatement(new AssignExpr(new ArrayAccessExpr(new NameExpr("___output"), new NameExpr(ColumnLayout.ROW_VARIABLE)),
+                                              value, AssignExpr.Operator.ASSIGN));
+            write.addStatement(new ContinueStmt("___rows"));
+            returnStmt.replace(write);
+        }
+        classDeclaration.addMember(columnMethod);
+    }
+
+    /**
+     * Memoises the eval method, see {@link org.mvel3.MVELBuilder#memoise(int)}: the values of the variables loaded from
+     * the context make the key, and the rest of the body only runs on a miss, e.g.
+     * <pre>
+     * public java.math.BigDecimal eval(java.util.Map __context) {
+     *     java.math.BigDecimal price = (java.math.BigDecimal) __context.get("price");
+     *     int quantity = (int) __context.get("quantity");
+     *     Object ___key = org.mvel3.MemoCache.key(price, quantity);
+     *     java.math.BigDecimal ___value = ___memo.get(___key);
+     *     if (___value != null) { return ___value; }
+     *     ___compute: { { ___value = price.multiply(...); break ___compute; } }
+     *     return ___memo.put(___key, ___value);
+     * }
+     * </pre>
+     */
+    private static void emitMemoised(ClassOrInterfaceDeclaration classDeclaration, MethodDeclaration method,
+                                     CompilerParameters<?, ?, ?> evalInfo, Set<String> inputs, EffectAnalyser effects) {
+        if (!effects.isPure()) {
+            throw new MVELTranspilerException("Cannot memoise '" + evalInfo.expression() + "', it " +
+                                              (effects.writesContext() ? "writes its context" : "calls external methods"));
+        }
+
+        NodeList<Statement> statements = method.getBody().get().getStatements();
+        NodeList<Expression> values = new NodeList<>();
+        int loads = 0;
+        while (loads < statements.size() && isInputLoad(statements.get(loads), inputs)) {
+            String name = statements.get(loads).asExpressionStmt().getExpression().asVariableDeclarationExpr()
+                                    .getVariable(0).getNameAsString();
+            Class<?> type = evalInfo.allVars().get(name).type().getClazz();
+            if (!isValueType(type)) {
+                throw new MVELTranspilerException("Cannot memoise '" + evalInfo.expression() + "', variable " + name +
+                                                  " of " + type.getName() + " is not an immutable value");
+            }
+            values.add(new NameExpr(name));
+            loads++;
+        }
+        String contextName = method.getParameter(0).getNameAsString();
+        BlockStmt compute = new BlockStmt();
+        for (Statement statement : new ArrayList<>(statements).subList(loads, statements.size())) {
+            if (statement.findFirst(NameExpr.class, n -> n.getNameAsString().equals(contextName)).isPresent()) {
+                throw new MVELTranspilerException("Cannot memoise '" + evalInfo.expression() +
+                                                  "', it reads its context other than through its variables");
+            }
+            statement.remove();
+            compute.addStatement(statement);
+        }
+
+        for (ReturnStmt returnStmt : compute.findAll(ReturnStmt.class)) {
+            if (returnStmt.findAncestor(LambdaExpr.class).isPresent() || returnStmt.findAncestor(ObjectCreationExpr.class).isPresent() ||
+                returnStmt.findAncestor(LocalClassDeclarationStmt.class).isPresent()) {
+                continue; // returns of nested bodies
+            }
+            BlockStmt store = new BlockStmt();
+            store.addStatement(new AssignExpr(new NameExpr("___value"), returnStmt.getExpression().get(), AssignExpr.Operator.ASSIGN));
+            store.addStatement(new BreakStmt("___compute"));
+            returnStmt.replace(store);
+        }
+
+        String outType = evalInfo.outType().getCanonicalGenericsName();
+        MethodCallExpr key = new MethodCallExpr(StaticJavaParser.parseExpression(MemoCache.class.getCanonicalName()), "key", values);
+        statements.add(StaticJavaParser.parseStatement("Object ___key = " + key + ";"));
+        statements.add(StaticJavaParser.parseStatement(outType + " ___value = ___memo.get(___key);"));
+        statements.add(StaticJavaParser.parseStatement("if (___value != null) { return ___value; }"));
+        statements.add(new LabeledStmt("___compute", compute));
+        statements.add(StaticJavaParser.parseStatement("return ___memo.put(___key, ___value);"));
+
+        classDeclaration.addImplementedType(MemoisingEvaluator.class.getCanonicalName() + "<" +
+                                            evalInfo.contextDeclaration().type().getCanonicalGenericsName() + ", " +
+                                            evalInfo.withDeclaration().type().getCanonicalGenericsName() + ", " + outType + ">");
+        classDeclaration.addMember(StaticJavaParser.parseBodyDeclaration(
+                "private final " + MemoCache.class.getCanonicalName() + "<" + outType + "> " + MEMO_FIELD + " = new " +
+                MemoCache.class.getCanonicalName() + "<>(" + evalInfo.options().memoSize() + ");"));
+        classDeclaration.addMember(StaticJavaParser.parseBodyDeclaration(
+                "@Override public " + MemoCache.class.getCanonicalName() + "<" + outType + "> memoCache() { return " +
+                MEMO_FIELD + "; }"));
+    }
+
+    private static boolean isInputLoad(Statement statement, Set<String> inputs) {
+        return statement.isExpressionStmt() && statement.asExpressionStmt().getExpression().isVariableDeclarationExpr() &&
+               statement.asExpressionStmt().getExpression().asVariableDeclarationExpr().getVariables().size() == 1 &&
+               inputs.contains(statement.asExpressionStmt().getExpression().asVariableDeclarationExpr().getVariable(0).getNameAsString());
+    }
+
+    // equal values of these types mean equal results, and they cannot change once they made a key
+    private static boolean isValueType(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || type == String.class || type == Boolean.class ||
+               type == Character.class || type == BigDecimal.class || type == BigInteger.class || type == UUID.class ||
+               (Number.class.isAssignableFrom(type) && type.getPackageName().equals("java.lang")) ||
+               (type.getPackageName().equals("java.time") && !Clock.class.isAssignableFrom(type));
+    }
+
+    private static boolean isRowDeclaration(Statement statement) {
+        return statement.isExpressionStmt() && statement.asExpressionStmt().getExpression().isVariableDeclarationExpr() &&
+               statement.asExpressionStmt().getExpression().asVariableDeclarationExpr().getVariables().stream()
+                        .anyMatch(v -> v.getNameAsString().equals(ColumnLayout.ROW_VARIABLE));
+    }
+
+    /**
+     * Emits the property sets, and the masks when there is a property index, as getters returning a new array on each
+     * call, so no caller can change what the evaluator reports to the others, e.g.
+     * <pre>
+     * &#64;Override public String[] getReadProperties() { return new String[] {"salary"}; }
+     * </pre>
+     */
+    private static void emitPropertySets(ClassOrInterfaceDeclaration classDeclaration, Set<String> readProperties,
+                                         Set<String> writeProperties, List<String> propertyIndex) {
+        emitArrayGetter(classDeclaration, "getReadProperties", "String[]", names(readProperties));
+        emitArrayGetter(classDeclaration, "getWriteProperties", "String[]", names(writeProperties));
+        if (!propertyIndex.isEmpty()) {
+            emitArrayGetter(classDeclaration, MASK_METHODS.get(0), "long[]", mask(readProperties, propertyIndex));
+            emitArrayGetter(classDeclaration, MASK_METHODS.get(1), "long[]", mask(writeProperties, propertyIndex));
+        }
+    }
+
+    /**
+     * Emits the getters of the effects returning constants, e.g.
+     * <pre>
+     * &#64;Override public boolean isPure() { return true; }
+     * </pre>
+     */
+    private static void emitEffects(ClassOrInterfaceDeclaration classDeclaration, EffectAnalyser effects) {
+        boolean[] values = {effects.isPure(), effects.writesContext(), effects.callsExternalMethods()};
+        for (int i = 0; i < EFFECT_METHODS.size(); i++) {
+            classDeclaration.addMember(StaticJavaParser.parseBodyDeclaration(
+                    "@Override public boolean " + EFFECT_METHODS.get(i) + "() { return " + values[i] + "; }"));
+        }
+    }
+
+    private static void emitArrayGetter(ClassOrInterfaceDeclaration classDeclaration, String getter, String type,
+                                        String array) {
+        classDeclaration.addMember(StaticJavaParser.parseBodyDeclaration(
+                "@Override public " + type + " " + getter + "() { return " + array + "; }"));
+    }
+
+    private static String names(Set<String> properties) {
+        StringBuilder names = new StringBuilder("new String[] {");
         boolean first = true;
-        for (String p : readProperties) {
-            if (!first) body.append(", ");
-            body.append('"').append(p.replace("\"", "\\\"")).append('"');
+        for (String property : properties) {
+            if (!first) {
+                names.append(", ");
+            }
+            names.append('"').append(StringEscapeUtils.escapeJava(property)).append('"');
             first = false;
         }
-        body.append("};");
-        m.setBody(new com.github.javaparser.ast.stmt.BlockStmt()
-                .addStatement(body.toString()));
+        return names.append('}').toString();
+    }
+
+    // bit i of the mask is the property at index i, names missing from the index are left out
+    private static String mask(Set<String> properties, List<String> propertyIndex) {
+        long[] words = new long[(propertyIndex.size() + 63) >>> 6];
+        for (int i = 0; i < propertyIndex.size(); i++) {
+            if (properties.contains(propertyIndex.get(i))) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        StringBuilder mask = new StringBuilder("new long[] {");
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                mask.append(", ");
+            }
+            mask.append("0x").append(Long.toHexString(words[i])).append('L');
+        }
+        return mask.append('}').toString();
     }
 }
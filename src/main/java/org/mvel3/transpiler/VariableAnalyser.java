@@ -1,7 +1,16 @@
 package org.mvel3.transpiler;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import org.mvel3.parser.ast.expr.CompactWithExpression;
 import org.mvel3.parser.ast.expr.DrlNameExpr;
+import org.mvel3.parser.ast.expr.ModifyStatement;
+import org.mvel3.parser.ast.expr.WithStatement;
 import org.mvel3.parser.ast.visitor.DrlVoidVisitorAdapter;
+import org.mvel3.util.StringUtils;
 
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -19,6 +28,12 @@ public class VariableAnalyser extends DrlVoidVisitorAdapter<Void> {
     // Consumers filter against the actual settable-property set of the context type.
     private Set<String> readProperties = new LinkedHashSet<>();
 
+    // Names of the properties written by the expression: assignment and increment targets, which are either written
+    // back to the context or, in with and modify blocks, set on the target, setter calls and put calls with a
+    // literal key. A target reached through a scope, person.address.city, also writes its root variable, person, as do
+    // the targets of with and modify blocks.
+    private Set<String> writeProperties = new LinkedHashSet<>();
+
     public VariableAnalyser(Set<String> available) {
         this.available = available;
     }
@@ -41,6 +56,70 @@ public class VariableAnalyser extends DrlVoidVisitorAdapter<Void> {
         readProperties.add(name);
     }
 
+    public void visit(AssignExpr n, Void arg) {
+        addWrite(n.getTarget());
+        super.visit(n, arg);
+    }
+
+    public void visit(UnaryExpr n, Void arg) {
+        if (n.getOperator() == UnaryExpr.Operator.PREFIX_INCREMENT || n.getOperator() == UnaryExpr.Operator.POSTFIX_INCREMENT ||
+            n.getOperator() == UnaryExpr.Operator.PREFIX_DECREMENT || n.getOperator() == UnaryExpr.Operator.POSTFIX_DECREMENT) {
+            addWrite(n.getExpression());
+        }
+        super.visit(n, arg);
+    }
+
+    public void visit(ModifyStatement n, Void arg) {
+        addWrite(n.getTarget());
+        super.visit(n, arg);
+    }
+
+    public void visit(WithStatement n, Void arg) {
+        addWrite(n.getTarget());
+        super.visit(n, arg);
+    }
+
+    public void visit(CompactWithExpression n, Void arg) {
+        addWrite(n.getTarget());
+        super.visit(n, arg);
+    }
+
+    public void visit(MethodCallExpr n, Void arg) {
+        String name = n.getNameAsString();
+        if (n.getArguments().size() == 1 && name.length() > 3 && name.startsWith("set") && Character.isUpperCase(name.charAt(3))) {
+            writeProperties.add(StringUtils.lcFirstForBean(name.substring(3)));
+        } else if (n.getArguments().size() == 2 && name.equals("put") && n.getArgument(0).isStringLiteralExpr()) {
+            writeProperties.add(n.getArgument(0).asStringLiteralExpr().asString());
+        }
+        super.visit(n, arg);
+    }
+
+    private void addWrite(Expression target) {
+        if (target.isFieldAccessExpr()) {
+            writeProperties.add(target.asFieldAccessExpr().getNameAsString());
+        }
+        // DrlNameExpr is a NameExpr
+        if (root(target) instanceof NameExpr nameExpr) {
+            writeProperties.add(nameExpr.getNameAsString());
+        }
+    }
+
+    // the variable at the start of a scope chain, e.g. person in person.getAddress().lines[0].city
+    private static Expression root(Expression target) {
+        Expression root = target;
+        while (true) {
+            if (root.isFieldAccessExpr()) {
+                root = root.asFieldAccessExpr().getScope();
+            } else if (root instanceof ArrayAccessExpr arrayAccess) {
+                root = arrayAccess.getName();
+            } else if (root instanceof MethodCallExpr call && call.getScope().isPresent()) {
+                root = call.getScope().get();
+            } else {
+                return root;
+            }
+        }
+    }
+
     public Set<String> getUsed() {
         return used;
     }
@@ -52,4 +131,8 @@ public class VariableAnalyser extends DrlVoidVisitorAdapter<Void> {
     public Set<String> getReadProperties() {
         return readProperties;
     }
+
+    public Set<String> getWriteProperties() {
+        return writeProperties;
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mvel3.transpiler.context;
+
+import com.github.javaparser.resolution.MethodUsage;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedFieldDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ClassLoaderTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import org.mvel3.transpiler.MVELToJavaRewriter;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static com.github.javaparser.ast.AccessSpecifier.PUBLIC;
+
+/**
+ * Symbol resolution results shared by the transpilations against the same <code>ClassLoader</code>: type lookups,
+ * the methods and fields of resolved types and the getters/setters found for properties. Without it every
+ * expression rebuilds its <code>TypeSolver</code> and resolves the same fact types from scratch.
+ * <p>
+ * Use {@link #forClassLoader(ClassLoader)} to obtain the shared cache of a class loader and
+ * {@link #newTypeSolver()} for the <code>TypeSolver</code> of each transpilation. The shared solver resolves
+ * through a <code>ReflectionTypeSolver</code> and, for a non-null class loader, a <code>ClassLoaderTypeSolver</code>,
+ * and memoises both solved and unsolved lookups. Each transpilation gets its own view of it, as JavaParser keeps a
+ * <code>JavaParserFacade</code>, which is not thread-safe, per <code>TypeSolver</code>.
+ * <p>
+ * Entries are never evicted: call {@link #invalidate(ClassLoader)} when the classes visible through a loader change.
+ * The cache of a class loader is only softly referenced, as its resolved declarations pin the loader's classes.
+ */
+public final class ResolutionCache {
+
+    private static final Map<ClassLoader, SoftReference<ResolutionCache>> CACHES = new WeakHashMap<>();
+
+    private record MemberKey(String typeName, String kind, String name, int parameters) {}
+
+    private final TypeSolver typeSolver;
+
+    private final Map<String, Set<MethodUsage>> methodUsages = new ConcurrentHashMap<>();
+
+    private final Map<String, List<ResolvedMethodDeclaration>> methods = new ConcurrentHashMap<>();
+
+    private final Map<MemberKey, Optional<MethodUsage>> getterSetters = new ConcurrentHashMap<>();
+
+    private final Map<MemberKey, Boolean> publicFields = new ConcurrentHashMap<>();
+
+    /**
+     * Memoises member lookups for types resolved by the given solver, which is used as is. The cache is private to
+     * its owner, as the solver is not known to be thread-safe.
+     */
+    ResolutionCache(TypeSolver typeSolver) {
+        this.typeSolver = typeSolver;
+    }
+
+    private ResolutionCache(ClassLoader classLoader) {
+        List<TypeSolver> elements = new ArrayList<>();
+        elements.add(new ReflectionTypeSolver(false));
+        if (classLoader != null) {
+            elements.add(new ClassLoaderTypeSolver(classLoader));
+        }
+        this.typeSolver = new MemoizingTypeSolver(elements);
+    }
+
+    /**
+     * Returns the shared cache for the given class loader, creating it on first use. A null class loader resolves
+     * through the <code>ReflectionTypeSolver</code> only.
+     */
+    public static ResolutionCache forClassLoader(ClassLoader classLoader) {
+        synchronized (CACHES) {
+            SoftReference<ResolutionCache> reference = CACHES.get(classLoader);
+            ResolutionCache cache = reference != null ? reference.get() : null;
+            if (cache == null) {
+                cache = new ResolutionCache(classLoader);
+                CACHES.put(classLoader, new SoftReference<>(cache));
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Forgets the shared cache of the given class loader. Transpilations already holding it keep using it; the next
+     * call to {@link #forClassLoader(ClassLoader)} starts a cold cache.
+     */
+    public static void invalidate(ClassLoader classLoader) {
+        synchronized (CACHES) {
+            CACHES.remove(classLoader);
+        }
+    }
+
+    public static void invalidateAll() {
+        synchronized (CACHES) {
+            CACHES.clear();
+        }
+    }
+
+    /**
+     * A new <code>TypeSolver</code> for a single transpilation, resolving through this cache.
+     */
+    public TypeSolver newTypeSolver() {
+        return new TypeSolverView(typeSolver);
+    }
+
+    public Set<MethodUsage> getAllMethods(ResolvedReferenceTypeDeclaration declaration) {
+        return memoise(methodUsages, declaration.getQualifiedName(), declaration::getAllMethods);
+    }
+
+    public List<ResolvedMethodDeclaration> getAllMethods(ResolvedReferenceType type) {
+        return memoise(methods, type.getQualifiedName(), type::getAllMethods);
+    }
+
+    /**
+     * The memoised {@link MVELToJavaRewriter#findGetterSetter(String, String, int, ResolvedReferenceTypeDeclaration)}.
+     */
+    public MethodUsage findGetterSetter(String getterSetter, String name, int parameters, ResolvedReferenceTypeDeclaration declaration) {
+        MemberKey key = new MemberKey(declaration.getQualifiedName(), getterSetter, name, parameters);
+        return memoise(getterSetters, key,
+                       () -> Optional.ofNullable(MVELToJavaRewriter.findGetterSetter(getterSetter, name, parameters, getAllMethods(declaration))))
+                .orElse(null);
+    }
+
+    public boolean isPublicField(ResolvedReferenceTypeDeclaration declaration, String name) {
+        MemberKey key = new MemberKey(declaration.getQualifiedName(), "field", name, 0);
+        return memoise(publicFields, key, () -> {
+            for (ResolvedFieldDeclaration field : declaration.getAllFields()) {
+                if (field.accessSpecifier() == PUBLIC && field.getName().equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    // resolves outside the map's locks: resolution may recurse into other lookups
+    private static <K, V> V memoise(Map<K, V> map, K key, Supplier<V> resolver) {
+        V value = map.get(key);
+        if (value == null) {
+            value = resolver.get();
+            V previous = map.putIfAbsent(key, value);
+            if (previous != null) {
+                value = previous;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * The shared root solver: the first element solving a name wins, as with a <code>CombinedTypeSolver</code>, but
+     * results are kept in a concurrent map instead of the combined solver's unsynchronized cache.
+     */
+    private static final class MemoizingTypeSolver implements TypeSolver {
+
+        private final List<TypeSolver> elements;
+
+        private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> types = new ConcurrentHashMap<>();
+
+        private MemoizingTypeSolver(List<TypeSolver> elements) {
+            this.elements = elements;
+            elements.forEach(element -> element.setParent(this));
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return null;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            throw new UnsupportedOperationException("The shared TypeSolver of a ResolutionCache is always a root");
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            return memoise(types, name, () -> {
+                for (TypeSolver element : elements) {
+                    SymbolReference<ResolvedReferenceTypeDeclaration> reference = element.tryToSolveType(name);
+                    if (reference.isSolved()) {
+                        return reference;
+                    }
+                }
+                return SymbolReference.unsolved();
+            });
+        }
+    }
+
+    private static final class TypeSolverView implements TypeSolver {
+
+        private final TypeSolver delegate;
+
+        private TypeSolver parent;
+
+        private TypeSolverView(TypeSolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return parent;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            return delegate.tryToSolveType(name);
+        }
+    }
+}
@@ -64,8 +64,18 @@ public class TranspilerContext<T, K, R> {
 
     private Map<String, Set<ResolvedMethodDeclaration>> resolvedStaticMethods;
 
+    private final ResolutionCache resolutionCache;
+
     public TranspilerContext(MvelParser parser, TypeSolver typeSolver, CompilerParameters<T, K, R> evaluatorInfo) {
+        this(parser, typeSolver, evaluatorInfo, new ResolutionCache(typeSolver));
+    }
+
+    /**
+     * @param typeSolver a solver obtained from {@link ResolutionCache#newTypeSolver()} of the given cache
+     */
+    public TranspilerContext(MvelParser parser, TypeSolver typeSolver, CompilerParameters<T, K, R> evaluatorInfo, ResolutionCache resolutionCache) {
         this.parser = parser;
+        this.resolutionCache = resolutionCache;
         this.typeSolver = typeSolver;
         this.parserConfiguration = parser.getParserConfiguration();
         this.symbolResolver = (JavaSymbolSolver) parserConfiguration.getSymbolResolver().get();
@@ -88,6 +98,10 @@ public class TranspilerContext<T, K, R> {
         return typeSolver;
     }
 
+    public ResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
+
     public JavaParserFacade getFacade() {
         return facade;
     }
@@ -148,7 +162,7 @@ public class TranspilerContext<T, K, R> {
                 if (indexOfStar >= 0) {
                     String                          clsName      = importStr.substring(0, indexOfStar - 1);
                     ResolvedType                    resolvedType = solver.solveTypeUsage(clsName, unitContext);
-                    List<ResolvedMethodDeclaration> methods      = resolvedType.asReferenceType().getAllMethods();
+                    List<ResolvedMethodDeclaration> methods      = resolutionCache.getAllMethods(resolvedType.asReferenceType());
                     methods.stream().forEach(m -> resolvedStaticMethods.computeIfAbsent(m.getName(), (k) -> new HashSet<>()).add(m));
                 } else {
                     int    lastDotIndex = importStr.lastIndexOf('.');
@@ -157,14 +171,14 @@ public class TranspilerContext<T, K, R> {
 
                     ResolvedType                    resolvedType = solver.solveTypeUsage(clsName, unitContext);
 
-                    List<ResolvedMethodDeclaration> methods      = resolvedType.asReferenceType().getAllMethods();
+                    List<ResolvedMethodDeclaration> methods      = resolutionCache.getAllMethods(resolvedType.asReferenceType());
                     methods.stream().filter(m -> m.getName().equals(methodName)).forEach(m -> resolvedStaticMethods.computeIfAbsent(methodName, (k) -> new HashSet<>()).add(m));
                 }
             }
         }
 
         for( ClassOrInterfaceType cl : classDeclaration.getExtendedTypes()) {
-            List<ResolvedMethodDeclaration> methods = cl.resolve().asReferenceType().getAllMethods();
+            List<ResolvedMethodDeclaration> methods = resolutionCache.getAllMethods(cl.resolve().asReferenceType());
             methods.stream().forEach(m -> resolvedStaticMethods.computeIfAbsent(m.getName(), (k) -> new HashSet<>()).add(m));
         }
 
@@ -0,0 +1,101 @@
+package org.mvel3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchEvaluationTest {
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testEvalBatch() throws NoSuchMethodException {
+        Evaluator<Map<String, Object>, Void, Integer> evaluator = MVEL.map(Declaration.of("a", int.class),
+                                                                            Declaration.of("b", int.class))
+                                                                       .<Integer>out(Integer.class)
+                                                                       .expression("a * b")
+                                                                       .classManager(new ClassManager())
+                                                                       .batch()
+                                                                       .compile();
+
+        // the loop is generated into the evaluator class, rather than inherited from Evaluator
+        assertThat(evaluator.getClass().getDeclaredMethod("evalBatch", List.class, int.class, int.class, Object[].class)).isNotNull();
+        assertThat(evaluator.getClass().getDeclaredMethod("evalBatch", Map[].class, int.class, int.class, Object[].class)).isNotNull();
+
+        List<Map<String, Object>> vars = List.of(Map.of("a", 1, "b", 2), Map.of("a", 3, "b", 4), Map.of("a", 5, "b", 6));
+
+        Integer[] results = new Integer[2];
+        evaluator.evalBatch(vars, 1, 2, results);
+        assertThat(results).containsExactly(12, 30);
+
+        results = new Integer[3];
+        evaluator.evalBatch(vars.toArray(new Map[0]), 0, 3, results);
+        assertThat(results).containsExactly(2, 12, 30);
+    }
+
+    @Test
+    void testTestBatchWritesBitset() throws NoSuchMethodException {
+        BooleanEvaluator<Person, Void> evaluator = MVEL.<Person>pojo(Person.class, Declaration.of("age", int.class))
+                                                       .<Boolean>out(Boolean.class)
+                                                       .expression("age % 3 == 0")
+                                                       .classManager(new ClassManager())
+                                                       .batch()
+                                                       .compileBoolean();
+
+        assertThat(evaluator.getClass().getDeclaredMethod("testBatch", List.class, int.class, int.class, long[].class)).isNotNull();
+
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 75; i++) {
+            Person person = new Person("p" + i);
+            person.setAge(i);
+            persons.add(person);
+        }
+
+        long[] bits = {-1L, -1L};
+        evaluator.testBatch(persons, 5, 70, bits);
+        for (int i = 0; i < 128; i++) {
+            boolean expected = i < 70 && (i + 5) % 3 == 0;
+            assertThat((bits[i >>> 6] & 1L << i) != 0).as("bit " + i).isEqualTo(expected);
+        }
+
+        long[] arrayBits = new long[2];
+        evaluator.testBatch(persons.toArray(new Person[0]), 5, 70, arrayBits);
+        assertThat(arrayBits).containsExactly(bits);
+    }
+
+    @Test
+    void testPrimitiveBatch() {
+        DoubleEvaluator<Map<String, Object>, Void> evaluator = MVEL.map(Declaration.of("x", double.class))
+                                                                   .<Double>out(Double.class)
+                                                                   .expression("x / 2")
+                                                                   .classManager(new ClassManager())
+                                                                   .batch()
+                                                                   .compileDouble();
+
+        double[] results = new double[2];
+        evaluator.applyAsDoubleBatch(List.of(Map.of("x", 1.0), Map.of("x", 5.0)), 0, 2, results);
+        assertThat(results).containsExactly(0.5, 2.5);
+    }
+
+    @Test
+    void testBatchRequiresEvalWithOutType() {
+        assertThatThrownBy(() -> MVEL.map(Declaration.of("a", int.class))
+                                     .<Integer>out(Integer.class)
+                                     .expression("a")
+                                     .generatedMethodName("evalWith")
+                                     .batch()
+                                     .build())
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,212 @@
+package org.mvel3;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.javacompiler.KieMemoryCompiler;
+import org.mvel3.methodutils.MethodByteCodeExtractor;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassManagerTest {
+
+    private static final int CLASSES = 16;
+
+    private static final int THREADS = 32;
+
+    // CLASSES distinct eval methods, each compiled under two names
+    private static Map<String, byte[]> byteCode;
+
+    @BeforeAll
+    static void compile() {
+        MvelParser.Factory.USE_ANTLR = true;
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < CLASSES; i++) {
+            for (String prefix : new String[] {"Stress", "Alias"}) {
+                sources.put("org.mvel3." + prefix + i,
+                            "package org.mvel3; public class " + prefix + i + " { public Object eval(Object o) { return \"" + i + "\"; } }");
+            }
+        }
+        byteCode = KieMemoryCompiler.compileNoLoad(sources, ClassManagerTest.class.getClassLoader(), null);
+    }
+
+    @Test
+    void testEqualEntriesShareTheClass() {
+        ClassManager classManager = new ClassManager();
+        classManager.define(Map.of("org.mvel3.Stress0", byteCode.get("org.mvel3.Stress0")));
+        classManager.define(Map.of("org.mvel3.Alias0", byteCode.get("org.mvel3.Alias0")));
+        classManager.define(Map.of("org.mvel3.Stress1", byteCode.get("org.mvel3.Stress1")));
+
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Alias0")).isSameAs(classManager.getClass("org.mvel3.Stress0"));
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Stress1")).isNotSameAs(classManager.getClass("org.mvel3.Stress0"));
+        assertThat(classManager.getClasses()).containsOnlyKeys("org.mvel3.Stress0", "org.mvel3.Alias0", "org.mvel3.Stress1");
+    }
+
+    @Test
+    void testUniqueEntriesAreNotDeduplicated() {
+        ClassManager classManager = new ClassManager();
+        classManager.defineUnique(Map.of("org.mvel3.Stress0", byteCode.get("org.mvel3.Stress0")));
+        classManager.define(Map.of("org.mvel3.Alias0", byteCode.get("org.mvel3.Alias0")));
+
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Alias0")).isNotSameAs(classManager.getClass("org.mvel3.Stress0"));
+        assertThat(classManager.stats().liveClasses()).isEqualTo(2);
+    }
+
+    @Test
+    void testEntriesCompareEveryInstruction() {
+        // the increments and the switch keys only differ in iinc and lookupswitch operands
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("org.mvel3.Inc1", "package org.mvel3; public class Inc1 { public Object eval(Object o) { int x = 0; x += 1; return x; } }");
+        sources.put("org.mvel3.Inc2", "package org.mvel3; public class Inc2 { public Object eval(Object o) { int x = 0; x += 2; return x; } }");
+        sources.put("org.mvel3.Switch1", "package org.mvel3; public class Switch1 { public Object eval(Object o) { switch (o.hashCode()) { case 1: return 1; case 20: return 2; default: return 3; } } }");
+        sources.put("org.mvel3.Switch2", "package org.mvel3; public class Switch2 { public Object eval(Object o) { switch (o.hashCode()) { case 1: return 1; case 30: return 2; default: return 3; } } }");
+        Map<String, byte[]> compiled = KieMemoryCompiler.compileNoLoad(sources, ClassManagerTest.class.getClassLoader(), null);
+
+        assertThat(new ClassManager.ClassEntry("org.mvel3.Inc1", compiled.get("org.mvel3.Inc1")))
+                .isNotEqualTo(new ClassManager.ClassEntry("org.mvel3.Inc2", compiled.get("org.mvel3.Inc2")));
+        assertThat(new ClassManager.ClassEntry("org.mvel3.Switch1", compiled.get("org.mvel3.Switch1")))
+                .isNotEqualTo(new ClassManager.ClassEntry("org.mvel3.Switch2", compiled.get("org.mvel3.Switch2")));
+        assertThat(new ClassManager.ClassEntry("org.mvel3.Inc1", compiled.get("org.mvel3.Inc1")))
+                .isEqualTo(new ClassManager.ClassEntry("org.mvel3.Inc1", compiled.get("org.mvel3.Inc1")));
+    }
+
+    @Test
+    void testGeneratedEvaluatorsUnderTwoNamesShareTheClass() {
+        // generated evaluators have a static initializer storing the read and write properties in their own class
+        MVELCompiler.TranspiledSource source = new MVELCompiler().transpileToSource(
+                MVEL.map(Declaration.of("a", int.class), Declaration.of("b", int.class))
+                    .<Object>out(Object.class)
+                    .expression("a * b > 10 ? a : b")
+                    .build());
+        String simpleName = source.fqn().substring(source.fqn().lastIndexOf('.') + 1);
+        String aliasFqn = source.fqn() + "Alias";
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(source.fqn(), source.javaSource());
+        sources.put(aliasFqn, source.javaSource().replace(simpleName, simpleName + "Alias"));
+        Map<String, byte[]> compiled = KieMemoryCompiler.compileNoLoad(sources, ClassManagerTest.class.getClassLoader(), null);
+        assertThat(MethodByteCodeExtractor.canonical("<clinit>", compiled.get(source.fqn()))).isNotNull();
+
+        ClassManager classManager = new ClassManager();
+        classManager.define(Map.of(source.fqn(), compiled.get(source.fqn())));
+        classManager.define(Map.of(aliasFqn, compiled.get(aliasFqn)));
+
+        assertThat((Class<?>) classManager.getClass(aliasFqn)).isSameAs(classManager.getClass(source.fqn()));
+        assertThat(classManager.stats().liveClasses()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentDefinitionsDefineEachEntryOnce() throws Exception {
+        ClassManager classManager = new ClassManager();
+        List<String> names = new ArrayList<>(byteCode.keySet());
+        Map<String, Set<Class<?>>> resolved = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                List<String> order = new ArrayList<>(names);
+                Collections.shuffle(order, new Random(t));
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (String name : order) {
+                        classManager.define(Map.of(name, byteCode.get(name)));
+                        Class<?> c = classManager.getClass(name);
+                        assertThat(c).isNotNull();
+                        resolved.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet()).add(c);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Set<Class<?>> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String name : names) {
+            assertThat(resolved.get(name)).as(name).hasSize(1);
+            distinct.addAll(resolved.get(name));
+        }
+        assertThat(distinct).hasSize(CLASSES);
+        for (int i = 0; i < CLASSES; i++) {
+            assertThat(resolved.get("org.mvel3.Alias" + i)).isEqualTo(resolved.get("org.mvel3.Stress" + i));
+        }
+    }
+
+    @Test
+    void testLeastRecentlyUsedClassesAreEvictedOverTheClassBudget() {
+        ClassManager classManager = new ClassManager(8, Long.MAX_VALUE);
+        for (int i = 0; i < 8; i++) {
+            define(classManager, "org.mvel3.Stress" + i);
+        }
+        assertThat(classManager.stats().evictions()).isZero();
+
+        classManager.getClass("org.mvel3.Stress0");
+        define(classManager, "org.mvel3.Stress8");
+
+        // evicted down to 7/8 of the budget, least recently used first
+        ClassManager.Stats stats = classManager.stats();
+        assertThat(stats.liveClasses()).isEqualTo(7);
+        assertThat(stats.evictions()).isEqualTo(2);
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Stress0")).isNotNull();
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Stress1")).isNull();
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Stress2")).isNull();
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Stress8")).isNotNull();
+
+        // an evicted class is defined again
+        define(classManager, "org.mvel3.Stress1");
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Stress1")).isNotNull();
+    }
+
+    @Test
+    void testByteCodeBudget() {
+        long classBytes = byteCode.get("org.mvel3.Stress0").length;
+        ClassManager classManager = new ClassManager(Integer.MAX_VALUE, classBytes * 4 + classBytes / 2);
+        for (int i = 0; i < CLASSES; i++) {
+            define(classManager, "org.mvel3.Stress" + i);
+        }
+
+        ClassManager.Stats stats = classManager.stats();
+        assertThat(stats.retainedByteCodeBytes()).isLessThanOrEqualTo(classBytes * 4 + classBytes / 2);
+        assertThat(stats.liveClasses() + stats.evictions()).isEqualTo(CLASSES);
+        assertThat((Class<?>) classManager.getClass("org.mvel3.Stress" + (CLASSES - 1))).isNotNull();
+    }
+
+    @Test
+    void testExplicitEvictionRemovesEveryName() {
+        ClassManager classManager = new ClassManager();
+        define(classManager, "org.mvel3.Stress0");
+        define(classManager, "org.mvel3.Alias0");
+        long retained = classManager.stats().retainedByteCodeBytes();
+
+        assertThat(classManager.evict("org.mvel3.Alias0")).isTrue();
+        assertThat(classManager.evict("org.mvel3.Alias0")).isFalse();
+
+        assertThat(classManager.getClasses()).isEmpty();
+        assertThat(classManager.stats()).isEqualTo(new ClassManager.Stats(0, 0, 1));
+        assertThat(retained).isEqualTo(byteCode.get("org.mvel3.Stress0").length);
+    }
+
+    private static void define(ClassManager classManager, String name) {
+        classManager.define(Map.of(name, byteCode.get(name)));
+    }
+}
@@ -0,0 +1,124 @@
+package org.mvel3;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColumnContextTest {
+
+    private static final Declaration[] DECLARATIONS = {Declaration.of("a", int.class),
+                                                       Declaration.of("x", double.class),
+                                                       Declaration.of("name", String.class)};
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testLayout() {
+        ColumnLayout layout = ColumnLayout.of(DECLARATIONS);
+        assertThat(layout.column("a")).isZero();
+        assertThat(layout.column("name")).isEqualTo(2);
+        assertThat(layout.columnType("x")).isEqualTo(double[].class);
+        assertThat(layout.columnType("name")).isEqualTo(Object[].class);
+
+        Columns columns = layout.newColumns(3);
+        assertThat(columns.<int[]>get(0)).hasSize(3);
+        assertThat(columns.<Object[]>get(2)).hasSize(3);
+
+        assertThatThrownBy(() -> layout.column("missing")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testEvalColumns() throws NoSuchMethodException {
+        ColumnEvaluator<Void, Double> evaluator = MVEL.columns(DECLARATIONS)
+                                                      .<Double>out(Double.class)
+                                                      .expression("a * x")
+                                                      .classManager(new ClassManager())
+                                                      .compileColumns();
+
+        // the loop is generated into the evaluator class, rather than inherited from ColumnEvaluator
+        assertThat(evaluator.getClass().getDeclaredMethod("evalColumns", Columns.class, int.class, int.class, double[].class)).isNotNull();
+
+        Columns columns = ColumnLayout.of(DECLARATIONS).newColumns(5);
+        int[] a = columns.get(0);
+        double[] x = columns.get(1);
+        for (int i = 0; i < 5; i++) {
+            a[i] = i;
+            x[i] = 0.5;
+        }
+
+        double[] output = new double[5];
+        evaluator.evalColumns(columns, 1, 4, output);
+        assertThat(output).containsExactly(0.0, 0.5, 1.0, 1.5, 0.0);
+
+        columns.row = 4;
+        assertThat(evaluator.eval(columns)).isEqualTo(2.0);
+    }
+
+    @Test
+    void testBlockWithBranchesAndObjectColumn() {
+        ColumnEvaluator<Void, String> evaluator = MVEL.columns(DECLARATIONS)
+                                                      .<String>out(String.class)
+                                                      .block("if (a > 1) { return name + a; } return name;")
+                                                      .classManager(new ClassManager())
+                                                      .compileColumns();
+
+        Columns columns = ColumnLayout.of(DECLARATIONS).newColumns(3);
+        int[] a = columns.get(0);
+        Object[] name = columns.get(2);
+        for (int i = 0; i < 3; i++) {
+            a[i] = i;
+            name[i] = "n";
+        }
+
+        String[] output = new String[3];
+        evaluator.evalColumns(columns, 0, 3, output);
+        assertThat(output).containsExactly("n", "n", "n2");
+    }
+
+    @Test
+    void testWriteBack() {
+        ColumnEvaluator<Void, Integer> evaluator = MVEL.columns(DECLARATIONS)
+                                                       .<Integer>out(Integer.class)
+                                                       .block("a = a * 2; return a;")
+                                                       .classManager(new ClassManager())
+                                                       .compileColumns();
+
+        Columns columns = ColumnLayout.of(DECLARATIONS).newColumns(3);
+        int[] a = columns.get(0);
+        a[0] = 1;
+        a[1] = 2;
+        a[2] = 3;
+
+        int[] output = new int[3];
+        evaluator.evalColumns(columns, 0, 3, output);
+        assertThat(output).containsExactly(2, 4, 6);
+        assertThat(a).containsExactly(2, 4, 6);
+    }
+
+    @Test
+    void testCompileColumnsRequiresColumnsContext() {
+        assertThatThrownBy(() -> MVEL.map(Declaration.of("a", int.class))
+                                     .<Integer>out(Integer.class)
+                                     .expression("a")
+                                     .compileColumns())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testPojoNamedColumns() {
+        Evaluator<org.mvel3.test.Columns, Void, String> evaluator = MVEL.<org.mvel3.test.Columns>pojo(org.mvel3.test.Columns.class,
+                                                                                                     Declaration.of("name", String.class))
+                                                                        .<String>out(String.class)
+                                                                        .expression("name + name")
+                                                                        .classManager(new ClassManager())
+                                                                        .compile();
+        assertThat(evaluator.eval(new org.mvel3.test.Columns("ab"))).isEqualTo("abab");
+    }
+}
@@ -0,0 +1,132 @@
+package org.mvel3;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompileAsyncTest {
+
+    /**
+     * Queues the tasks until {@link #drain()}, so tests control how submitted compilations interleave.
+     */
+    private static class QueuedExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void drain() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testCompileAsync() throws Exception {
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> future =
+                new MVELCompiler().compileAsync(mapEvaluator("a + b", new ClassManager()));
+
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("a", 2);
+        vars.put("b", 3);
+        assertThat(future.get().eval(vars)).isEqualTo(5);
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneCompilation() throws Exception {
+        ClassManager classManager = new ClassManager();
+        QueuedExecutor executor = new QueuedExecutor();
+        MVELCompiler compiler = new MVELCompiler();
+
+        // both requests are transpiled before either compilation runs
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> first =
+                compiler.compileAsync(mapEvaluator("a * b + 1", classManager), executor);
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> second =
+                compiler.compileAsync(mapEvaluator("a * b + 1", classManager), executor);
+        executor.drain();
+
+        assertThat(first).isDone();
+        assertThat(second).isDone();
+        assertThat(second.get()).isSameAs(first.get());
+
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("a", 2);
+        vars.put("b", 3);
+        assertThat(second.get().eval(vars)).isEqualTo(7);
+    }
+
+    @Test
+    void testDifferentClassManagersDoNotShare() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        MVELCompiler compiler = new MVELCompiler();
+
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> first =
+                compiler.compileAsync(mapEvaluator("a - b", new ClassManager()), executor);
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> second =
+                compiler.compileAsync(mapEvaluator("a - b", new ClassManager()), executor);
+        executor.drain();
+
+        assertThat(second.get()).isNotSameAs(first.get());
+    }
+
+    @Test
+    void testVariantsDoNotShare() throws Exception {
+        ClassManager classManager = new ClassManager();
+        QueuedExecutor executor = new QueuedExecutor();
+        MVELCompiler compiler = new MVELCompiler();
+
+        // the same eval method, with other generated members
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> plain =
+                compiler.compileAsync(mapEvaluator("a % b", classManager), executor);
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> batch =
+                compiler.compileAsync(mapBuilder("a % b", classManager).batch().build(), executor);
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> masked =
+                compiler.compileAsync(mapBuilder("a % b", classManager).propertyIndex(List.of("a", "b")).build(), executor);
+        CompletableFuture<Evaluator<Map<String, Object>, Void, Object>> memoised =
+                compiler.compileAsync(mapBuilder("a % b", classManager).memoise(16).build(), executor);
+        executor.drain();
+
+        assertThat(batch.get()).isNotSameAs(plain.get());
+        assertThat(batch.get().getClass().getDeclaredMethod("evalBatch", List.class, int.class, int.class, Object[].class)).isNotNull();
+        assertThatThrownBy(() -> plain.get().getClass().getDeclaredMethod("evalBatch", List.class, int.class, int.class, Object[].class))
+                .isInstanceOf(NoSuchMethodException.class);
+        assertThat(memoised.get()).isInstanceOf(MemoisingEvaluator.class);
+        assertThat(plain.get()).isNotInstanceOf(MemoisingEvaluator.class);
+        assertThat(masked.get().getReadMask()).containsExactly(0b11L);
+        assertThat(plain.get().getReadMask()).isEmpty();
+    }
+
+    private static CompilerParameters<Map<String, Object>, Void, Object> mapEvaluator(String expression, ClassManager classManager) {
+        return mapBuilder(expression, classManager).build();
+    }
+
+    private static MVELBuilder<Map<String, Object>, Void, Object> mapBuilder(String expression, ClassManager classManager) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("b", int.class))
+                   .out(Type.OBJECT)
+                   .expression(expression)
+                   .classManager(classManager);
+    }
+}
@@ -0,0 +1,360 @@
+package org.mvel3;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.CompilerMetrics.Phase;
+import org.mvel3.lambdaextractor.LambdaRuntime;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompilerBackendTest {
+
+    private static final String PERSISTENCE = "mvel3.compiler.lambda.persistence";
+
+    private static String previousPersistence;
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    // a persisted lambda is shared by both backends, which would compare a class with itself
+    @BeforeAll
+    static void disablePersistence() {
+        previousPersistence = System.getProperty(PERSISTENCE);
+        System.setProperty(PERSISTENCE, "false");
+        LambdaRuntime.resetSingletonForTests();
+    }
+
+    @AfterAll
+    static void restorePersistence() {
+        if (previousPersistence == null) {
+            System.clearProperty(PERSISTENCE);
+        } else {
+            System.setProperty(PERSISTENCE, previousPersistence);
+        }
+        LambdaRuntime.resetSingletonForTests();
+    }
+
+    @Test
+    void testPojoExpressionIsEmittedDirectly() {
+        Evaluator<Object, Void, Boolean> javac = pojoEvaluator("age > 18 && name != \"Bob\"", CompilerBackend.JAVAC);
+        Evaluator<Object, Void, Boolean> direct = pojoEvaluator("age > 18 && name != \"Bob\"", CompilerBackend.BYTECODE);
+
+        Person alice = new Person("Alice");
+        alice.setAge(30);
+        Person bob = new Person("Bob");
+        bob.setAge(30);
+        Person young = new Person("Carl");
+        young.setAge(15);
+
+        for (Person person : Arrays.asList(alice, bob, young)) {
+            assertThat(direct.eval(person)).isEqualTo(javac.eval(person));
+        }
+        assertThat(direct.eval(alice)).isTrue();
+        assertThat(direct.getReadProperties()).containsExactlyInAnyOrder(javac.getReadProperties());
+        assertThat(direct.isPure()).isTrue();
+        assertThat(javac.isPure()).isTrue();
+
+        // javac bridges the generic eval method, the direct emitter implements the erased signature only
+        assertThat(hasBridgeMethod(javac)).isTrue();
+        assertThat(hasBridgeMethod(direct)).isFalse();
+    }
+
+    @Test
+    void testMapBlockMatchesJavac() {
+        String block = "int c = a * 2; if (c > b) { return c - b; } return b;";
+
+        Evaluator<Map<String, Object>, Void, Object> javac = mapEvaluator(block, CompilerBackend.JAVAC);
+        Evaluator<Map<String, Object>, Void, Object> direct = mapEvaluator(block, CompilerBackend.BYTECODE);
+
+        for (int a = 0; a < 5; a++) {
+            Map<String, Object> vars = new HashMap<>();
+            vars.put("a", a);
+            vars.put("b", 3);
+            assertThat(direct.eval(vars)).isEqualTo(javac.eval(vars));
+        }
+    }
+
+    @Test
+    void testBigDecimalArithmeticMatchesJavac() {
+        String expression = "x * 2 + y";
+
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("x", new BigDecimal("1.25"));
+        vars.put("y", new BigDecimal("0.5"));
+
+        Evaluator<Map<String, Object>, Void, Object> javac = bigDecimalEvaluator(expression, CompilerBackend.JAVAC);
+        Evaluator<Map<String, Object>, Void, Object> direct = bigDecimalEvaluator(expression, CompilerBackend.BYTECODE);
+
+        assertThat(direct.eval(vars)).isEqualTo(javac.eval(vars));
+    }
+
+    @Test
+    void testUnsupportedConstructFallsBackToJavac() {
+        // the direct emitter does not extend user supplied super classes
+        RecordingMetrics metrics = new RecordingMetrics();
+        Evaluator<Object, Void, Boolean> evaluator = MVEL.pojo(Person.class,
+                                                               Declaration.of("age", int.class))
+                                                         .<Boolean>out(Boolean.class)
+                                                         .expression("age > 18")
+                                                         .generatedSuperName(GeneratedParentClass.class.getCanonicalName())
+                                                         .backend(CompilerBackend.BYTECODE)
+                                                         .metrics(metrics)
+                                                         .compile();
+        assertThat(metrics.phases).contains(Phase.JAVAC);
+
+        Person alice = new Person("Alice");
+        alice.setAge(30);
+        assertThat(evaluator.eval(alice)).isTrue();
+        assertThat(evaluator).isInstanceOf(GeneratedParentClass.class);
+    }
+
+    @Test
+    void testSettersMatchJavac() {
+        String block = "person.age = a; person.setName(\"Ann\"); return person.name + person.age;";
+
+        Evaluator<Map<String, Object>, Void, Object> javac = personEvaluator(block, CompilerBackend.JAVAC);
+        Evaluator<Map<String, Object>, Void, Object> direct = personEvaluator(block, CompilerBackend.BYTECODE);
+
+        Person javacPerson = new Person("Bob");
+        Person directPerson = new Person("Bob");
+        assertThat(direct.eval(personVars(directPerson, 41))).isEqualTo(javac.eval(personVars(javacPerson, 41)))
+                                                            .isEqualTo("Ann41");
+        assertThat(directPerson.getName()).isEqualTo(javacPerson.getName());
+        assertThat(directPerson.getAge()).isEqualTo(javacPerson.getAge()).isEqualTo(41);
+    }
+
+    @Test
+    void testMapWriteBackMatchesJavac() {
+        // a = ... becomes __context.put("a", a = ...), return b = ... becomes return MVEL.putMap(__context, "b", b = ...)
+        String block = "values.put(\"k\", a); a = a + 1; return b = a * 2;";
+
+        Evaluator<Map<String, Object>, Void, Object> javac = compile(writeBackMap(block), CompilerBackend.JAVAC);
+        Evaluator<Map<String, Object>, Void, Object> direct = compile(writeBackMap(block), CompilerBackend.BYTECODE);
+
+        Map<String, Object> javacVars = writeBackVars();
+        Map<String, Object> directVars = writeBackVars();
+        assertThat(direct.eval(directVars)).isEqualTo(javac.eval(javacVars)).isEqualTo(8);
+        assertThat(directVars).isEqualTo(javacVars);
+        assertThat(directVars).containsEntry("a", 4).containsEntry("b", 8).containsEntry("values", Map.of("k", 3));
+    }
+
+    @Test
+    void testListWriteBackMatchesJavac() {
+        // a = ... becomes __context.set(0, a = ...), return b = ... becomes return MVEL.setList(__context, 1, b = ...)
+        String block = "items.set(0, a); a = a + 1; return b = a * 2;";
+
+        Evaluator<List<Object>, Void, Object> javac = compile(writeBackList(block), CompilerBackend.JAVAC);
+        Evaluator<List<Object>, Void, Object> direct = compile(writeBackList(block), CompilerBackend.BYTECODE);
+
+        List<Object> javacVars = new ArrayList<>(List.of(3, 0, new ArrayList<>(List.of("x"))));
+        List<Object> directVars = new ArrayList<>(List.of(3, 0, new ArrayList<>(List.of("x"))));
+        assertThat(direct.eval(directVars)).isEqualTo(javac.eval(javacVars)).isEqualTo(8);
+        assertThat(directVars).isEqualTo(javacVars).isEqualTo(List.of(4, 8, List.of(3)));
+    }
+
+    @Test
+    void testNullSafeChainMatchesJavac() {
+        Evaluator<Map<String, Object>, Void, Object> javac = personEvaluator("return person!.address!.city;", CompilerBackend.JAVAC);
+        Evaluator<Map<String, Object>, Void, Object> direct = personEvaluator("return person!.address!.city;", CompilerBackend.BYTECODE);
+
+        Person withoutAddress = new Person("Ann");
+        Person withAddress = new Person("Bob");
+        Address address = new Address();
+        address.setCity("Rome");
+        withAddress.setAddress(address);
+
+        for (Person person : Arrays.asList(null, withoutAddress, withAddress)) {
+            Map<String, Object> vars = personVars(person, 0);
+            assertThat(direct.eval(vars)).isEqualTo(javac.eval(vars));
+        }
+        assertThat(direct.eval(personVars(withAddress, 0))).isEqualTo("Rome");
+        assertThat(direct.eval(personVars(null, 0))).isNull();
+    }
+
+    @Test
+    void testIfElseChainMatchesJavac() {
+        String block = "if (a > b) { return \"greater\"; } else if (a == b) { return \"equal\"; } else { return \"less\"; }";
+
+        Evaluator<Map<String, Object>, Void, Object> javac = mapEvaluator(block, CompilerBackend.JAVAC);
+        Evaluator<Map<String, Object>, Void, Object> direct = mapEvaluator(block, CompilerBackend.BYTECODE);
+
+        for (int a = 2; a < 5; a++) {
+            Map<String, Object> vars = new HashMap<>();
+            vars.put("a", a);
+            vars.put("b", 3);
+            assertThat(direct.eval(vars)).isEqualTo(javac.eval(vars));
+        }
+    }
+
+    @Test
+    void testNaNComparisonsMatchJavac() {
+        // every comparison involving NaN is false, except !=, whichever way the branch is emitted
+        List<String> contents = List.of("return x < y;", "return x <= y;", "return x > y;", "return x >= y;",
+                                        "return x == y;", "return x != y;", "return !(x < y);", "return !(x >= y);",
+                                        "return x < y ? 1 : 2;", "if (x >= y) { return 1; } return 2;");
+        double[][] operands = {{Double.NaN, 1}, {1, Double.NaN}, {Double.NaN, Double.NaN}, {1, 2}, {2, 1}, {1, 1}};
+
+        for (String block : contents) {
+            Evaluator<Map<String, Object>, Void, Object> javac = compile(doubleEvaluator(block), CompilerBackend.JAVAC);
+            Evaluator<Map<String, Object>, Void, Object> direct = compile(doubleEvaluator(block), CompilerBackend.BYTECODE);
+            for (double[] operand : operands) {
+                Map<String, Object> vars = new HashMap<>();
+                vars.put("x", operand[0]);
+                vars.put("y", operand[1]);
+                assertThat(direct.eval(vars)).as(block + " with " + Arrays.toString(operand)).isEqualTo(javac.eval(vars));
+            }
+        }
+    }
+
+    @Test
+    void testOverloadResolutionMatchesJavac() {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("a", 3);
+        vars.put("l", 7L);
+        vars.put("i", -5);
+        vars.put("c", 'x');
+        vars.put("f", 2.5f);
+        vars.put("d", 2.5d);
+
+        // widening to max(long, long), unboxing to abs(int), the exact valueOf(char), round(float) and round(double)
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("Math.max(a, l)", 7L);
+        expected.put("Math.abs(i)", 5);
+        expected.put("String.valueOf(c)", "x");
+        expected.put("Math.round(f)", 3);
+        expected.put("Math.round(d)", 3L);
+
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            Evaluator<Map<String, Object>, Void, Object> javac = compile(overloadEvaluator(entry.getKey()), CompilerBackend.JAVAC);
+            Evaluator<Map<String, Object>, Void, Object> direct = compile(overloadEvaluator(entry.getKey()), CompilerBackend.BYTECODE);
+
+            assertThat(javac.eval(vars)).as(entry.getKey()).isEqualTo(entry.getValue());
+            assertThat(direct.eval(vars)).as(entry.getKey()).isEqualTo(entry.getValue());
+        }
+    }
+
+    private static Evaluator<Object, Void, Boolean> pojoEvaluator(String expression, CompilerBackend backend) {
+        return compile(MVEL.pojo(Person.class,
+                                 Declaration.of("age", int.class),
+                                 Declaration.of("name", String.class))
+                           .<Boolean>out(Boolean.class)
+                           .expression(expression), backend);
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> mapEvaluator(String block, CompilerBackend backend) {
+        return compile(MVEL.map(Declaration.of("a", int.class),
+                                Declaration.of("b", int.class))
+                           .out(Type.OBJECT)
+                           .block(block), backend);
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> bigDecimalEvaluator(String expression, CompilerBackend backend) {
+        return compile(MVEL.map(Declaration.of("x", BigDecimal.class),
+                                Declaration.of("y", BigDecimal.class))
+                           .out(Type.OBJECT)
+                           .expression(expression), backend);
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> personEvaluator(String block, CompilerBackend backend) {
+        return compile(MVEL.map(Declaration.of("person", Person.class),
+                                Declaration.of("a", int.class))
+                           .out(Type.OBJECT)
+                           .block(block), backend);
+    }
+
+    private static Map<String, Object> personVars(Person person, int a) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("person", person);
+        vars.put("a", a);
+        return vars;
+    }
+
+    private static MVELBuilder<Map<String, Object>, Void, Object> writeBackMap(String block) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("b", int.class),
+                        Declaration.of("values", Map.class))
+                   .out(Type.OBJECT)
+                   .block(block);
+    }
+
+    private static Map<String, Object> writeBackVars() {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("a", 3);
+        vars.put("b", 0);
+        vars.put("values", new HashMap<>());
+        return vars;
+    }
+
+    private static MVELBuilder<List<Object>, Void, Object> writeBackList(String block) {
+        return MVEL.list(Declaration.of("a", int.class),
+                         Declaration.of("b", int.class),
+                         Declaration.of("items", List.class))
+                   .out(Type.OBJECT)
+                   .block(block);
+    }
+
+    private static MVELBuilder<Map<String, Object>, Void, Object> doubleEvaluator(String block) {
+        return MVEL.map(Declaration.of("x", double.class),
+                        Declaration.of("y", double.class))
+                   .out(Type.OBJECT)
+                   .block(block);
+    }
+
+    private static MVELBuilder<Map<String, Object>, Void, Object> overloadEvaluator(String expression) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("l", long.class),
+                        Declaration.of("i", Integer.class),
+                        Declaration.of("c", char.class),
+                        Declaration.of("f", float.class),
+                        Declaration.of("d", double.class))
+                   .out(Type.OBJECT)
+                   .expression(expression);
+    }
+
+    /**
+     * Compiles with the backend and checks the backend did emit the class: a direct compilation that silently fell
+     * back to javac would only compare javac with itself.
+     */
+    private static <C, O> Evaluator<C, Void, O> compile(MVELBuilder<C, Void, O> builder, CompilerBackend backend) {
+        RecordingMetrics metrics = new RecordingMetrics();
+        Evaluator<C, Void, O> evaluator = builder.classManager(new ClassManager())
+                                                 .backend(backend)
+                                                 .metrics(metrics)
+                                                 .compile();
+        if (backend == CompilerBackend.BYTECODE) {
+            assertThat(metrics.phases).contains(Phase.BYTECODE).doesNotContain(Phase.JAVAC);
+        } else {
+            assertThat(metrics.phases).contains(Phase.JAVAC).doesNotContain(Phase.BYTECODE);
+        }
+        return evaluator;
+    }
+
+    private static boolean hasBridgeMethod(Evaluator<?, ?, ?> evaluator) {
+        return Arrays.stream(evaluator.getClass().getDeclaredMethods()).anyMatch(Method::isBridge);
+    }
+
+    private static class RecordingMetrics implements CompilerMetrics {
+
+        private final Set<Phase> phases = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void phase(Phase phase, long nanos, long allocatedBytes) {
+            phases.add(phase);
+        }
+    }
+}
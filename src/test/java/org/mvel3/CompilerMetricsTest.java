@@ -0,0 +1,94 @@
+package org.mvel3;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.CompilerMetrics.Phase;
+import org.mvel3.lambdaextractor.LambdaRuntime;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompilerMetricsTest {
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testEachPhaseIsReported() {
+        InMemoryCompilerMetrics metrics = new InMemoryCompilerMetrics();
+
+        Evaluator<Map<String, Object>, Void, Object> first = mapEvaluator("a * b + 7", metrics);
+        mapEvaluator("a * b + 7", metrics);
+
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("a", 2);
+        vars.put("b", 3);
+        assertThat(first.eval(vars)).isEqualTo(13);
+
+        for (Phase phase : new Phase[] {Phase.PARSE, Phase.VARIABLE_ANALYSIS, Phase.EVAL_PRE, Phase.REWRITE, Phase.CLASS_FILTER}) {
+            assertThat(metrics.stats(phase).count()).as(phase.name()).isEqualTo(2);
+            assertThat(metrics.stats(phase).totalNanos()).as(phase.name()).isPositive();
+        }
+
+        assertThat(metrics.compilations() + metrics.persistedArtifactReuses()).isEqualTo(2);
+        assertThat(metrics.stats(Phase.DEFINE).count()).isEqualTo(metrics.compilations());
+        assertThat(metrics.stats(Phase.JAVAC).count()).isEqualTo(metrics.compilations());
+        assertThat(metrics.stats(Phase.PRINT).count()).isEqualTo(metrics.compilations());
+        if (LambdaRuntime.isPersistenceEnabled()) {
+            // the second compilation matches the lambda registered, and persisted, by the first
+            assertThat(metrics.catalogHits()).isPositive();
+            assertThat(metrics.persistedArtifactReuses()).isPositive();
+            assertThat(metrics.stats(Phase.LOAD_PERSISTED).count()).isEqualTo(metrics.persistedArtifactReuses());
+        }
+    }
+
+    @Test
+    void testFailedPhaseIsReported() {
+        InMemoryCompilerMetrics metrics = new InMemoryCompilerMetrics();
+
+        assertThatThrownBy(() -> metrics.time(Phase.JAVAC, () -> {
+            throw new IllegalStateException("javac failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(metrics.stats(Phase.JAVAC).count()).isEqualTo(1);
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        InMemoryCompilerMetrics metrics = new InMemoryCompilerMetrics();
+        for (int i = 0; i < 98; i++) {
+            metrics.phase(Phase.PARSE, 1_000, 10);
+        }
+        metrics.phase(Phase.PARSE, 1_000_000, -1);
+        metrics.phase(Phase.PARSE, 5_000_000, 10);
+
+        InMemoryCompilerMetrics.PhaseStats stats = metrics.stats(Phase.PARSE);
+        assertThat(stats.count()).isEqualTo(100);
+        assertThat(stats.maxNanos()).isEqualTo(5_000_000);
+        // within a factor of two of the recorded durations
+        assertThat(stats.p50Nanos()).isBetween(1_000L, 2_000L);
+        assertThat(stats.p99Nanos()).isBetween(1_000_000L, 2_000_000L);
+        assertThat(stats.allocatedBytes()).isEqualTo(990);
+
+        metrics.reset();
+        assertThat(metrics.stats(Phase.PARSE).count()).isZero();
+        assertThat(metrics.stats(Phase.PARSE).p99Nanos()).isZero();
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> mapEvaluator(String expression, CompilerMetrics metrics) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("b", int.class))
+                   .out(Type.OBJECT)
+                   .expression(expression)
+                   .classManager(new ClassManager())
+                   .metrics(metrics)
+                   .compile();
+    }
+}
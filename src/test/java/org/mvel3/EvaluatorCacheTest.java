@@ -0,0 +1,97 @@
+package org.mvel3;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EvaluatorCacheTest {
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testEqualParametersReuseTheEvaluatorClass() {
+        EvaluatorCache cache = new EvaluatorCache(16, 1024);
+
+        Evaluator<Map<String, Object>, Void, Object> first = mapEvaluator("a + b", cache).compile();
+        // a different ClassManager does not prevent the hit
+        Evaluator<Map<String, Object>, Void, Object> second = mapEvaluator("a + b", cache).compile();
+
+        assertThat(second.getClass()).isSameAs(first.getClass());
+        assertThat(second).isNotSameAs(first);
+
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("a", 2);
+        vars.put("b", 3);
+        assertThat(second.eval(vars)).isEqualTo(5);
+
+        EvaluatorCache.Stats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.size()).isEqualTo(1);
+        assertThat(stats.weight()).isEqualTo("a + b".length());
+    }
+
+    @Test
+    void testDifferentDeclarationsMiss() {
+        EvaluatorCache cache = new EvaluatorCache(16, 1024);
+
+        Evaluator<Map<String, Object>, Void, Object> ints = mapEvaluator("a + b", cache).compile();
+        Evaluator<Map<String, Object>, Void, Object> longs = MVEL.map(Declaration.of("a", long.class),
+                                                                      Declaration.of("b", long.class))
+                                                                 .out(Type.OBJECT)
+                                                                 .expression("a + b")
+                                                                 .evaluatorCache(cache)
+                                                                 .compile();
+
+        assertThat(longs.getClass()).isNotSameAs(ints.getClass());
+        assertThat(cache.stats().misses()).isEqualTo(2);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        EvaluatorCache cache = new EvaluatorCache(2, 1024);
+
+        Evaluator<Map<String, Object>, Void, Object> sum = mapEvaluator("a + b", cache).compile();
+        mapEvaluator("a - b", cache).compile();
+        mapEvaluator("a + b", cache).compile(); // hit, "a - b" is now the eldest
+        mapEvaluator("a * b", cache).compile();
+
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+
+        assertThat(mapEvaluator("a + b", cache).compile().getClass()).isSameAs(sum.getClass());
+        assertThat(cache.stats().hits()).isEqualTo(2);
+        mapEvaluator("a - b", cache).compile();
+        assertThat(cache.stats().misses()).isEqualTo(4);
+    }
+
+    @Test
+    void testWeightBound() {
+        EvaluatorCache cache = new EvaluatorCache(16, 10);
+
+        mapEvaluator("a + b", cache).compile();
+        mapEvaluator("a - b", cache).compile();
+        mapEvaluator("a * b", cache).compile();
+
+        assertThat(cache.stats().weight()).isLessThanOrEqualTo(10);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    private static MVELBuilder<Map<String, Object>, Void, Object> mapEvaluator(String expression, EvaluatorCache cache) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("b", int.class))
+                   .out(Type.OBJECT)
+                   .expression(expression)
+                   .classManager(new ClassManager())
+                   .evaluatorCache(cache);
+    }
+}
@@ -0,0 +1,174 @@
+package org.mvel3;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpressionInlineCacheTest {
+
+    /**
+     * Records the types it is asked to compile for, returning an evaluator that echoes them.
+     */
+    private static class RecordingCompiler implements Function<Map<String, Type<?>>, Evaluator<Map<String, Object>, Void, Object>> {
+
+        private final List<Map<String, Type<?>>> compilations = new ArrayList<>();
+
+        private boolean failGeneric;
+
+        @Override
+        public Evaluator<Map<String, Object>, Void, Object> apply(Map<String, Type<?>> types) {
+            if (failGeneric && types.values().stream().allMatch(Type.OBJECT::equals)) {
+                throw new RuntimeException("Unable to compile with Object variables");
+            }
+            Map<String, Type<?>> copy = new HashMap<>(types);
+            compilations.add(copy);
+            return new Evaluator<>() {
+                @Override
+                public Object eval(Map<String, Object> vars) {
+                    return copy;
+                }
+            };
+        }
+    }
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testSameShapeReusesTheEvaluator() {
+        ExpressionInlineCache cache = new ExpressionInlineCache();
+        RecordingCompiler compiler = new RecordingCompiler();
+
+        Evaluator<Map<String, Object>, Void, Object> first = evaluator(cache, compiler, Integer.class);
+        Evaluator<Map<String, Object>, Void, Object> second = evaluator(cache, compiler, Integer.class);
+
+        assertThat(second).isSameAs(first);
+        assertThat(compiler.compilations).hasSize(1);
+    }
+
+    @Test
+    void testEachShapeIsCompiledOnceUpToTheLimit() {
+        ExpressionInlineCache cache = new ExpressionInlineCache();
+        RecordingCompiler compiler = new RecordingCompiler();
+        Class<?>[] shapes = {Integer.class, Long.class, Double.class, String.class};
+
+        for (int round = 0; round < 2; round++) {
+            for (Class<?> shape : shapes) {
+                assertThat(evaluator(cache, compiler, shape).eval(null)).isEqualTo(Map.of("a", Type.type(shape)));
+            }
+        }
+        assertThat(compiler.compilations).hasSize(ExpressionInlineCache.MAX_SHAPES);
+    }
+
+    @Test
+    void testMegamorphicSiteUsesTheGenericVariant() {
+        ExpressionInlineCache cache = new ExpressionInlineCache();
+        RecordingCompiler compiler = new RecordingCompiler();
+        for (Class<?> shape : new Class<?>[] {Integer.class, Long.class, Double.class, String.class}) {
+            evaluator(cache, compiler, shape);
+        }
+
+        Evaluator<Map<String, Object>, Void, Object> generic = evaluator(cache, compiler, Short.class);
+        assertThat(generic.eval(null)).isEqualTo(Map.of("a", Type.OBJECT));
+        assertThat(evaluator(cache, compiler, Byte.class)).isSameAs(generic);
+        assertThat(compiler.compilations).hasSize(ExpressionInlineCache.MAX_SHAPES + 1);
+    }
+
+    @Test
+    void testMegamorphicSiteWithoutGenericVariantCachesEachShape() {
+        ExpressionInlineCache cache = new ExpressionInlineCache();
+        RecordingCompiler compiler = new RecordingCompiler();
+        compiler.failGeneric = true;
+        for (Class<?> shape : new Class<?>[] {Integer.class, Long.class, Double.class, String.class}) {
+            evaluator(cache, compiler, shape);
+        }
+
+        Evaluator<Map<String, Object>, Void, Object> fifth = evaluator(cache, compiler, Short.class);
+        assertThat(fifth.eval(null)).isEqualTo(Map.of("a", Type.type(Short.class)));
+        assertThat(evaluator(cache, compiler, Short.class)).isSameAs(fifth);
+        assertThat(compiler.compilations).hasSize(ExpressionInlineCache.MAX_SHAPES + 1);
+    }
+
+    @Test
+    void testMegamorphicOverflowEvictsTheLeastRecentShape() {
+        ExpressionInlineCache cache = new ExpressionInlineCache();
+        RecordingCompiler compiler = new RecordingCompiler();
+        compiler.failGeneric = true;
+        int shapes = ExpressionInlineCache.MAX_SHAPES + ExpressionInlineCache.MAX_OVERFLOW_SHAPES + 1;
+        for (int i = 0; i < shapes; i++) {
+            evaluator(cache, compiler, Type.type(List.class, "<Shape" + i + ">"));
+        }
+        assertThat(compiler.compilations).hasSize(shapes);
+
+        // the most recent overflow shape is kept, the first one was evicted
+        evaluator(cache, compiler, Type.type(List.class, "<Shape" + (shapes - 1) + ">"));
+        assertThat(compiler.compilations).hasSize(shapes);
+        evaluator(cache, compiler, Type.type(List.class, "<Shape" + ExpressionInlineCache.MAX_SHAPES + ">"));
+        assertThat(compiler.compilations).hasSize(shapes + 1);
+    }
+
+    @Test
+    void testExecuteExpressionCompilesOncePerShape() {
+        MVEL mvel = new MVEL();
+        Set<String> imports = new HashSet<>();
+
+        Map<String, Object> ints = new HashMap<>();
+        ints.put("x", 2);
+        ints.put("y", 3);
+        MVELCompiler.resetCompileInvocationCountForTests();
+        assertThat(mvel.executeExpression("x * y + 1", imports, ints)).isEqualTo(7);
+        int compilations = MVELCompiler.compileInvocationCount();
+
+        ints.put("x", 4);
+        assertThat(mvel.executeExpression("x * y + 1", imports, ints)).isEqualTo(13);
+        assertThat(MVELCompiler.compileInvocationCount()).isEqualTo(compilations);
+    }
+
+    @Test
+    void testSitesDoNotKeepTheirClassLoaderAndClassManager() throws InterruptedException {
+        ExpressionInlineCache cache = new ExpressionInlineCache();
+        RecordingCompiler compiler = new RecordingCompiler();
+        ClassLoader classLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        ClassManager classManager = new ClassManager();
+        WeakReference<ClassLoader> classLoaderRef = new WeakReference<>(classLoader);
+        WeakReference<ClassManager> classManagerRef = new WeakReference<>(classManager);
+
+        Map<String, Type<?>> types = new HashMap<>();
+        types.put("a", Type.type(Integer.class));
+        assertThat(cache.evaluator("a", Set.of(), types, Type.OBJECT, classManager, classLoader, compiler)).isNotNull();
+
+        classLoader = null;
+        classManager = null;
+        for (int i = 0; i < 50 && (classLoaderRef.get() != null || classManagerRef.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(classLoaderRef.get()).isNull();
+        assertThat(classManagerRef.get()).isNull();
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> evaluator(ExpressionInlineCache cache, RecordingCompiler compiler, Class<?> type) {
+        return evaluator(cache, compiler, Type.type(type));
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> evaluator(ExpressionInlineCache cache, RecordingCompiler compiler, Type<?> type) {
+        Map<String, Type<?>> types = new HashMap<>();
+        types.put("a", type);
+        return cache.evaluator("a", Set.of(), types, Type.OBJECT, null, null, compiler);
+    }
+}
@@ -0,0 +1,95 @@
+package org.mvel3;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FrameContextTest {
+
+    private static final Declaration[] DECLARATIONS = {Declaration.of("a", int.class),
+                                                       Declaration.of("x", double.class),
+                                                       Declaration.of("flag", boolean.class),
+                                                       Declaration.of("name", String.class),
+                                                       Declaration.of("count", long.class)};
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testLayoutSlotsPerStorage() {
+        FrameLayout layout = FrameLayout.of(DECLARATIONS);
+        assertThat(layout.storage("a")).isEqualTo(FrameLayout.Storage.LONG);
+        assertThat(layout.slot("a")).isZero();
+        assertThat(layout.slot("flag")).isEqualTo(1);
+        assertThat(layout.slot("count")).isEqualTo(2);
+        assertThat(layout.storage("x")).isEqualTo(FrameLayout.Storage.DOUBLE);
+        assertThat(layout.slot("x")).isZero();
+        assertThat(layout.storage("name")).isEqualTo(FrameLayout.Storage.OBJECT);
+        assertThat(layout.slot("name")).isZero();
+
+        Frame frame = layout.newFrame();
+        assertThat(frame.longs).hasSize(3);
+        assertThat(frame.doubles).hasSize(1);
+        assertThat(frame.objects).hasSize(1);
+
+        assertThatThrownBy(() -> layout.slot("missing")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testReusedFrame() {
+        Evaluator<Frame, Void, String> evaluator = MVEL.frame(DECLARATIONS)
+                                                       .<String>out(String.class)
+                                                       .expression("flag ? name + (a * x) : name")
+                                                       .classManager(new ClassManager())
+                                                       .compile();
+
+        FrameLayout layout = FrameLayout.of(DECLARATIONS);
+        Frame frame = layout.newFrame();
+        frame.set(layout.slot("a"), 3);
+        frame.set(layout.slot("x"), 1.5);
+        frame.set(layout.slot("flag"), true);
+        frame.set(layout.slot("name"), "n");
+        assertThat(evaluator.eval(frame)).isEqualTo("n4.5");
+
+        frame.set(layout.slot("flag"), false);
+        assertThat(evaluator.eval(frame)).isEqualTo("n");
+    }
+
+    @Test
+    void testWriteBack() {
+        Evaluator<Frame, Void, Long> evaluator = MVEL.frame(DECLARATIONS)
+                                                     .<Long>out(Long.class)
+                                                     .block("a = a * 2; x = x + 0.5; name = \"done\"; count++; return count + a;")
+                                                     .classManager(new ClassManager())
+                                                     .compile();
+
+        FrameLayout layout = FrameLayout.of(DECLARATIONS);
+        Frame frame = layout.newFrame();
+        frame.set(layout.slot("a"), 4);
+        frame.set(layout.slot("x"), 1.0);
+        frame.set(layout.slot("count"), 10L);
+
+        assertThat(evaluator.eval(frame)).isEqualTo(19L);
+        assertThat(frame.getInt(layout.slot("a"))).isEqualTo(8);
+        assertThat(frame.getDouble(layout.slot("x"))).isEqualTo(1.5);
+        assertThat(frame.<String>get(layout.slot("name"))).isEqualTo("done");
+        assertThat(frame.getLong(layout.slot("count"))).isEqualTo(11L);
+    }
+
+    @Test
+    void testPojoNamedFrame() {
+        Evaluator<org.mvel3.test.Frame, Void, Integer> evaluator = MVEL.<org.mvel3.test.Frame>pojo(org.mvel3.test.Frame.class,
+                                                                                                 Declaration.of("a", int.class))
+                                                                       .<Integer>out(Integer.class)
+                                                                       .expression("a * 2")
+                                                                       .classManager(new ClassManager())
+                                                                       .compile();
+        assertThat(evaluator.eval(new org.mvel3.test.Frame(21))).isEqualTo(42);
+    }
+}
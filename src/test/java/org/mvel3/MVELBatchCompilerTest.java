@@ -6,7 +6,9 @@ import org.junit.jupiter.api.Test;
 import org.mvel3.parser.MvelParser;
 import org.mvel3.transpiler.context.Declaration;
 
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -140,6 +142,111 @@ class MVELBatchCompilerTest {
         assertThat(batchCompiler.getPhysicalId(handle1)).isEqualTo(batchCompiler.getPhysicalId(handle2));
     }
 
+    @Test
+    void testParallelShardedCompile() {
+        ClassManager classManager = new ClassManager();
+        MVELBatchCompiler batchCompiler = new MVELBatchCompiler(classManager).parallel(2, 3);
+
+        Map<String, Type<?>> types = new HashMap<>();
+        types.put("a", Type.type(int.class));
+        types.put("b", Type.type(int.class));
+
+        MVELBatchCompiler.LambdaHandle[] handles = new MVELBatchCompiler.LambdaHandle[7];
+        for (int i = 0; i < handles.length; i++) {
+            CompilerParameters<Map<String, Integer>, Void, Integer> params = MVEL.<Integer>map(Declaration.from(types))
+                    .<Integer>out(Integer.class)
+                    .expression("a * b + " + i)
+                    .imports(MVELCompilerTest.getImports())
+                    .classManager(classManager)
+                    .build();
+            handles[i] = batchCompiler.add(params);
+        }
+
+        batchCompiler.compile(ClassLoader.getSystemClassLoader());
+
+        Map<String, Integer> vars = new HashMap<>();
+        vars.put("a", 3);
+        vars.put("b", 4);
+        for (int i = 0; i < handles.length; i++) {
+            Evaluator<Map<String, Integer>, Void, Integer> evaluator = batchCompiler.resolve(handles[i]);
+            assertThat(evaluator.eval(vars)).isEqualTo(12 + i);
+        }
+    }
+
+    @Test
+    void testParallelRejectsInvalidSettings() {
+        MVELBatchCompiler batchCompiler = new MVELBatchCompiler(new ClassManager());
+
+        assertThatThrownBy(() -> batchCompiler.parallel(-1, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> batchCompiler.parallel(10, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testPackedCompile() {
+        ClassManager classManager = new ClassManager();
+        MVELBatchCompiler batchCompiler = new MVELBatchCompiler(classManager).packed(4);
+
+        Map<String, Type<?>> types = new HashMap<>();
+        types.put("a", Type.type(int.class));
+        types.put("b", Type.type(int.class));
+
+        MVELBatchCompiler.LambdaHandle[] handles = new MVELBatchCompiler.LambdaHandle[8];
+        for (int i = 0; i < handles.length; i++) {
+            CompilerParameters<Map<String, Integer>, Void, Integer> params = MVEL.<Integer>map(Declaration.from(types))
+                    .<Integer>out(Integer.class)
+                    .expression("a * b + " + (i % 7))
+                    .imports(MVELCompilerTest.getImports())
+                    .classManager(classManager)
+                    .build();
+            handles[i] = batchCompiler.add(params);
+        }
+
+        batchCompiler.compile(ClassLoader.getSystemClassLoader());
+
+        // 7 unique lambdas, 4 per host class
+        assertThat(classManager.getClasses().keySet())
+                .hasSize(2)
+                .allMatch(name -> name.contains(EvaluatorPacker.HOST_CLASS_PREFIX));
+
+        Map<String, Integer> vars = new HashMap<>();
+        vars.put("a", 3);
+        vars.put("b", 4);
+        for (int i = 0; i < handles.length; i++) {
+            Evaluator<Map<String, Integer>, Void, Integer> evaluator = batchCompiler.resolve(handles[i]);
+            assertThat(evaluator.eval(vars)).isEqualTo(12 + i % 7);
+        }
+    }
+
+    @Test
+    void testBatchEvaluationIsNotPacked() throws NoSuchMethodException {
+        ClassManager classManager = new ClassManager();
+        MVELBatchCompiler batchCompiler = new MVELBatchCompiler(classManager).packed(4).batchEvaluation();
+
+        CompilerParameters<Map<String, Integer>, Void, Integer> params = MVEL.<Integer>map(Declaration.of("a", int.class))
+                .<Integer>out(Integer.class)
+                .expression("a * 2")
+                .imports(MVELCompilerTest.getImports())
+                .classManager(classManager)
+                .build();
+        MVELBatchCompiler.LambdaHandle handle = batchCompiler.add(params);
+        batchCompiler.compile(ClassLoader.getSystemClassLoader());
+
+        Evaluator<Map<String, Integer>, Void, Integer> evaluator = batchCompiler.resolve(handle);
+        assertThat(evaluator.getClass().getName()).doesNotContain(EvaluatorPacker.HOST_CLASS_PREFIX);
+        assertThat(evaluator.getClass().getDeclaredMethod("evalBatch", List.class, int.class, int.class, Object[].class)).isNotNull();
+
+        Integer[] results = new Integer[2];
+        evaluator.evalBatch(List.of(Map.of("a", 1), Map.of("a", 2), Map.of("a", 3)), 1, 2, results);
+        assertThat(results).containsExactly(4, 6);
+    }
+
+    @Test
+    void testPackedRejectsInvalidSettings() {
+        assertThatThrownBy(() -> new MVELBatchCompiler(new ClassManager()).packed(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MVELBatchCompiler(new ClassManager(), Path.of("target", "lambdas")).packed(16))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
     @Test
     void testResolveBeforeCompileThrows() {
         ClassManager classManager = new ClassManager();
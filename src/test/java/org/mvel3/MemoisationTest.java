@@ -0,0 +1,113 @@
+package org.mvel3;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.MVELTranspilerException;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemoisationTest {
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    private static MVELBuilder.ContentBuilder<Map<String, Object>, Void, BigDecimal> totals() {
+        return MVEL.map(Declaration.of("price", BigDecimal.class),
+                        Declaration.of("quantity", int.class),
+                        Declaration.of("person", Person.class))
+                   .out(BigDecimal.class);
+    }
+
+    private static MVELBuilder<Map<String, Object>, Void, BigDecimal> total(String expression) {
+        return totals().expression(expression).classManager(new ClassManager());
+    }
+
+    @Test
+    void testMemoisedResults() {
+        MemoisingEvaluator<Map<String, Object>, Void, BigDecimal> evaluator = total("price * quantity").memoise(16)
+                                                                                                          .compileMemoised();
+        assertThat(evaluator.isPure()).isTrue();
+
+        Map<String, Object> ten = Map.of("price", new BigDecimal("2.5"), "quantity", 4);
+        Map<String, Object> twenty = Map.of("price", new BigDecimal("2.5"), "quantity", 8);
+        assertThat(evaluator.eval(ten)).isEqualByComparingTo("10");
+        assertThat(evaluator.eval(ten)).isEqualByComparingTo("10");
+        assertThat(evaluator.eval(twenty)).isEqualByComparingTo("20");
+        assertThat(evaluator.eval(Map.of("price", new BigDecimal("2.5"), "quantity", 4))).isEqualByComparingTo("10");
+
+        MemoCache.Stats stats = evaluator.memoCache().stats();
+        assertThat(stats.hits()).isEqualTo(2);
+        assertThat(stats.misses()).isEqualTo(2);
+        assertThat(stats.size()).isEqualTo(2);
+        assertThat(stats.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testBoundedSize() {
+        MemoisingEvaluator<Map<String, Object>, Void, BigDecimal> evaluator = total("price * quantity").memoise(4)
+                                                                                                          .compileMemoised();
+        for (int i = 0; i < 100; i++) {
+            assertThat(evaluator.eval(Map.of("price", BigDecimal.ONE, "quantity", i))).isEqualByComparingTo(BigDecimal.valueOf(i));
+        }
+        assertThat(evaluator.memoCache().stats().size()).isLessThanOrEqualTo(4);
+        assertThat(evaluator.memoCache().stats().evictions()).isEqualTo(96);
+
+        evaluator.memoCache().invalidateAll();
+        assertThat(evaluator.memoCache().stats()).isEqualTo(new MemoCache.Stats(0, 0, 0, 0));
+    }
+
+    @Test
+    void testImpureExpressionIsRejected() {
+        assertThatThrownBy(() -> totals().block("person.setAge(quantity); return price;").memoise(16).compileMemoised())
+                .isInstanceOf(MVELTranspilerException.class)
+                .hasMessageContaining("writes its context");
+        assertThatThrownBy(() -> total("Person.isEven(quantity) ? price : null").memoise(16).compileMemoised())
+                .isInstanceOf(MVELTranspilerException.class)
+                .hasMessageContaining("calls external methods");
+    }
+
+    @Test
+    void testNonDeterministicExpressionIsRejected() {
+        assertThatThrownBy(() -> total("price.multiply(BigDecimal.valueOf(Math.random()))").memoise(16).compileMemoised())
+                .isInstanceOf(MVELTranspilerException.class)
+                .hasMessageContaining("calls external methods");
+        assertThatThrownBy(() -> MVEL.map(Declaration.of("counter", AtomicInteger.class))
+                                     .<BigDecimal>out(BigDecimal.class)
+                                     .expression("BigDecimal.valueOf(counter.getAndIncrement())")
+                                     .classManager(new ClassManager())
+                                     .memoise(16)
+                                     .compileMemoised())
+                .isInstanceOf(MVELTranspilerException.class)
+                .hasMessageContaining("calls external methods");
+        // reads a system property, which may change between two evaluations
+        assertThatThrownBy(() -> total("price.multiply(BigDecimal.valueOf(Integer.getInteger(\"discount\", 1)))").memoise(16)
+                                                                                                          .compileMemoised())
+                .isInstanceOf(MVELTranspilerException.class)
+                .hasMessageContaining("calls external methods");
+    }
+
+    @Test
+    void testMutableVariableIsRejected() {
+        assertThatThrownBy(() -> total("price.add(new BigDecimal(person.getAge()))").memoise(16).compileMemoised())
+                .isInstanceOf(MVELTranspilerException.class)
+                .hasMessageContaining("person");
+    }
+
+    @Test
+    void testUnsupportedEvaluators() {
+        assertThatThrownBy(() -> MVEL.map(Declaration.of("a", int.class)).<Integer>out(Integer.class).expression("a")
+                                     .memoise(16).compileInt())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> total("price").compileMemoised()).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> total("price").memoise(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,69 @@
+package org.mvel3;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrimitiveEvaluatorTest {
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testBooleanConstraint() {
+        BooleanEvaluator<Person, Void> evaluator = MVEL.<Person>pojo(Person.class, Declaration.of("age", int.class))
+                                                       .<Boolean>out(Boolean.class)
+                                                       .expression("age > 20")
+                                                       .classManager(new ClassManager())
+                                                       .compileBoolean();
+
+        Person person = new Person("yoda");
+        person.setAge(900);
+        assertThat(evaluator.test(person)).isTrue();
+        assertThat(evaluator.eval(person)).isTrue();
+
+        person.setAge(10);
+        assertThat(evaluator.test(person)).isFalse();
+        assertThat(evaluator.getReadProperties()).contains("age");
+    }
+
+    @Test
+    void testNumericExpressions() {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("a", 6);
+        vars.put("b", 7);
+
+        IntEvaluator<Map<String, Object>, Void> intEvaluator = mapBuilder(Integer.class, "a * b").compileInt();
+        assertThat(intEvaluator.applyAsInt(vars)).isEqualTo(42);
+        assertThat(intEvaluator.eval(vars)).isEqualTo(42);
+
+        LongEvaluator<Map<String, Object>, Void> longEvaluator = mapBuilder(Long.class, "a * 1000000000L * b").compileLong();
+        assertThat(longEvaluator.applyAsLong(vars)).isEqualTo(42_000_000_000L);
+
+        DoubleEvaluator<Map<String, Object>, Void> doubleEvaluator = mapBuilder(Double.class, "a / 4.0 + b").compileDouble();
+        assertThat(doubleEvaluator.applyAsDouble(vars)).isEqualTo(8.5);
+    }
+
+    @Test
+    void testOutTypeMustMatch() {
+        assertThatThrownBy(() -> mapBuilder(Integer.class, "a * b").compileBoolean())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static <O> MVELBuilder<Map<String, Object>, Void, O> mapBuilder(Class<O> outClass, String expression) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("b", int.class))
+                   .<O>out(outClass)
+                   .expression(expression)
+                   .classManager(new ClassManager());
+    }
+}
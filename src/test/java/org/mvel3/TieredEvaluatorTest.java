@@ -0,0 +1,104 @@
+package org.mvel3;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieredEvaluatorTest {
+
+    // runs the compilation on the evaluating thread, so the switch is observable right after the threshold
+    private static final Executor SAME_THREAD = Runnable::run;
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testSwitchesToCompiledEvaluatorAtThreshold() {
+        String block = "int c = a * 2; if (c > b) { return c - b; } return b;";
+        Evaluator<Map<String, Object>, Void, Object> javac = mapEvaluator(block).compile();
+        Evaluator<Map<String, Object>, Void, Object> tiered = new MVELCompiler().compileTiered(mapEvaluator(block).build(), 3, SAME_THREAD);
+
+        assertThat(tiered).isInstanceOf(TieredEvaluator.class);
+        TieredEvaluator<Map<String, Object>, Void, Object> evaluator = (TieredEvaluator<Map<String, Object>, Void, Object>) tiered;
+
+        for (int a = 0; a < 5; a++) {
+            Map<String, Object> vars = new HashMap<>();
+            vars.put("a", a);
+            vars.put("b", 3);
+            assertThat(evaluator.isCompiled()).isEqualTo(a >= 3);
+            assertThat(evaluator.eval(vars)).isEqualTo(javac.eval(vars));
+        }
+        assertThat(evaluator.isCompiled()).isTrue();
+    }
+
+    @Test
+    void testPojoReadPropertiesAreInterpreted() {
+        MVELBuilder<Object, Void, Boolean> builder = MVEL.pojo(Person.class,
+                                                               Declaration.of("age", int.class),
+                                                               Declaration.of("name", String.class))
+                                                         .<Boolean>out(Boolean.class)
+                                                         .expression("age > 18 && name != \"Bob\"")
+                                                         .classManager(new ClassManager());
+        Evaluator<Object, Void, Boolean> javac = builder.compile();
+        Evaluator<Object, Void, Boolean> tiered = builder.compileTiered(Integer.MAX_VALUE);
+
+        Person alice = new Person("Alice");
+        alice.setAge(30);
+        Person bob = new Person("Bob");
+        bob.setAge(30);
+
+        assertThat(tiered.eval(alice)).isTrue();
+        assertThat(tiered.eval(bob)).isFalse();
+        assertThat(tiered.getReadProperties()).containsExactlyInAnyOrder(javac.getReadProperties());
+        assertThat(((TieredEvaluator<?, ?, ?>) tiered).isCompiled()).isFalse();
+    }
+
+    @Test
+    void testFailedCompilationStaysInterpreted() {
+        Evaluator<Object, Void, Integer> interpreted = new Evaluator<>() {
+            @Override
+            public Integer eval(Object o) {
+                return 1;
+            }
+        };
+        TieredEvaluator<Object, Void, Integer> evaluator = new TieredEvaluator<>(interpreted, () -> {
+            throw new IllegalStateException("javac failure");
+        }, 1, SAME_THREAD);
+
+        assertThat(evaluator.eval(null)).isEqualTo(1);
+        assertThat(evaluator.eval(null)).isEqualTo(1);
+        assertThat(evaluator.isCompiled()).isFalse();
+    }
+
+    @Test
+    void testUnsupportedConstructIsCompiledEagerly() {
+        Evaluator<Object, Void, Boolean> evaluator = MVEL.pojo(Person.class,
+                                                               Declaration.of("age", int.class))
+                                                         .<Boolean>out(Boolean.class)
+                                                         .expression("age > 18")
+                                                         .generatedSuperName(GeneratedParentClass.class.getCanonicalName())
+                                                         .compileTiered(10);
+
+        Person alice = new Person("Alice");
+        alice.setAge(30);
+        assertThat(evaluator.eval(alice)).isTrue();
+        assertThat(evaluator).isInstanceOf(GeneratedParentClass.class);
+    }
+
+    private static MVELBuilder<Map<String, Object>, Void, Object> mapEvaluator(String block) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("b", int.class))
+                   .out(Type.OBJECT)
+                   .block(block)
+                   .classManager(new ClassManager());
+    }
+}
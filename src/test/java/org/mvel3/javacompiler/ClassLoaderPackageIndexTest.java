@@ -0,0 +1,79 @@
+package org.mvel3.javacompiler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.tools.JavaFileObject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassLoaderPackageIndexTest {
+
+    private static Path createJar(Path dir) throws IOException {
+        Map<String, byte[]> byteCode = KieMemoryCompiler.compileNoLoad(
+                Map.of("org.mvel3.indexed.Fact", "package org.mvel3.indexed; public class Fact { public int getAge() { return 1; } }",
+                       "org.mvel3.indexed.sub.Other", "package org.mvel3.indexed.sub; public class Other { }"),
+                ClassLoaderPackageIndexTest.class.getClassLoader(), null);
+
+        Path jar = dir.resolve("facts.jar");
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jarOut = new JarOutputStream(out)) {
+            for (String folder : List.of("org/mvel3/indexed/", "org/mvel3/indexed/sub/")) {
+                jarOut.putNextEntry(new JarEntry(folder));
+                jarOut.closeEntry();
+            }
+            for (Map.Entry<String, byte[]> entry : byteCode.entrySet()) {
+                jarOut.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + ".class"));
+                jarOut.write(entry.getValue());
+                jarOut.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    @Test
+    void packageListingIsScannedOnceAndThenServedFromTheIndex(@TempDir Path tmp) throws IOException {
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{createJar(tmp).toUri().toURL()}, null)) {
+            ClassLoaderPackageIndex index = ClassLoaderPackageIndex.forClassLoader(classLoader);
+
+            List<JavaFileObject> classes = index.classesInPackage("org.mvel3.indexed");
+            assertThat(classes).extracting(f -> ((JavaCompiler.DroolsJavaFileObject) f).getBinaryName())
+                               .containsExactly("org.mvel3.indexed.Fact");
+            assertThat(index.getMisses()).isEqualTo(1);
+            assertThat(index.getHits()).isZero();
+
+            assertThat(index.classesInPackage("org.mvel3.indexed")).isSameAs(classes);
+            assertThat(index.classesInPackage("org.mvel3.indexed.sub")).hasSize(1);
+            assertThat(index.getHits()).isEqualTo(1);
+            assertThat(index.getMisses()).isEqualTo(2);
+            assertThat(index.getIndexedJarCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void compilationResolvesClassesFromIndexedJars(@TempDir Path tmp) throws IOException {
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{createJar(tmp).toUri().toURL()},
+                                                             ClassLoaderPackageIndexTest.class.getClassLoader())) {
+            Map<String, String> sources = Map.of("org.mvel3.gen.UsesFact",
+                                                 "package org.mvel3.gen; public class UsesFact { int age(org.mvel3.indexed.Fact f) { return f.getAge(); } }");
+
+            assertThat(KieMemoryCompiler.compileNoLoad(sources, classLoader, null)).containsOnlyKeys("org.mvel3.gen.UsesFact");
+            assertThat(KieMemoryCompiler.compileNoLoad(sources, classLoader, null)).containsOnlyKeys("org.mvel3.gen.UsesFact");
+
+            assertThat(ClassLoaderPackageIndex.forClassLoader(classLoader).getHits()).isPositive();
+
+            ClassLoaderPackageIndex.invalidate(classLoader);
+            assertThat(ClassLoaderPackageIndex.forClassLoader(classLoader).getIndexedPackageCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.mvel3.javacompiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JavaCompilerSessionTest {
+
+    private static Map<String, String> source(String simpleName) {
+        return Map.of("org.mvel3.gen." + simpleName,
+                      "package org.mvel3.gen; public class " + simpleName + " { public java.util.List<String> list() { return new java.util.ArrayList<>(); } }");
+    }
+
+    @Test
+    void sharedSessionIsReusedPerClassLoader() {
+        ClassLoader classLoader = JavaCompilerSessionTest.class.getClassLoader();
+        JavaCompilerSession session = JavaCompilerSession.forClassLoader(classLoader);
+
+        assertThat(JavaCompilerSession.forClassLoader(classLoader)).isSameAs(session);
+        assertThat(session.getClassLoader()).isSameAs(classLoader);
+    }
+
+    @Test
+    void sessionCompilesManyUnitsWithTheSameFileManager() {
+        try (JavaCompilerSession session = new JavaCompilerSession(JavaCompilerSessionTest.class.getClassLoader())) {
+            Map<String, byte[]> first = KieMemoryCompiler.compileNoLoad(source("SessionA"), session, null);
+            Map<String, byte[]> second = KieMemoryCompiler.compileNoLoad(source("SessionB"), session, null);
+
+            assertThat(first).containsOnlyKeys("org.mvel3.gen.SessionA");
+            assertThat(second).containsOnlyKeys("org.mvel3.gen.SessionB");
+        }
+    }
+
+    @Test
+    void sessionReportsCompilationErrors() {
+        try (JavaCompilerSession session = new JavaCompilerSession(JavaCompilerSessionTest.class.getClassLoader())) {
+            Map<String, String> broken = Map.of("org.mvel3.gen.Broken", "package org.mvel3.gen; public class Broken { int x = \"s\"; }");
+
+            assertThatThrownBy(() -> KieMemoryCompiler.compileNoLoad(broken, session, null))
+                    .isInstanceOf(KieMemoryCompilerException.class);
+
+            // the session stays usable after a failed compilation
+            assertThat(KieMemoryCompiler.compileNoLoad(source("AfterError"), session, null)).hasSize(1);
+        }
+    }
+
+    @Test
+    void invalidatedSessionIsReplaced() {
+        ClassLoader classLoader = new ClassLoader(JavaCompilerSessionTest.class.getClassLoader()) {};
+        JavaCompilerSession session = JavaCompilerSession.forClassLoader(classLoader);
+
+        JavaCompilerSession.invalidate(classLoader);
+
+        assertThat(session.isClosed()).isTrue();
+        assertThatThrownBy(() -> session.compile(new String[0], new MemoryResourceReader(), new MemoryResourceStore()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(JavaCompilerSession.forClassLoader(classLoader)).isNotSameAs(session);
+    }
+
+    @Test
+    void releasedSessionIsBorrowedAgain() {
+        ClassLoader classLoader = new ClassLoader(JavaCompilerSessionTest.class.getClassLoader()) {};
+        JavaCompilerSession borrowed = JavaCompilerSession.borrow(classLoader);
+        JavaCompilerSession other = JavaCompilerSession.borrow(classLoader);
+
+        assertThat(other).isNotSameAs(borrowed);
+        assertThat(borrowed).isNotSameAs(JavaCompilerSession.forClassLoader(classLoader));
+
+        JavaCompilerSession.release(borrowed);
+        assertThat(borrowed.isClosed()).isFalse();
+        assertThat(JavaCompilerSession.borrow(classLoader)).isSameAs(borrowed);
+        assertThat(KieMemoryCompiler.compileNoLoad(source("Borrowed"), borrowed, null)).hasSize(1);
+
+        JavaCompilerSession.release(borrowed);
+        JavaCompilerSession.release(other);
+        JavaCompilerSession.invalidate(classLoader);
+        assertThat(borrowed.isClosed()).isTrue();
+        assertThat(other.isClosed()).isTrue();
+    }
+
+    @Test
+    void idleSessionsAreBounded() {
+        ClassLoader classLoader = new ClassLoader(JavaCompilerSessionTest.class.getClassLoader()) {};
+        List<JavaCompilerSession> borrowed = new ArrayList<>();
+        for (int i = 0; i <= JavaCompilerSession.MAX_IDLE_SESSIONS; i++) {
+            borrowed.add(JavaCompilerSession.borrow(classLoader));
+        }
+        borrowed.forEach(JavaCompilerSession::release);
+
+        // the session released once the pool was full is closed, the others stay warm
+        assertThat(borrowed.get(borrowed.size() - 1).isClosed()).isTrue();
+        assertThat(borrowed.subList(0, borrowed.size() - 1)).noneMatch(JavaCompilerSession::isClosed);
+
+        JavaCompilerSession.invalidate(classLoader);
+        assertThat(borrowed).allMatch(JavaCompilerSession::isClosed);
+    }
+}
@@ -0,0 +1,132 @@
+package org.mvel3.jfr;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mvel3.ClassManager;
+import org.mvel3.Evaluator;
+import org.mvel3.GeneratedParentClass;
+import org.mvel3.MVEL;
+import org.mvel3.Type;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrEventsTest {
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    @Test
+    void testCompilationEmitsEvents(@TempDir Path tmp) throws Exception {
+        List<RecordedEvent> events = record(tmp, () -> mapEvaluator("a * 31 + b * 17"),
+                                            "org.mvel3.Transpile", "org.mvel3.Rewrite", "org.mvel3.Javac",
+                                            "org.mvel3.Define", "org.mvel3.PersistedArtifactLoad");
+        Set<String> names = events.stream().map(e -> e.getEventType().getName()).collect(Collectors.toSet());
+
+        assertThat(names).contains("org.mvel3.Transpile", "org.mvel3.Rewrite");
+        assertThat(names).containsAnyOf("org.mvel3.Javac", "org.mvel3.PersistedArtifactLoad");
+
+        RecordedEvent transpile = events.stream().filter(e -> e.getEventType().getName().equals("org.mvel3.Transpile")).findFirst().orElseThrow();
+        assertThat(transpile.getString("evaluatorClass")).isNotBlank();
+        assertThat(transpile.getInt("contentBytes")).isEqualTo("a * 31 + b * 17".length());
+
+        events.stream().filter(e -> e.getEventType().getName().equals("org.mvel3.Javac")).forEach(javac -> {
+            assertThat(javac.getInt("classes")).isPositive();
+            assertThat(javac.getLong("sourceBytes")).isPositive();
+            assertThat(javac.getLong("byteCodeBytes")).isPositive();
+        });
+    }
+
+    @Test
+    void testSampledEvaluationsEmitEvents(@TempDir Path tmp) throws Exception {
+        Evaluator<Map<String, Object>, Void, Object> evaluator = EvaluatorSampling.sampled(mapEvaluator("a + b"), "sampled.Rule", 4);
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("a", 2);
+        vars.put("b", 3);
+
+        List<RecordedEvent> events = record(tmp, () -> {
+            for (int i = 0; i < 12; i++) {
+                assertThat(evaluator.eval(vars)).isEqualTo(5);
+            }
+        }, "org.mvel3.EvaluatorInvocation");
+
+        assertThat(events).hasSize(3);
+        assertThat(events.get(0).getString("evaluatorClass")).isEqualTo("sampled.Rule");
+        assertThat(events.get(0).getInt("sampleInterval")).isEqualTo(4);
+    }
+
+    @Test
+    void testSamplingIsOffByDefault() {
+        Evaluator<Map<String, Object>, Void, Object> evaluator = mapEvaluator("a - b");
+
+        assertThat(EvaluatorSampling.isEnabled()).isFalse();
+        assertThat(EvaluatorSampling.sampled(evaluator, "sampled.Rule")).isSameAs(evaluator);
+    }
+
+    @Test
+    void testSampledEvaluatorOverridesEveryEvaluatorMethod() throws NoSuchMethodException {
+        Evaluator<Map<String, Object>, Void, Object> sampled = EvaluatorSampling.sampled(mapEvaluator("a * b"), "sampled.Rule", 4);
+
+        // a new Evaluator method left to its default would not reach the generated evaluator
+        for (Method method : Evaluator.class.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                assertThat(sampled.getClass().getMethod(method.getName(), method.getParameterTypes()).getDeclaringClass())
+                        .as(method.toString())
+                        .isEqualTo(sampled.getClass());
+            }
+        }
+    }
+
+    @Test
+    void testEvaluatorWithSuperClassIsNotSampled() {
+        Evaluator<Map<String, Object>, Void, Object> evaluator = MVEL.map(Declaration.of("a", int.class),
+                                                                          Declaration.of("b", int.class))
+                                                                     .out(Type.OBJECT)
+                                                                     .expression("a - b * 2")
+                                                                     .generatedSuperName(GeneratedParentClass.class.getCanonicalName())
+                                                                     .classManager(new ClassManager())
+                                                                     .compile();
+
+        assertThat(EvaluatorSampling.sampled(evaluator, "sampled.Rule", 4)).isSameAs(evaluator)
+                                                                          .isInstanceOf(GeneratedParentClass.class);
+    }
+
+    private static List<RecordedEvent> record(Path tmp, Runnable work, String... eventNames) throws Exception {
+        Path file = tmp.resolve("mvel.jfr");
+        try (Recording recording = new Recording()) {
+            for (String eventName : eventNames) {
+                recording.enable(eventName);
+            }
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> mapEvaluator(String expression) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("b", int.class))
+                   .out(Type.OBJECT)
+                   .expression(expression)
+                   .classManager(new ClassManager())
+                   .compile();
+    }
+}
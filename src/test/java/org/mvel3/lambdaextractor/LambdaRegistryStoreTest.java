@@ -1,8 +1,10 @@
 package org.mvel3.lambdaextractor;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -119,4 +121,112 @@ class LambdaRegistryStoreTest {
                 .isInstanceOf(InvalidLambdaRegistryException.class)
                 .hasMessageContaining("no matching catalog entry");
     }
+
+    @Test
+    void M8a_registryStore_binaryFormat_startsWithHeader(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("lambda-registry.dat");
+        LambdaRegistryStore store = new LambdaRegistryStore(file);
+        store.save(twoEntries(tmp));
+
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertThat(header.getInt(0)).isEqualTo(LambdaRegistryStore.MAGIC);
+        assertThat(header.getInt(4)).isEqualTo(LambdaRegistryStore.FORMAT_VERSION);
+        assertThat(store.isCurrentFormat()).isTrue();
+        assertThat(Files.exists(tmp.resolve("lambda-registry.dat.tmp"))).isFalse();
+    }
+
+    @Test
+    void M8b_registryStore_index_looksUpWithoutLoading(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("lambda-registry.dat");
+        LambdaRegistryStore store = new LambdaRegistryStore(file);
+        store.save(twoEntries(tmp));
+
+        LambdaRegistryStore.Index index = store.open();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.nextPhysicalId()).isEqualTo(5);
+        assertThat(index.nextLogicalId()).isEqualTo(6);
+
+        // entries are sorted by physicalId whatever the snapshot order
+        assertThat(index.indexOf(1)).isZero();
+        assertThat(index.indexOf(4)).isEqualTo(1);
+        assertThat(index.indexOf(2)).isEqualTo(-1);
+
+        assertThat(index.entry(index.indexOf(4)))
+                .isEqualTo(new CatalogEntry(4, "public boolean eval(java.lang.String s)", "{ return s.length() > 0; }"));
+        assertThat(index.artifact(index.indexOf(4))).isNull();
+        assertThat(index.artifact(index.indexOf(1)))
+                .isEqualTo(new ArtifactRef("org.mvel3.GenA", tmp.resolve("GenA.class")));
+    }
+
+    @Test
+    void M8c_registryStore_corruptedByte_failsChecksum(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("lambda-registry.dat");
+        new LambdaRegistryStore(file).save(twoEntries(tmp));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(() -> new LambdaRegistryStore(file).load())
+                .isInstanceOf(InvalidLambdaRegistryException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    void M8d_registryStore_truncatedFile_throws(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("lambda-registry.dat");
+        new LambdaRegistryStore(file).save(twoEntries(tmp));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> new LambdaRegistryStore(file).open())
+                .isInstanceOf(InvalidLambdaRegistryException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    @Test
+    void M8e_registryStore_danglingArtifactReference_rejectedOnSave(@TempDir Path tmp) {
+        LambdaPersistenceSnapshot snapshot = new LambdaPersistenceSnapshot(
+                new CatalogSnapshot(1, 1, List.of(new CatalogEntry(0, "public boolean eval(java.lang.Object o)", "{ return o != null; }"))),
+                Map.of(99, new ArtifactRef("org.mvel3.Gen", tmp.resolve("Gen.class"))));
+
+        assertThatThrownBy(() -> new LambdaRegistryStore(tmp.resolve("lambda-registry.dat")).save(snapshot))
+                .isInstanceOf(InvalidLambdaRegistryException.class)
+                .hasMessageContaining("no matching catalog entry");
+    }
+
+    @Test
+    void M8f_registryStore_version2File_loadsAndMigratesOnSave(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("lambda-registry.dat");
+        Files.writeString(file, String.join("\n",
+                "format.version=2",
+                "catalog.nextPhysicalId=1",
+                "catalog.nextLogicalId=1",
+                "catalog.entry.0.physicalId=0",
+                "catalog.entry.0.methodSignature=public boolean eval(java.lang.Object o)",
+                "catalog.entry.0.normalizedBody={ return o != null; }",
+                "artifact.0.physicalId=0",
+                "artifact.0.fqn=org.mvel3.Gen",
+                "artifact.0.classFile=/tmp/Gen.class",
+                ""));
+        LambdaRegistryStore store = new LambdaRegistryStore(file);
+        assertThat(store.isCurrentFormat()).isFalse();
+
+        LambdaPersistenceSnapshot legacy = store.load();
+        store.save(legacy);
+
+        assertThat(store.isCurrentFormat()).isTrue();
+        LambdaPersistenceSnapshot migrated = store.load();
+        assertThat(migrated.catalog()).isEqualTo(legacy.catalog());
+        assertThat(migrated.artifacts()).isEqualTo(Map.of(0, new ArtifactRef("org.mvel3.Gen", Path.of("/tmp/Gen.class"))));
+    }
+
+    private static LambdaPersistenceSnapshot twoEntries(Path tmp) {
+        CatalogSnapshot catalog = new CatalogSnapshot(5, 6, List.of(
+                new CatalogEntry(4, "public boolean eval(java.lang.String s)", "{ return s.length() > 0; }"),
+                new CatalogEntry(1, "public boolean eval(java.lang.Object obj)", "{ return obj != null; }")
+        ));
+        return new LambdaPersistenceSnapshot(catalog, Map.of(1, new ArtifactRef("org.mvel3.GenA", tmp.resolve("GenA.class"))));
+    }
 }
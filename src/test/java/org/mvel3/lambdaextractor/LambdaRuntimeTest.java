@@ -66,7 +66,7 @@ class LambdaRuntimeTest {
         LambdaRuntime.resetSingletonForTests();
 
         try {
-            // Pre-write a valid v2 registry file.
+            // Pre-write a valid registry file.
             LambdaRegistryStore store = new LambdaRegistryStore(tmp.resolve("lambda-registry.dat"));
             CatalogSnapshot catalog = new CatalogSnapshot(1, 1, List.of(
                     new CatalogEntry(0, "public boolean eval(java.lang.Object o)", "{ return o != null; }")));
@@ -86,6 +86,45 @@ class LambdaRuntimeTest {
         }
     }
 
+    @Test
+    void M14_runtime_lazyInit_migratesVersion2File(@TempDir Path tmp) throws IOException {
+        String prevPath = System.getProperty("mvel3.compiler.lambda.persistence.path");
+        String prevReg = System.getProperty("mvel3.compiler.lambda.registry.file");
+        String prevReset = System.getProperty("mvel3.compiler.lambda.resetOnTestStartup");
+        Path registryFile = tmp.resolve("lambda-registry.dat");
+        System.setProperty("mvel3.compiler.lambda.persistence.path", tmp.toString());
+        System.setProperty("mvel3.compiler.lambda.registry.file", registryFile.toString());
+        System.setProperty("mvel3.compiler.lambda.resetOnTestStartup", "false");
+        LambdaRuntime.resetSingletonForTests();
+
+        try {
+            Files.writeString(registryFile, String.join("\n",
+                    "format.version=2",
+                    "catalog.nextPhysicalId=1",
+                    "catalog.nextLogicalId=1",
+                    "catalog.entry.0.physicalId=0",
+                    "catalog.entry.0.methodSignature=public boolean eval(java.lang.Object o)",
+                    "catalog.entry.0.normalizedBody={ return o != null; }",
+                    "artifact.0.physicalId=0",
+                    "artifact.0.fqn=org.example.Gen",
+                    "artifact.0.classFile=" + tmp.resolve("Gen.class").toString().replace("\\", "\\\\"),
+                    ""));
+
+            LambdaRuntime rt = LambdaRuntime.getInstance();
+
+            assertThat(rt.persistenceManager().artifactFor(0))
+                    .hasValueSatisfying(ref -> assertThat(ref.fqn()).isEqualTo("org.example.Gen"));
+            LambdaRegistryStore store = new LambdaRegistryStore(registryFile);
+            assertThat(store.isCurrentFormat()).isTrue();
+            assertThat(store.load().artifacts()).containsOnlyKeys(0);
+        } finally {
+            restoreProp("mvel3.compiler.lambda.persistence.path", prevPath);
+            restoreProp("mvel3.compiler.lambda.registry.file", prevReg);
+            restoreProp("mvel3.compiler.lambda.resetOnTestStartup", prevReset);
+            LambdaRuntime.resetSingletonForTests();
+        }
+    }
+
     private static void restoreProp(String key, String prev) {
         if (prev == null) System.clearProperty(key);
         else System.setProperty(key, prev);
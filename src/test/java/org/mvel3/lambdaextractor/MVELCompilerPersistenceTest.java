@@ -107,6 +107,31 @@ public class MVELCompilerPersistenceTest {
         assertThat(MVELCompiler.compileInvocationCount()).isEqualTo(afterSeed + 1);
     }
 
+    @Test
+    void M10b_batchCompiler_parallelShards_attachEveryArtifact() {
+        ClassManager batchCm = new ClassManager();
+        org.mvel3.MVELBatchCompiler batch = new org.mvel3.MVELBatchCompiler(batchCm, LambdaRuntime.defaultPersistencePath())
+                .parallel(2, 2);
+
+        java.util.List<org.mvel3.MVELBatchCompiler.LambdaHandle> handles = new java.util.ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CompilerParameters<MyPerson, Void, Boolean> info = MVEL.<MyPerson>pojo(MyPerson.class,
+                            Declaration.of("age", int.class))
+                    .<Boolean>out(Boolean.class)
+                    .expression("age > " + i)
+                    .imports(Set.of()).classManager(batchCm)
+                    .build();
+            handles.add(batch.add(info));
+        }
+        int before = MVELCompiler.compileInvocationCount();
+        batch.compile(Thread.currentThread().getContextClassLoader());
+
+        assertThat(MVELCompiler.compileInvocationCount()).isEqualTo(before + 1);
+        for (org.mvel3.MVELBatchCompiler.LambdaHandle handle : handles) {
+            assertThat(Files.exists(batch.getArtifactRef(handle).classFile())).isTrue();
+        }
+    }
+
     @Test
     void M12_batchCompiler_noPersist_doesNotTouchCatalog() {
         // No-persist batch must keep all state local to the instance and not
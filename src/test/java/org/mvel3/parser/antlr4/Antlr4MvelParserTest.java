@@ -16,6 +16,7 @@
 
 package org.mvel3.parser.antlr4;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.antlr.v4.runtime.tree.ParseTree;
@@ -26,12 +27,14 @@ import org.mvel3.parser.ast.expr.TemporalLiteralChunkExpr;
 import org.mvel3.parser.ast.expr.TemporalLiteralExpr;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mvel3.parser.antlr4.ParserTestUtil.assertParsedExpressionRoundTrip;
 import static org.mvel3.parser.antlr4.ParserTestUtil.getBinaryOperatorExpressionContext;
 import static org.mvel3.parser.antlr4.ParserTestUtil.getTemporalLiteralContext;
 import static org.mvel3.parser.printer.PrintUtil.printNode;
 
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.stmt.BlockStmt;
 
 /**
@@ -227,4 +230,28 @@ class Antlr4MvelParserTest {
                 "    t{status = RECEIVED};" + newLine() +
                 "}");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReusedParserRecoversAfterSyntaxError() {
+        Antlr4MvelParser parser = new Antlr4MvelParser();
+
+        ParseResult<Expression> first = parser.parseExpression("a + b * c");
+        assertThat(printNode(first.getResult().get())).isEqualTo("a + b * c");
+
+        assertThatThrownBy(() -> parser.parseExpression("a + * c"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Parse errors: line 1:");
+
+        ParseResult<Expression> second = parser.parseExpression("person.age > 10");
+        assertThat(printNode(second.getResult().get())).isEqualTo("person.age > 10");
+    }
+
+    @Test
+    void testWarmUpCountsParsedExpressions() {
+        int parsed = Antlr4MvelParser.warmUp(List.of("a + b", "person.getAddress().city == \"Rome\"", "a +"));
+        assertThat(parsed).isEqualTo(2);
+
+        ParseResult<Expression> result = new Antlr4MvelParser().parseExpression("a + b");
+        assertThat(printNode(result.getResult().get())).isEqualTo("a + b");
+    }
+}
@@ -0,0 +1,18 @@
+package org.mvel3.test;
+
+// A pojo that shares its simple name with org.mvel3.Columns, so it must still be read through its getters.
+public class Columns {
+    private String name;
+
+    public Columns(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
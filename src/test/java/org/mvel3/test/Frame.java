@@ -0,0 +1,18 @@
+package org.mvel3.test;
+
+// A pojo that shares its simple name with org.mvel3.Frame, so it must still be read through its getters.
+public class Frame {
+    private int a;
+
+    public Frame(int a) {
+        this.a = a;
+    }
+
+    public int getA() {
+        return a;
+    }
+
+    public void setA(int a) {
+        this.a = a;
+    }
+}
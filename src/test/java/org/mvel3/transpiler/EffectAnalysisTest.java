@@ -0,0 +1,153 @@
+package org.mvel3.transpiler;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mvel3.ClassManager;
+import org.mvel3.Evaluator;
+import org.mvel3.MVEL;
+import org.mvel3.Person;
+import org.mvel3.PureMethods;
+import org.mvel3.parser.MvelParser;
+import org.mvel3.transpiler.context.Declaration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EffectAnalysisTest {
+
+    @BeforeAll
+    static void enableAntlrParser() {
+        MvelParser.Factory.USE_ANTLR = true;
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> compile(String block, PureMethods pureMethods) {
+        return MVEL.map(Declaration.of("a", int.class),
+                        Declaration.of("name", String.class),
+                        Declaration.of("price", BigDecimal.class),
+                        Declaration.of("person", Person.class),
+                        Declaration.of("names", List.class),
+                        Declaration.of("lru", LinkedHashMap.class),
+                        Declaration.of("counter", AtomicInteger.class))
+                   .<Object>out(Object.class)
+                   .block(block)
+                   .pureMethods(pureMethods)
+                   .classManager(new ClassManager())
+                   .compile();
+    }
+
+    private static Evaluator<Map<String, Object>, Void, Object> compile(String block) {
+        return compile(block, PureMethods.defaults());
+    }
+
+    @Test
+    void arithmeticAndTrustedMethods_arePure() {
+        Evaluator<Map<String, Object>, Void, Object> ev = compile("return Math.max(a, 3) + name.trim().length() + " +
+                                                                  "price.multiply(price).intValue() + person.getAge();");
+        assertThat(ev.isPure()).isTrue();
+        assertThat(ev.writesContext()).isFalse();
+        assertThat(ev.callsExternalMethods()).isFalse();
+    }
+
+    @Test
+    void writeBack_writesContext() {
+        Evaluator<Map<String, Object>, Void, Object> ev = compile("a = a + 1; return a;");
+        assertThat(ev.writesContext()).isTrue();
+        assertThat(ev.callsExternalMethods()).isFalse();
+        assertThat(ev.isPure()).isFalse();
+    }
+
+    @Test
+    void localVariables_doNotWriteContext() {
+        Evaluator<Map<String, Object>, Void, Object> ev = compile("int b = a; b++; b = b * 2; return b;");
+        assertThat(ev.isPure()).isTrue();
+    }
+
+    @Test
+    void setterAndCollectionMutator_writeContext() {
+        assertThat(compile("person.setAge(3); return null;").writesContext()).isTrue();
+        assertThat(compile("names.add(name); return null;").writesContext()).isTrue();
+        assertThat(compile("return names.size();").isPure()).isTrue();
+    }
+
+    @Test
+    void untrustedCall_isExternal() {
+        Evaluator<Map<String, Object>, Void, Object> ev = compile("return Person.isEven(a);");
+        assertThat(ev.callsExternalMethods()).isTrue();
+        assertThat(ev.writesContext()).isFalse();
+        assertThat(ev.isPure()).isFalse();
+    }
+
+    @Test
+    void mathRandom_isExternal() {
+        assertThat(compile("return Math.random() * a;").callsExternalMethods()).isTrue();
+        assertThat(compile("return StrictMath.random();").isPure()).isFalse();
+        assertThat(compile("return Math.abs(a) + Math.sqrt(a);").isPure()).isTrue();
+        assertThat(PureMethods.defaults().isPure("java.lang.Math", "random")).isFalse();
+    }
+
+    @Test
+    void systemPropertyRead_isExternal() {
+        Evaluator<Map<String, Object>, Void, Object> ev = compile("return Integer.getInteger(\"limit\", 0) + a;");
+        assertThat(ev.callsExternalMethods()).isTrue();
+        assertThat(ev.isPure()).isFalse();
+        assertThat(compile("return Long.getLong(\"limit\");").isPure()).isFalse();
+        assertThat(compile("return Boolean.getBoolean(\"flag\");").isPure()).isFalse();
+        assertThat(compile("return Integer.valueOf(a) + Integer.parseInt(name) + Integer.compare(a, 3);").isPure()).isTrue();
+    }
+
+    @Test
+    void classOverrideOfInterfaceMethod_isExternal() {
+        // an access-ordered LinkedHashMap reorders itself on get
+        assertThat(compile("return lru.get(name);").callsExternalMethods()).isTrue();
+        assertThat(compile("return lru.get(name);", PureMethods.defaults().with("java.util.LinkedHashMap#get")).isPure()).isTrue();
+        // List redeclares Collection#size
+        assertThat(compile("return names.size() + names.indexOf(name);").isPure()).isTrue();
+    }
+
+    @Test
+    void getterNamedMethodWithoutField_isExternal() {
+        Evaluator<Map<String, Object>, Void, Object> ev = compile("return counter.getAndIncrement();");
+        assertThat(ev.callsExternalMethods()).isTrue();
+        assertThat(ev.isPure()).isFalse();
+
+        // a getter-named read without a field of its name needs an entry
+        assertThat(compile("return counter.getPlain();").isPure()).isFalse();
+        assertThat(compile("return counter.getPlain();",
+                           PureMethods.defaults().with(AtomicInteger.class.getName() + "#getPlain")).isPure()).isTrue();
+        assertThat(compile("return person.getName() + person.getAge();").isPure()).isTrue();
+    }
+
+    @Test
+    void allowListedCall_isPure() {
+        Evaluator<Map<String, Object>, Void, Object> ev = compile("return Person.isEven(a);",
+                                                                  PureMethods.defaults().with(Person.class.getName() + "#isEven"));
+        assertThat(ev.isPure()).isTrue();
+
+        assertThat(compile("return name.trim();", PureMethods.none()).callsExternalMethods()).isTrue();
+    }
+
+    @Test
+    void unanalysedEvaluator_isNotPure() {
+        Evaluator<Object, Void, Object> ev = new Evaluator<>() {};
+        assertThat(ev.isPure()).isFalse();
+        assertThat(ev.writesContext()).isTrue();
+        assertThat(ev.callsExternalMethods()).isTrue();
+    }
+
+    @Test
+    void pureMethodsEntries() {
+        assertThat(PureMethods.defaults().isPure("java.lang.String", "substring")).isTrue();
+        assertThat(PureMethods.defaults().isPure("java.util.Map", "get")).isTrue();
+        assertThat(PureMethods.defaults().isPure("java.util.Map", "put")).isFalse();
+        assertThat(PureMethods.defaults().isPure("java.lang.Integer", "parseInt")).isTrue();
+        assertThat(PureMethods.defaults().isPure("java.lang.Integer", "getInteger")).isFalse();
+        assertThat(PureMethods.defaults().isPure("java.lang.Long", "getLong")).isFalse();
+        assertThat(PureMethods.defaults().isPure("java.lang.Boolean", "getBoolean")).isFalse();
+        assertThat(PureMethods.of("a.B#c").with("a.D")).isEqualTo(PureMethods.of("a.D", "a.B#c"));
+    }
+}
@@ -1,10 +1,19 @@
 package org.mvel3.transpiler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
 import org.junit.jupiter.api.Test;
 import org.mvel3.ClassManager;
 import org.mvel3.CompilerParameters;
 import org.mvel3.Evaluator;
 import org.mvel3.MVEL;
+import org.mvel3.MVELBuilder;
+import org.mvel3.MVELCompiler;
 import org.mvel3.transpiler.context.Declaration;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,6 +37,37 @@ class ReadPropertiesTest {
         return new MVEL().compilePojoEvaluator(info);
     }
 
+    private Evaluator<Object, Void, Object> compileBlock(String block, List<String> propertyIndex) {
+        CompilerParameters<Object, Void, Object> info = MVEL.pojo(ReadPropsFixture.class,
+                        Declaration.of("salary", int.class),
+                        Declaration.of("basePay", int.class),
+                        Declaration.of("active", boolean.class))
+                .<Object>out(Object.class)
+                .block(block)
+                .propertyIndex(propertyIndex)
+                .classManager(new ClassManager())
+                .build();
+        return new MVEL().compilePojoEvaluator(info);
+    }
+
+    private static MVELBuilder.ContentBuilder<Map<String, Object>, Void, Object> fixtureMap() {
+        return MVEL.map(Declaration.of("fixture", ReadPropsFixture.class),
+                        Declaration.of("values", Map.class))
+                   .<Object>out(Object.class);
+    }
+
+    // the write properties the transpiler emits, for blocks such as modify whose update call only resolves in a rule
+    private static List<String> transpiledWriteProperties(String block) {
+        CompilationUnit unit = new MVELCompiler().transpileToCompilationUnit(fixtureMap().block(block)
+                                                                                          .classManager(new ClassManager())
+                                                                                          .build());
+        MethodDeclaration writes = unit.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals("getWriteProperties"))
+                                       .orElseThrow();
+        return writes.findAll(StringLiteralExpr.class).stream()
+                     .map(StringLiteralExpr::asString)
+                     .toList();
+    }
+
     @Test
     void bareNameExpr_collectsProperty() {
         Evaluator<Object, Void, Boolean> ev = compile("salary > 0");
@@ -45,4 +85,81 @@ class ReadPropertiesTest {
         Evaluator<Object, Void, Boolean> ev = compile("1 == 1");
         assertThat(ev.getReadProperties()).isEmpty();
     }
+
+    @Test
+    void assignmentAndIncrement_collectWrites() {
+        Evaluator<Object, Void, Object> ev = compileBlock("salary = basePay * 2; basePay++; return salary;", List.of());
+        assertThat(ev.getWriteProperties()).containsExactly("salary", "basePay");
+        assertThat(ev.getReadProperties()).contains("salary", "basePay");
+    }
+
+    @Test
+    void setterCall_collectsWrite() {
+        Evaluator<Map<String, Object>, Void, Object> ev = MVEL.map(Declaration.of("fixture", ReadPropsFixture.class))
+                .<Object>out(Object.class)
+                .block("fixture.setActive(true); return null;")
+                .classManager(new ClassManager())
+                .compile();
+        assertThat(ev.getWriteProperties()).containsExactly("active");
+    }
+
+    @Test
+    void fieldAccessTarget_collectsLeafAndRoot() {
+        Evaluator<Map<String, Object>, Void, Object> ev = fixtureMap().block("fixture.salary = 3; return null;")
+                                                                       .classManager(new ClassManager())
+                                                                       .compile();
+        assertThat(ev.getWriteProperties()).containsExactly("salary", "fixture");
+    }
+
+    @Test
+    void putWithLiteralKey_collectsWrite() {
+        Evaluator<Map<String, Object>, Void, Object> ev = fixtureMap().block("values.put(\"k\", 1); return null;")
+                                                                       .classManager(new ClassManager())
+                                                                       .compile();
+        assertThat(ev.getWriteProperties()).containsExactly("k");
+    }
+
+    @Test
+    void modifyAndWithTargets_collectWrites() {
+        assertThat(transpiledWriteProperties("modify (fixture) { salary = 3; } return null;")).containsExactly("fixture", "salary");
+        assertThat(transpiledWriteProperties("with (fixture) { basePay = 4; } return null;")).containsExactly("fixture", "basePay");
+    }
+
+    @Test
+    void readOnlyExpression_writesNothing() {
+        Evaluator<Object, Void, Boolean> ev = compile("salary > 0");
+        assertThat(ev.getWriteProperties()).isEmpty();
+        assertThat(ev.getReadMask()).isEmpty();
+        assertThat(ev.getWriteMask()).isEmpty();
+    }
+
+    @Test
+    void propertyIndex_buildsMasks() {
+        List<String> index = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            index.add("p" + i);
+        }
+        index.set(2, "salary");
+        index.set(65, "basePay");
+        index.set(3, "active");
+
+        Evaluator<Object, Void, Object> ev = compileBlock("salary = basePay + 1; return salary;", index);
+        assertThat(ev.getReadMask()).containsExactly(1L << 2, 1L << 1);
+        assertThat(ev.getWriteMask()).containsExactly(1L << 2, 0L);
+    }
+
+    @Test
+    void getters_returnCopies() {
+        Evaluator<Object, Void, Object> ev = compileBlock("salary = basePay; return salary;", List.of("salary", "basePay"));
+        assertThat(ev.getReadProperties()).isNotSameAs(ev.getReadProperties());
+        assertThat(ev.getWriteProperties()).isNotSameAs(ev.getWriteProperties());
+        assertThat(ev.getReadMask()).isNotSameAs(ev.getReadMask());
+        assertThat(ev.getWriteMask()).isNotSameAs(ev.getWriteMask());
+
+        // a caller changing its copy does not change what the evaluator reports
+        ev.getReadProperties()[0] = "changed";
+        ev.getReadMask()[0] = 0L;
+        assertThat(ev.getReadProperties()).containsExactlyInAnyOrder("salary", "basePay");
+        assertThat(ev.getReadMask()).containsExactly(0b11L);
+    }
 }
@@ -0,0 +1,84 @@
+package org.mvel3.transpiler.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.javaparser.resolution.MethodUsage;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import org.junit.jupiter.api.Test;
+import org.mvel3.ClassManager;
+import org.mvel3.Evaluator;
+import org.mvel3.MVEL;
+import org.mvel3.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResolutionCacheTest {
+
+    @Test
+    void testSharedPerClassLoaderUntilInvalidated() {
+        ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {};
+        ResolutionCache cache = ResolutionCache.forClassLoader(classLoader);
+
+        assertThat(ResolutionCache.forClassLoader(classLoader)).isSameAs(cache);
+        assertThat(ResolutionCache.forClassLoader(null)).isNotSameAs(cache);
+
+        ResolutionCache.invalidate(classLoader);
+        assertThat(ResolutionCache.forClassLoader(classLoader)).isNotSameAs(cache);
+    }
+
+    @Test
+    void testTypeSolversShareResolvedDeclarations() {
+        ResolutionCache cache = ResolutionCache.forClassLoader(getClass().getClassLoader());
+
+        ResolvedReferenceTypeDeclaration first = cache.newTypeSolver().solveType(Person.class.getCanonicalName());
+        ResolvedReferenceTypeDeclaration second = cache.newTypeSolver().solveType(Person.class.getCanonicalName());
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.newTypeSolver().hasType("org.mvel3.DoesNotExist")).isFalse();
+    }
+
+    @Test
+    void testMemberLookupsAreMemoised() {
+        ResolutionCache cache = ResolutionCache.forClassLoader(getClass().getClassLoader());
+        ResolvedReferenceTypeDeclaration person = cache.newTypeSolver().solveType(Person.class.getCanonicalName());
+
+        MethodUsage getter = cache.findGetterSetter("get", "name", 0, person);
+        assertThat(getter.getName()).isEqualTo("getName");
+        assertThat(cache.findGetterSetter("get", "name", 0, person)).isSameAs(getter);
+        assertThat(cache.findGetterSetter("set", "name", 1, person).getName()).isEqualTo("setName");
+        assertThat(cache.findGetterSetter("get", "noSuchProperty", 0, person)).isNull();
+
+        assertThat(cache.isPublicField(person, "publicAge")).isTrue();
+        assertThat(cache.isPublicField(person, "age")).isFalse();
+    }
+
+    @Test
+    void testConcurrentTranspilationsShareTheCache() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                int n = i;
+                results.add(executor.submit(() -> {
+                    Evaluator<Person, Void, Object> evaluator = MVEL.<Person>pojo(Person.class, Declaration.of("age", int.class))
+                                                                    .<Object>out(Object.class)
+                                                                    .expression("age + " + n)
+                                                                    .classManager(new ClassManager())
+                                                                    .compile();
+                    Person person = new Person("yoda");
+                    person.setAge(900);
+                    return evaluator.eval(person);
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get()).isEqualTo(900 + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}